@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.benchmark;
+
+import es.usc.citius.hipster.algorithm.AStar;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.graph.GraphSearchProblem;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import es.usc.citius.hipster.util.examples.maze.Maze2D;
+import es.usc.citius.lab.hipster.collections.adapter.StateIndexedQueue;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.*;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the default lazy-deletion {@link java.util.PriorityQueue} used by {@link AStar}
+ * with the {@link StateIndexedQueue} (indexed d-ary heap with decrease-key). Each invocation
+ * runs a full Dijkstra search over a random sparse graph and an A* search over a random maze.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AStarQueueBenchmark {
+
+    public enum QueueType { PRIORITY_QUEUE, INDEXED_HEAP }
+
+    @Param({"PRIORITY_QUEUE", "INDEXED_HEAP"})
+    public QueueType queue;
+
+    @Param({"20000"})
+    public int vertices;
+
+    @Param({"256"})
+    public int mazeSize;
+
+    private SearchProblem<Double, Integer, WeightedNode<Double, Integer, Double>> graphProblem;
+    private SearchProblem<Void, Point, WeightedNode<Void, Point, Double>> mazeProblem;
+
+    @Setup
+    public void setup() {
+        graphProblem = GraphSearchProblem.startingFrom(0)
+                .in(Workloads.randomGraph(vertices, 6, 42L))
+                .takeCostsFromEdges()
+                .build();
+        Maze2D maze = Workloads.maze(mazeSize, 0.25, 42L);
+        mazeProblem = Workloads.mazeProblem(maze);
+    }
+
+    @Benchmark
+    public void dijkstraRandomGraph(Blackhole bh) {
+        AStar<Double, Integer, Double, WeightedNode<Double, Integer, Double>>.Iterator it =
+                Hipster.createDijkstra(graphProblem).iterator();
+        configure(it);
+        while (it.hasNext()) {
+            bh.consume(it.next());
+        }
+    }
+
+    @Benchmark
+    public void aStarMaze(Blackhole bh) {
+        AStar<Void, Point, Double, WeightedNode<Void, Point, Double>>.Iterator it =
+                Hipster.createAStar(mazeProblem).iterator();
+        configure(it);
+        while (it.hasNext()) {
+            bh.consume(it.next());
+        }
+    }
+
+    private <A, S> void configure(AStar<A, S, Double, WeightedNode<A, S, Double>>.Iterator it) {
+        if (queue == QueueType.INDEXED_HEAP) {
+            Queue<WeightedNode<A, S, Double>> indexed = new StateIndexedQueue<A, S, WeightedNode<A, S, Double>>();
+            indexed.addAll(it.getQueue());
+            it.setQueue(indexed);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.benchmark;
+
+import es.usc.citius.hipster.algorithm.AStar;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.graph.CompressedHipsterDirectedGraph;
+import es.usc.citius.hipster.graph.GraphSearchProblem;
+import es.usc.citius.hipster.graph.Pair;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.util.Function;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batches of random point-to-point Dijkstra queries on a compressed random graph
+ * (see {@link Workloads#randomGraph(int, int, long)}) solved with
+ * {@link es.usc.citius.hipster.algorithm.BatchSearch}. {@code batch} reports the time
+ * to solve the whole batch with a different number of threads ({@code threads = 1} is
+ * the sequential baseline).
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"10000"})
+    public int vertices;
+
+    @Param({"6"})
+    public int degree;
+
+    @Param({"64"})
+    public int queries;
+
+    private Function<Integer, AStar<Double, Integer, Double, WeightedNode<Double, Integer, Double>>> dijkstra;
+    private List<Pair<Integer>> batch;
+    private ExecutorService executor;
+
+    @Setup
+    public void setup() {
+        final CompressedHipsterDirectedGraph<Integer, Double> graph =
+                CompressedHipsterDirectedGraph.copyOf(Workloads.randomGraph(vertices, degree, 42L));
+        dijkstra = new Function<Integer, AStar<Double, Integer, Double, WeightedNode<Double, Integer, Double>>>() {
+            @Override
+            public AStar<Double, Integer, Double, WeightedNode<Double, Integer, Double>> apply(Integer source) {
+                return Hipster.createDijkstra(GraphSearchProblem.startingFrom(source).in(graph).takeCostsFromEdges().build());
+            }
+        };
+        Random random = new Random(42L);
+        batch = new ArrayList<Pair<Integer>>(queries);
+        for (int i = 0; i < queries; i++) {
+            batch.add(new Pair<Integer>(random.nextInt(vertices), random.nextInt(vertices)));
+        }
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object batch() throws Exception {
+        return Hipster.batch(dijkstra).useExecutor(executor).search(batch).getResults();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.benchmark;
+
+import es.usc.citius.hipster.algorithm.ExternalBreadthFirstSearch;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.examples.problem.NPuzzle.Puzzle;
+import es.usc.citius.hipster.examples.problem.NPuzzle.PuzzleMove;
+import es.usc.citius.hipster.model.function.StateSerializer;
+import es.usc.citius.hipster.model.impl.UnweightedNode;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Explores all the boards of the 8-Puzzle (181440) with the in-memory
+ * {@link es.usc.citius.hipster.algorithm.BreadthFirstSearch} and with the {@link ExternalBreadthFirstSearch},
+ * which stores the layers on disk. {@code memoryLimit} is the size of the buffer of successors of the external
+ * search and {@code duplicateLayers} the number of layers merged to remove the duplicates (2 is enough for the
+ * N-Puzzle, since all the moves can be undone).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExternalBreadthFirstSearchBenchmark {
+
+    public enum Storage { MEMORY, EXTERNAL }
+
+    @Param({"MEMORY", "EXTERNAL"})
+    public Storage storage;
+
+    @Param({"1048576"})
+    public long memoryLimit;
+
+    @Param({"2", "2147483647"})
+    public int duplicateLayers;
+
+    private static final StateSerializer<Puzzle> BOARDS = new StateSerializer<Puzzle>() {
+        @Override
+        public void write(Puzzle state, DataOutput out) throws IOException {
+            int[][] board = state.getMatrixBoard();
+            out.writeByte(board.length);
+            for (int[] row : board) {
+                for (int tile : row) {
+                    out.writeByte(tile);
+                }
+            }
+        }
+
+        @Override
+        public Puzzle read(DataInput in) throws IOException {
+            int size = in.readByte();
+            int[][] board = new int[size][size];
+            for (int[] row : board) {
+                for (int i = 0; i < size; i++) {
+                    row[i] = in.readByte();
+                }
+            }
+            return new Puzzle(board);
+        }
+    };
+
+    private SearchProblem<PuzzleMove, Puzzle, UnweightedNode<PuzzleMove, Puzzle>> problem;
+    private File directory;
+
+    @Setup
+    public void setup() {
+        problem = Workloads.puzzleReachabilityProblem(Workloads.puzzleGoal(3));
+    }
+
+    @Setup(Level.Invocation)
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("external-bfs").toFile();
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteDirectory() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) file.delete();
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public long explore() {
+        long states = 0;
+        if (storage == Storage.MEMORY) {
+            for (UnweightedNode<PuzzleMove, Puzzle> node : Hipster.createBreadthFirstSearch(problem)) {
+                states++;
+            }
+            return states;
+        }
+        ExternalBreadthFirstSearch<PuzzleMove, Puzzle> bfs = Hipster.createExternalBreadthFirstSearch(problem, BOARDS, directory);
+        bfs.setMemoryLimit(memoryLimit);
+        bfs.setDuplicateLayers(duplicateLayers);
+        for (UnweightedNode<PuzzleMove, Puzzle> node : bfs) {
+            states++;
+        }
+        return states;
+    }
+}
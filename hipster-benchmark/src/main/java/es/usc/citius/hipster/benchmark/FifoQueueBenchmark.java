@@ -0,0 +1,102 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.benchmark;
+
+import es.usc.citius.hipster.algorithm.BellmanFord;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.graph.GraphSearchProblem;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import es.usc.citius.lab.hipster.collections.ArrayHashQueue;
+import es.usc.citius.lab.hipster.collections.HashQueue;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link HashQueue} (backed by a {@link java.util.LinkedHashSet}) with the
+ * {@link ArrayHashQueue} (circular array and open-addressing set) used by {@link BellmanFord}.
+ * {@code bellmanFordRandomGraph} runs a full Bellman-Ford search over a random sparse graph and
+ * {@code offerPoll} replays a sequence of offers (with duplicates) and polls.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FifoQueueBenchmark {
+
+    public enum QueueType { HASH_QUEUE, ARRAY_HASH_QUEUE }
+
+    @Param({"HASH_QUEUE", "ARRAY_HASH_QUEUE"})
+    public QueueType queue;
+
+    @Param({"20000"})
+    public int vertices;
+
+    @Param({"1000000"})
+    public int operations;
+
+    private SearchProblem<Double, Integer, WeightedNode<Double, Integer, Double>> graphProblem;
+    private Integer[] sequence;
+
+    @Setup
+    public void setup() {
+        graphProblem = GraphSearchProblem.startingFrom(0)
+                .in(Workloads.randomGraph(vertices, 6, 42L))
+                .takeCostsFromEdges()
+                .build();
+        // Two offers per poll on average, with repeated elements
+        Random random = new Random(42L);
+        sequence = new Integer[operations];
+        for (int i = 0; i < operations; i++) {
+            sequence[i] = (random.nextInt(3) == 0) ? null : random.nextInt(vertices);
+        }
+    }
+
+    private <S> Queue<S> create() {
+        return (queue == QueueType.HASH_QUEUE) ? new HashQueue<S>() : new ArrayHashQueue<S>();
+    }
+
+    @Benchmark
+    public void bellmanFordRandomGraph(Blackhole bh) {
+        BellmanFord<Double, Integer, Double, WeightedNode<Double, Integer, Double>>.Iterator it =
+                Hipster.createBellmanFord(graphProblem).iterator();
+        Queue<Integer> states = create();
+        states.addAll(it.getQueue());
+        it.setQueue(states);
+        while (it.hasNext()) {
+            bh.consume(it.next());
+        }
+    }
+
+    @Benchmark
+    public void offerPoll(Blackhole bh) {
+        Queue<Integer> states = create();
+        for (Integer e : sequence) {
+            if (e == null) {
+                bh.consume(states.poll());
+            } else {
+                states.offer(e);
+            }
+        }
+    }
+}
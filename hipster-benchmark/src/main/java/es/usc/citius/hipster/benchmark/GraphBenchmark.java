@@ -0,0 +1,159 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.benchmark;
+
+import es.usc.citius.hipster.algorithm.Algorithm;
+import es.usc.citius.hipster.algorithm.DepthLimitedSearch;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.graph.CompressedHipsterDirectedGraph;
+import es.usc.citius.hipster.graph.GraphSearchProblem;
+import es.usc.citius.hipster.graph.HipsterDirectedGraph;
+import es.usc.citius.hipster.graph.MappedHipsterDirectedGraph;
+import es.usc.citius.hipster.model.function.HeuristicFunction;
+import es.usc.citius.hipster.model.impl.UnweightedNode;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.SearchComponents;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Graph search algorithms on random sparse directed graphs (see {@link Workloads#randomGraph(int, int, long)})
+ * solved through {@link GraphSearchProblem}, using the hash-based, the compressed and the memory-mapped graph implementations.
+ * {@code expansions} reports the nodes expanded per second (see {@link Expansions}) and {@code firstSolution}
+ * the time to reach the last vertex of the graph from the first one (for ARA*, the time to its first solution).
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphBenchmark {
+
+    public enum AlgorithmType { DIJKSTRA, BELLMAN_FORD, PARALLEL_BELLMAN_FORD, BREADTH_FIRST, PARALLEL_BREADTH_FIRST, DIRECTION_OPTIMIZING_BFS, DEPTH_FIRST, DEPTH_LIMITED, ADSTAR, BIDIRECTIONAL_ASTAR, ANYTIME_ASTAR, MULTIOBJECTIVE_LS }
+
+    public enum GraphType { HASH, COMPRESSED, MAPPED }
+
+    @Param({"DIJKSTRA", "BELLMAN_FORD", "PARALLEL_BELLMAN_FORD", "BREADTH_FIRST", "PARALLEL_BREADTH_FIRST", "DIRECTION_OPTIMIZING_BFS", "DEPTH_FIRST", "DEPTH_LIMITED", "ADSTAR", "BIDIRECTIONAL_ASTAR", "ANYTIME_ASTAR", "MULTIOBJECTIVE_LS"})
+    public AlgorithmType algorithm;
+
+    @Param({"HASH", "COMPRESSED"})
+    public GraphType graph;
+
+    @Param({"10000"})
+    public int vertices;
+
+    @Param({"6"})
+    public int degree;
+
+    @Param({"1000000"})
+    public int limit;
+
+    // Maximum number of expansions of the depth limited search
+    @Param({"2000"})
+    public int depth;
+
+    private Integer goal;
+    private HipsterDirectedGraph<Integer, Double> directed;
+    private SearchProblem<Double, Integer, WeightedNode<Double, Integer, Double>> weighted;
+    private SearchProblem<Double, Integer, UnweightedNode<Double, Integer>> unweighted;
+    private SearchComponents<Double, Integer, Double> components;
+    // Without heuristic, so the bidirectional search can use the bidirectional Dijkstra stopping criterion
+    private SearchComponents<Double, Integer, Double> uninformedComponents;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() throws IOException {
+        HipsterDirectedGraph<Integer, Double> g = Workloads.randomGraph(vertices, degree, 42L);
+        if (graph == GraphType.COMPRESSED) {
+            g = CompressedHipsterDirectedGraph.copyOf(g);
+        } else if (graph == GraphType.MAPPED) {
+            File file = File.createTempFile("hipster-graph", ".bin");
+            file.deleteOnExit();
+            MappedHipsterDirectedGraph.write(g, file);
+            g = MappedHipsterDirectedGraph.map(file);
+        }
+        goal = vertices - 1;
+        directed = g;
+        weighted = GraphSearchProblem.startingFrom(0).in(g).takeCostsFromEdges().build();
+        unweighted = GraphSearchProblem.startingFrom(0).goalAt(goal).in(g).build();
+        components = GraphSearchProblem.startingFrom(0).goalAt(goal).in(g).takeCostsFromEdges()
+                .useHeuristicFunction(new HeuristicFunction<Integer, Double>() {
+                    @Override
+                    public Double estimate(Integer state) {
+                        return 0d;
+                    }
+                }).components();
+        uninformedComponents = GraphSearchProblem.startingFrom(0).goalAt(goal).in(g).takeCostsFromEdges()
+                .useHeuristicFunction(null).components();
+        pool = new ForkJoinPool();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    private Algorithm<Double, Integer, ?> create() {
+        switch (algorithm) {
+            case DIJKSTRA: return Hipster.createDijkstra(weighted);
+            case BELLMAN_FORD: return Hipster.createBellmanFord(weighted);
+            case PARALLEL_BELLMAN_FORD: return Hipster.createBellmanFord(weighted, pool);
+            case BREADTH_FIRST: return Hipster.createBreadthFirstSearch(unweighted);
+            case PARALLEL_BREADTH_FIRST: return Hipster.createBreadthFirstSearch(unweighted, pool);
+            case DIRECTION_OPTIMIZING_BFS: return Hipster.createBreadthFirstSearch(0, directed);
+            case DEPTH_FIRST: return Hipster.createDepthFirstSearch(unweighted);
+            case ADSTAR: return Hipster.createADStar(components);
+            case BIDIRECTIONAL_ASTAR: return Hipster.createBidirectionalAStar(uninformedComponents);
+            case ANYTIME_ASTAR: return Hipster.createAnytimeAStar(components);
+            case MULTIOBJECTIVE_LS: return Hipster.createMultiobjectiveLS(weighted);
+            default: throw new IllegalArgumentException("Unsupported algorithm " + algorithm);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void expansions(Expansions expansions, Blackhole bh) {
+        if (algorithm == AlgorithmType.DEPTH_LIMITED) {
+            // Depth limited search does not provide an iterator
+            DepthLimitedSearch<Double, Integer, UnweightedNode<Double, Integer>> dls =
+                    Hipster.createDepthLimitedSearch(unweighted, depth);
+            bh.consume(dls.execute());
+            expansions.nodes += dls.getPath().size();
+        } else {
+            Searches.expand(create().iterator(), limit, expansions, bh);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object firstSolution() {
+        if (algorithm == AlgorithmType.DEPTH_LIMITED) {
+            return Hipster.createDepthLimitedSearch(unweighted, depth).execute();
+        }
+        if (algorithm == AlgorithmType.ANYTIME_ASTAR) {
+            return Searches.firstSolution(Hipster.createAnytimeAStar(components));
+        }
+        return create().search(goal);
+    }
+}
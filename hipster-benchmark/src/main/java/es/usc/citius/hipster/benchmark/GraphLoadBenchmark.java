@@ -0,0 +1,110 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.benchmark;
+
+import es.usc.citius.hipster.graph.CompressedHipsterDirectedGraph;
+import es.usc.citius.hipster.graph.GraphEdge;
+import es.usc.citius.hipster.graph.HashBasedHipsterDirectedGraph;
+import es.usc.citius.hipster.graph.HipsterDirectedGraph;
+import es.usc.citius.hipster.graph.MappedHipsterDirectedGraph;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to load a random sparse graph (see {@link Workloads#randomGraph(int, int, long)}) from its list of edges,
+ * edge by edge into a {@link HashBasedHipsterDirectedGraph} or a {@link CompressedHipsterDirectedGraph.Builder},
+ * compared with mapping a file previously written with {@link MappedHipsterDirectedGraph#write}. After loading,
+ * the outgoing edges of one vertex are read, so the mapped graph is actually accessed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphLoadBenchmark {
+
+    public enum GraphType { HASH, COMPRESSED, MAPPED }
+
+    @Param({"HASH", "COMPRESSED", "MAPPED"})
+    public GraphType graph;
+
+    @Param({"100000", "1000000"})
+    public int vertices;
+
+    @Param({"6"})
+    public int degree;
+
+    private int[] sources;
+    private int[] targets;
+    private double[] weights;
+    private File file;
+
+    @Setup
+    public void setup() throws IOException {
+        HipsterDirectedGraph<Integer, Double> g = Workloads.randomGraph(vertices, degree, 42L);
+        int edges = 0;
+        for (GraphEdge<Integer, Double> ignored : g.edges()) edges++;
+        sources = new int[edges];
+        targets = new int[edges];
+        weights = new double[edges];
+        int i = 0;
+        for (GraphEdge<Integer, Double> edge : g.edges()) {
+            sources[i] = edge.getVertex1();
+            targets[i] = edge.getVertex2();
+            weights[i++] = edge.getEdgeValue();
+        }
+        file = File.createTempFile("hipster-graph", ".bin");
+        file.deleteOnExit();
+        MappedHipsterDirectedGraph.write(g, file);
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public Object load() throws IOException {
+        HipsterDirectedGraph<Integer, Double> g;
+        switch (graph) {
+            case HASH:
+                HashBasedHipsterDirectedGraph<Integer, Double> hash = HashBasedHipsterDirectedGraph.create();
+                for (int v = 0; v < vertices; v++) {
+                    hash.add(v);
+                }
+                for (int i = 0; i < sources.length; i++) {
+                    hash.connect(sources[i], targets[i], weights[i]);
+                }
+                g = hash;
+                break;
+            case COMPRESSED:
+                CompressedHipsterDirectedGraph.Builder<Integer, Double> builder = CompressedHipsterDirectedGraph.builder();
+                for (int i = 0; i < sources.length; i++) {
+                    builder.connect(sources[i], targets[i], weights[i]);
+                }
+                g = builder.build();
+                break;
+            default:
+                g = MappedHipsterDirectedGraph.map(file);
+        }
+        return g.outgoingEdgesOf(vertices / 2).iterator().next();
+    }
+}
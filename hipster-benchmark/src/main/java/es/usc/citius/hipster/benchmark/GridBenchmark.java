@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.benchmark;
+
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.ProblemBuilder;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import es.usc.citius.hipster.util.examples.maze.Maze2D;
+import es.usc.citius.hipster.util.grid.BitGrid2D;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@code char[][]} grid of {@link Maze2D} with the bit-packed {@link BitGrid2D} on
+ * random mazes. {@code neighbors} computes the free neighbors of every cell of the maze (with
+ * {@link Maze2D#validLocationsFrom(java.awt.Point)} or {@link BitGrid2D#neighbors(int, int[])}), and
+ * {@code astar} solves the maze with A*, using points or cell ids as states.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GridBenchmark {
+
+    public enum GridType { MAZE, BIT_GRID }
+
+    @Param({"MAZE", "BIT_GRID"})
+    public GridType grid;
+
+    @Param({"256", "1024"})
+    public int size;
+
+    @Param({"0.25"})
+    public double fill;
+
+    private Maze2D maze;
+    private BitGrid2D bits;
+    private SearchProblem<Void, Point, WeightedNode<Void, Point, Double>> mazeProblem;
+    private SearchProblem<Void, Integer, WeightedNode<Void, Integer, Double>> gridProblem;
+
+    @Setup
+    public void setup() {
+        maze = Workloads.maze(size, fill, 42L);
+        bits = BitGrid2D.copyOf(maze, maze.getInitialLoc(), maze.getGoalLoc());
+        mazeProblem = Workloads.mazeProblem(maze);
+        gridProblem = ProblemBuilder.create()
+                .initialState(bits.getInitialCell(), bits.getGoalCell())
+                .useStateIndexer(bits.stateIndexer())
+                .defineProblemWithoutActions()
+                .useTransitionFunction(bits.transitionFunction())
+                .useCostFunction(bits.costFunction())
+                .useHeuristicFunction(bits.heuristicFunction(bits.getGoalCell()))
+                .build();
+    }
+
+    @Benchmark
+    public void neighbors(Blackhole bh) {
+        if (grid == GridType.MAZE) {
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    bh.consume(maze.validLocationsFrom(new Point(x, y)).size());
+                }
+            }
+        } else {
+            int[] neighbors = new int[8];
+            for (int cell = 0; cell < size * size; cell++) {
+                bh.consume(bits.neighbors(cell, neighbors));
+            }
+        }
+    }
+
+    @Benchmark
+    public Object astar() {
+        if (grid == GridType.MAZE) {
+            return Hipster.createAStar(mazeProblem).search(maze.getGoalLoc());
+        }
+        return Hipster.createAStar(gridProblem).search(bits.getGoalCell());
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.benchmark;
+
+import es.usc.citius.hipster.algorithm.AStar;
+import es.usc.citius.hipster.algorithm.Algorithm;
+import es.usc.citius.hipster.algorithm.BellmanFord;
+import es.usc.citius.hipster.algorithm.BreadthFirstSearch;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.algorithm.SearchContext;
+import es.usc.citius.hipster.model.function.StateIndexer;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.SearchComponents;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import es.usc.citius.hipster.util.examples.maze.Maze2D;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shortest path algorithms on random 8-connected {@link Maze2D} grids of increasing size.
+ * {@code expansions} reports the nodes expanded per second (see {@link Expansions}) and
+ * {@code firstSolution} the time to reach the goal of the maze (for ARA*, the time to its first,
+ * suboptimal, solution). The multiobjective label setting
+ * algorithm is only benchmarked on random graphs, since it keeps every path of equal cost and the
+ * number of equivalent paths in a grid grows exponentially.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MazeBenchmark {
+
+    public enum AlgorithmType { ASTAR, HDASTAR, DIJKSTRA, BELLMAN_FORD, BREADTH_FIRST, DEPTH_FIRST, ADSTAR, BIDIRECTIONAL_ASTAR, ANYTIME_ASTAR, JUMP_POINT }
+
+    // Reuse of the structures of A*, Dijkstra, Bellman-Ford and BFS between searches
+    public enum ContextType { NONE, HASH, INDEXED }
+
+    @Param({"ASTAR", "HDASTAR", "DIJKSTRA", "BELLMAN_FORD", "BREADTH_FIRST", "DEPTH_FIRST", "ADSTAR", "BIDIRECTIONAL_ASTAR", "ANYTIME_ASTAR", "JUMP_POINT"})
+    public AlgorithmType algorithm;
+
+    @Param({"64", "256"})
+    public int size;
+
+    @Param({"0.25"})
+    public double fill;
+
+    @Param({"1000000"})
+    public int limit;
+
+    @Param({"NONE"})
+    public ContextType context;
+
+    // Index the points of the maze in the problem definition
+    @Param({"false"})
+    public boolean indexed;
+
+    private Maze2D maze;
+    private Point goal;
+    private SearchProblem<Void, Point, WeightedNode<Void, Point, Double>> informed;
+    private SearchProblem<Void, Point, WeightedNode<Void, Point, Double>> uninformed;
+    private SearchComponents<Void, Point, Double> components;
+    private SearchContext<Point, WeightedNode<Void, Point, Double>> searchContext;
+
+    @Setup
+    public void setup() {
+        maze = Workloads.maze(size, fill, 42L);
+        goal = maze.getGoalLoc();
+        informed = Workloads.mazeProblem(maze);
+        uninformed = Workloads.uninformedMazeProblem(maze);
+        components = Workloads.mazeComponents(maze);
+        // The mazes are square, the points are indexed by row
+        StateIndexer<Point> indexer = new StateIndexer<Point>() {
+            @Override
+            public int indexOf(Point state) {
+                return state.x * size + state.y;
+            }
+
+            @Override
+            public int size() {
+                return size * size;
+            }
+        };
+        if (indexed) {
+            informed.setStateIndexer(indexer);
+            uninformed.setStateIndexer(indexer);
+        }
+        if (context != ContextType.NONE) {
+            searchContext = new SearchContext<Point, WeightedNode<Void, Point, Double>>(
+                    (context == ContextType.HASH) ? null : indexer);
+        }
+    }
+
+    private Algorithm<Void, Point, ?> create() {
+        switch (algorithm) {
+            case ASTAR:
+                AStar<Void, Point, Double, WeightedNode<Void, Point, Double>> astar = Hipster.createAStar(informed);
+                astar.setContext(searchContext);
+                return astar;
+            case HDASTAR: return Hipster.createHDAStar(informed, Runtime.getRuntime().availableProcessors());
+            case DIJKSTRA:
+                AStar<Void, Point, Double, WeightedNode<Void, Point, Double>> dijkstra = Hipster.createDijkstra(uninformed);
+                dijkstra.setContext(searchContext);
+                return dijkstra;
+            case BELLMAN_FORD:
+                BellmanFord<Void, Point, Double, WeightedNode<Void, Point, Double>> bellmanFord = Hipster.createBellmanFord(uninformed);
+                bellmanFord.setContext(searchContext);
+                return bellmanFord;
+            case BREADTH_FIRST:
+                BreadthFirstSearch<Void, Point, WeightedNode<Void, Point, Double>> bfs = Hipster.createBreadthFirstSearch(uninformed);
+                bfs.setContext(searchContext);
+                return bfs;
+            case DEPTH_FIRST: return Hipster.createDepthFirstSearch(uninformed);
+            case ADSTAR: return Hipster.createADStar(components);
+            case BIDIRECTIONAL_ASTAR: return Hipster.createBidirectionalAStar(components);
+            case ANYTIME_ASTAR: return Hipster.createAnytimeAStar(components);
+            case JUMP_POINT: return Hipster.createJumpPointSearch(maze, maze.getInitialLoc(), maze.getGoalLoc());
+            default: throw new IllegalArgumentException("Unsupported algorithm " + algorithm);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void expansions(Expansions expansions, Blackhole bh) {
+        Searches.expand(create().iterator(), limit, expansions, bh);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object firstSolution() {
+        if (algorithm == AlgorithmType.ANYTIME_ASTAR) {
+            return Searches.firstSolution(Hipster.createAnytimeAStar(components));
+        }
+        return create().search(goal);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.benchmark;
+
+import es.usc.citius.hipster.algorithm.Algorithm;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.algorithm.IDAStar;
+import es.usc.citius.hipster.examples.problem.NPuzzle.Puzzle;
+import es.usc.citius.hipster.examples.problem.NPuzzle.PuzzleMove;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import es.usc.citius.lab.hipster.collections.TranspositionTable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search algorithms on random N-Puzzle instances (see {@link Workloads#puzzle(int, int, long)}).
+ * {@code expansions} reports the nodes expanded per second (see {@link Expansions}) and
+ * {@code firstSolution} the time to reach the goal board.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NPuzzleBenchmark {
+
+    public enum AlgorithmType { ASTAR, HDASTAR, IDASTAR, IDASTAR_TT, PARALLEL_IDASTAR, SMASTAR, BELLMAN_FORD, BREADTH_FIRST, DEPTH_FIRST }
+
+    @Param({"ASTAR", "HDASTAR", "IDASTAR", "IDASTAR_TT", "PARALLEL_IDASTAR", "SMASTAR", "BELLMAN_FORD", "BREADTH_FIRST", "DEPTH_FIRST"})
+    public AlgorithmType algorithm;
+
+    @Param({"3"})
+    public int size;
+
+    // Number of random moves applied to the goal board
+    @Param({"20", "60"})
+    public int moves;
+
+    @Param({"1000000"})
+    public int limit;
+
+    // Max nodes in memory for SMA* and entries of the transposition table of IDA*
+    @Param({"10000"})
+    public int memory;
+
+    private Puzzle goal;
+    private SearchProblem<PuzzleMove, Puzzle, WeightedNode<PuzzleMove, Puzzle, Double>> problem;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        goal = Workloads.puzzleGoal(size);
+        problem = Workloads.puzzleProblem(Workloads.puzzle(size, moves, 42L));
+        pool = new ForkJoinPool();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    private Algorithm<PuzzleMove, Puzzle, WeightedNode<PuzzleMove, Puzzle, Double>> create() {
+        switch (algorithm) {
+            case ASTAR: return Hipster.createAStar(problem);
+            case HDASTAR: return Hipster.createHDAStar(problem, Runtime.getRuntime().availableProcessors());
+            case IDASTAR: return Hipster.createIDAStar(problem);
+            case IDASTAR_TT:
+                IDAStar<PuzzleMove, Puzzle, Double, WeightedNode<PuzzleMove, Puzzle, Double>> ida = Hipster.createIDAStar(problem);
+                ida.setTranspositionTable(new TranspositionTable<Puzzle, Double>(memory));
+                ida.setSuccessorOrdering(true);
+                return ida;
+            case PARALLEL_IDASTAR: return Hipster.createIDAStar(problem, pool);
+            case SMASTAR: return Hipster.createSMAStar(problem, memory);
+            case BELLMAN_FORD: return Hipster.createBellmanFord(problem);
+            case BREADTH_FIRST: return Hipster.createBreadthFirstSearch(problem);
+            case DEPTH_FIRST: return Hipster.createDepthFirstSearch(problem);
+            default: throw new IllegalArgumentException("Unsupported algorithm " + algorithm);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void expansions(Expansions expansions, Blackhole bh) {
+        Searches.expand(create().iterator(), limit, expansions, bh);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object firstSolution() {
+        return create().search(goal);
+    }
+}
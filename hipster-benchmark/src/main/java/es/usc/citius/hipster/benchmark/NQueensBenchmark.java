@@ -0,0 +1,89 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.benchmark;
+
+import es.usc.citius.hipster.algorithm.Algorithm;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.examples.problem.NQueens;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local search algorithms on the N-Queens problem (see {@link Workloads#queensProblem(int, long)}).
+ * {@code expansions} reports the nodes expanded per second (see {@link Expansions}) and
+ * {@code firstSolution} the time to find a board without attacked queens (or until the algorithm
+ * gets stuck in a local minimum or reaches the expansion limit).
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NQueensBenchmark {
+
+    public enum AlgorithmType { HILL_CLIMBING, ENFORCED_HILL_CLIMBING, ANNEALING }
+
+    @Param({"HILL_CLIMBING", "ENFORCED_HILL_CLIMBING", "ANNEALING"})
+    public AlgorithmType algorithm;
+
+    @Param({"8", "16"})
+    public int size;
+
+    // Enforced hill climbing runs a breadth first search without closed set on plateaus,
+    // which grows very fast, so the number of expansions is kept low
+    @Param({"2000"})
+    public int limit;
+
+    private SearchProblem<Void, NQueens, WeightedNode<Void, NQueens, Double>> problem;
+
+    @Setup
+    public void setup() {
+        problem = Workloads.queensProblem(size, 42L);
+    }
+
+    private Algorithm<Void, NQueens, WeightedNode<Void, NQueens, Double>> create() {
+        switch (algorithm) {
+            case HILL_CLIMBING: return Hipster.createHillClimbing(problem, false);
+            case ENFORCED_HILL_CLIMBING: return Hipster.createHillClimbing(problem, true);
+            case ANNEALING: return Hipster.createAnnealingSearch(problem, null, null, null, null);
+            default: throw new IllegalArgumentException("Unsupported algorithm " + algorithm);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void expansions(Expansions expansions, Blackhole bh) {
+        Searches.expand(create().iterator(), limit, expansions, bh);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object firstSolution() {
+        Iterator<WeightedNode<Void, NQueens, Double>> it = create().iterator();
+        for (int i = 0; i < limit && it.hasNext(); i++) {
+            WeightedNode<Void, NQueens, Double> node = it.next();
+            if (node.getScore().equals(0d)) return node;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.benchmark;
+
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.algorithm.OffHeapAStar;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.ProblemBuilder;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import es.usc.citius.hipster.util.examples.maze.Maze2D;
+import es.usc.citius.hipster.util.grid.BitGrid2D;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link es.usc.citius.hipster.algorithm.AStar}, which keeps its nodes in the heap, with
+ * {@link OffHeapAStar} storing the nodes in direct memory or in a memory-mapped file, solving random
+ * {@link BitGrid2D} mazes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OffHeapAStarBenchmark {
+
+    public enum Storage { HEAP, DIRECT, MAPPED }
+
+    @Param({"HEAP", "DIRECT", "MAPPED"})
+    public Storage storage;
+
+    @Param({"256", "1024"})
+    public int size;
+
+    @Param({"0.25"})
+    public double fill;
+
+    private BitGrid2D bits;
+    private SearchProblem<Void, Integer, WeightedNode<Void, Integer, Double>> problem;
+    private OffHeapAStar<Void, Integer> offHeap;
+    private File file;
+
+    @Setup
+    public void setup() throws IOException {
+        Maze2D maze = Workloads.maze(size, fill, 42L);
+        bits = BitGrid2D.copyOf(maze, maze.getInitialLoc(), maze.getGoalLoc());
+        problem = ProblemBuilder.create()
+                .initialState(bits.getInitialCell(), bits.getGoalCell())
+                .useStateIndexer(bits.stateIndexer())
+                .defineProblemWithoutActions()
+                .useTransitionFunction(bits.transitionFunction())
+                .useCostFunction(bits.costFunction())
+                .useHeuristicFunction(bits.heuristicFunction(bits.getGoalCell()))
+                .build();
+        offHeap = Hipster.createOffHeapAStar(problem);
+        if (storage == Storage.MAPPED) {
+            file = File.createTempFile("arena", ".bin");
+            file.deleteOnExit();
+            offHeap.setArenaFile(file);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (file != null) file.delete();
+    }
+
+    @Benchmark
+    public Object astar() {
+        if (storage == Storage.HEAP) {
+            return Hipster.createAStar(problem).search(bits.getGoalCell());
+        }
+        return offHeap.search(bits.getGoalCell());
+    }
+}
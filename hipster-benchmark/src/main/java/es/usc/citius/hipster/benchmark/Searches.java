@@ -0,0 +1,57 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.benchmark;
+
+import es.usc.citius.hipster.algorithm.AnytimeAStar;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+
+/**
+ * Helper methods shared by the benchmarks.
+ */
+final class Searches {
+
+    private Searches() {
+
+    }
+
+    /**
+     * Consumes the nodes of a search iterator until it is exhausted or {@code limit}
+     * nodes have been expanded, adding them to the counter.
+     */
+    static void expand(Iterator<?> it, int limit, Expansions expansions, Blackhole bh) {
+        int expanded = 0;
+        while (expanded < limit && it.hasNext()) {
+            bh.consume(it.next());
+            expanded++;
+        }
+        expansions.nodes += expanded;
+    }
+
+    /**
+     * Runs ARA* until it finds its first (suboptimal) solution, without the refinement
+     * iterations that decrease the inflation factor.
+     */
+    static <A, S, C extends Comparable<C>> Object firstSolution(AnytimeAStar<A, S, C> algorithm) {
+        AnytimeAStar<A, S, C>.Iterator it = algorithm.iterator();
+        while (it.getSolution() == null && it.hasNext()) {
+            it.next();
+        }
+        return it.getSolution();
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.benchmark;
+
+import es.usc.citius.hipster.examples.problem.NPuzzle.Puzzle;
+import es.usc.citius.hipster.examples.problem.NPuzzle.PuzzleMove;
+import es.usc.citius.hipster.examples.problem.NQueens;
+import es.usc.citius.hipster.graph.HashBasedHipsterDirectedGraph;
+import es.usc.citius.hipster.graph.HipsterDirectedGraph;
+import es.usc.citius.hipster.model.Transition;
+import es.usc.citius.hipster.model.function.ActionFunction;
+import es.usc.citius.hipster.model.function.ActionStateTransitionFunction;
+import es.usc.citius.hipster.model.function.CostFunction;
+import es.usc.citius.hipster.model.function.HeuristicFunction;
+import es.usc.citius.hipster.model.function.TransitionFunction;
+import es.usc.citius.hipster.model.function.impl.BinaryOperation;
+import es.usc.citius.hipster.model.function.impl.ScalarOperation;
+import es.usc.citius.hipster.model.function.impl.StateTransitionFunction;
+import es.usc.citius.hipster.model.impl.UnweightedNode;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.ProblemBuilder;
+import es.usc.citius.hipster.model.problem.SearchComponents;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import es.usc.citius.hipster.util.examples.maze.Maze2D;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Standard workloads shared by the benchmarks. All the workloads are generated
+ * from a fixed seed so the results are comparable between runs.
+ */
+public final class Workloads {
+
+    private Workloads() {
+
+    }
+
+    /**
+     * Generates a random directed graph where each vertex is connected to {@code degree}
+     * random vertices with a random weight in [1, 100). Vertex 0 is connected to all the
+     * other vertices through a chain so that every vertex is reachable from it.
+     *
+     * @param vertices number of vertices
+     * @param degree number of outgoing edges of each vertex
+     * @param seed random seed
+     * @return random sparse directed graph
+     */
+    public static HipsterDirectedGraph<Integer, Double> randomGraph(int vertices, int degree, long seed) {
+        Random random = new Random(seed);
+        HashBasedHipsterDirectedGraph<Integer, Double> graph = HashBasedHipsterDirectedGraph.create();
+        for (int v = 0; v < vertices; v++) {
+            graph.add(v);
+        }
+        for (int v = 0; v < vertices; v++) {
+            if (v + 1 < vertices) {
+                graph.connect(v, v + 1, 1d + random.nextInt(99));
+            }
+            for (int e = 1; e < degree; e++) {
+                graph.connect(v, random.nextInt(vertices), 1d + random.nextInt(99));
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Generates a square maze with a {@code fill} ratio of random obstacles, the start
+     * at the top left corner and the goal at the bottom right corner.
+     *
+     * @param size number of rows and columns of the maze
+     * @param fill ratio of occupied tiles (between 0 and 1)
+     * @param seed random seed
+     * @return random maze
+     */
+    public static Maze2D maze(int size, double fill, long seed) {
+        Random random = new Random(seed);
+        char[][] tiles = new char[size][size];
+        for (int row = 0; row < size; row++) {
+            Arrays.fill(tiles[row], Maze2D.Symbol.EMPTY.value());
+            for (int column = 0; column < size; column++) {
+                if (random.nextDouble() < fill) tiles[row][column] = Maze2D.Symbol.OCCUPIED.value();
+            }
+        }
+        tiles[0][0] = Maze2D.Symbol.START.value();
+        tiles[size - 1][size - 1] = Maze2D.Symbol.GOAL.value();
+        return new Maze2D(tiles);
+    }
+
+    /**
+     * Creates the 8-connected shortest path problem of a maze, using the euclidean
+     * distance as cost and heuristic.
+     *
+     * @param maze maze to solve
+     * @return search problem from the initial location of the maze
+     */
+    public static SearchProblem<Void, Point, WeightedNode<Void, Point, Double>> mazeProblem(Maze2D maze) {
+        return ProblemBuilder.create()
+                .initialState(maze.getInitialLoc(), maze.getGoalLoc())
+                .defineProblemWithoutActions()
+                .useTransitionFunction(mazeTransitions(maze))
+                .useCostFunction(MAZE_COST)
+                .useHeuristicFunction(mazeHeuristic(maze))
+                .build();
+    }
+
+    /**
+     * Creates the 8-connected shortest path problem of a maze, using the euclidean
+     * distance as cost and no heuristic.
+     *
+     * @param maze maze to solve
+     * @return search problem from the initial location of the maze
+     */
+    public static SearchProblem<Void, Point, WeightedNode<Void, Point, Double>> uninformedMazeProblem(Maze2D maze) {
+        return ProblemBuilder.create()
+                .initialState(maze.getInitialLoc(), maze.getGoalLoc())
+                .defineProblemWithoutActions()
+                .useTransitionFunction(mazeTransitions(maze))
+                .useCostFunction(MAZE_COST)
+                .build();
+    }
+
+    /**
+     * Creates the search components of the maze problem (see {@link #mazeProblem(Maze2D)}),
+     * required by {@link es.usc.citius.hipster.algorithm.ADStarForward}. As the maze is undirected,
+     * the same function is used to compute the successors and the predecessors of each location.
+     *
+     * @param maze maze to solve
+     * @return search components of the maze
+     */
+    public static SearchComponents<Void, Point, Double> mazeComponents(Maze2D maze) {
+        TransitionFunction<Void, Point> tf = mazeTransitions(maze);
+        return new SearchComponents<Void, Point, Double>(maze.getInitialLoc(), maze.getGoalLoc(), MAZE_COST,
+                mazeHeuristic(maze), tf, tf, BinaryOperation.doubleAdditionOp(), ScalarOperation.doubleMultiplicationOp());
+    }
+
+    private static final CostFunction<Void, Point, Double> MAZE_COST = new CostFunction<Void, Point, Double>() {
+        @Override
+        public Double evaluate(Transition<Void, Point> transition) {
+            return transition.getFromState().distance(transition.getState());
+        }
+    };
+
+    private static StateTransitionFunction<Point> mazeTransitions(final Maze2D maze) {
+        return new StateTransitionFunction<Point>() {
+            @Override
+            public Iterable<Point> successorsOf(Point state) {
+                return maze.validLocationsFrom(state);
+            }
+        };
+    }
+
+    private static HeuristicFunction<Point, Double> mazeHeuristic(Maze2D maze) {
+        final Point goal = maze.getGoalLoc();
+        return new HeuristicFunction<Point, Double>() {
+            @Override
+            public Double estimate(Point state) {
+                return state.distance(goal);
+            }
+        };
+    }
+
+    /**
+     * Returns the goal board of the N-Puzzle, with the gap at the top left corner.
+     *
+     * @param size number of rows and columns of the board (3 for the 8-Puzzle)
+     * @return goal board
+     */
+    public static Puzzle puzzleGoal(int size) {
+        int[] tiles = new int[size * size];
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = i;
+        }
+        return new Puzzle(tiles);
+    }
+
+    /**
+     * Generates a random solvable N-Puzzle board by applying random moves to the goal board.
+     * The optimal solution has at most {@code moves} steps.
+     *
+     * @param size number of rows and columns of the board (3 for the 8-Puzzle)
+     * @param moves number of random moves applied to the goal board
+     * @param seed random seed
+     * @return scrambled board
+     */
+    public static Puzzle puzzle(int size, int moves, long seed) {
+        Random random = new Random(seed);
+        Puzzle puzzle = puzzleGoal(size);
+        PuzzleMove last = null;
+        for (int i = 0; i < moves; i++) {
+            List<PuzzleMove> candidates = new ArrayList<PuzzleMove>();
+            for (PuzzleMove move : puzzleMoves(puzzle)) {
+                // Do not undo the last move
+                if (last == null || move != opposite(last)) candidates.add(move);
+            }
+            last = candidates.get(random.nextInt(candidates.size()));
+            puzzle = applyMove(last, puzzle);
+        }
+        return puzzle;
+    }
+
+    /**
+     * Creates the N-Puzzle problem without costs, to explore all the boards reachable from the initial board.
+     *
+     * @param initial initial board
+     * @return search problem without costs from the initial board
+     */
+    public static SearchProblem<PuzzleMove, Puzzle, UnweightedNode<PuzzleMove, Puzzle>> puzzleReachabilityProblem(Puzzle initial) {
+        return ProblemBuilder.create()
+                .initialState(initial)
+                .defineProblemWithExplicitActions()
+                .useActionFunction(new ActionFunction<PuzzleMove, Puzzle>() {
+                    @Override
+                    public Iterable<PuzzleMove> actionsFor(Puzzle state) {
+                        return puzzleMoves(state);
+                    }
+                })
+                .useTransitionFunction(new ActionStateTransitionFunction<PuzzleMove, Puzzle>() {
+                    @Override
+                    public Puzzle apply(PuzzleMove action, Puzzle state) {
+                        return applyMove(action, state);
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Creates the N-Puzzle problem with unit costs and the Manhattan distance as heuristic.
+     *
+     * @param initial initial board
+     * @return search problem to reach the goal board from the initial board
+     */
+    public static SearchProblem<PuzzleMove, Puzzle, WeightedNode<PuzzleMove, Puzzle, Double>> puzzleProblem(Puzzle initial) {
+        final Puzzle goal = puzzleGoal(initial.getMatrixBoard().length);
+        return ProblemBuilder.create()
+                .initialState(initial, goal)
+                .defineProblemWithExplicitActions()
+                .useActionFunction(new ActionFunction<PuzzleMove, Puzzle>() {
+                    @Override
+                    public Iterable<PuzzleMove> actionsFor(Puzzle state) {
+                        return puzzleMoves(state);
+                    }
+                })
+                .useTransitionFunction(new ActionStateTransitionFunction<PuzzleMove, Puzzle>() {
+                    @Override
+                    public Puzzle apply(PuzzleMove action, Puzzle state) {
+                        return applyMove(action, state);
+                    }
+                })
+                .useCostFunction(new CostFunction<PuzzleMove, Puzzle, Double>() {
+                    @Override
+                    public Double evaluate(Transition<PuzzleMove, Puzzle> transition) {
+                        return 1d;
+                    }
+                })
+                .useHeuristicFunction(new HeuristicFunction<Puzzle, Double>() {
+                    @Override
+                    public Double estimate(Puzzle state) {
+                        int distance = 0;
+                        int[][] board = state.getMatrixBoard();
+                        for (int x = 0; x < board.length; x++) {
+                            for (int y = 0; y < board.length; y++) {
+                                int value = board[x][y];
+                                if (value != 0) {
+                                    Point goalTile = goal.getTile(value);
+                                    distance += Math.abs(x - goalTile.x) + Math.abs(y - goalTile.y);
+                                }
+                            }
+                        }
+                        return (double) distance;
+                    }
+                })
+                .build();
+    }
+
+    private static List<PuzzleMove> puzzleMoves(Puzzle state) {
+        List<PuzzleMove> moves = new ArrayList<PuzzleMove>(4);
+        Point gap = state.getTile(0);
+        int size = state.getMatrixBoard().length;
+        if (gap.x > 0) moves.add(PuzzleMove.UP);
+        if (gap.x < size - 1) moves.add(PuzzleMove.DOWN);
+        if (gap.y < size - 1) moves.add(PuzzleMove.RIGHT);
+        if (gap.y > 0) moves.add(PuzzleMove.LEFT);
+        return moves;
+    }
+
+    private static PuzzleMove opposite(PuzzleMove move) {
+        switch (move) {
+            case UP: return PuzzleMove.DOWN;
+            case DOWN: return PuzzleMove.UP;
+            case LEFT: return PuzzleMove.RIGHT;
+            default: return PuzzleMove.LEFT;
+        }
+    }
+
+    private static Puzzle applyMove(PuzzleMove move, Puzzle state) {
+        // x=row, y=column
+        Point gap = state.getTile(0);
+        int[][] board = state.copyBoard();
+        int x = gap.x, y = gap.y;
+        switch (move) {
+            case UP: x--; break;
+            case DOWN: x++; break;
+            case LEFT: y--; break;
+            case RIGHT: y++; break;
+        }
+        board[gap.x][gap.y] = board[x][y];
+        board[x][y] = 0;
+        return new Puzzle(board);
+    }
+
+    /**
+     * Creates the N-Queens problem used by the local search algorithms. The successors of a board
+     * are all the boards obtained by moving one queen to a different column of its row, and the
+     * heuristic is the number of attacked queens.
+     *
+     * @param size number of queens
+     * @param seed random seed used to place the queens of the initial board
+     * @return N-Queens search problem
+     */
+    public static SearchProblem<Void, NQueens, WeightedNode<Void, NQueens, Double>> queensProblem(final int size, long seed) {
+        Random random = new Random(seed);
+        int[] queens = new int[size];
+        for (int i = 0; i < size; i++) {
+            queens[i] = random.nextInt(size);
+        }
+        return ProblemBuilder.create()
+                .initialState(new NQueens(queens))
+                .defineProblemWithoutActions()
+                .useTransitionFunction(new StateTransitionFunction<NQueens>() {
+                    @Override
+                    public Iterable<NQueens> successorsOf(NQueens state) {
+                        List<NQueens> states = new ArrayList<NQueens>(size * (size - 1));
+                        for (int i = 0; i < size; i++) {
+                            for (int j = 0; j < size; j++) {
+                                if (state.getQueens()[i] != j) {
+                                    int[] queens = Arrays.copyOf(state.getQueens(), size);
+                                    queens[i] = j;
+                                    states.add(new NQueens(queens));
+                                }
+                            }
+                        }
+                        return states;
+                    }
+                })
+                .useCostFunction(new CostFunction<Void, NQueens, Double>() {
+                    @Override
+                    public Double evaluate(Transition<Void, NQueens> transition) {
+                        return 0d;
+                    }
+                })
+                .useHeuristicFunction(new HeuristicFunction<NQueens, Double>() {
+                    @Override
+                    public Double estimate(NQueens state) {
+                        return (double) state.attackedQueens();
+                    }
+                })
+                .build();
+    }
+}
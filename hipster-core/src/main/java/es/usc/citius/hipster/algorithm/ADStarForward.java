@@ -95,7 +95,7 @@ public class ADStarForward<A,S,C extends Comparable<C>, N extends es.usc.citius.
     /**
      * Internal iterator that implements all the logic of the A* search
      */
-    public class Iterator implements java.util.Iterator<N> {
+    public class Iterator extends MonitoredIterator {
         //queues used by the algorithm
         protected Map<S, N> open;
         protected Map<S, N> closed;
@@ -157,7 +157,7 @@ public class ADStarForward<A,S,C extends Comparable<C>, N extends es.usc.citius.
             while (!queue.isEmpty()) {
                 N head = queue.peek();
                 if (!open.containsKey(head.state())) {
-                    queue.poll();
+                    monitor.stale(queue.poll());
                 } else {
                     return head;
                 }
@@ -176,6 +176,7 @@ public class ADStarForward<A,S,C extends Comparable<C>, N extends es.usc.citius.
                 if (!this.closed.containsKey(state)) {
                     insertOpen(node);
                 } else {
+                    monitor.reopened(node);
                     this.incons.put(state, node);
                 }
             } else {
@@ -236,11 +237,15 @@ public class ADStarForward<A,S,C extends Comparable<C>, N extends es.usc.citius.
                 }
                 expander.setNodeConsistent(consistent);
                 //expand successors
+                int successors = 0;
                 for (N successorNode : expander.expand(current)) {
+                    successors++;
                     if(successorNode.isDoUpdate()){
                         updateQueues(successorNode);
                     }
                 }
+                monitor.expanded(current, successors);
+                monitor.sizes(open.size(), closed.size());
             } else {
                 this.replan = false;
                 // for all directed edges (u, v) with changed edge costs
@@ -288,6 +293,24 @@ public class ADStarForward<A,S,C extends Comparable<C>, N extends es.usc.citius.
 
         public Map<S, N> getIncons() { return incons; }
 
+        /**
+         * Returns the original queue used by the algorithm to sort the nodes in OPEN.
+         * External modifications to the queue can cause malfunction.
+         *
+         * @return original copy of the internal queue.
+         */
+        public Queue<N> getQueue() { return queue; }
+
+        /**
+         * Replace the original queue with the provided one. The new queue must contain the
+         * nodes of the current queue. Use only for optimization purposes, for example to
+         * use a {@link es.usc.citius.lab.hipster.collections.adapter.StateIndexedQueue}
+         * that updates the nodes in-place instead of keeping duplicates.
+         *
+         * @param queue internal queue.
+         */
+        public void setQueue(Queue<N> queue) { this.queue = queue; }
+
         /**
          * Retrieves the list of goal nodes for its modification.
          *
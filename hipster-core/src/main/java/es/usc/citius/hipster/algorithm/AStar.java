@@ -18,6 +18,9 @@ package es.usc.citius.hipster.algorithm;
 
 import es.usc.citius.hipster.model.HeuristicNode;
 import es.usc.citius.hipster.model.function.NodeExpander;
+import es.usc.citius.hipster.model.function.StateIndexer;
+import es.usc.citius.hipster.model.impl.DoubleWeightedNode;
+import es.usc.citius.lab.hipster.collections.StampedArrayMap;
 
 import java.util.*;
 
@@ -28,7 +31,9 @@ import java.util.*;
  * the implementation uses a {@link java.util.PriorityQueue} for the nodes, which requires
  * {@literal O(log n)} time for insertions. The queue can be changed to use another
  * type of queue, for example a fibonacci heap as a queue, which works with constant amortized
- * time for insertions.
+ * time for insertions, or a {@link es.usc.citius.lab.hipster.collections.adapter.StateIndexedQueue},
+ * which keeps a single node per state and updates it in-place when a better path is found
+ * instead of keeping stale copies in the queue (see {@link Iterator#setQueue(java.util.Queue)}).
  * </p>
  *
  * <a href="http://ieeexplore.ieee.org/xpls/abs_all.jsp?arnumber=4082128">Original paper</a>:
@@ -45,6 +50,8 @@ public class AStar<A,S,C extends Comparable<C>,N extends HeuristicNode<A,S,C,N>>
 
     protected final N initialNode;
     protected final NodeExpander<A,S,N> expander;
+    protected SearchContext<S,N> context;
+    protected StateIndexer<? super S> stateIndexer;
 
     /**
      * Default constructor for ADStarForward. Requires the initial state, the successor function to generate
@@ -66,15 +73,28 @@ public class AStar<A,S,C extends Comparable<C>,N extends HeuristicNode<A,S,C,N>>
     /**
      * Internal iterator that implements all the logic of the A* search
      */
-    public class Iterator implements java.util.Iterator<N> {
+    public class Iterator extends MonitoredIterator {
         protected Map<S, N> open;
         protected Map<S, N> closed;
         protected Queue<N> queue;
 
         protected Iterator() {
-            open = new HashMap<S, N>();
-            closed = new HashMap<S, N>();
-            queue = new PriorityQueue<N>();
+            if (context != null) {
+                // Reuse the structures of the context instead of allocating new ones
+                context.reset();
+                open = context.getOpen();
+                closed = context.getClosed();
+                queue = context.getPriorityQueue();
+            } else if (stateIndexer != null) {
+                // Nodes indexed by the id of their state, without hashing the states
+                open = new StampedArrayMap<S, N>(stateIndexer);
+                closed = new StampedArrayMap<S, N>(stateIndexer);
+                queue = new PriorityQueue<N>();
+            } else {
+                open = new HashMap<S, N>();
+                closed = new HashMap<S, N>();
+                queue = new PriorityQueue<N>();
+            }
             queue.add(initialNode);
             open.put(initialNode.state(), initialNode);
         }
@@ -90,6 +110,7 @@ public class AStar<A,S,C extends Comparable<C>,N extends HeuristicNode<A,S,C,N>>
             // Poll until a valid state is found
             N node = queue.poll();
             while (!open.containsKey(node.state())) {
+                monitor.stale(node);
                 node = queue.poll();
             }
             return node;
@@ -110,11 +131,14 @@ public class AStar<A,S,C extends Comparable<C>,N extends HeuristicNode<A,S,C,N>>
             open.remove(currentState);
 
             // Analyze the cost of each movement from the current node
+            int successors = 0;
             for(N successorNode : expander.expand(current)){
+                successors++;
                 N successorOpen = open.get(successorNode.state());
                 if (successorOpen != null) {
-                    if (successorOpen.getScore().compareTo(successorNode.getScore()) <= 0) {
+                    if (DoubleWeightedNode.compareScores(successorOpen, successorNode) <= 0) {
                         // Keep analyzing the other movements, discard this movement
+                        monitor.duplicated(successorNode);
                         continue;
                     }
                 }
@@ -122,9 +146,11 @@ public class AStar<A,S,C extends Comparable<C>,N extends HeuristicNode<A,S,C,N>>
                 N successorClose = closed.get(successorNode.state());
                 if (successorClose != null) {
                     // Check if this path improves the cost of a closed neighbor.
-                    if (successorClose.getScore().compareTo(successorNode.getScore()) <= 0) {
+                    if (DoubleWeightedNode.compareScores(successorClose, successorNode) <= 0) {
+                        monitor.duplicated(successorNode);
                         continue;
                     }
+                    monitor.reopened(successorNode);
                 }
 
                 // In any other case, add the new successor to the open list to explore later
@@ -133,6 +159,8 @@ public class AStar<A,S,C extends Comparable<C>,N extends HeuristicNode<A,S,C,N>>
             }
             // Once analyzed, the current node moves to the closed list
             closed.put(currentState, current);
+            monitor.expanded(current, successors);
+            monitor.sizes(open.size(), closed.size());
             return current;
         }
 
@@ -192,13 +220,43 @@ public class AStar<A,S,C extends Comparable<C>,N extends HeuristicNode<A,S,C,N>>
         }
 
         /**
-         * Replace the original open map with the provided one. Modifications to the open map
-         * can cause malfunction. Use only for optimization purposes.
+         * Replace the original queue with the provided one. The new queue must contain the
+         * nodes of the current queue. Modifications to the queue can cause malfunction.
+         * Use only for optimization purposes, for example to replace the default
+         * {@code PriorityQueue} with an {@link es.usc.citius.lab.hipster.collections.adapter.StateIndexedQueue}.
          *
-         * @param queue internal open map.
+         * @param queue internal queue.
          */
         public void setQueue(Queue<N> queue) {
             this.queue = queue;
         }
     }
+
+    public SearchContext<S, N> getContext() {
+        return context;
+    }
+
+    /**
+     * Assigns a context whose structures are reused by the next iterators of this algorithm,
+     * instead of allocating new ones for each search. Use null to allocate them again.
+     *
+     * @param context reusable structures of the search
+     */
+    public void setContext(SearchContext<S, N> context) {
+        this.context = context;
+    }
+
+    public StateIndexer<? super S> getStateIndexer() {
+        return stateIndexer;
+    }
+
+    /**
+     * Assigns a function that maps the states to dense ids. When it is not null, the iterators
+     * store their nodes in arrays indexed by the id of each state instead of hash maps.
+     *
+     * @param stateIndexer function that maps the states to dense ids, or null to use hash maps
+     */
+    public void setStateIndexer(StateIndexer<? super S> stateIndexer) {
+        this.stateIndexer = stateIndexer;
+    }
 }
@@ -33,7 +33,43 @@ import java.util.*;
  * @author Pablo Rodríguez Mier <<a href="mailto:pablo.rodriguez.mier@usc.es">pablo.rodriguez.mier@usc.es</a>>
  */
 public abstract class Algorithm<A,S,N extends Node<A,S,N>> implements Iterable<N> {
+    protected SearchMonitor<? super N> monitor = SearchMonitor.NONE;
 
+    /**
+     * Outcome of a search.
+     */
+    public enum SearchStatus {
+        /** A node satisfying the goal condition was found */
+        FOUND,
+        /** All the reachable nodes were explored without satisfying the goal condition */
+        NOT_FOUND,
+        /** The search was stopped because the {@link SearchBudget} was exhausted */
+        BUDGET_EXHAUSTED
+    }
+
+    /**
+     * Base class of the iterators that report their events to a {@link SearchMonitor}. Each iterator
+     * takes the monitor of the algorithm when it is created, so the monitor of a single iterator can be
+     * replaced (for example by the tracker of a {@link SearchBudget}) without affecting the other
+     * searches running with the same algorithm.
+     */
+    public abstract class MonitoredIterator implements Iterator<N> {
+        protected SearchMonitor<? super N> monitor = Algorithm.this.monitor;
+
+        /**
+         * @return monitor that receives the events of this iterator
+         */
+        public SearchMonitor<? super N> getMonitor() {
+            return monitor;
+        }
+
+        /**
+         * @param monitor monitor that receives the events of this iterator
+         */
+        public void setMonitor(SearchMonitor<? super N> monitor) {
+            this.monitor = monitor;
+        }
+    }
 
     /**
      * Holds information about the search process.
@@ -42,18 +78,53 @@ public abstract class Algorithm<A,S,N extends Node<A,S,N>> implements Iterable<N
         private int iterations;
         private Collection<N> goalNodes;
         private long elapsed;
+        private N bestNode;
+        private SearchStatus status;
 
 
         public SearchResult(N goalNode, int iterations, long elapsed) {
+            this(goalNode, iterations, elapsed, (goalNode != null) ? SearchStatus.FOUND : SearchStatus.NOT_FOUND);
+        }
+
+        /**
+         * Creates the result of a search that ended with the given node. If the goal condition was
+         * never satisfied, the node is the last node expanded and the status is {@link SearchStatus#NOT_FOUND}.
+         *
+         * @param goalNode goal node, or last node expanded if the goal was not found
+         * @param iterations number of iterations performed
+         * @param elapsed elapsed time in milliseconds
+         * @param status outcome of the search
+         */
+        public SearchResult(N goalNode, int iterations, long elapsed, SearchStatus status) {
             this.goalNodes = Collections.singletonList(goalNode);
             this.iterations = iterations;
             this.elapsed = elapsed;
+            this.bestNode = goalNode;
+            this.status = status;
         }
 
         public SearchResult(Collection<N> goalNodes, int iterations, long elapsed) {
             this.goalNodes = goalNodes;
             this.iterations = iterations;
             this.elapsed = elapsed;
+            this.bestNode = goalNodes.isEmpty() ? null : goalNodes.iterator().next();
+            this.status = goalNodes.isEmpty() ? SearchStatus.NOT_FOUND : SearchStatus.FOUND;
+        }
+
+        /**
+         * Creates the result of a search stopped because the {@link SearchBudget} was exhausted.
+         *
+         * @param goalNodes goal nodes found before the budget was exhausted (may be empty)
+         * @param iterations number of iterations performed
+         * @param elapsed elapsed time in milliseconds
+         * @param bestNode best node found so far
+         */
+        public SearchResult(Collection<N> goalNodes, int iterations, long elapsed, N bestNode) {
+            this.goalNodes = goalNodes;
+            this.iterations = iterations;
+            this.elapsed = elapsed;
+            this.bestNode = bestNode;
+            this.status = SearchStatus.BUDGET_EXHAUSTED;
         }
 
         /**
@@ -73,16 +144,43 @@ public abstract class Algorithm<A,S,N extends Node<A,S,N>> implements Iterable<N
         }
 
         /**
-         * @return goal node.
+         * @return goal node. If the goal condition was never satisfied, this is the last node
+         * expanded (see {@link #getStatus()}), or null if there are no goal nodes.
          */
         public N getGoalNode() {
-            return goalNodes.iterator().next();
+            return goalNodes.isEmpty() ? null : goalNodes.iterator().next();
         }
 
         public Collection<N> getGoalNodes() {
             return goalNodes;
         }
 
+        /**
+         * @return true if the search was stopped because the {@link SearchBudget} was exhausted
+         */
+        public boolean isBudgetExhausted() {
+            return status == SearchStatus.BUDGET_EXHAUSTED;
+        }
+
+        /**
+         * @return whether the goal was found, all the reachable nodes were explored without finding it, or
+         * the search was stopped by the budget (the goal nodes found so far may not be optimal in that case)
+         */
+        public SearchStatus getStatus() {
+            return status;
+        }
+
+        /**
+         * Returns the best node found by the search. If the search was stopped by the budget, this
+         * is the best node expanded according to {@link SearchBudget#getBestNode()}, otherwise
+         * it is the goal node.
+         *
+         * @return best node found, or null if there is none
+         */
+        public N getBestNode() {
+            return bestNode;
+        }
+
         public List<List<S>> getOptimalPaths() {
             List<List<S>> paths = new ArrayList<List<S>>(goalNodes.size());
             for(N goalNode : goalNodes){
@@ -125,15 +223,7 @@ public abstract class Algorithm<A,S,N extends Node<A,S,N>> implements Iterable<N
      * @return SearchResult with the information of the search
      */
     public SearchResult search(final S goalState){
-        return search(new Predicate<N>() {
-            @Override
-            public boolean apply(N n) {
-                if (goalState != null) {
-                    return n.state().equals(goalState);
-                }
-                return false;
-            }
-        });
+        return search(equalsTo(goalState));
     }
 
 
@@ -145,20 +235,101 @@ public abstract class Algorithm<A,S,N extends Node<A,S,N>> implements Iterable<N
      * @return {@link es.usc.citius.hipster.algorithm.Algorithm.SearchResult with information about the search}
      */
     public SearchResult search(Predicate<N> condition){
+        return search(condition, SearchBudget.UNLIMITED);
+    }
+
+    /**
+     * Run the algorithm until the goal is found, no more states are
+     * available or the budget is exhausted.
+     *
+     * @param goalState goal state of the search.
+     * @param budget limits of the search.
+     * @return SearchResult with the information of the search
+     */
+    public SearchResult search(S goalState, SearchBudget budget){
+        return search(equalsTo(goalState), budget);
+    }
+
+    /**
+     * Executes the search algorithm until the predicate condition is
+     * satisfied, there are no more nodes to explore or the budget is exhausted.
+     * In the last case, the result is flagged with {@link SearchResult#isBudgetExhausted()}
+     * and contains the best node expanded ({@link SearchResult#getBestNode()}).
+     *
+     * @param condition predicate with the boolean condition.
+     * @param budget limits of the search.
+     * @return {@link es.usc.citius.hipster.algorithm.Algorithm.SearchResult with information about the search}
+     */
+    public SearchResult search(Predicate<N> condition, SearchBudget budget){
+        return search(iterator(), condition, budget);
+    }
+
+    /**
+     * Executes the search with the given iterator until the predicate condition is
+     * satisfied, there are no more nodes to explore or the budget is exhausted.
+     *
+     * @param it iterator of the search.
+     * @param condition predicate with the boolean condition.
+     * @param budget limits of the search.
+     * @return {@link es.usc.citius.hipster.algorithm.Algorithm.SearchResult with information about the search}
+     */
+    protected SearchResult search(Iterator<N> it, Predicate<N> condition, SearchBudget budget){
         int iteration = 0;
-        Iterator<N> it = iterator();
+        SearchBudget.Tracker<N> tracker = startBudget(budget, it);
         long begin = System.currentTimeMillis();
         N currentNode = null;
+        SearchStatus status = SearchStatus.NOT_FOUND;
         while(it.hasNext()){
+            if (tracker.isExhausted()) {
+                return new SearchResult(Collections.<N>emptyList(), iteration,
+                        System.currentTimeMillis() - begin, tracker.getBest());
+            }
             iteration++;
             currentNode = it.next();
+            tracker.update(currentNode);
             if (condition.apply(currentNode)) {
+                status = SearchStatus.FOUND;
                 break;
             }
 
         }
         long end = System.currentTimeMillis();
-        return new SearchResult(currentNode, iteration, end - begin);
+        return new SearchResult(currentNode, iteration, end - begin, status);
+    }
+
+    /**
+     * Starts tracking the budget of a search. If the budget needs the events of
+     * the iterators, the tracker replaces the monitor of the given iterator (only if it
+     * is a {@link MonitoredIterator}), so the monitor of the algorithm and the other
+     * searches running with it are not affected.
+     *
+     * @param budget limits of the search
+     * @param iterator iterator used by the search
+     * @return tracker of the budget
+     */
+    protected SearchBudget.Tracker<N> startBudget(SearchBudget budget, Iterator<? extends N> iterator) {
+        if (!(iterator instanceof Algorithm.MonitoredIterator)) {
+            return budget.start(monitor);
+        }
+        @SuppressWarnings("unchecked")
+        MonitoredIterator monitored = (MonitoredIterator) iterator;
+        SearchBudget.Tracker<N> tracker = budget.start(monitored.getMonitor());
+        if (tracker.requiresMonitor()) {
+            monitored.setMonitor(tracker);
+        }
+        return tracker;
+    }
+
+    private Predicate<N> equalsTo(final S goalState) {
+        return new Predicate<N>() {
+            @Override
+            public boolean apply(N n) {
+                if (goalState != null) {
+                    return n.state().equals(goalState);
+                }
+                return false;
+            }
+        };
     }
 
     /**
@@ -187,6 +358,24 @@ public abstract class Algorithm<A,S,N extends Node<A,S,N>> implements Iterable<N
         }
     }
 
+    /**
+     * @return monitor that receives the events of the search
+     */
+    public SearchMonitor<? super N> getMonitor() {
+        return monitor;
+    }
+
+    /**
+     * Assigns a monitor to receive the events of the iterators of this algorithm,
+     * for example a {@link SearchStatistics} instance. Use {@link SearchMonitor#NONE}
+     * to disable the monitoring.
+     *
+     * @param monitor monitor of the search
+     */
+    public void setMonitor(SearchMonitor<? super N> monitor) {
+        this.monitor = monitor;
+    }
+
     /**
      * Returns a path with all the states of the path.
      *
@@ -196,10 +385,11 @@ public abstract class Algorithm<A,S,N extends Node<A,S,N>> implements Iterable<N
      * to the state of the provided node ({@link es.usc.citius.hipster.model.Node#state()}).
      */
     public static <S, N extends Node<?,S,N>>  List<S> recoverStatePath(N node){
-        List<S> states = new LinkedList<S>();
-        for(N n : node.path()){
+        ArrayList<S> states = new ArrayList<S>(node.pathSize());
+        for(N n = node; n != null; n = n.previousNode()){
             states.add(n.state());
         }
+        Collections.reverse(states);
         return states;
     }
 
@@ -212,10 +402,56 @@ public abstract class Algorithm<A,S,N extends Node<A,S,N>> implements Iterable<N
      * @return list with the ordered actions.
      */
     public static <A, N extends Node<A,?,N>>  List<A> recoverActionPath(N node){
-        List<A> actions = new LinkedList<A>();
-        for(N n : node.path()){
+        ArrayList<A> actions = new ArrayList<A>(node.pathSize());
+        for(N n = node; n != null; n = n.previousNode()){
             if (n.action() != null) actions.add(n.action());
         }
+        Collections.reverse(actions);
         return actions;
     }
+
+    /**
+     * Invokes the listener with each node of the path, from the initial node to the
+     * provided node, without building the list of nodes of the path. States and actions
+     * can be read directly from the nodes passed to the listener.
+     * <p>
+     * The nodes are linked from the last one to the first one, so this method still
+     * allocates an array with one reference per node of the path (O(depth) memory).
+     * Use {@link #visitPathBackwards(Node, SearchListener)} if no allocation is needed
+     * and the listener can take the nodes in reverse order.
+     * </p>
+     *
+     * @param node last node of the path.
+     * @param listener listener that receives the nodes of the path in order.
+     * @param <N> type of the nodes.
+     */
+    @SuppressWarnings("unchecked")
+    public static <N extends Node<?,?,N>> void visitPath(N node, SearchListener<? super N> listener){
+        // Count the nodes instead of relying on pathSize(), which may be stale if the parent changed
+        int size = 0;
+        for(N n = node; n != null; n = n.previousNode()){
+            size++;
+        }
+        Object[] nodes = new Object[size];
+        for(N n = node; n != null; n = n.previousNode()){
+            nodes[--size] = n;
+        }
+        for(Object n : nodes){
+            listener.handle((N) n);
+        }
+    }
+
+    /**
+     * Invokes the listener with each node of the path in reverse order, from the provided
+     * node to the initial node. This does not allocate any memory.
+     *
+     * @param node last node of the path.
+     * @param listener listener that receives the nodes of the path in reverse order.
+     * @param <N> type of the nodes.
+     */
+    public static <N extends Node<?,?,N>> void visitPathBackwards(N node, SearchListener<? super N> listener){
+        for(N n = node; n != null; n = n.previousNode()){
+            listener.handle(n);
+        }
+    }
 }
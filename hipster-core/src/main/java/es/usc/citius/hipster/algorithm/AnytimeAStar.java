@@ -0,0 +1,378 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.algorithm;
+
+import es.usc.citius.hipster.model.Transition;
+import es.usc.citius.hipster.model.function.NodeExpander;
+import es.usc.citius.hipster.model.function.impl.BinaryOperation;
+import es.usc.citius.hipster.model.function.impl.LazyNodeExpander;
+import es.usc.citius.hipster.model.function.impl.ScalarOperation;
+import es.usc.citius.hipster.model.function.impl.WeightedNodeFactory;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.SearchComponents;
+import es.usc.citius.hipster.util.Predicate;
+
+import java.util.*;
+
+/**
+ * <p>
+ * Implementation of the Anytime Repairing A* (ARA*) algorithm. The search starts as a weighted A*, which sorts
+ * the open nodes by {@literal f = g + ε·h} with an inflated heuristic ({@literal ε > 1}), to find quickly a
+ * solution whose cost is at most {@literal ε} times the optimal cost. Then {@literal ε} is decreased and the
+ * solution is improved reusing the previous search effort: only the states whose cost was improved after their
+ * expansion (the INCONS set) are expanded again. The search finishes when {@literal ε = 1} (optimal solution) or
+ * when the suboptimality bound of the current solution reaches 1.
+ * </p>
+ *
+ * <p>
+ * Each solution is notified to the {@link SolutionListener} of the algorithm together with its suboptimality bound,
+ * {@literal min(ε, g(goal) / min(g + h))} over the open and inconsistent states (only when the costs are numbers,
+ * otherwise the bound is {@literal ε}). {@link #search(Predicate, SearchBudget)} returns the last solution found, so it
+ * can be used with a {@link SearchBudget} to get the best solution found in a limited time.
+ * </p>
+ *
+ * <p>
+ * The inflation of the heuristic uses the scale algebra of the search components
+ * ({@link SearchComponents#scaleAlgebra()}). The heuristic must be consistent for the bounds to be valid.
+ * </p>
+ *
+ * <a href="http://papers.nips.cc/paper/2382-ara-anytime-a-with-provable-bounds-on-sub-optimality.pdf">Original paper</a>:
+ * Likhachev, M., Gordon, G. J. and Thrun, S. <b>"ARA*: Anytime A* with Provable Bounds on Sub-Optimality"</b>.
+ * <i>Advances in Neural Information Processing Systems 16 (NIPS 2003)</i>.
+ *
+ * @param <A> action type.
+ * @param <S> state type.
+ * @param <C> comparable cost used to compare states.
+ */
+public class AnytimeAStar<A, S, C extends Comparable<C>> extends Algorithm<A, S, WeightedNode<A, S, C>> {
+
+    protected final SearchComponents<A, S, C> components;
+    protected final WeightedNodeFactory<A, S, C> factory;
+    protected final NodeExpander<A, S, WeightedNode<A, S, C>> expander;
+    protected double initialEpsilon;
+    protected double epsilonDecrement;
+    protected SolutionListener<WeightedNode<A, S, C>> listener;
+
+    /**
+     * Receives the solutions found by the algorithm.
+     *
+     * @param <N> type of the nodes
+     */
+    public interface SolutionListener<N> {
+        /**
+         * Invoked each time a new solution is found.
+         *
+         * @param solution goal node of the solution
+         * @param bound suboptimality bound of the solution: its cost is at most {@code bound} times the optimal cost
+         */
+        void handle(N solution, double bound);
+    }
+
+    /**
+     * Creates the algorithm from the search components. The components must provide the initial and
+     * goal states, the successor, cost and heuristic functions, and the cost and scale algebras.
+     *
+     * @param components search components of the problem
+     * @param initialEpsilon inflation of the heuristic used to find the first solution (>= 1)
+     * @param epsilonDecrement decrement of the inflation after each solution (> 0)
+     */
+    public AnytimeAStar(SearchComponents<A, S, C> components, double initialEpsilon, double epsilonDecrement) {
+        if (components.scaleAlgebra() == null) {
+            throw new IllegalArgumentException("Anytime A* requires a scale algebra to inflate the heuristic");
+        }
+        if (initialEpsilon < 1 || epsilonDecrement <= 0) {
+            throw new IllegalArgumentException("Epsilon must be >= 1 and the decrement > 0");
+        }
+        this.components = components;
+        this.factory = (components.heuristicFunction() != null)
+                ? new WeightedNodeFactory<A, S, C>(components.costFunction(), components.heuristicFunction(), components.costAlgebra())
+                : new WeightedNodeFactory<A, S, C>(components.costFunction(), components.costAlgebra());
+        this.expander = new LazyNodeExpander<A, S, WeightedNode<A, S, C>>(components.successorFunction(), factory);
+        this.initialEpsilon = initialEpsilon;
+        this.epsilonDecrement = epsilonDecrement;
+    }
+
+    @Override
+    public Iterator iterator() {
+        return new Iterator();
+    }
+
+    /**
+     * Runs the search until the optimal solution is found, there are no more states to explore or the
+     * budget is exhausted. All the solutions are notified to the listener, and the last one is returned.
+     * As the goal is defined by the search components, the condition is only checked against the solution.
+     *
+     * @param condition predicate that the solution must satisfy
+     * @param budget limits of the search
+     * @return search result with the last solution found, or without goal nodes if there is no solution
+     */
+    @Override
+    public SearchResult search(Predicate<WeightedNode<A, S, C>> condition, SearchBudget budget) {
+        int iteration = 0;
+        Iterator it = iterator();
+        SearchBudget.Tracker<WeightedNode<A, S, C>> tracker = startBudget(budget, it);
+        long begin = System.currentTimeMillis();
+        boolean exhausted = false;
+        while (it.hasNext()) {
+            if (tracker.isExhausted()) {
+                exhausted = true;
+                break;
+            }
+            iteration++;
+            tracker.update(it.next());
+        }
+        long elapsed = System.currentTimeMillis() - begin;
+        WeightedNode<A, S, C> solution = it.getSolution();
+        Collection<WeightedNode<A, S, C>> goals = (solution != null && condition.apply(solution))
+                ? Collections.singletonList(solution)
+                : Collections.<WeightedNode<A, S, C>>emptyList();
+        if (exhausted) {
+            return new SearchResult(goals, iteration, elapsed, (solution != null) ? solution : tracker.getBest());
+        }
+        return new SearchResult(goals, iteration, elapsed);
+    }
+
+    /**
+     * ARA* iterator. Each call to {@code next()} expands a node. When the current solution can not be
+     * improved with the current epsilon, the solution is notified and the inflation is decreased.
+     */
+    public class Iterator extends MonitoredIterator {
+        protected final S goal = components.getGoal();
+        protected final ScalarOperation<C> scale = components.scaleAlgebra();
+        protected final BinaryOperation<C> add = components.costAlgebra();
+        protected double epsilon = initialEpsilon;
+        protected double bound = Double.POSITIVE_INFINITY;
+        // Best node found for each state
+        protected Map<S, WeightedNode<A, S, C>> nodes = new HashMap<S, WeightedNode<A, S, C>>();
+        protected Map<S, WeightedNode<A, S, C>> open = new HashMap<S, WeightedNode<A, S, C>>();
+        protected Set<S> closed = new HashSet<S>();
+        // States improved after being expanded in the current iteration
+        protected Map<S, WeightedNode<A, S, C>> incons = new HashMap<S, WeightedNode<A, S, C>>();
+        protected Queue<WeightedNode<A, S, C>> queue;
+        protected WeightedNode<A, S, C> solution;
+        protected int solutions = 0;
+        protected boolean improving = true;
+
+        protected Iterator() {
+            queue = new PriorityQueue<WeightedNode<A, S, C>>(11, new Comparator<WeightedNode<A, S, C>>() {
+                @Override
+                public int compare(WeightedNode<A, S, C> o1, WeightedNode<A, S, C> o2) {
+                    return inflated(o1).compareTo(inflated(o2));
+                }
+            });
+            WeightedNode<A, S, C> initialNode = factory.makeNode(null, new Transition<A, S>(null, components.getBegin()));
+            nodes.put(initialNode.state(), initialNode);
+            open.put(initialNode.state(), initialNode);
+            queue.add(initialNode);
+        }
+
+        /**
+         * @param node search node
+         * @return inflated score {@literal g + ε·h} of the node with the current epsilon
+         */
+        protected C inflated(WeightedNode<A, S, C> node) {
+            return add.apply(node.getCost(), scale.scale(node.getEstimation(), epsilon));
+        }
+
+        /**
+         * Returns the most promising node of the queue without removing it, discarding stale entries.
+         */
+        protected WeightedNode<A, S, C> peek() {
+            WeightedNode<A, S, C> node = queue.peek();
+            while (node != null && open.get(node.state()) != node) {
+                monitor.stale(queue.poll());
+                node = queue.peek();
+            }
+            return node;
+        }
+
+        /**
+         * Checks if the current improvement iteration is finished: the open set is empty or the
+         * inflated score of the goal is not greater than the best inflated score of the open set.
+         * When finished, the solution is notified to the listener.
+         */
+        protected void checkImprovement() {
+            if (!improving) return;
+            WeightedNode<A, S, C> head = peek();
+            WeightedNode<A, S, C> goalNode = nodes.get(goal);
+            if (head != null && (goalNode == null || inflated(goalNode).compareTo(inflated(head)) > 0)) {
+                return;
+            }
+            improving = false;
+            if (goalNode != null && goalNode != solution) {
+                solution = goalNode;
+                solutions++;
+                bound = computeBound();
+                if (listener != null) {
+                    listener.handle(solution, bound);
+                }
+            } else if (goalNode != null) {
+                bound = computeBound();
+            }
+        }
+
+        /**
+         * @return suboptimality bound of the current solution
+         */
+        protected double computeBound() {
+            if (!(solution.getCost() instanceof Number)) {
+                return epsilon;
+            }
+            double min = Double.POSITIVE_INFINITY;
+            for (WeightedNode<A, S, C> node : open.values()) {
+                min = Math.min(min, ((Number) node.getScore()).doubleValue());
+            }
+            for (WeightedNode<A, S, C> node : incons.values()) {
+                min = Math.min(min, ((Number) node.getScore()).doubleValue());
+            }
+            double cost = ((Number) solution.getCost()).doubleValue();
+            if (min >= cost || cost == 0) {
+                // The solution can not be improved
+                return 1d;
+            }
+            return Math.max(1d, Math.min(epsilon, cost / min));
+        }
+
+        /**
+         * Decreases epsilon and starts a new improvement iteration, moving the inconsistent
+         * states to the open set and sorting the queue with the new epsilon.
+         */
+        protected void improve() {
+            epsilon = Math.max(1d, epsilon - epsilonDecrement);
+            open.putAll(incons);
+            incons.clear();
+            closed.clear();
+            queue.clear();
+            queue.addAll(open.values());
+            improving = true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (true) {
+                checkImprovement();
+                if (improving) return true;
+                // Stop if there is no solution or it can not be improved
+                if (solution == null || bound <= 1d || epsilon <= 1d) return false;
+                improve();
+            }
+        }
+
+        @Override
+        public WeightedNode<A, S, C> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            WeightedNode<A, S, C> current = queue.poll();
+            S state = current.state();
+            open.remove(state);
+            closed.add(state);
+            int successors = 0;
+            for (WeightedNode<A, S, C> successor : expander.expand(current)) {
+                successors++;
+                S successorState = successor.state();
+                WeightedNode<A, S, C> previous = nodes.get(successorState);
+                if (previous != null && previous.getCost().compareTo(successor.getCost()) <= 0) {
+                    monitor.duplicated(successor);
+                    continue;
+                }
+                nodes.put(successorState, successor);
+                if (closed.contains(successorState)) {
+                    // Expanded in this iteration, expand again in the next one
+                    monitor.reopened(successor);
+                    incons.put(successorState, successor);
+                } else {
+                    open.put(successorState, successor);
+                    queue.add(successor);
+                }
+            }
+            monitor.expanded(current, successors);
+            monitor.sizes(open.size(), nodes.size());
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * @return last solution found, or null if no solution was found yet
+         */
+        public WeightedNode<A, S, C> getSolution() {
+            return solution;
+        }
+
+        /**
+         * @return suboptimality bound of the last solution
+         */
+        public double getBound() {
+            return bound;
+        }
+
+        /**
+         * @return current inflation of the heuristic
+         */
+        public double getEpsilon() {
+            return epsilon;
+        }
+
+        /**
+         * @return number of solutions found
+         */
+        public int getSolutions() {
+            return solutions;
+        }
+
+        public Map<S, WeightedNode<A, S, C>> getOpen() {
+            return open;
+        }
+
+        public Map<S, WeightedNode<A, S, C>> getIncons() {
+            return incons;
+        }
+
+        public Set<S> getClosed() {
+            return closed;
+        }
+    }
+
+    public double getInitialEpsilon() {
+        return initialEpsilon;
+    }
+
+    public void setInitialEpsilon(double initialEpsilon) {
+        this.initialEpsilon = initialEpsilon;
+    }
+
+    public double getEpsilonDecrement() {
+        return epsilonDecrement;
+    }
+
+    public void setEpsilonDecrement(double epsilonDecrement) {
+        this.epsilonDecrement = epsilonDecrement;
+    }
+
+    public SolutionListener<WeightedNode<A, S, C>> getListener() {
+        return listener;
+    }
+
+    /**
+     * @param listener listener that receives each solution and its suboptimality bound
+     */
+    public void setListener(SolutionListener<WeightedNode<A, S, C>> listener) {
+        this.listener = listener;
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.algorithm;
+
+import es.usc.citius.hipster.graph.Pair;
+import es.usc.citius.hipster.model.Node;
+import es.usc.citius.hipster.model.function.StateIndexer;
+import es.usc.citius.hipster.util.Function;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Executes many independent point-to-point queries in parallel. Each query is a {@link Pair} with
+ * the source and the target state. For each query, the algorithm is created with the function
+ * provided by the user (typically from an immutable graph or problem definition shared by all
+ * the queries) and then {@link Algorithm#search(Object)} is executed in a thread of the executor.
+ * </p>
+ *
+ * <pre class="prettyprint">
+ * {@code
+ * BatchSearch<Double, String, WeightedNode<Double, String, Double>>.Batch batch =
+ *      Hipster.batch(new Function<String, AStar<Double, String, Double, WeightedNode<Double, String, Double>>>() {
+ *          public AStar<Double, String, Double, WeightedNode<Double, String, Double>> apply(String source) {
+ *              return Hipster.createDijkstra(GraphSearchProblem.startingFrom(source).in(graph).takeCostsFromEdges().build());
+ *          }
+ *      }).useThreads(8).search(queries);
+ * for(Algorithm.SearchResult result : batch.getResults()) { ... }
+ * System.out.println(batch.getThroughput() + " queries/s");
+ * }
+ * </pre>
+ *
+ * <p>
+ * Each worker thread owns a {@link SearchContext} that is assigned to the {@link AStar} (and Dijkstra),
+ * {@link BreadthFirstSearch} and {@link BellmanFord} algorithms without a context of their own, so the
+ * structures are only allocated and resized once per thread. The context is created with the
+ * {@link es.usc.citius.hipster.model.function.StateIndexer} of the algorithm and it is replaced when a
+ * query uses a different indexer, so the function should return algorithms that share the same indexer
+ * instance. As the context is assigned to the algorithm, the function must create a new algorithm for
+ * each query. The monitor, the budget and the search of each algorithm (for example the parallel search
+ * of {@link HDAStar}) are preserved.
+ * </p>
+ *
+ * <p>
+ * If no executor is provided, the batch search creates a pool of daemon threads the first time it is used
+ * and keeps it for the following batches, so the threads and their contexts are reused between batches.
+ * The pool is shut down with {@link #close()}.
+ * </p>
+ *
+ * @param <A> type of the actions
+ * @param <S> type of the states
+ * @param <N> type of the nodes
+ */
+public class BatchSearch<A, S, N extends Node<A, S, N>> implements Closeable {
+    private final Function<S, ? extends Algorithm<A, S, N>> factory;
+    private ExecutorService executor;
+    // Pool created by the batch search when no executor is provided
+    private ExecutorService pool;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    // Reusable structures of each worker thread
+    private final ThreadLocal<SearchContext<S, N>> contexts = new ThreadLocal<SearchContext<S, N>>();
+
+    /**
+     * @param factory function to create the algorithm used to solve the queries that start at a given state
+     */
+    public BatchSearch(Function<S, ? extends Algorithm<A, S, N>> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Uses an external executor to run the queries. The executor is not shut down by the batch search.
+     *
+     * @param executor executor service used to run the queries
+     * @return this batch search
+     */
+    public BatchSearch<A, S, N> useExecutor(ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Sets the number of threads of the pool used when no external executor is provided.
+     * By default it uses one thread per available processor. If the pool was already created
+     * with a different number of threads, it is shut down (the submitted queries are still
+     * executed) and a new one is created for the next batch.
+     *
+     * @param threads number of threads
+     * @return this batch search
+     */
+    public synchronized BatchSearch<A, S, N> useThreads(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("The number of threads must be positive");
+        if (threads != this.threads) {
+            close();
+            this.threads = threads;
+        }
+        return this;
+    }
+
+    /**
+     * Shuts down the pool created by this batch search, if any. The queries already submitted are
+     * still executed. An external executor (see {@link #useExecutor(ExecutorService)}) is not shut down.
+     */
+    @Override
+    public synchronized void close() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    private synchronized ExecutorService pool() {
+        if (pool == null) {
+            pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "batch-search-" + count.getAndIncrement());
+                    // Do not keep the JVM alive if the batch search is not closed
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return pool;
+    }
+
+    /**
+     * Submits all the queries and returns immediately. The results can be retrieved
+     * with the returned {@link Batch}.
+     *
+     * @param queries list of pairs (source, target)
+     * @return batch with the pending results of the queries
+     */
+    public Batch search(List<Pair<S>> queries) {
+        ExecutorService service = (executor != null) ? executor : pool();
+        Batch batch = new Batch(queries);
+        for (Pair<S> query : queries) {
+            batch.futures.add(service.submit(batch.new Query(query)));
+        }
+        return batch;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Algorithm<A, S, N>.SearchResult search(Algorithm<A, S, N> algorithm, S target) {
+        if (algorithm instanceof AStar) {
+            AStar<A, S, ?, ?> astar = (AStar<A, S, ?, ?>) algorithm;
+            if (astar.getContext() == null) {
+                astar.setContext((SearchContext) context(astar.getStateIndexer()));
+            }
+        } else if (algorithm instanceof BreadthFirstSearch) {
+            BreadthFirstSearch<A, S, N> bfs = (BreadthFirstSearch<A, S, N>) algorithm;
+            if (bfs.getContext() == null) {
+                bfs.setContext(context(bfs.getStateIndexer()));
+            }
+        } else if (algorithm instanceof BellmanFord) {
+            BellmanFord<A, S, ?, ?> bellmanFord = (BellmanFord<A, S, ?, ?>) algorithm;
+            if (bellmanFord.getContext() == null) {
+                bellmanFord.setContext((SearchContext) context(bellmanFord.getStateIndexer()));
+            }
+        }
+        return algorithm.search(target);
+    }
+
+    private SearchContext<S, N> context(StateIndexer<? super S> indexer) {
+        SearchContext<S, N> context = contexts.get();
+        if (context == null || context.getIndexer() != indexer) {
+            context = new SearchContext<S, N>(indexer);
+            contexts.set(context);
+        }
+        return context;
+    }
+
+    /**
+     * Results of a batch of queries.
+     */
+    public class Batch {
+        private final List<Pair<S>> queries;
+        private final List<Future<Algorithm<A, S, N>.SearchResult>> futures;
+        private final long begin = System.nanoTime();
+        private final AtomicLong end = new AtomicLong(begin);
+        private final AtomicLong iterations = new AtomicLong();
+
+        private Batch(List<Pair<S>> queries) {
+            this.queries = queries;
+            this.futures = new ArrayList<Future<Algorithm<A, S, N>.SearchResult>>(queries.size());
+        }
+
+        private class Query implements Callable<Algorithm<A, S, N>.SearchResult> {
+            private final Pair<S> query;
+
+            private Query(Pair<S> query) {
+                this.query = query;
+            }
+
+            @Override
+            public Algorithm<A, S, N>.SearchResult call() throws Exception {
+                Algorithm<A, S, N>.SearchResult result = search(factory.apply(query.getE1()), query.getE2());
+                iterations.addAndGet(result.getIterations());
+                // Keep the time when the last query finished
+                long now = System.nanoTime();
+                long last = end.get();
+                while (now > last && !end.compareAndSet(last, now)) {
+                    last = end.get();
+                }
+                return result;
+            }
+        }
+
+        /**
+         * @return queries of the batch
+         */
+        public List<Pair<S>> getQueries() {
+            return queries;
+        }
+
+        /**
+         * @return futures with the result of each query, in the same order as the queries
+         */
+        public List<Future<Algorithm<A, S, N>.SearchResult>> getFutures() {
+            return futures;
+        }
+
+        /**
+         * @return true if all the queries have finished
+         */
+        public boolean isDone() {
+            for (Future<?> future : futures) {
+                if (!future.isDone()) return false;
+            }
+            return true;
+        }
+
+        /**
+         * Waits until all the queries finish and returns their results.
+         *
+         * @return result of each query, in the same order as the queries
+         * @throws InterruptedException if the current thread was interrupted while waiting
+         * @throws ExecutionException if a query threw an exception
+         */
+        public List<Algorithm<A, S, N>.SearchResult> getResults() throws InterruptedException, ExecutionException {
+            List<Algorithm<A, S, N>.SearchResult> results = new ArrayList<Algorithm<A, S, N>.SearchResult>(futures.size());
+            for (Future<Algorithm<A, S, N>.SearchResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        }
+
+        /**
+         * Waits until all the queries finish and returns the elapsed time between the submission
+         * of the batch and the end of the last query.
+         *
+         * @return elapsed time in milliseconds
+         * @throws InterruptedException if the current thread was interrupted while waiting
+         * @throws ExecutionException if a query threw an exception
+         */
+        public long getElapsed() throws InterruptedException, ExecutionException {
+            getResults();
+            return TimeUnit.NANOSECONDS.toMillis(end.get() - begin);
+        }
+
+        /**
+         * @return total number of iterations of the finished queries
+         */
+        public long getIterations() {
+            return iterations.get();
+        }
+
+        /**
+         * Waits until all the queries finish and computes the number of queries solved per second.
+         *
+         * @return queries per second
+         * @throws InterruptedException if the current thread was interrupted while waiting
+         * @throws ExecutionException if a query threw an exception
+         */
+        public double getThroughput() throws InterruptedException, ExecutionException {
+            getResults();
+            return queries.size() / seconds();
+        }
+
+        /**
+         * Waits until all the queries finish and computes the number of nodes expanded per second
+         * by all the queries.
+         *
+         * @return iterations per second
+         * @throws InterruptedException if the current thread was interrupted while waiting
+         * @throws ExecutionException if a query threw an exception
+         */
+        public double getIterationsPerSecond() throws InterruptedException, ExecutionException {
+            getResults();
+            return iterations.get() / seconds();
+        }
+
+        private double seconds() {
+            return Math.max(end.get() - begin, 1L) / 1e9;
+        }
+    }
+}
@@ -18,9 +18,13 @@ package es.usc.citius.hipster.algorithm;
 
 import es.usc.citius.hipster.model.CostNode;
 import es.usc.citius.hipster.model.function.NodeExpander;
+import es.usc.citius.hipster.model.function.StateIndexer;
 import es.usc.citius.hipster.util.Predicate;
-import es.usc.citius.lab.hipster.collections.HashQueue;
+import es.usc.citius.lab.hipster.collections.ArrayHashQueue;
+import es.usc.citius.lab.hipster.collections.IndexedArrayQueue;
+import es.usc.citius.lab.hipster.collections.StampedArrayMap;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -48,6 +52,8 @@ public class BellmanFord<A,S,C extends Comparable<C>,N extends CostNode<A,S,C,N>
     protected N initialNode;
     protected NodeExpander<A,S,N> nodeExpander;
     protected boolean checkNegativeCycles = true;
+    protected SearchContext<S,N> context;
+    protected StateIndexer<? super S> stateIndexer;
 
     public BellmanFord(N initialNode, NodeExpander<A, S, N> nodeExpander) {
         this.initialNode = initialNode;
@@ -59,13 +65,24 @@ public class BellmanFord<A,S,C extends Comparable<C>,N extends CostNode<A,S,C,N>
      * next expanded node with the approximated cost. The cost is only optimal
      * when the queue is fully processed.
      */
-    public class Iterator implements java.util.Iterator<N> {
+    public class Iterator extends MonitoredIterator {
         protected Queue<S> queue;
         protected Map<S, N> explored;
 
         protected Iterator(){
-            this.queue = new HashQueue<S>();
-            this.explored = new HashMap<S, N>();
+            if (context != null) {
+                // Reuse the structures of the context instead of allocating new ones
+                context.reset();
+                this.queue = context.getStateQueue();
+                this.explored = context.getClosed();
+            } else if (stateIndexer != null) {
+                // Nodes and queued states indexed by the id of their state, without hashing the states
+                this.queue = new IndexedArrayQueue<S>(stateIndexer);
+                this.explored = new StampedArrayMap<S, N>(stateIndexer);
+            } else {
+                this.queue = new ArrayHashQueue<S>();
+                this.explored = new HashMap<S, N>();
+            }
             this.queue.add(initialNode.state());
             this.explored.put(initialNode.state(), initialNode);
         }
@@ -75,13 +92,16 @@ public class BellmanFord<A,S,C extends Comparable<C>,N extends CostNode<A,S,C,N>
          * explored set of nodes.
          *
          * @param node node to update the queue status
+         * @return true if the state was not already in the queue
          */
-        protected void enqueue(N node) {
+        protected boolean enqueue(N node) {
             S state = node.state();
-            if (!this.queue.contains(state)) {
+            boolean added = !this.queue.contains(state);
+            if (added) {
                 this.queue.add(state);
             }
             this.explored.put(state, node);
+            return added;
         }
 
         /**
@@ -108,7 +128,9 @@ public class BellmanFord<A,S,C extends Comparable<C>,N extends CostNode<A,S,C,N>
             if (checkNegativeCycles && currentNode.pathSize() > explored.size()){
                 throw new NegativeCycleException();
             }
+            int successors = 0;
             for (N successor : nodeExpander.expand(currentNode)) {
+                successors++;
                 // Check if there is any improvement in the old cost
                 N previousNode = this.explored.get(successor.state());
                 if (previousNode != null) {
@@ -117,12 +139,18 @@ public class BellmanFord<A,S,C extends Comparable<C>,N extends CostNode<A,S,C,N>
                     //if (comparator.compare(successorNode, previousNode) <= 0){
                     if (successor.getCost().compareTo(previousNode.getCost()) < 0) {
                         // Replace the worst version and re-enqueue (if not in queue)
-                        enqueue(successor);
+                        if (enqueue(successor)) {
+                            monitor.reopened(successor);
+                        }
+                    } else {
+                        monitor.duplicated(successor);
                     }
                 } else {
                     enqueue(successor);
                 }
             }
+            monitor.expanded(currentNode, successors);
+            monitor.sizes(queue.size(), explored.size());
             return currentNode;
         }
 
@@ -130,18 +158,55 @@ public class BellmanFord<A,S,C extends Comparable<C>,N extends CostNode<A,S,C,N>
         public void remove() {
             throw new UnsupportedOperationException();
         }
+
+        /**
+         * Returns the queue with the states pending to be processed. Each state
+         * is only once in the queue.
+         *
+         * @return queue of states
+         */
+        public Queue<S> getQueue() {
+            return queue;
+        }
+
+        /**
+         * Replaces the queue of states. The new queue must not hold duplicate states
+         * (see {@link es.usc.citius.lab.hipster.collections.ArrayHashQueue}).
+         *
+         * @param queue new queue of states
+         */
+        public void setQueue(Queue<S> queue) {
+            this.queue = queue;
+        }
+
+        /**
+         * @return map with the best node found for each explored state
+         */
+        public Map<S, N> getExplored() {
+            return explored;
+        }
     }
 
     @Override
-    public SearchResult search(Predicate<N> condition){
+    public SearchResult search(Predicate<N> condition, SearchBudget budget){
         int iteration = 0;
         Iterator it = iterator();
+        SearchBudget.Tracker<N> tracker = startBudget(budget, it);
         long begin = System.currentTimeMillis();
         N currentNode = null;
         N goalNode = null;
         while(it.hasNext()){
+            if (tracker.isExhausted()) {
+                // The cost of the goal may not be optimal yet
+                Collection<N> goals = (goalNode != null)
+                        ? Collections.singletonList(it.explored.get(goalNode.state()))
+                        : Collections.<N>emptyList();
+                N best = goals.isEmpty() ? tracker.getBest() : goals.iterator().next();
+                return new SearchResult(goals, iteration, System.currentTimeMillis() - begin, best);
+            }
             iteration++;
             currentNode = it.next();
+            tracker.update(currentNode);
             if (goalNode == null && condition.apply(currentNode)) {
                 goalNode = currentNode;
             }
@@ -183,4 +248,32 @@ public class BellmanFord<A,S,C extends Comparable<C>,N extends CostNode<A,S,C,N>
     public void setCheckNegativeCycles(boolean checkNegativeCycles) {
         this.checkNegativeCycles = checkNegativeCycles;
     }
+
+    public SearchContext<S, N> getContext() {
+        return context;
+    }
+
+    /**
+     * Assigns a context whose structures are reused by the next iterators of this algorithm,
+     * instead of allocating new ones for each search. Use null to allocate them again.
+     *
+     * @param context reusable structures of the search
+     */
+    public void setContext(SearchContext<S, N> context) {
+        this.context = context;
+    }
+
+    public StateIndexer<? super S> getStateIndexer() {
+        return stateIndexer;
+    }
+
+    /**
+     * Assigns a function that maps the states to dense ids. When it is not null, the iterators
+     * store their nodes in arrays indexed by the id of each state instead of hash maps.
+     *
+     * @param stateIndexer function that maps the states to dense ids, or null to use hash maps
+     */
+    public void setStateIndexer(StateIndexer<? super S> stateIndexer) {
+        this.stateIndexer = stateIndexer;
+    }
 }
@@ -0,0 +1,334 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.algorithm;
+
+import es.usc.citius.hipster.model.Transition;
+import es.usc.citius.hipster.model.function.CostFunction;
+import es.usc.citius.hipster.model.function.NodeExpander;
+import es.usc.citius.hipster.model.function.impl.BinaryOperation;
+import es.usc.citius.hipster.model.function.impl.LazyNodeExpander;
+import es.usc.citius.hipster.model.function.impl.WeightedNodeFactory;
+import es.usc.citius.hipster.model.impl.DoubleWeightedNode;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.SearchComponents;
+import es.usc.citius.hipster.util.Predicate;
+
+import java.util.*;
+
+/**
+ * <p>
+ * Implementation of the bidirectional A* algorithm. The search runs two frontiers at the same time:
+ * a forward A* search from the initial state, guided by the heuristic of the search components, and
+ * a backward Dijkstra search from the goal state, which uses the predecessor function of the search
+ * components ({@link SearchComponents#predecessorFunction()}). In each iteration the frontier with
+ * less open nodes is expanded. Every time a state reached by one frontier has been reached by the other
+ * one, the cost of the path through it is used to update the best solution {@literal μ}.
+ * </p>
+ *
+ * <p>
+ * The search stops when the best solution can not be improved, that is, when the minimum score of any
+ * of the two frontiers is greater or equal than {@literal μ}. When there is no heuristic
+ * (bidirectional Dijkstra) the search also stops when the sum of the minimum costs of the two frontiers
+ * reaches {@literal μ}. The heuristic must be consistent for the solution to be optimal.
+ * </p>
+ *
+ * <p>
+ * Each call to {@link Iterator#next()} returns the node expanded by one of the frontiers. Nodes of the
+ * backward frontier represent paths from the goal. The solution, from the initial to the goal state, can
+ * be obtained with {@link Iterator#getSolution()} or with {@link #search(Predicate)}.
+ * </p>
+ *
+ * <pre class="prettyprint">
+ * {@code
+ * SearchComponents<Double, String, Double> components = GraphSearchProblem
+ *      .startingFrom("A").goalAt("F")
+ *      .in(graph)
+ *      .takeCostsFromEdges()
+ *      .useHeuristicFunction(heuristic)
+ *      .components();
+ * System.out.println(Hipster.createBidirectionalAStar(components).search("F"));
+ * }
+ * </pre>
+ *
+ * <a href="http://www.aaai.org/Papers/AAAI/1969/AAAI69-014.pdf">Original paper</a>:
+ * Pohl, Ira. <b>"Bi-directional and heuristic search in path problems"</b>. <i>SLAC Report 104 (1969)</i>.
+ *
+ * @param <A> action type.
+ * @param <S> state type.
+ * @param <C> comparable cost used to compare states.
+ */
+public class BidirectionalAStar<A, S, C extends Comparable<C>> extends Algorithm<A, S, WeightedNode<A, S, C>> {
+
+    protected final SearchComponents<A, S, C> components;
+    protected final WeightedNodeFactory<A, S, C> forwardFactory;
+    protected final NodeExpander<A, S, WeightedNode<A, S, C>> forwardExpander;
+    protected final NodeExpander<A, S, WeightedNode<A, S, C>> backwardExpander;
+
+    /**
+     * Creates the algorithm from the search components. The components must provide the initial and
+     * goal states, the successor and predecessor functions, the cost function and the cost algebra.
+     * The heuristic function is optional.
+     *
+     * @param components search components of the problem
+     */
+    public BidirectionalAStar(SearchComponents<A, S, C> components) {
+        if (components.predecessorFunction() == null) {
+            throw new IllegalArgumentException("Bidirectional search requires a predecessor function");
+        }
+        this.components = components;
+        final CostFunction<A, S, C> cf = components.costFunction();
+        BinaryOperation<C> costAlgebra = components.costAlgebra();
+        if (components.heuristicFunction() != null) {
+            this.forwardFactory = new WeightedNodeFactory<A, S, C>(cf, components.heuristicFunction(), costAlgebra);
+        } else {
+            this.forwardFactory = new WeightedNodeFactory<A, S, C>(cf, costAlgebra);
+        }
+        // Predecessor transitions go from a state to its predecessor, so the cost is
+        // evaluated with the original direction of the transition
+        WeightedNodeFactory<A, S, C> backwardFactory = new WeightedNodeFactory<A, S, C>(new CostFunction<A, S, C>() {
+            @Override
+            public C evaluate(Transition<A, S> transition) {
+                return cf.evaluate(new Transition<A, S>(transition.getState(), transition.getAction(), transition.getFromState()));
+            }
+        }, costAlgebra);
+        this.forwardExpander = new LazyNodeExpander<A, S, WeightedNode<A, S, C>>(components.successorFunction(), forwardFactory);
+        this.backwardExpander = new LazyNodeExpander<A, S, WeightedNode<A, S, C>>(components.predecessorFunction(), backwardFactory);
+    }
+
+    @Override
+    public Iterator iterator() {
+        return new Iterator();
+    }
+
+    /**
+     * Runs the bidirectional search until the optimal path between the initial and the goal states
+     * of the search components is found, there are no more states to explore or the budget is exhausted.
+     * As the goal is defined by the search components, the condition is only checked against the final solution.
+     * If the budget is exhausted, the best node of the result is the best path found connecting both frontiers.
+     *
+     * @param condition predicate that the solution must satisfy
+     * @param budget limits of the search
+     * @return search result with the solution, or without goal nodes if there is no solution
+     */
+    @Override
+    public SearchResult search(Predicate<WeightedNode<A, S, C>> condition, SearchBudget budget) {
+        int iteration = 0;
+        Iterator it = iterator();
+        SearchBudget.Tracker<WeightedNode<A, S, C>> tracker = startBudget(budget, it);
+        long begin = System.currentTimeMillis();
+        while (it.hasNext()) {
+            if (tracker.isExhausted()) {
+                // Best path found so far connecting both frontiers, if any
+                WeightedNode<A, S, C> solution = it.getSolution();
+                WeightedNode<A, S, C> best = (solution != null) ? solution : tracker.getBest();
+                return new SearchResult(Collections.<WeightedNode<A, S, C>>emptyList(), iteration,
+                        System.currentTimeMillis() - begin, best);
+            }
+            iteration++;
+            tracker.update(it.next());
+        }
+        long elapsed = System.currentTimeMillis() - begin;
+        WeightedNode<A, S, C> solution = it.getSolution();
+        if (solution != null && condition.apply(solution)) {
+            return new SearchResult(solution, iteration, elapsed);
+        }
+        return new SearchResult(Collections.<WeightedNode<A, S, C>>emptyList(), iteration, elapsed);
+    }
+
+    /**
+     * One of the two frontiers of the search. The logic is the same as in {@link AStar.Iterator}.
+     */
+    public class Frontier {
+        protected final NodeExpander<A, S, WeightedNode<A, S, C>> expander;
+        protected Map<S, WeightedNode<A, S, C>> open = new HashMap<S, WeightedNode<A, S, C>>();
+        protected Map<S, WeightedNode<A, S, C>> closed = new HashMap<S, WeightedNode<A, S, C>>();
+        protected Queue<WeightedNode<A, S, C>> queue = new PriorityQueue<WeightedNode<A, S, C>>();
+
+        protected Frontier(WeightedNode<A, S, C> initialNode, NodeExpander<A, S, WeightedNode<A, S, C>> expander) {
+            this.expander = expander;
+            open.put(initialNode.state(), initialNode);
+            queue.add(initialNode);
+        }
+
+        /**
+         * Returns the best node of the queue without removing it, discarding stale queue entries.
+         *
+         * @param monitor monitor of the iterator, notified of the stale entries
+         */
+        protected WeightedNode<A, S, C> peek(SearchMonitor<? super WeightedNode<A, S, C>> monitor) {
+            WeightedNode<A, S, C> node = queue.peek();
+            while (node != null && open.get(node.state()) != node) {
+                monitor.stale(queue.poll());
+                node = queue.peek();
+            }
+            return node;
+        }
+
+        /**
+         * Returns the node with the best path to the state found so far by this frontier.
+         */
+        protected WeightedNode<A, S, C> reached(S state) {
+            WeightedNode<A, S, C> node = open.get(state);
+            return (node != null) ? node : closed.get(state);
+        }
+
+        public Map<S, WeightedNode<A, S, C>> getOpen() {
+            return open;
+        }
+
+        public Map<S, WeightedNode<A, S, C>> getClosed() {
+            return closed;
+        }
+
+        public Queue<WeightedNode<A, S, C>> getQueue() {
+            return queue;
+        }
+    }
+
+    /**
+     * Internal iterator that implements all the logic of the bidirectional search
+     */
+    public class Iterator extends MonitoredIterator {
+        protected Frontier forward;
+        protected Frontier backward;
+        // Best meeting point found so far, reached from both frontiers
+        protected WeightedNode<A, S, C> bestForward;
+        protected WeightedNode<A, S, C> bestBackward;
+        protected C bestCost;
+
+        protected Iterator() {
+            BinaryOperation<C> costAlgebra = components.costAlgebra();
+            WeightedNode<A, S, C> begin = forwardFactory.makeNode(null, new Transition<A, S>(null, components.getBegin()));
+            WeightedNode<A, S, C> goal = new WeightedNode<A, S, C>(null, components.getGoal(), null,
+                    costAlgebra.getIdentityElem(), costAlgebra.getIdentityElem(), costAlgebra.getIdentityElem());
+            forward = new Frontier(begin, forwardExpander);
+            backward = new Frontier(goal, backwardExpander);
+            if (begin.state().equals(goal.state())) {
+                bestForward = begin;
+                bestBackward = goal;
+                bestCost = begin.getCost();
+            }
+        }
+
+        /**
+         * Returns true while the best solution can still be improved.
+         */
+        public boolean hasNext() {
+            WeightedNode<A, S, C> f = forward.peek(monitor);
+            WeightedNode<A, S, C> b = backward.peek(monitor);
+            if (f == null || b == null) return false;
+            if (bestCost == null) return true;
+            if (f.getScore().compareTo(bestCost) >= 0 || b.getScore().compareTo(bestCost) >= 0) return false;
+            if (components.heuristicFunction() == null) {
+                // Bidirectional Dijkstra stopping criterion
+                C sum = components.costAlgebra().apply(f.getCost(), b.getCost());
+                if (sum.compareTo(bestCost) >= 0) return false;
+            }
+            return true;
+        }
+
+        /**
+         * Expands the best node of the frontier with less open nodes.
+         *
+         * @return expanded node. Nodes of the backward frontier represent paths from the goal state.
+         */
+        public WeightedNode<A, S, C> next() {
+            if (forward.open.size() <= backward.open.size()) {
+                return expand(forward, backward, true);
+            }
+            return expand(backward, forward, false);
+        }
+
+        protected WeightedNode<A, S, C> expand(Frontier frontier, Frontier opposite, boolean isForward) {
+            WeightedNode<A, S, C> current = frontier.peek(monitor);
+            if (current == null) throw new NoSuchElementException();
+            frontier.queue.poll();
+            frontier.open.remove(current.state());
+            int successors = 0;
+            for (WeightedNode<A, S, C> successor : frontier.expander.expand(current)) {
+                successors++;
+                WeightedNode<A, S, C> successorOpen = frontier.open.get(successor.state());
+                if (successorOpen != null && DoubleWeightedNode.compareScores(successorOpen, successor) <= 0) {
+                    monitor.duplicated(successor);
+                    continue;
+                }
+                WeightedNode<A, S, C> successorClosed = frontier.closed.get(successor.state());
+                if (successorClosed != null) {
+                    if (DoubleWeightedNode.compareScores(successorClosed, successor) <= 0) {
+                        monitor.duplicated(successor);
+                        continue;
+                    }
+                    monitor.reopened(successor);
+                }
+                frontier.open.put(successor.state(), successor);
+                frontier.queue.add(successor);
+                // Check if the opposite frontier already reached this state
+                WeightedNode<A, S, C> meeting = opposite.reached(successor.state());
+                if (meeting != null) {
+                    C cost = components.costAlgebra().apply(successor.getCost(), meeting.getCost());
+                    if (bestCost == null || cost.compareTo(bestCost) < 0) {
+                        bestCost = cost;
+                        bestForward = isForward ? successor : meeting;
+                        bestBackward = isForward ? meeting : successor;
+                    }
+                }
+            }
+            frontier.closed.put(current.state(), current);
+            monitor.expanded(current, successors);
+            monitor.sizes(forward.open.size() + backward.open.size(), forward.closed.size() + backward.closed.size());
+            return current;
+        }
+
+        /**
+         * Remove is not supported
+         */
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Builds the best path found so far, joining the paths of both frontiers.
+         *
+         * @return node with the state of the goal and the full path from the initial state,
+         * or null if the frontiers have not met yet
+         */
+        public WeightedNode<A, S, C> getSolution() {
+            if (bestForward == null) return null;
+            WeightedNode<A, S, C> node = bestForward;
+            // Follow the backward path (from the meeting state to the goal) extending the forward node
+            for (WeightedNode<A, S, C> b = bestBackward; b.previousNode() != null; b = b.previousNode()) {
+                node = forwardFactory.makeNode(node, new Transition<A, S>(node.state(), b.action(), b.previousNode().state()));
+            }
+            return node;
+        }
+
+        /**
+         * @return cost of the best path found so far, or null if the frontiers have not met yet
+         */
+        public C getBestCost() {
+            return bestCost;
+        }
+
+        public Frontier getForward() {
+            return forward;
+        }
+
+        public Frontier getBackward() {
+            return backward;
+        }
+    }
+}
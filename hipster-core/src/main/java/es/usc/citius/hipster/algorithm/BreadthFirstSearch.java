@@ -18,7 +18,10 @@ package es.usc.citius.hipster.algorithm;
 
 import es.usc.citius.hipster.model.Node;
 import es.usc.citius.hipster.model.function.NodeExpander;
+import es.usc.citius.hipster.model.function.StateIndexer;
+import es.usc.citius.lab.hipster.collections.StampedArrayMap;
 
+import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
@@ -41,6 +44,8 @@ import java.util.Queue;
 public class BreadthFirstSearch<A,S,N extends Node<A,S,N>> extends Algorithm<A,S,N> {
     protected final N initialNode;
     protected final NodeExpander<A,S,N> expander;
+    protected SearchContext<S,N> context;
+    protected StateIndexer<? super S> stateIndexer;
 
     public BreadthFirstSearch(N initialNode, NodeExpander<A, S, N> expander) {
         this.initialNode = initialNode;
@@ -50,15 +55,28 @@ public class BreadthFirstSearch<A,S,N extends Node<A,S,N>> extends Algorithm<A,S
     /**
      * Implements all the BFS search logic as an iterator
      */
-    public class Iterator implements java.util.Iterator<N> {
-        protected Queue<N> queue = new LinkedList<N>();
-        protected Map<S, N> visited = new HashMap<S, N>();
+    public class Iterator extends MonitoredIterator {
+        protected Queue<N> queue;
+        protected Map<S, N> visited;
 
         /**
          * Iterator cannot be instantiated from outside.
          * Use {@link BreadthFirstSearch#iterator()} to create a new BFS iterator.
          */
         protected Iterator(){
+            if (context != null) {
+                // Reuse the structures of the context instead of allocating new ones
+                context.reset();
+                queue = context.getQueue();
+                visited = context.getClosed();
+            } else if (stateIndexer != null) {
+                // Nodes indexed by the id of their state, without hashing the states
+                queue = new ArrayDeque<N>();
+                visited = new StampedArrayMap<S, N>(stateIndexer);
+            } else {
+                queue = new LinkedList<N>();
+                visited = new HashMap<S, N>();
+            }
             visited.put(initialNode.state(), initialNode);
             queue.add(initialNode);
         }
@@ -72,12 +90,18 @@ public class BreadthFirstSearch<A,S,N extends Node<A,S,N>> extends Algorithm<A,S
         public N next() {
             // Take next node
             N current = queue.poll();
+            int successors = 0;
             for(N successorNode : expander.expand(current)){
+                successors++;
                 if (!visited.containsKey(successorNode.state())){
                     visited.put(successorNode.state(), successorNode);
                     queue.add(successorNode);
+                } else {
+                    monitor.duplicated(successorNode);
                 }
             }
+            monitor.expanded(current, successors);
+            monitor.sizes(queue.size(), visited.size());
             return current;
         }
 
@@ -109,4 +133,32 @@ public class BreadthFirstSearch<A,S,N extends Node<A,S,N>> extends Algorithm<A,S
     public Iterator iterator() {
         return new Iterator();
     }
+
+    public SearchContext<S, N> getContext() {
+        return context;
+    }
+
+    /**
+     * Assigns a context whose structures are reused by the next iterators of this algorithm,
+     * instead of allocating new ones for each search. Use null to allocate them again.
+     *
+     * @param context reusable structures of the search
+     */
+    public void setContext(SearchContext<S, N> context) {
+        this.context = context;
+    }
+
+    public StateIndexer<? super S> getStateIndexer() {
+        return stateIndexer;
+    }
+
+    /**
+     * Assigns a function that maps the states to dense ids. When it is not null, the iterators
+     * store their nodes in arrays indexed by the id of each state instead of hash maps.
+     *
+     * @param stateIndexer function that maps the states to dense ids, or null to use hash maps
+     */
+    public void setStateIndexer(StateIndexer<? super S> stateIndexer) {
+        this.stateIndexer = stateIndexer;
+    }
 }
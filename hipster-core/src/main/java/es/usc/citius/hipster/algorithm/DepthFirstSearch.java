@@ -18,6 +18,8 @@ package es.usc.citius.hipster.algorithm;
 
 import es.usc.citius.hipster.model.Node;
 import es.usc.citius.hipster.model.function.NodeExpander;
+import es.usc.citius.hipster.model.function.StateIndexer;
+import es.usc.citius.lab.hipster.collections.StampedArrayMap;
 
 import java.util.*;
 
@@ -37,6 +39,7 @@ import java.util.*;
 public class DepthFirstSearch<A,S,N extends Node<A,S,N>> extends Algorithm<A,S,N> {
     protected N initialNode;
     protected NodeExpander<A,S,N> expander;
+    protected StateIndexer<? super S> stateIndexer;
 
     // TODO; DRY common structures with other algorithms (like IDA)
 
@@ -55,6 +58,8 @@ public class DepthFirstSearch<A,S,N extends Node<A,S,N>> extends Algorithm<A,S,N
         boolean visited = false;
         // Boolean to indicate that this node is fully processed
         boolean processed = false;
+        // Number of successors taken from the iterator
+        int generated = 0;
 
         StackFrameNode(java.util.Iterator successors, N node) {
             this.successors = successors;
@@ -86,13 +91,19 @@ public class DepthFirstSearch<A,S,N extends Node<A,S,N>> extends Algorithm<A,S,N
     /**
      * DFS iterator used to expand always the deepest non-visited node.
      */
-    public class Iterator implements java.util.Iterator<N> {
+    public class Iterator extends MonitoredIterator {
         protected Deque<StackFrameNode> stack = new ArrayDeque<StackFrameNode>();
         protected StackFrameNode next;
-        protected Set<S> closed = new HashSet<S>();
+        protected Set<S> closed;
         protected boolean graphSupport = true;
 
         protected Iterator(){
+            if (stateIndexer != null) {
+                // Visited flags indexed by the id of each state, without hashing the states
+                this.closed = Collections.newSetFromMap(new StampedArrayMap<S, Boolean>(stateIndexer));
+            } else {
+                this.closed = new HashSet<S>();
+            }
             this.stack.addLast(new StackFrameNode(initialNode));
         }
 
@@ -143,6 +154,11 @@ public class DepthFirstSearch<A,S,N extends Node<A,S,N>> extends Algorithm<A,S,N
                 // that were processed and removed from the stack, in order
                 // to avoid cycles.
                 if (graphSupport) closed.add(nextNode.node.state());
+                // Leaf nodes are already out of the stack, the rest are reported when processed
+                if (nextNode.generated == 0) {
+                    monitor.expanded(nextNode.node, 0);
+                    monitor.sizes(stack.size(), closed.size());
+                }
             }
             return nextNode;
         }
@@ -157,15 +173,20 @@ public class DepthFirstSearch<A,S,N extends Node<A,S,N>> extends Algorithm<A,S,N
             // Find a successor
             if (current.successors.hasNext()){
                 N successor = current.successors.next();
+                current.generated++;
                 // push the node (if not explored)
                 if (!graphSupport || !closed.contains(successor.state())) {
                     stack.addLast(new StackFrameNode(successor));
+                } else {
+                    monitor.duplicated(successor);
                 }
                 return current;
             } else {
                 // Visited?
                 if (current.visited){
                     current.processed = true;
+                    monitor.expanded(current.node, current.generated);
+                    monitor.sizes(stack.size(), closed.size());
                 }
                return stack.removeLast();
             }
@@ -207,4 +228,18 @@ public class DepthFirstSearch<A,S,N extends Node<A,S,N>> extends Algorithm<A,S,N
     public java.util.Iterator<N> iterator() {
         return new Iterator();
     }
+
+    public StateIndexer<? super S> getStateIndexer() {
+        return stateIndexer;
+    }
+
+    /**
+     * Assigns a function that maps the states to dense ids. When it is not null, the iterators
+     * keep the visited states in arrays indexed by the id of each state instead of a hash set.
+     *
+     * @param stateIndexer function that maps the states to dense ids, or null to use a hash set
+     */
+    public void setStateIndexer(StateIndexer<? super S> stateIndexer) {
+        this.stateIndexer = stateIndexer;
+    }
 }
@@ -0,0 +1,347 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.algorithm;
+
+import es.usc.citius.hipster.graph.CompressedHipsterDirectedGraph;
+import es.usc.citius.hipster.graph.HipsterDirectedGraph;
+import es.usc.citius.hipster.graph.IndexedHipsterDirectedGraph;
+import es.usc.citius.hipster.model.impl.UnweightedNode;
+
+import java.util.*;
+
+/**
+ * <p>
+ * Direction-optimizing Breadth First Search over a {@link es.usc.citius.hipster.graph.HipsterDirectedGraph}.
+ * The search works directly with the dense vertex ids of an
+ * {@link es.usc.citius.hipster.graph.IndexedHipsterDirectedGraph} (other graphs are copied to a
+ * {@link es.usc.citius.hipster.graph.CompressedHipsterDirectedGraph} first), and keeps
+ * the visited vertices and the frontier in bitsets. Each layer is expanded in one of two directions:
+ * </p>
+ * <ul>
+ *     <li><b>Top-down</b>: the outgoing edges of each vertex of the frontier are scanned to find the
+ *     vertices not visited yet (the classic BFS step).</li>
+ *     <li><b>Bottom-up</b>: each vertex not visited yet scans its incoming edges until it finds a parent in the
+ *     frontier. This step is cheaper when the frontier is large, since most of the vertices find a parent after
+ *     checking a few edges.</li>
+ * </ul>
+ *
+ * <p>
+ * The search switches to bottom-up when the number of edges of the frontier exceeds the number of edges of the
+ * unexplored vertices divided by {@code alpha}, and switches back to top-down when the frontier contains less than
+ * {@code vertices / beta} vertices (see Beamer et al., <i>Direction-Optimizing Breadth-First Search</i>, 2012).
+ * Low-diameter graphs, where a few layers contain most of the vertices, benefit the most from this strategy.
+ * </p>
+ *
+ * <p>
+ * As in {@link ParallelBreadthFirstSearch}, the nodes are returned layer by layer, and the depth of each node is
+ * the same as in {@link BreadthFirstSearch}. The parent of a node found in a bottom-up step is the first parent
+ * found in the incoming edges of the vertex, and the nodes of these layers are sorted by vertex id. The action of
+ * each node is the value of the edge used to reach it.
+ * </p>
+ *
+ * @param <V> type of the vertices.
+ * @param <E> type of the edges.
+ */
+public class DirectionOptimizingBreadthFirstSearch<V,E> extends Algorithm<E,V,UnweightedNode<E,V>> {
+    public static final int DEFAULT_ALPHA = 14;
+    public static final int DEFAULT_BETA = 24;
+    protected final V source;
+    protected final IndexedHipsterDirectedGraph<V,E> graph;
+    protected int alpha = DEFAULT_ALPHA;
+    protected int beta = DEFAULT_BETA;
+
+    public DirectionOptimizingBreadthFirstSearch(V source, HipsterDirectedGraph<V, E> graph) {
+        this.source = source;
+        this.graph = (graph instanceof IndexedHipsterDirectedGraph)
+                ? (IndexedHipsterDirectedGraph<V, E>) graph
+                : CompressedHipsterDirectedGraph.copyOf(graph);
+    }
+
+    /**
+     * Direction-optimizing BFS iterator. The queue contains the ids of the vertices of the next layer.
+     */
+    public class Iterator extends MonitoredIterator {
+        protected final UnweightedNode<E,V>[] nodes;
+        protected final long[] visited;
+        // Vertices of the next layer, as a list (in order of discovery) and as a bitset
+        protected int[] queue;
+        protected int queueSize;
+        protected long[] queueBits;
+        // Sum of the out-degrees of the vertices in the queue
+        protected long queueEdges;
+        // Sum of the out-degrees of the vertices not visited yet
+        protected long unexploredEdges;
+        protected int visitedCount;
+        protected boolean bottomUp;
+        protected List<UnweightedNode<E,V>> layer = Collections.emptyList();
+        protected int current;
+        protected int depth = -1;
+        protected long edgeInspections;
+        protected int bottomUpLayers;
+
+        @SuppressWarnings("unchecked")
+        protected Iterator() {
+            int n = graph.vertexCount();
+            this.nodes = new UnweightedNode[n];
+            this.visited = new long[(n + 63) >>> 6];
+            this.queue = new int[16];
+            this.queueBits = new long[visited.length];
+            this.unexploredEdges = graph.edgeCount();
+            int id = graph.indexOf(source);
+            if (id >= 0) {
+                visit(id, new UnweightedNode<E, V>(null, source, null));
+            } else {
+                // The source is not in the graph, it is returned without successors
+                layer = Collections.singletonList(new UnweightedNode<E, V>(null, source, null));
+                depth = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return current < layer.size() || queueSize > 0;
+        }
+
+        @Override
+        public UnweightedNode<E,V> next() {
+            if (current >= layer.size()) {
+                if (queueSize == 0) throw new NoSuchElementException();
+                expandLayer();
+            }
+            UnweightedNode<E,V> node = layer.get(current++);
+            monitor.expanded(node, outDegree(node.state()));
+            monitor.sizes(queueSize + layer.size() - current, visitedCount);
+            return node;
+        }
+
+        /**
+         * Returns the remaining nodes of the current layer, or expands and returns the
+         * next layer if all the nodes of the current layer were already returned.
+         *
+         * @return nodes of the layer, all of them at the same depth
+         */
+        public List<UnweightedNode<E,V>> nextLayer() {
+            if (current >= layer.size()) {
+                if (queueSize == 0) throw new NoSuchElementException();
+                expandLayer();
+            }
+            for (int i = current; i < layer.size(); i++) {
+                UnweightedNode<E,V> node = layer.get(i);
+                monitor.expanded(node, outDegree(node.state()));
+            }
+            monitor.sizes(queueSize, visitedCount);
+            List<UnweightedNode<E,V>> nodes = layer.subList(current, layer.size());
+            current = layer.size();
+            return nodes;
+        }
+
+        /**
+         * Expands all the vertices of the queue, choosing the direction of the step with the sizes of
+         * the frontier and the unexplored part of the graph. The expanded vertices form the new current
+         * layer and the vertices found are added to the queue.
+         */
+        protected void expandLayer() {
+            int[] frontier = queue;
+            int frontierSize = queueSize;
+            long[] frontierBits = queueBits;
+            long frontierEdges = queueEdges;
+            List<UnweightedNode<E,V>> expanded = new ArrayList<UnweightedNode<E, V>>(frontierSize);
+            for (int i = 0; i < frontierSize; i++) {
+                expanded.add(nodes[frontier[i]]);
+            }
+            layer = expanded;
+            current = 0;
+            depth++;
+            if (bottomUp) {
+                bottomUp = (long) frontierSize * beta >= graph.vertexCount();
+            } else {
+                bottomUp = frontierEdges * alpha > unexploredEdges;
+            }
+            queue = new int[Math.max(16, frontierSize)];
+            queueSize = 0;
+            queueBits = new long[visited.length];
+            queueEdges = 0;
+            if (bottomUp) {
+                bottomUpLayers++;
+                bottomUpStep(frontierBits);
+            } else {
+                topDownStep(frontier, frontierSize);
+            }
+        }
+
+        /**
+         * Scans the outgoing edges of the vertices of the frontier.
+         */
+        protected void topDownStep(int[] frontier, int frontierSize) {
+            for (int i = 0; i < frontierSize; i++) {
+                int parent = frontier[i];
+                UnweightedNode<E,V> parentNode = nodes[parent];
+                for (int edge = graph.outgoingStart(parent); edge < graph.outgoingEnd(parent); edge++) {
+                    edgeInspections++;
+                    int target = graph.target(edge);
+                    if (!isVisited(target)) {
+                        visit(target, new UnweightedNode<E, V>(parentNode, graph.vertexAt(target), graph.value(edge)));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Scans the incoming edges of each vertex not visited yet, until a parent in the frontier is found.
+         */
+        protected void bottomUpStep(long[] frontierBits) {
+            int n = graph.vertexCount();
+            for (int word = 0; word < visited.length; word++) {
+                // Vertices added during this step are not in the frontier, so the word can be read once
+                long unvisited = ~visited[word];
+                while (unvisited != 0) {
+                    int vertex = (word << 6) + Long.numberOfTrailingZeros(unvisited);
+                    unvisited &= unvisited - 1;
+                    if (vertex >= n) break;
+                    for (int position = graph.incomingStart(vertex); position < graph.incomingEnd(vertex); position++) {
+                        edgeInspections++;
+                        int parent = graph.incomingSource(position);
+                        if ((frontierBits[parent >>> 6] & (1L << parent)) != 0) {
+                            visit(vertex, new UnweightedNode<E, V>(nodes[parent], graph.vertexAt(vertex),
+                                    graph.value(graph.incomingEdge(position))));
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+
+        protected boolean isVisited(int id) {
+            return (visited[id >>> 6] & (1L << id)) != 0;
+        }
+
+        /**
+         * Marks a vertex as visited and adds it to the queue.
+         */
+        protected void visit(int id, UnweightedNode<E,V> node) {
+            visited[id >>> 6] |= 1L << id;
+            queueBits[id >>> 6] |= 1L << id;
+            nodes[id] = node;
+            if (queueSize == queue.length) {
+                queue = Arrays.copyOf(queue, queueSize << 1);
+            }
+            queue[queueSize++] = id;
+            int degree = graph.outgoingEnd(id) - graph.outgoingStart(id);
+            queueEdges += degree;
+            unexploredEdges -= degree;
+            visitedCount++;
+        }
+
+        private int outDegree(V vertex) {
+            int id = graph.indexOf(vertex);
+            return (id < 0) ? 0 : graph.outgoingEnd(id) - graph.outgoingStart(id);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * @return depth of the nodes of the current layer (0 for the source)
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        public List<UnweightedNode<E,V>> getLayer() {
+            return layer;
+        }
+
+        /**
+         * @return true if the last layer was expanded with a bottom-up step
+         */
+        public boolean isBottomUp() {
+            return bottomUp;
+        }
+
+        /**
+         * @return number of layers expanded with a bottom-up step
+         */
+        public int getBottomUpLayers() {
+            return bottomUpLayers;
+        }
+
+        /**
+         * @return number of edges checked so far, in both directions
+         */
+        public long getEdgeInspections() {
+            return edgeInspections;
+        }
+
+        /**
+         * @return number of vertices visited so far
+         */
+        public int getVisitedCount() {
+            return visitedCount;
+        }
+
+        /**
+         * Returns the node of a visited vertex.
+         *
+         * @param vertex vertex of the graph
+         * @return node of the vertex, or null if the vertex was not visited yet
+         */
+        public UnweightedNode<E,V> getNode(V vertex) {
+            int id = graph.indexOf(vertex);
+            return (id < 0) ? null : nodes[id];
+        }
+    }
+
+    @Override
+    public Iterator iterator() {
+        return new Iterator();
+    }
+
+    public IndexedHipsterDirectedGraph<V, E> getGraph() {
+        return graph;
+    }
+
+    public int getAlpha() {
+        return alpha;
+    }
+
+    /**
+     * Sets the threshold to switch to bottom-up steps. A higher value switches earlier
+     * (with smaller frontiers). Use {@link Integer#MAX_VALUE} to always use bottom-up steps
+     * after the first layer, or 0 to never use them.
+     *
+     * @param alpha ratio between the edges of the unexplored vertices and the edges of the frontier
+     */
+    public void setAlpha(int alpha) {
+        this.alpha = alpha;
+    }
+
+    public int getBeta() {
+        return beta;
+    }
+
+    /**
+     * Sets the threshold to switch back to top-down steps. A higher value keeps the
+     * bottom-up steps with smaller frontiers.
+     *
+     * @param beta ratio between the number of vertices and the size of the frontier
+     */
+    public void setBeta(int beta) {
+        this.beta = beta;
+    }
+}
@@ -0,0 +1,645 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.algorithm;
+
+import es.usc.citius.hipster.model.function.NodeExpander;
+import es.usc.citius.hipster.model.function.StateSerializer;
+import es.usc.citius.hipster.model.impl.UnweightedNode;
+import es.usc.citius.hipster.util.Predicate;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * <p>
+ * External-memory Breadth First Search for state spaces which do not fit in memory, for example
+ * the exhaustive exploration of the configurations of a puzzle. Instead of keeping the visited states
+ * in a map, each layer of the search (the states at the same depth) is stored on disk as a sorted
+ * file of serialized states, and the duplicates are detected with a delay: the successors generated
+ * while a layer is expanded are buffered in memory, sorted and spilled to run files when the buffer
+ * is full, and at the end of the layer the runs are merged, removing the repeated states and the
+ * states of the previous layers (which are merged as well, since they are sorted in the same order).
+ * The states are compared by their serialized form, so the {@link StateSerializer} must write equal
+ * states with the same bytes.
+ * </p>
+ *
+ * <p>
+ * The algorithm writes a checkpoint with the initial state and the statistics of the layers (see
+ * {@link LayerStatistics}) each time a layer is completed. A new iterator over a directory with a
+ * checkpoint resumes the search from the last completed layer, so a search interrupted by a crash only
+ * repeats the expansion of that layer (and returns its nodes again). The checkpoint of a search from
+ * a different initial state is rejected. Remove the directory to start a new search.
+ * </p>
+ *
+ * <p>
+ * The iterator keeps the file of the layer being expanded open until the search is finished, so
+ * the iterators which are not consumed until the end should be closed (see {@link Iterator#close()}).
+ * The searches ({@link #search(Predicate, SearchBudget)}) close their iterator when they finish.
+ * </p>
+ *
+ * <p>
+ * The nodes returned by the iterator only know their depth ({@link UnweightedNode#pathSize()} is the
+ * depth plus one): their parents are not stored, so their paths only contain themselves. By default
+ * the successors are checked against all the previous layers, which works in any state space. In
+ * state spaces where all the actions can be undone it is enough to check the current and the previous
+ * layer (see {@link #setDuplicateLayers(int)}).
+ * </p>
+ *
+ * Delayed duplicate detection is described in: Korf, Richard E. <b>"Best-first frontier search with
+ * delayed duplicate detection."</b> <i>AAAI (2004): 650-657</i>.
+ *
+ * @param <A> action type.
+ * @param <S> state type.
+ */
+public class ExternalBreadthFirstSearch<A,S> extends Algorithm<A,S,UnweightedNode<A,S>> {
+    private static final int MAGIC = 0x48424653;
+    private static final int VERSION = 2;
+    private static final String CHECKPOINT = "checkpoint.bin";
+    // Estimation of the memory used by each buffered array besides its content
+    private static final int ARRAY_OVERHEAD = 24;
+
+    private static final Comparator<byte[]> ORDER = new Comparator<byte[]>() {
+        @Override
+        public int compare(byte[] a, byte[] b) {
+            int length = Math.min(a.length, b.length);
+            for (int i = 0; i < length; i++) {
+                int c = (a[i] & 0xFF) - (b[i] & 0xFF);
+                if (c != 0) return c;
+            }
+            return a.length - b.length;
+        }
+    };
+
+    protected final UnweightedNode<A,S> initialNode;
+    protected final NodeExpander<A,S,UnweightedNode<A,S>> expander;
+    protected final StateSerializer<S> serializer;
+    protected final File directory;
+    protected long memoryLimit = 64L << 20;
+    protected int duplicateLayers = Integer.MAX_VALUE;
+    protected LayerListener layerListener;
+
+    /**
+     * @param initialNode the initial node (which contains the initial state of the search).
+     * @param expander function to obtain (expand) a node to obtain the successor nodes.
+     * @param serializer function to write the states to disk and read them back.
+     * @param directory directory where the layers and the checkpoint of the search are stored.
+     */
+    public ExternalBreadthFirstSearch(UnweightedNode<A,S> initialNode, NodeExpander<A,S,UnweightedNode<A,S>> expander,
+                                      StateSerializer<S> serializer, File directory) {
+        this.initialNode = initialNode;
+        this.expander = expander;
+        this.serializer = serializer;
+        this.directory = directory;
+    }
+
+    /**
+     * Receives the statistics of each layer when it is completed.
+     */
+    public interface LayerListener {
+        void layerCompleted(LayerStatistics layer);
+    }
+
+    /**
+     * Statistics of a layer of the search.
+     */
+    public static class LayerStatistics {
+        private final int depth;
+        private final long states;
+        private final long generated;
+        private final int runs;
+        private final long bytes;
+        private final long elapsed;
+
+        public LayerStatistics(int depth, long states, long generated, int runs, long bytes, long elapsed) {
+            this.depth = depth;
+            this.states = states;
+            this.generated = generated;
+            this.runs = runs;
+            this.bytes = bytes;
+            this.elapsed = elapsed;
+        }
+
+        /**
+         * @return depth of the states of the layer
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * @return number of different states of the layer which are not in the previous layers
+         */
+        public long getStates() {
+            return states;
+        }
+
+        /**
+         * @return number of successors generated by the expansion of the previous layer
+         */
+        public long getGenerated() {
+            return generated;
+        }
+
+        /**
+         * @return number of generated successors removed as duplicates
+         */
+        public long getDuplicates() {
+            return generated - states;
+        }
+
+        /**
+         * @return number of sorted runs spilled to disk while the previous layer was expanded
+         */
+        public int getRuns() {
+            return runs;
+        }
+
+        /**
+         * @return size of the file of the layer in bytes
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return milliseconds spent to expand the previous layer and merge the runs
+         */
+        public long getElapsed() {
+            return elapsed;
+        }
+
+        @Override
+        public String toString() {
+            return "Layer{depth=" + depth + ", states=" + states + ", generated=" + generated
+                    + ", duplicates=" + getDuplicates() + ", runs=" + runs + ", bytes=" + bytes
+                    + ", elapsed=" + elapsed + "ms}";
+        }
+    }
+
+    /**
+     * Executes the search with a new iterator, which is closed when the search finishes.
+     */
+    @Override
+    public SearchResult search(Predicate<UnweightedNode<A,S>> condition, SearchBudget budget) {
+        Iterator it = iterator();
+        try {
+            return search(it, condition, budget);
+        } finally {
+            it.close();
+        }
+    }
+
+    /**
+     * Implements the layered search logic as an iterator
+     */
+    public class Iterator extends MonitoredIterator implements Closeable {
+        protected final List<LayerStatistics> layers = new ArrayList<LayerStatistics>();
+        // Depth of the layer being expanded
+        protected int depth;
+        protected RecordReader layer;
+        protected byte[] pending;
+        protected long expanded;
+        protected long visited;
+        protected final List<byte[]> buffer = new ArrayList<byte[]>();
+        protected long bufferBytes;
+        protected int runs;
+        protected long generated;
+        protected long layerStart;
+        protected boolean finished;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream output = new DataOutputStream(bytes);
+        private final byte[] initialState;
+
+        /**
+         * Iterator cannot be instantiated from outside.
+         * Use {@link ExternalBreadthFirstSearch#iterator()} to create a new iterator.
+         */
+        protected Iterator() {
+            try {
+                initialState = serialize(initialNode.state());
+                if (!directory.isDirectory() && !directory.mkdirs()) {
+                    throw new IOException("Unable to create the directory " + directory);
+                }
+                File checkpoint = new File(directory, CHECKPOINT);
+                if (checkpoint.exists()) {
+                    readCheckpoint(checkpoint);
+                } else {
+                    // Layer 0 only contains the initial state
+                    RecordWriter writer = new RecordWriter(layerFile(0));
+                    writer.write(initialState);
+                    writer.close();
+                    completed(new LayerStatistics(0, 1, 0, 0, layerFile(0).length(), 0));
+                }
+                depth = layers.size() - 1;
+                for (LayerStatistics l : layers) {
+                    visited += l.getStates();
+                }
+                visited -= layers.get(depth).getStates();
+                openLayer();
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to start the search in " + directory, e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (pending == null && !finished) {
+                try {
+                    completeLayer();
+                } catch (IOException e) {
+                    throw new IllegalStateException("Unable to complete the layer " + (depth + 1), e);
+                }
+            }
+            return pending != null;
+        }
+
+        @Override
+        public UnweightedNode<A,S> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            try {
+                byte[] current = pending;
+                pending = layer.next();
+                LayerNode node = new LayerNode(deserialize(current), depth);
+                expanded++;
+                int successors = 0;
+                for (UnweightedNode<A,S> successorNode : expander.expand(node)) {
+                    successors++;
+                    add(serialize(successorNode.state()));
+                }
+                monitor.expanded(node, successors);
+                monitor.sizes((int) Math.min(Integer.MAX_VALUE, layers.get(depth).getStates() - expanded),
+                        (int) Math.min(Integer.MAX_VALUE, visited + expanded));
+                return node;
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to expand the layer " + depth, e);
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Stops the search, closing the file of the layer being expanded and discarding the buffered
+         * successors. The files of the completed layers and the checkpoint are kept, so a new iterator
+         * resumes the search from the last completed layer.
+         */
+        @Override
+        public void close() {
+            finished = true;
+            pending = null;
+            buffer.clear();
+            bufferBytes = 0;
+            if (layer != null) {
+                try {
+                    layer.close();
+                } catch (IOException e) {
+                    throw new IllegalStateException("Unable to close the layer " + depth, e);
+                } finally {
+                    layer = null;
+                }
+            }
+        }
+
+        private void openLayer() throws IOException {
+            // Discard the runs of an interrupted expansion
+            for (int i = 0; runFile(i).exists(); i++) {
+                Files.delete(runFile(i).toPath());
+            }
+            buffer.clear();
+            bufferBytes = 0;
+            runs = 0;
+            generated = 0;
+            expanded = 0;
+            layerStart = System.currentTimeMillis();
+            if (layers.get(depth).getStates() == 0) {
+                finished = true;
+                return;
+            }
+            layer = new RecordReader(layerFile(depth));
+            pending = layer.next();
+        }
+
+        private void add(byte[] state) throws IOException {
+            buffer.add(state);
+            bufferBytes += state.length + ARRAY_OVERHEAD;
+            generated++;
+            if (bufferBytes >= memoryLimit) {
+                spill();
+            }
+        }
+
+        /*
+         * Sorts the buffered successors and writes them to a new run, without duplicates.
+         */
+        private void spill() throws IOException {
+            Collections.sort(buffer, ORDER);
+            RecordWriter writer = new RecordWriter(runFile(runs++));
+            byte[] last = null;
+            for (byte[] state : buffer) {
+                if (last == null || ORDER.compare(last, state) != 0) {
+                    writer.write(state);
+                }
+                last = state;
+            }
+            writer.close();
+            buffer.clear();
+            bufferBytes = 0;
+        }
+
+        /*
+         * Merges the runs of the expansion of the current layer into the next layer, removing
+         * the duplicated states and the states of the previous layers.
+         */
+        private void completeLayer() throws IOException {
+            layer.close();
+            layer = null;
+            if (!buffer.isEmpty() || runs == 0) {
+                spill();
+            }
+            PriorityQueue<RecordReader> merge = new PriorityQueue<RecordReader>(runs, new Comparator<RecordReader>() {
+                @Override
+                public int compare(RecordReader r1, RecordReader r2) {
+                    return ORDER.compare(r1.current, r2.current);
+                }
+            });
+            for (int i = 0; i < runs; i++) {
+                RecordReader run = new RecordReader(runFile(i));
+                if (run.next() != null) merge.add(run); else run.close();
+            }
+            List<RecordReader> previous = new ArrayList<RecordReader>();
+            int first = (int) Math.max(0L, (long) depth - duplicateLayers + 1);
+            for (int i = first; i <= depth; i++) {
+                RecordReader reader = new RecordReader(layerFile(i));
+                reader.next();
+                previous.add(reader);
+            }
+            RecordWriter writer = new RecordWriter(layerFile(depth + 1));
+            long states = 0;
+            byte[] last = null;
+            while (!merge.isEmpty()) {
+                RecordReader run = merge.poll();
+                byte[] state = run.current;
+                if (run.next() != null) merge.add(run); else run.close();
+                if (last != null && ORDER.compare(last, state) == 0) continue;
+                last = state;
+                if (!contains(previous, state)) {
+                    writer.write(state);
+                    states++;
+                }
+            }
+            writer.close();
+            for (RecordReader reader : previous) {
+                reader.close();
+            }
+            completed(new LayerStatistics(depth + 1, states, generated, runs, layerFile(depth + 1).length(),
+                    System.currentTimeMillis() - layerStart));
+            visited += layers.get(depth).getStates();
+            depth++;
+            openLayer();
+        }
+
+        private boolean contains(List<RecordReader> layers, byte[] state) throws IOException {
+            boolean found = false;
+            for (RecordReader reader : layers) {
+                while (reader.current != null && ORDER.compare(reader.current, state) < 0) {
+                    reader.next();
+                }
+                found |= reader.current != null && ORDER.compare(reader.current, state) == 0;
+            }
+            return found;
+        }
+
+        private void completed(LayerStatistics statistics) throws IOException {
+            layers.add(statistics);
+            writeCheckpoint();
+            if (layerListener != null) {
+                layerListener.layerCompleted(statistics);
+            }
+        }
+
+        private void writeCheckpoint() throws IOException {
+            // Write a new file and replace the previous one, so a crash never leaves a partial checkpoint
+            File temporary = new File(directory, CHECKPOINT + ".tmp");
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(initialState.length);
+                out.write(initialState);
+                out.writeInt(layers.size());
+                for (LayerStatistics l : layers) {
+                    out.writeLong(l.getStates());
+                    out.writeLong(l.getGenerated());
+                    out.writeInt(l.getRuns());
+                    out.writeLong(l.getBytes());
+                    out.writeLong(l.getElapsed());
+                }
+            } finally {
+                out.close();
+            }
+            Files.move(temporary.toPath(), new File(directory, CHECKPOINT).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        private void readCheckpoint(File checkpoint) throws IOException {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(checkpoint)));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new IOException("Invalid checkpoint " + checkpoint);
+                }
+                byte[] state = new byte[in.readInt()];
+                in.readFully(state);
+                if (!Arrays.equals(state, initialState)) {
+                    throw new IllegalStateException("The checkpoint " + checkpoint
+                            + " belongs to a search from a different initial state");
+                }
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    layers.add(new LayerStatistics(i, in.readLong(), in.readLong(), in.readInt(), in.readLong(), in.readLong()));
+                }
+            } finally {
+                in.close();
+            }
+        }
+
+        private byte[] serialize(S state) throws IOException {
+            bytes.reset();
+            serializer.write(state, output);
+            output.flush();
+            return bytes.toByteArray();
+        }
+
+        private S deserialize(byte[] state) throws IOException {
+            return serializer.read(new DataInputStream(new ByteArrayInputStream(state)));
+        }
+
+        /**
+         * @return statistics of the completed layers, including the layers completed before resuming the search
+         */
+        public List<LayerStatistics> getLayers() {
+            return Collections.unmodifiableList(layers);
+        }
+
+        /**
+         * @return depth of the layer being expanded
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * @return number of successors in the memory buffer, not spilled to disk yet
+         */
+        public int getBufferSize() {
+            return buffer.size();
+        }
+    }
+
+    /**
+     * Node read from a layer, which only knows its depth.
+     */
+    protected class LayerNode extends UnweightedNode<A,S> {
+        protected LayerNode(S state, int depth) {
+            super(null, state, null);
+            this.pathSize = depth + 1;
+        }
+    }
+
+    private File layerFile(int depth) {
+        return new File(directory, "layer-" + depth + ".bin");
+    }
+
+    private File runFile(int run) {
+        return new File(directory, "run-" + run + ".bin");
+    }
+
+    /*
+     * Sequential writer of length-prefixed records, terminated with a negative length.
+     */
+    private static class RecordWriter {
+        private final DataOutputStream out;
+
+        RecordWriter(File file) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        }
+
+        void write(byte[] record) throws IOException {
+            out.writeInt(record.length);
+            out.write(record);
+        }
+
+        void close() throws IOException {
+            out.writeInt(-1);
+            out.close();
+        }
+    }
+
+    /*
+     * Sequential reader of the records written by a RecordWriter.
+     */
+    private static class RecordReader {
+        private final DataInputStream in;
+        private byte[] current;
+        private boolean done;
+
+        RecordReader(File file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+        }
+
+        /*
+         * Reads the next record, or returns null (and closes the file) at the end.
+         */
+        byte[] next() throws IOException {
+            if (done) return null;
+            int length = in.readInt();
+            if (length < 0) {
+                current = null;
+                done = true;
+                in.close();
+                return null;
+            }
+            current = new byte[length];
+            in.readFully(current);
+            return current;
+        }
+
+        void close() throws IOException {
+            in.close();
+        }
+    }
+
+    @Override
+    public Iterator iterator() {
+        return new Iterator();
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public StateSerializer<S> getSerializer() {
+        return serializer;
+    }
+
+    public long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    /**
+     * Assigns the approximate number of bytes of successors buffered in memory before they are
+     * sorted and spilled to disk as a new run.
+     *
+     * @param memoryLimit memory used by the buffer of successors, in bytes
+     */
+    public void setMemoryLimit(long memoryLimit) {
+        this.memoryLimit = memoryLimit;
+    }
+
+    public int getDuplicateLayers() {
+        return duplicateLayers;
+    }
+
+    /**
+     * Assigns the number of layers used to detect the duplicated successors of a layer: the layer
+     * itself and the previous ones. Use 2 for state spaces where all the actions can be undone (the
+     * successors of a layer can only be in the previous layer, the layer itself or the next one).
+     * By default all the layers are used.
+     *
+     * @param duplicateLayers number of layers merged to remove the duplicates, at least 1
+     */
+    public void setDuplicateLayers(int duplicateLayers) {
+        if (duplicateLayers < 1) {
+            throw new IllegalArgumentException("At least one layer must be used to detect duplicates");
+        }
+        this.duplicateLayers = duplicateLayers;
+    }
+
+    public LayerListener getLayerListener() {
+        return layerListener;
+    }
+
+    /**
+     * @param layerListener listener that receives the statistics of each completed layer, or null
+     */
+    public void setLayerListener(LayerListener layerListener) {
+        this.layerListener = layerListener;
+    }
+}
@@ -0,0 +1,384 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.algorithm;
+
+import es.usc.citius.hipster.model.HeuristicNode;
+import es.usc.citius.hipster.model.function.NodeExpander;
+import es.usc.citius.hipster.util.Predicate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>
+ * Implementation of the Hash-Distributed A* (HDA*) algorithm. The state space is partitioned among a set of
+ * worker threads using the hash of the states ({@link Object#hashCode()}): each worker owns the states of its
+ * partition and has its own open and closed sets, so no locks are needed to access them. The successors of an
+ * expanded node are sent to the worker that owns their state through a lock-free queue
+ * ({@link java.util.concurrent.ConcurrentLinkedQueue}), and each worker expands the best nodes of its own open
+ * set.
+ * </p>
+ *
+ * <p>
+ * As the workers expand nodes in parallel, the first goal found may not be optimal. The goal found with the
+ * lowest cost (the incumbent solution) is shared by all the workers, which discard the nodes whose score is not
+ * better than the cost of the incumbent. The search finishes when all the workers are idle and there are no
+ * messages in transit. This is detected with a counter of pending work (busy workers plus messages in transit),
+ * which is increased before a message is sent or a worker becomes busy, and decreased after the message is
+ * received or the worker becomes idle, so it only reaches zero when the search is finished. With an admissible
+ * heuristic, the solution has the optimal cost.
+ * </p>
+ *
+ * <p>
+ * Only the {@code search} methods run in parallel. The iterator explores the nodes sequentially, as
+ * {@link AStar}. The node expander (and the transition, cost and heuristic functions used by it) are invoked
+ * concurrently and must be thread-safe, and the states should have a well distributed {@code hashCode()}. The
+ * search monitor is not notified during the parallel search. The time and expansion limits of a
+ * {@link SearchBudget} are checked periodically by the workers.
+ * </p>
+ *
+ * <p>
+ * The workers of each search are submitted as tasks to an {@link java.util.concurrent.Executor}, which must be
+ * able to run all of them at the same time (for example, a thread pool with at least {@code threads} threads):
+ * the workers wait for the messages of the others, so a worker which is never started blocks the search. If no
+ * executor is given, a shared pool of daemon threads is used, so the threads are reused by consecutive searches.
+ * </p>
+ *
+ * <a href="http://www.aaai.org/ocs/index.php/ICAPS/ICAPS09/paper/view/728">Original paper</a>:
+ * Kishimoto, A., Fukunaga, A. and Botea, A. <b>"Scalable, Parallel Best-First Search for Optimal Sequential Planning"</b>.
+ * <i>Proceedings of the 19th International Conference on Automated Planning and Scheduling (ICAPS 2009)</i>.
+ *
+ * @param <A> action type.
+ * @param <S> state type.
+ * @param <C> comparable cost used to compare states.
+ * @param <N> type of the heuristic search node.
+ */
+public class HDAStar<A,S,C extends Comparable<C>,N extends HeuristicNode<A,S,C,N>> extends AStar<A,S,C,N> {
+    // Number of nodes expanded by a worker between two checks of the budget
+    private static final int CHECK_INTERVAL = 1024;
+    // Time an idle worker waits before checking its inbox again
+    private static final long IDLE_WAIT_NANOS = 50000L;
+    protected int threads;
+    protected Executor executor;
+
+    /**
+     * Creates the algorithm with the shared pool of daemon threads.
+     *
+     * @param initialNode the initial node (which contains the initial state of the search).
+     * @param expander function to obtain (expand) a node to obtain the successor nodes.
+     * @param threads number of worker threads (and partitions of the state space).
+     */
+    public HDAStar(N initialNode, NodeExpander<A, S, N> expander, int threads) {
+        this(initialNode, expander, DefaultExecutor.INSTANCE, threads);
+    }
+
+    /**
+     * @param initialNode the initial node (which contains the initial state of the search).
+     * @param expander function to obtain (expand) a node to obtain the successor nodes.
+     * @param executor executor that runs the workers, able to run {@code threads} tasks at the same time.
+     * @param threads number of worker threads (and partitions of the state space).
+     */
+    public HDAStar(N initialNode, NodeExpander<A, S, N> expander, Executor executor, int threads) {
+        super(initialNode, expander);
+        if (threads < 1) throw new IllegalArgumentException("At least one thread is required");
+        this.executor = executor;
+        this.threads = threads;
+    }
+
+    /**
+     * Pool of daemon threads shared by the instances created without an executor. Idle threads
+     * are released after a minute.
+     */
+    private static final class DefaultExecutor {
+        private static final ExecutorService INSTANCE = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "hda-star-worker-" + count.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    @Override
+    public SearchResult search(Predicate<N> condition, SearchBudget budget) {
+        long begin = System.currentTimeMillis();
+        Run run = new Run(condition, budget);
+        run.execute();
+        long elapsed = System.currentTimeMillis() - begin;
+        int iterations = (int) Math.min(Integer.MAX_VALUE, run.expanded.get());
+        N solution = run.solution.get();
+        if (run.exhausted) {
+            List<N> goals = (solution != null) ? Collections.singletonList(solution) : Collections.<N>emptyList();
+            return new SearchResult(goals, iterations, elapsed, (solution != null) ? solution : run.best());
+        }
+        if (solution == null) {
+            return new SearchResult(Collections.<N>emptyList(), iterations, elapsed);
+        }
+        return new SearchResult(solution, iterations, elapsed);
+    }
+
+    /**
+     * State of a parallel search shared by all the workers.
+     */
+    protected class Run {
+        protected final Predicate<N> condition;
+        protected final SearchBudget budget;
+        protected final long begin = System.nanoTime();
+        protected final boolean limited;
+        protected final List<Worker> workers = new ArrayList<Worker>();
+        // Busy workers plus messages in transit
+        protected final AtomicLong pending = new AtomicLong();
+        protected final AtomicLong expanded = new AtomicLong();
+        protected final AtomicReference<N> solution = new AtomicReference<N>();
+        protected final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        protected final CountDownLatch done = new CountDownLatch(threads);
+        protected volatile boolean finished = false;
+        protected volatile boolean exhausted = false;
+
+        protected Run(Predicate<N> condition, SearchBudget budget) {
+            this.condition = condition;
+            this.budget = budget;
+            this.limited = budget.getTimeNanos() != Long.MAX_VALUE || budget.getExpansions() != Long.MAX_VALUE;
+            for (int i = 0; i < threads; i++) {
+                workers.add(new Worker());
+            }
+        }
+
+        protected void execute() {
+            send(initialNode);
+            for (int i = 0; i < workers.size(); i++) {
+                try {
+                    executor.execute(workers.get(i));
+                } catch (RuntimeException e) {
+                    // Stop the workers already submitted
+                    finished = true;
+                    throw e;
+                }
+            }
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                finished = true;
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Search interrupted", e);
+            }
+            Throwable cause = error.get();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+        }
+
+        /**
+         * Sends a node to the worker which owns its state.
+         */
+        protected void send(N node) {
+            pending.incrementAndGet();
+            workers.get(owner(node.state())).inbox.offer(node);
+        }
+
+        protected int owner(S state) {
+            int h = state.hashCode() * 0x9E3779B9;
+            h ^= (h >>> 16);
+            return (h & 0x7fffffff) % workers.size();
+        }
+
+        /**
+         * Checks if a node can improve the incumbent solution.
+         */
+        protected boolean promising(N node) {
+            N incumbent = solution.get();
+            return incumbent == null || node.getScore().compareTo(incumbent.getCost()) < 0;
+        }
+
+        protected void updateSolution(N goal) {
+            N current;
+            do {
+                current = solution.get();
+                if (current != null && current.getCost().compareTo(goal.getCost()) <= 0) return;
+            } while (!solution.compareAndSet(current, goal));
+        }
+
+        protected void flush(long count) {
+            long total = expanded.addAndGet(count);
+            if (limited && (total >= budget.getExpansions() || System.nanoTime() - begin >= budget.getTimeNanos())) {
+                exhausted = true;
+                finished = true;
+            }
+        }
+
+        /**
+         * @return node with the lowest estimation expanded by the workers
+         */
+        protected N best() {
+            N best = null;
+            for (Worker worker : workers) {
+                N node = worker.best;
+                if (node == null) continue;
+                if (best == null) {
+                    best = node;
+                    continue;
+                }
+                int cmp = node.getEstimation().compareTo(best.getEstimation());
+                if (cmp < 0 || (cmp == 0 && node.getScore().compareTo(best.getScore()) < 0)) best = node;
+            }
+            return best;
+        }
+
+        /**
+         * Worker that owns a partition of the state space.
+         */
+        protected class Worker implements Runnable {
+            protected final int index = workers.size();
+            protected final Queue<N> inbox = new ConcurrentLinkedQueue<N>();
+            protected final Queue<N> queue = new PriorityQueue<N>();
+            protected final Map<S, N> open = new HashMap<S, N>();
+            protected final Map<S, N> closed = new HashMap<S, N>();
+            protected boolean busy = false;
+            protected long count = 0;
+            protected volatile N best;
+
+            @Override
+            public void run() {
+                try {
+                    while (!finished) {
+                        receive();
+                        N current = poll();
+                        if (current != null) {
+                            expand(current);
+                        } else {
+                            if (busy) {
+                                busy = false;
+                                pending.decrementAndGet();
+                            }
+                            if (pending.get() == 0) {
+                                finished = true;
+                            } else {
+                                LockSupport.parkNanos(IDLE_WAIT_NANOS);
+                            }
+                        }
+                    }
+                } catch (Throwable t) {
+                    error.compareAndSet(null, t);
+                    finished = true;
+                } finally {
+                    // Only count the last expansions: a search that already terminated is not exhausted by them
+                    expanded.addAndGet(count);
+                    done.countDown();
+                }
+            }
+
+            /**
+             * Moves the nodes of the inbox to the open set of the worker.
+             */
+            protected void receive() {
+                N node;
+                while ((node = inbox.poll()) != null) {
+                    if (!busy) {
+                        // Become busy before the message is consumed, so the pending work never reaches zero
+                        busy = true;
+                        pending.incrementAndGet();
+                    }
+                    add(node);
+                    pending.decrementAndGet();
+                }
+            }
+
+            protected void add(N node) {
+                S state = node.state();
+                N previous = open.get(state);
+                if (previous == null) previous = closed.get(state);
+                if (previous != null && previous.getCost().compareTo(node.getCost()) <= 0) return;
+                // New state or better path (reopened if it was closed)
+                closed.remove(state);
+                open.put(state, node);
+                queue.add(node);
+            }
+
+            /**
+             * @return best node of the open set which can improve the solution, or null if there is none
+             */
+            protected N poll() {
+                N node;
+                while ((node = queue.poll()) != null) {
+                    S state = node.state();
+                    // Skip stale nodes replaced by a better path
+                    if (open.get(state) != node) continue;
+                    if (!promising(node)) {
+                        // The remaining nodes can not improve the solution either
+                        queue.clear();
+                        open.clear();
+                        return null;
+                    }
+                    open.remove(state);
+                    closed.put(state, node);
+                    return node;
+                }
+                return null;
+            }
+
+            protected void expand(N current) {
+                if (limited) {
+                    N b = best;
+                    if (b == null || current.getEstimation().compareTo(b.getEstimation()) < 0) best = current;
+                }
+                if (++count >= CHECK_INTERVAL) {
+                    flush(count);
+                    count = 0;
+                }
+                if (condition.apply(current)) {
+                    updateSolution(current);
+                    return;
+                }
+                for (N successor : expander.expand(current)) {
+                    if (!promising(successor)) continue;
+                    if (owner(successor.state()) == index) {
+                        add(successor);
+                    } else {
+                        send(successor);
+                    }
+                }
+            }
+        }
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+}
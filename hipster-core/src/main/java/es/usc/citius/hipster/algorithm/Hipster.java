@@ -20,17 +20,28 @@ import es.usc.citius.hipster.algorithm.localsearch.AnnealingSearch;
 import es.usc.citius.hipster.algorithm.localsearch.HillClimbing;
 import es.usc.citius.hipster.algorithm.localsearch.AnnealingSearch.AcceptanceProbability;
 import es.usc.citius.hipster.algorithm.localsearch.AnnealingSearch.SuccessorFinder;
+import es.usc.citius.hipster.graph.HipsterDirectedGraph;
 import es.usc.citius.hipster.model.CostNode;
 import es.usc.citius.hipster.model.HeuristicNode;
 import es.usc.citius.hipster.model.Node;
 import es.usc.citius.hipster.model.function.NodeExpander;
+import es.usc.citius.hipster.model.function.ReversibleStateIndexer;
+import es.usc.citius.hipster.model.function.StateSerializer;
 import es.usc.citius.hipster.model.function.impl.ADStarNodeExpander;
 import es.usc.citius.hipster.model.function.impl.ADStarNodeFactory;
 import es.usc.citius.hipster.model.impl.ADStarNodeImpl;
+import es.usc.citius.hipster.model.impl.UnweightedNode;
+import es.usc.citius.hipster.model.impl.WeightedNode;
 import es.usc.citius.hipster.model.problem.SearchComponents;
 import es.usc.citius.hipster.model.problem.SearchProblem;
+import es.usc.citius.hipster.util.Function;
+import es.usc.citius.hipster.util.grid.Grid2D;
 
+import java.awt.Point;
+import java.io.File;
 import java.util.Collections;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Util class to create algorithms easily. Each method expects a
@@ -71,7 +82,92 @@ public final class Hipster {
 	 */
 	public static <A, S, C extends Comparable<C>, N extends HeuristicNode<A, S, C, N>> AStar<A, S, C, N> createAStar(
 			SearchProblem<A, S, N> components) {
-		return new AStar<A, S, C, N>(components.getInitialNode(), components.getExpander());
+		AStar<A, S, C, N> algorithm = new AStar<A, S, C, N>(components.getInitialNode(), components.getExpander());
+		algorithm.setStateIndexer(components.getStateIndexer());
+		return algorithm;
+	}
+
+	/**
+	 * Instantiates an A* algorithm which stores the nodes outside the Java heap,
+	 * for searches too large to keep a node object per generated state. The
+	 * problem must define a {@link ReversibleStateIndexer} for its states (for
+	 * example the problems of an indexed graph or a
+	 * {@link es.usc.citius.hipster.util.grid.BitGrid2D}).
+	 *
+	 * @param components
+	 *            search problem definition with the components of the algorithm
+	 * @param <A>
+	 *            type of the actions
+	 * @param <S>
+	 *            type of the states
+	 * @return instance of {@link es.usc.citius.hipster.algorithm.OffHeapAStar}
+	 *         for the problem definition
+	 */
+	@SuppressWarnings("unchecked")
+	public static <A, S> OffHeapAStar<A, S> createOffHeapAStar(
+			SearchProblem<A, S, WeightedNode<A, S, Double>> components) {
+		if (!(components.getStateIndexer() instanceof ReversibleStateIndexer)) {
+			throw new IllegalArgumentException("The problem requires a ReversibleStateIndexer for its states");
+		}
+		return new OffHeapAStar<A, S>(components.getInitialNode(), components.getExpander(),
+				(ReversibleStateIndexer<S>) components.getStateIndexer());
+	}
+
+	/**
+	 * Instantiates a Hash-Distributed A* (HDA*) algorithm given a problem
+	 * definition. The states are partitioned by their hash among the given
+	 * number of worker threads, which are taken from a shared pool of daemon
+	 * threads. The node expander of the problem must be
+	 * thread-safe. The state indexer of the problem is not used: each worker
+	 * keeps its partition in hash maps, because arrays indexed by the ids of
+	 * all the states would be allocated once per worker.
+	 *
+	 * @param components
+	 *            search problem definition with the components of the algorithm
+	 * @param threads
+	 *            number of worker threads
+	 * @param <A>
+	 *            type of the actions
+	 * @param <S>
+	 *            type of the states
+	 * @param <C>
+	 *            type of the cost
+	 * @param <N>
+	 *            type of the nodes
+	 * @return instance of {@link es.usc.citius.hipster.algorithm.HDAStar} for
+	 *         the problem definition
+	 */
+	public static <A, S, C extends Comparable<C>, N extends HeuristicNode<A, S, C, N>> HDAStar<A, S, C, N> createHDAStar(
+			SearchProblem<A, S, N> components, int threads) {
+		return new HDAStar<A, S, C, N>(components.getInitialNode(), components.getExpander(), threads);
+	}
+
+	/**
+	 * Instantiates a Hash-Distributed A* (HDA*) algorithm given a problem
+	 * definition. The workers of each search run as tasks of the given
+	 * executor, which must be able to run all of them at the same time (for
+	 * example, a fixed thread pool with at least {@code threads} threads).
+	 *
+	 * @param components
+	 *            search problem definition with the components of the algorithm
+	 * @param executor
+	 *            executor used to run the workers of each search
+	 * @param threads
+	 *            number of worker threads
+	 * @param <A>
+	 *            type of the actions
+	 * @param <S>
+	 *            type of the states
+	 * @param <C>
+	 *            type of the cost
+	 * @param <N>
+	 *            type of the nodes
+	 * @return instance of {@link es.usc.citius.hipster.algorithm.HDAStar} for
+	 *         the problem definition
+	 */
+	public static <A, S, C extends Comparable<C>, N extends HeuristicNode<A, S, C, N>> HDAStar<A, S, C, N> createHDAStar(
+			SearchProblem<A, S, N> components, Executor executor, int threads) {
+		return new HDAStar<A, S, C, N>(components.getInitialNode(), components.getExpander(), executor, threads);
 	}
 
 	/**
@@ -96,7 +192,9 @@ public final class Hipster {
 		// TODO: There is no difference with AStar. Actually if the NodeExpander
 		// uses heuristics, this "Dijkstra" impl works as the AStar. This should
 		// be changed!
-		return new AStar<A, S, C, N>(components.getInitialNode(), components.getExpander());
+		AStar<A, S, C, N> algorithm = new AStar<A, S, C, N>(components.getInitialNode(), components.getExpander());
+		algorithm.setStateIndexer(components.getStateIndexer());
+		return algorithm;
 	}
 
 	/**
@@ -117,7 +215,37 @@ public final class Hipster {
 	 */
 	public static <A, S, C extends Comparable<C>, N extends CostNode<A, S, C, N>> BellmanFord<A, S, C, N> createBellmanFord(
 			SearchProblem<A, S, N> components) {
-		return new BellmanFord<A, S, C, N>(components.getInitialNode(), components.getExpander());
+		BellmanFord<A, S, C, N> algorithm = new BellmanFord<A, S, C, N>(components.getInitialNode(), components.getExpander());
+		algorithm.setStateIndexer(components.getStateIndexer());
+		return algorithm;
+	}
+
+	/**
+	 * Instantiates a parallel Bellman Ford algorithm for a problem definition.
+	 * Each round relaxes the whole frontier using the given fork-join pool.
+	 * The node expander of the problem must be thread-safe. The state indexer
+	 * of the problem is not used, since the best node of each state is shared
+	 * by the threads in a concurrent hash map.
+	 *
+	 * @param components
+	 *            search problem definition with the components of the algorithm
+	 * @param pool
+	 *            fork-join pool used to relax the frontier of each round
+	 * @param <A>
+	 *            type of the actions
+	 * @param <S>
+	 *            type of the states
+	 * @param <C>
+	 *            type of the cost
+	 * @param <N>
+	 *            type of the nodes
+	 * @return instance of
+	 *         {@link es.usc.citius.hipster.algorithm.ParallelBellmanFord} for
+	 *         the problem definition
+	 */
+	public static <A, S, C extends Comparable<C>, N extends CostNode<A, S, C, N>> BellmanFord<A, S, C, N> createBellmanFord(
+			SearchProblem<A, S, N> components, ForkJoinPool pool) {
+		return new ParallelBellmanFord<A, S, C, N>(components.getInitialNode(), components.getExpander(), pool);
 	}
 
 	/**
@@ -137,7 +265,85 @@ public final class Hipster {
 	 */
 	public static <A, S, N extends Node<A, S, N>> BreadthFirstSearch<A, S, N> createBreadthFirstSearch(
 			SearchProblem<A, S, N> components) {
-		return new BreadthFirstSearch<A, S, N>(components.getInitialNode(), components.getExpander());
+		BreadthFirstSearch<A, S, N> algorithm = new BreadthFirstSearch<A, S, N>(components.getInitialNode(), components.getExpander());
+		algorithm.setStateIndexer(components.getStateIndexer());
+		return algorithm;
+	}
+
+	/**
+	 * Instantiates a level-synchronous parallel Breadth First Search algorithm
+	 * for a problem definition. All the nodes of each layer are expanded in
+	 * parallel using the given fork-join pool. The node expander of the
+	 * problem must be thread-safe. The state indexer of the problem is not
+	 * used, since the visited states are claimed by the threads in a
+	 * concurrent hash map.
+	 *
+	 * @param components
+	 *            search problem definition with the components of the algorithm
+	 * @param pool
+	 *            fork-join pool used to expand each layer
+	 * @param <A>
+	 *            type of the actions
+	 * @param <S>
+	 *            type of the states
+	 * @param <N>
+	 *            type of the nodes
+	 * @return instance of
+	 *         {@link es.usc.citius.hipster.algorithm.ParallelBreadthFirstSearch}
+	 *         for the problem definition
+	 */
+	public static <A, S, N extends Node<A, S, N>> ParallelBreadthFirstSearch<A, S, N> createBreadthFirstSearch(
+			SearchProblem<A, S, N> components, ForkJoinPool pool) {
+		return new ParallelBreadthFirstSearch<A, S, N>(components.getInitialNode(), components.getExpander(), pool);
+	}
+
+	/**
+	 * Instantiates an external-memory Breadth First Search algorithm for a
+	 * problem definition without costs. The layers of the search are stored on
+	 * disk as sorted files of serialized states and the duplicated states are
+	 * removed by merging the files, so the visited states do not need to fit in
+	 * memory. A search stored in the directory is resumed from its last
+	 * completed layer.
+	 *
+	 * @param components
+	 *            search problem definition with the components of the algorithm
+	 * @param serializer
+	 *            function to write the states to disk and read them back
+	 * @param directory
+	 *            directory where the layers of the search are stored
+	 * @param <A>
+	 *            type of the actions
+	 * @param <S>
+	 *            type of the states
+	 * @return instance of
+	 *         {@link es.usc.citius.hipster.algorithm.ExternalBreadthFirstSearch}
+	 *         for the problem definition
+	 */
+	public static <A, S> ExternalBreadthFirstSearch<A, S> createExternalBreadthFirstSearch(
+			SearchProblem<A, S, UnweightedNode<A, S>> components, StateSerializer<S> serializer, File directory) {
+		return new ExternalBreadthFirstSearch<A, S>(components.getInitialNode(), components.getExpander(), serializer, directory);
+	}
+
+	/**
+	 * Instantiates a direction-optimizing Breadth First Search algorithm that
+	 * explores a directed graph from a source vertex. Large layers are expanded
+	 * bottom-up, using the incoming edges of the unvisited vertices.
+	 *
+	 * @param source
+	 *            initial vertex of the search
+	 * @param graph
+	 *            directed graph to explore
+	 * @param <V>
+	 *            type of the vertices
+	 * @param <E>
+	 *            type of the edges
+	 * @return instance of
+	 *         {@link es.usc.citius.hipster.algorithm.DirectionOptimizingBreadthFirstSearch}
+	 *         for the graph
+	 */
+	public static <V, E> DirectionOptimizingBreadthFirstSearch<V, E> createBreadthFirstSearch(
+			V source, HipsterDirectedGraph<V, E> graph) {
+		return new DirectionOptimizingBreadthFirstSearch<V, E>(source, graph);
 	}
 
 	/**
@@ -157,7 +363,9 @@ public final class Hipster {
 	 */
 	public static <A, S, N extends Node<A, S, N>> DepthFirstSearch<A, S, N> createDepthFirstSearch(
 			SearchProblem<A, S, N> components) {
-		return new DepthFirstSearch<A, S, N>(components.getInitialNode(), components.getExpander());
+		DepthFirstSearch<A, S, N> algorithm = new DepthFirstSearch<A, S, N>(components.getInitialNode(), components.getExpander());
+		algorithm.setStateIndexer(components.getStateIndexer());
+		return algorithm;
 	}
 
 	/**
@@ -202,6 +410,57 @@ public final class Hipster {
 		return new IDAStar<A, S, C, N>(components.getInitialNode(), components.getExpander());
 	}
 
+	/**
+	 * Instantiates a parallel IDA* algorithm given a problem definition. The
+	 * subtrees near the root of each iteration are explored in parallel using
+	 * the given fork-join pool. The node expander of the problem must be
+	 * thread-safe.
+	 *
+	 * @param components
+	 *            search problem definition with the components of the algorithm
+	 * @param pool
+	 *            fork-join pool used to explore the subtrees
+	 * @param <A>
+	 *            type of the actions
+	 * @param <S>
+	 *            type of the states
+	 * @param <C>
+	 *            type of the cost
+	 * @param <N>
+	 *            type of the nodes
+	 * @return instance of
+	 *         {@link es.usc.citius.hipster.algorithm.ParallelIDAStar} for the
+	 *         problem definition
+	 */
+	public static <A, S, C extends Comparable<C>, N extends HeuristicNode<A, S, C, N>> IDAStar<A, S, C, N> createIDAStar(
+			SearchProblem<A, S, N> components, ForkJoinPool pool) {
+		return new ParallelIDAStar<A, S, C, N>(components.getInitialNode(), components.getExpander(), pool);
+	}
+
+	/**
+	 * Instantiates a SMA* (Simplified Memory-bounded A*) algorithm given a
+	 * problem definition and the maximum number of nodes to keep in memory.
+	 *
+	 * @param components
+	 *            search problem definition with the components of the algorithm
+	 * @param maxNodes
+	 *            maximum number of nodes in memory
+	 * @param <A>
+	 *            type of the actions
+	 * @param <S>
+	 *            type of the states
+	 * @param <C>
+	 *            type of the cost
+	 * @param <N>
+	 *            type of the nodes
+	 * @return instance of {@link es.usc.citius.hipster.algorithm.SMAStar} for
+	 *         the problem definition
+	 */
+	public static <A, S, C extends Comparable<C>, N extends HeuristicNode<A, S, C, N>> SMAStar<A, S, C, N> createSMAStar(
+			SearchProblem<A, S, N> components, int maxNodes) {
+		return new SMAStar<A, S, C, N>(components.getInitialNode(), components.getExpander(), maxNodes);
+	}
+
 	/**
 	 * Instantiates a Hill Climbing algorithm given a problem definition.
 	 *
@@ -302,4 +561,116 @@ public final class Hipster {
 		// instantiate algorithm
 		return new ADStarForward(components.getBegin(), Collections.singleton(components.getGoal()), expander);
 	}
+
+	/**
+	 * Instantiates a bidirectional A* algorithm given the search components.
+	 * The search components must define the initial and goal states and the
+	 * predecessor function. They can be obtained easily for graph-based
+	 * problems using {@link es.usc.citius.hipster.graph.GraphSearchProblem}.
+	 * If the components have no heuristic function, the algorithm works as a
+	 * bidirectional Dijkstra.
+	 *
+	 * @param components
+	 *            search components to be used by the algorithm
+	 * @param <A>
+	 *            type of the actions
+	 * @param <S>
+	 *            type of the states
+	 * @param <C>
+	 *            type of the cost
+	 * @return instance of
+	 *         {@link es.usc.citius.hipster.algorithm.BidirectionalAStar} for the
+	 *         search components
+	 */
+	public static <A, S, C extends Comparable<C>> BidirectionalAStar<A, S, C> createBidirectionalAStar(
+			SearchComponents<A, S, C> components) {
+		return new BidirectionalAStar<A, S, C>(components);
+	}
+
+	/**
+	 * Instantiates an Anytime Repairing A* (ARA*) algorithm. A first solution
+	 * is found with the heuristic inflated by {@code initialEpsilon}, and then
+	 * it is improved decreasing the inflation by {@code epsilonDecrement}
+	 * until the optimal solution is found. Each solution can be retrieved with
+	 * {@link AnytimeAStar#setListener(AnytimeAStar.SolutionListener)}.
+	 *
+	 * @param components
+	 *            search components to be used by the algorithm
+	 * @param initialEpsilon
+	 *            inflation of the heuristic to find the first solution
+	 * @param epsilonDecrement
+	 *            decrement of the inflation after each solution
+	 * @param <A>
+	 *            type of the actions
+	 * @param <S>
+	 *            type of the states
+	 * @param <C>
+	 *            type of the cost
+	 * @return instance of {@link es.usc.citius.hipster.algorithm.AnytimeAStar}
+	 *         for the search components
+	 */
+	public static <A, S, C extends Comparable<C>> AnytimeAStar<A, S, C> createAnytimeAStar(
+			SearchComponents<A, S, C> components, double initialEpsilon, double epsilonDecrement) {
+		return new AnytimeAStar<A, S, C>(components, initialEpsilon, epsilonDecrement);
+	}
+
+	/**
+	 * Instantiates an Anytime Repairing A* (ARA*) algorithm with an initial
+	 * inflation of the heuristic of 2.5, decreased by 0.5 after each solution.
+	 *
+	 * @param components
+	 *            search components to be used by the algorithm
+	 * @param <A>
+	 *            type of the actions
+	 * @param <S>
+	 *            type of the states
+	 * @param <C>
+	 *            type of the cost
+	 * @return instance of {@link es.usc.citius.hipster.algorithm.AnytimeAStar}
+	 *         for the search components
+	 */
+	public static <A, S, C extends Comparable<C>> AnytimeAStar<A, S, C> createAnytimeAStar(
+			SearchComponents<A, S, C> components) {
+		return createAnytimeAStar(components, 2.5d, 0.5d);
+	}
+
+	/**
+	 * Instantiates a Jump Point Search algorithm to find the shortest path
+	 * between two cells of a grid, using the costs of the maze problems (1 for
+	 * straight moves and sqrt(2) for diagonal moves).
+	 *
+	 * @param grid
+	 *            8-connected grid with the free cells
+	 * @param start
+	 *            initial cell (x = column, y = row)
+	 * @param goal
+	 *            goal cell (x = column, y = row)
+	 * @return instance of {@link es.usc.citius.hipster.algorithm.JumpPointSearch}
+	 *         for the grid
+	 */
+	public static JumpPointSearch createJumpPointSearch(Grid2D grid, Point start, Point goal) {
+		return new JumpPointSearch(grid, start, goal);
+	}
+
+	/**
+	 * Instantiates an executor to solve a batch of independent queries
+	 * (source and target states) in parallel. For each query, the algorithm
+	 * is created with the provided function from the source state of the
+	 * query.
+	 *
+	 * @param factory
+	 *            function to create the algorithm for a given source state
+	 * @param <A>
+	 *            type of the actions
+	 * @param <S>
+	 *            type of the states
+	 * @param <N>
+	 *            type of the nodes
+	 * @return instance of {@link es.usc.citius.hipster.algorithm.BatchSearch}
+	 *         using the algorithm factory
+	 */
+	public static <A, S, N extends Node<A, S, N>> BatchSearch<A, S, N> batch(
+			Function<S, ? extends Algorithm<A, S, N>> factory) {
+		return new BatchSearch<A, S, N>(factory);
+	}
 }
@@ -21,6 +21,12 @@ package es.usc.citius.hipster.algorithm;
 
 import es.usc.citius.hipster.model.HeuristicNode;
 import es.usc.citius.hipster.model.function.NodeExpander;
+import es.usc.citius.lab.hipster.collections.TranspositionTable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 
 /**
  * <p>
@@ -28,6 +34,19 @@ import es.usc.citius.hipster.model.function.NodeExpander;
  * the space search and keeping a very low memory usage.
  * </p>
  *
+ * <p>
+ * Two optional enhancements reduce the number of expanded nodes in problems with many transpositions
+ * (states reachable through different paths), like the N-Puzzle:
+ * <ul>
+ *     <li>A fixed-size {@link TranspositionTable} (see {@link #setTranspositionTable(TranspositionTable)})
+ *     that stores the best known cost of the visited states across iterations, so the paths that reach
+ *     a state with a worse cost are pruned. The memory used is bounded by the size of the table.</li>
+ *     <li>Successor ordering (see {@link #setSuccessorOrdering(boolean)}): the successors of each node are
+ *     explored in increasing order of their heuristic estimation, so the goal is found earlier in the
+ *     last iteration.</li>
+ * </ul>
+ * </p>
+ *
  * <a href="http://www.sciencedirect.com/science/article/pii/0004370285900840">Original paper</a>:
  * Richard E. Korf <i><b>"Depth-first Iterative-Deepening: An Optimal Admissible Tree Search."</b></i>,
  * Artificial Intelligence, vol. 27, pp. 97-109, 1985.
@@ -43,6 +62,9 @@ import es.usc.citius.hipster.model.function.NodeExpander;
  */
 public class IDAStar<A,S,C extends Comparable<C>,N extends HeuristicNode<A,S,C,N>> extends DepthFirstSearch<A,S,N> {
 
+    protected TranspositionTable<S,C> transpositionTable;
+    protected boolean successorOrdering = false;
+
     /**
      * 
      * @param initialNode
@@ -69,6 +91,23 @@ public class IDAStar<A,S,C extends Comparable<C>,N extends HeuristicNode<A,S,C,N
             super();
             fLimit = initialNode.getEstimation();
             minfLimit = null;
+            if (successorOrdering) {
+                super.getStack().clear();
+                super.getStack().addLast(frame(initialNode));
+            }
+            if (transpositionTable != null) {
+                transpositionTable.clear();
+                transpositionTable.offer(initialNode.state(), initialNode.getCost(), reinitialization);
+            }
+        }
+
+        /**
+         * Creates the stack frame of a node, sorting its successors by their estimation if
+         * the successor ordering is enabled.
+         */
+        protected StackFrameNode frame(N node){
+            if (!successorOrdering) return new StackFrameNode(node);
+            return new StackFrameNode(successors(node).iterator(), node);
         }
 
         protected void updateMinFLimit(C currentFLimit){
@@ -93,7 +132,10 @@ public class IDAStar<A,S,C extends Comparable<C>,N extends HeuristicNode<A,S,C,N
                         fLimit = minfLimit;
                         reinitialization++;
                         minfLimit = null;
-                        super.getStack().addLast(new StackFrameNode(initialNode));
+                        if (transpositionTable != null) {
+                            transpositionTable.offer(initialNode.state(), initialNode.getCost(), reinitialization);
+                        }
+                        super.getStack().addLast(frame(initialNode));
                         nextNode = processNextNode();
                     }
                 }
@@ -101,6 +143,11 @@ public class IDAStar<A,S,C extends Comparable<C>,N extends HeuristicNode<A,S,C,N
 
             if (nextNode != null){
                 nextNode.visited = true;
+                // Leaf nodes are already out of the stack, the rest are reported when processed
+                if (nextNode.generated == 0) {
+                    monitor.expanded(nextNode.getNode(), 0);
+                    monitor.sizes(getStack().size(), 0);
+                }
             }
             return nextNode;
         }
@@ -136,14 +183,23 @@ public class IDAStar<A,S,C extends Comparable<C>,N extends HeuristicNode<A,S,C,N
             if (current.getSuccessors().hasNext()){
                 // 3 - Node has at least one neighbor
                 N successor = current.getSuccessors().next();
+                current.generated++;
+                // Skip the node if the state was reached before with a lower cost
+                if (transpositionTable != null
+                        && !transpositionTable.offer(successor.state(), successor.getCost(), reinitialization)) {
+                    monitor.duplicated(successor);
+                    return current;
+                }
                 // push the node
-                super.getStack().addLast(new StackFrameNode(successor));
+                super.getStack().addLast(frame(successor));
                 return current;
 
             } else {
                 // 4 - Visited?
                 if (current.visited){
                     current.processed = true;
+                    monitor.expanded(current.getNode(), current.generated);
+                    monitor.sizes(getStack().size(), 0);
                 }
                 return (StackFrameNode) super.getStack().removeLast();
             }
@@ -179,4 +235,52 @@ public class IDAStar<A,S,C extends Comparable<C>,N extends HeuristicNode<A,S,C,N
         return new Iterator();
     }
 
+    /**
+     * Returns the successors of a node, sorted by their estimation if the successor ordering is enabled.
+     *
+     * @param node node to expand
+     * @return successors of the node
+     */
+    protected Iterable<N> successors(N node) {
+        Iterable<N> successors = expander.expand(node);
+        if (!successorOrdering) return successors;
+        List<N> sorted = new ArrayList<N>();
+        for (N successor : successors) {
+            sorted.add(successor);
+        }
+        Collections.sort(sorted, new Comparator<N>() {
+            @Override
+            public int compare(N o1, N o2) {
+                return o1.getEstimation().compareTo(o2.getEstimation());
+            }
+        });
+        return sorted;
+    }
+
+    public TranspositionTable<S, C> getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    /**
+     * Sets the transposition table used to prune the states reached with a worse cost. The table
+     * is cleared when a new iterator is created, so it can not be shared by concurrent searches.
+     *
+     * @param transpositionTable table of best known costs, or null to disable the pruning
+     */
+    public void setTranspositionTable(TranspositionTable<S, C> transpositionTable) {
+        this.transpositionTable = transpositionTable;
+    }
+
+    public boolean isSuccessorOrdering() {
+        return successorOrdering;
+    }
+
+    /**
+     * @param successorOrdering true to explore the successors of each node in increasing order
+     *                          of their heuristic estimation
+     */
+    public void setSuccessorOrdering(boolean successorOrdering) {
+        this.successorOrdering = successorOrdering;
+    }
+
 }
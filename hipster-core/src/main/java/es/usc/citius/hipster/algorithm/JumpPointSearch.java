@@ -0,0 +1,277 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.algorithm;
+
+import es.usc.citius.hipster.model.impl.DoubleWeightedNode;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.util.grid.Grid2D;
+
+import java.awt.*;
+import java.util.*;
+
+/**
+ * <p>
+ * Implementation of the Jump Point Search (JPS) algorithm for 8-connected grids with uniform costs
+ * (1 for straight moves and &radic;2 for diagonal moves, the same costs of the maze problems). JPS is an
+ * A* search that only generates the <i>jump points</i> of the grid: instead of adding each neighbor of a cell to
+ * the open list, the search moves in a straight line (or diagonally) until it finds a cell with a <i>forced
+ * neighbor</i> (a neighbor that can only be reached optimally through that cell because of an obstacle) or the
+ * goal. All the cells in between are skipped, so on open maps the number of expanded nodes is orders of magnitude
+ * lower than with A*, and the cost of the solution is the same. It assumes the same movement rules as
+ * {@link es.usc.citius.hipster.util.examples.maze.Maze2D#validLocationsFrom(java.awt.Point)}: a diagonal move is
+ * valid if the destination cell is free.
+ * </p>
+ *
+ * <p>
+ * The nodes returned by the iterator are the expanded jump points, but the path of each node contains all the
+ * cells from the start location (the cells between two jump points are filled in when the jump point is
+ * expanded), so the results have the same format as the results of {@link AStar}. The heuristic is the octile
+ * distance to the goal.
+ * </p>
+ *
+ * <p>
+ * Original paper: Daniel Harabor and Alban Grastien. <b>"Online Graph Pruning for Pathfinding on Grid Maps"</b>,
+ * <i>Proceedings of the 25th National Conference on Artificial Intelligence (AAAI)</i>, 2011.
+ * </p>
+ */
+public class JumpPointSearch extends Algorithm<Void, Point, WeightedNode<Void, Point, Double>> {
+    private static final double DIAGONAL = Math.sqrt(2);
+    protected final Grid2D grid;
+    protected final Point start;
+    protected final Point goal;
+
+    public JumpPointSearch(Grid2D grid, Point start, Point goal) {
+        this.grid = grid;
+        this.start = start;
+        this.goal = goal;
+    }
+
+    /**
+     * JPS iterator. The g-values and closed flags of the cells are stored in arrays indexed by
+     * {@code y * columns + x}.
+     */
+    public class Iterator extends MonitoredIterator {
+        protected final int columns;
+        protected final double[] best;
+        protected final boolean[] closed;
+        protected Queue<DoubleWeightedNode<Void, Point>> queue = new PriorityQueue<DoubleWeightedNode<Void, Point>>();
+        protected int open = 0;
+        protected int expanded = 0;
+
+        protected Iterator() {
+            this.columns = grid.getColumns();
+            int cells = columns * grid.getRows();
+            this.best = new double[cells];
+            this.closed = new boolean[cells];
+            Arrays.fill(best, Double.POSITIVE_INFINITY);
+            double h = heuristic(start.x, start.y);
+            queue.add(new DoubleWeightedNode<Void, Point>(null, start, null, 0d, h, h));
+            best[id(start.x, start.y)] = 0d;
+            open++;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return open > 0;
+        }
+
+        @Override
+        public WeightedNode<Void, Point, Double> next() {
+            DoubleWeightedNode<Void, Point> current = takePromising();
+            Point p = current.state();
+            closed[id(p.x, p.y)] = true;
+            open--;
+            // Fill in the cells between the previous jump point and the current one
+            current = interpolate(current);
+            int successors = 0;
+            int[] directions = directions(current);
+            for (int i = 0; i < directions.length; i += 2) {
+                int dx = directions[i], dy = directions[i + 1];
+                int jumpPoint = jump(p.x, p.y, dx, dy);
+                if (jumpPoint < 0) continue;
+                successors++;
+                int x = jumpPoint % columns, y = jumpPoint / columns;
+                if (closed[jumpPoint]) continue;
+                // Cost of the straight (or diagonal) segment, added step by step as in A*
+                double cost = current.cost();
+                double step = (dx != 0 && dy != 0) ? DIAGONAL : 1d;
+                for (int k = Math.max(Math.abs(x - p.x), Math.abs(y - p.y)); k > 0; k--) {
+                    cost += step;
+                }
+                if (cost >= best[jumpPoint]) {
+                    continue;
+                }
+                if (best[jumpPoint] == Double.POSITIVE_INFINITY) open++;
+                best[jumpPoint] = cost;
+                double h = heuristic(x, y);
+                queue.add(new DoubleWeightedNode<Void, Point>(current, new Point(x, y), null, cost, h, cost + h));
+            }
+            expanded++;
+            monitor.expanded(current, successors);
+            monitor.sizes(open, expanded);
+            return current;
+        }
+
+        /**
+         * Polls the queue until a node that is not stale (not closed and with the best cost
+         * found for its cell) is found.
+         */
+        protected DoubleWeightedNode<Void, Point> takePromising() {
+            while (true) {
+                DoubleWeightedNode<Void, Point> node = queue.poll();
+                if (node == null) throw new NoSuchElementException();
+                int id = id(node.state().x, node.state().y);
+                if (!closed[id] && node.cost() == best[id]) return node;
+                monitor.stale(node);
+            }
+        }
+
+        /**
+         * Creates the nodes of the cells between the jump point and its parent, so the path of
+         * the node contains every cell.
+         */
+        protected DoubleWeightedNode<Void, Point> interpolate(DoubleWeightedNode<Void, Point> node) {
+            WeightedNode<Void, Point, Double> parent = node.previousNode();
+            if (parent == null) return node;
+            Point from = parent.state(), to = node.state();
+            int dx = Integer.signum(to.x - from.x), dy = Integer.signum(to.y - from.y);
+            int steps = Math.max(Math.abs(to.x - from.x), Math.abs(to.y - from.y));
+            if (steps <= 1) return node;
+            double step = (dx != 0 && dy != 0) ? DIAGONAL : 1d;
+            double cost = ((DoubleWeightedNode<Void, Point>) parent).cost();
+            WeightedNode<Void, Point, Double> previous = parent;
+            for (int k = 1; k < steps; k++) {
+                cost += step;
+                int x = from.x + k * dx, y = from.y + k * dy;
+                double h = heuristic(x, y);
+                previous = new DoubleWeightedNode<Void, Point>(previous, new Point(x, y), null, cost, h, cost + h);
+            }
+            return new DoubleWeightedNode<Void, Point>(previous, to, null, node.cost(), node.estimation(), node.score());
+        }
+
+        /**
+         * Computes the directions to explore from a node, pruning the neighbors that can be reached
+         * optimally without passing through it. Returns pairs {@code (dx, dy)}.
+         */
+        protected int[] directions(WeightedNode<Void, Point, Double> node) {
+            int x = node.state().x, y = node.state().y;
+            WeightedNode<Void, Point, Double> parent = node.previousNode();
+            if (parent == null) {
+                return new int[]{-1, -1, 0, -1, 1, -1, -1, 0, 1, 0, -1, 1, 0, 1, 1, 1};
+            }
+            int dx = Integer.signum(x - parent.state().x), dy = Integer.signum(y - parent.state().y);
+            int[] directions = new int[10];
+            int size = 0;
+            if (dx != 0 && dy != 0) {
+                directions[size++] = 0; directions[size++] = dy;
+                directions[size++] = dx; directions[size++] = 0;
+                directions[size++] = dx; directions[size++] = dy;
+                // Forced neighbors
+                if (!grid.isFree(x - dx, y)) { directions[size++] = -dx; directions[size++] = dy; }
+                if (!grid.isFree(x, y - dy)) { directions[size++] = dx; directions[size++] = -dy; }
+            } else if (dx != 0) {
+                directions[size++] = dx; directions[size++] = 0;
+                if (!grid.isFree(x, y + 1)) { directions[size++] = dx; directions[size++] = 1; }
+                if (!grid.isFree(x, y - 1)) { directions[size++] = dx; directions[size++] = -1; }
+            } else {
+                directions[size++] = 0; directions[size++] = dy;
+                if (!grid.isFree(x + 1, y)) { directions[size++] = 1; directions[size++] = dy; }
+                if (!grid.isFree(x - 1, y)) { directions[size++] = -1; directions[size++] = dy; }
+            }
+            return Arrays.copyOf(directions, size);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * @return number of cells with a node in the open list
+         */
+        public int getOpenSize() {
+            return open;
+        }
+
+        public Queue<DoubleWeightedNode<Void, Point>> getQueue() {
+            return queue;
+        }
+    }
+
+    /**
+     * Moves from the cell {@code (x, y)} in the direction {@code (dx, dy)} until a jump point is found.
+     *
+     * @return id of the jump point, or -1 if an obstacle or the border of the grid is reached first
+     */
+    protected int jump(int x, int y, int dx, int dy) {
+        while (true) {
+            x += dx;
+            y += dy;
+            if (!grid.isFree(x, y)) return -1;
+            if (x == goal.x && y == goal.y) return id(x, y);
+            if (dx != 0 && dy != 0) {
+                if ((grid.isFree(x - dx, y + dy) && !grid.isFree(x - dx, y))
+                        || (grid.isFree(x + dx, y - dy) && !grid.isFree(x, y - dy))) {
+                    return id(x, y);
+                }
+                // A diagonal move stops where a straight jump finds a jump point
+                if (jump(x, y, dx, 0) >= 0 || jump(x, y, 0, dy) >= 0) {
+                    return id(x, y);
+                }
+            } else if (dx != 0) {
+                if ((grid.isFree(x + dx, y + 1) && !grid.isFree(x, y + 1))
+                        || (grid.isFree(x + dx, y - 1) && !grid.isFree(x, y - 1))) {
+                    return id(x, y);
+                }
+            } else {
+                if ((grid.isFree(x + 1, y + dy) && !grid.isFree(x + 1, y))
+                        || (grid.isFree(x - 1, y + dy) && !grid.isFree(x - 1, y))) {
+                    return id(x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Octile distance to the goal.
+     */
+    protected double heuristic(int x, int y) {
+        int dx = Math.abs(x - goal.x), dy = Math.abs(y - goal.y);
+        return Math.max(dx, dy) + (DIAGONAL - 1d) * Math.min(dx, dy);
+    }
+
+    private int id(int x, int y) {
+        return y * grid.getColumns() + x;
+    }
+
+    @Override
+    public Iterator iterator() {
+        return new Iterator();
+    }
+
+    public Grid2D getGrid() {
+        return grid;
+    }
+
+    public Point getStart() {
+        return start;
+    }
+
+    public Point getGoal() {
+        return goal;
+    }
+}
@@ -19,6 +19,7 @@ package es.usc.citius.hipster.algorithm;
 import es.usc.citius.hipster.model.HeuristicNode;
 import es.usc.citius.hipster.model.function.NodeExpander;
 import es.usc.citius.hipster.util.Predicate;
+import es.usc.citius.lab.hipster.collections.IndexedHeap;
 
 import java.util.*;
 
@@ -53,11 +54,9 @@ public class MultiobjectiveLS<A,S,C extends Comparable<C>,N extends HeuristicNod
      * executed until {@code iterator.hasNext() == false}. Paths can be recovered
      * with {@code iterator.getNonDominated.get(goalState)}
      */
-    public class Iterator implements java.util.Iterator<N> {
+    public class Iterator extends MonitoredIterator {
         protected Queue<N> queue = new LinkedList<N>();
         public Map<S, Collection<N>> nonDominated;
-        //auxiliary variable which stores an empty list to avoid nullable values in code
-        private final Collection<N> EMPTYLIST = new ArrayList<N>();
 
         protected Iterator(){
             queue = new PriorityQueue<N>();
@@ -82,16 +81,16 @@ public class MultiobjectiveLS<A,S,C extends Comparable<C>,N extends HeuristicNod
             // Finally, the node that contains the goal state t, contains
             // the set of all non-dominated paths from s to t.
             N current = queue.poll();
+            int successors = 0;
             // Take successors
             for (N candidate : nodeExpander.expand(current)) {
+                successors++;
                 // Take non-dominated (nd) nodes associated to the current state
                 // (i.e., all non-dominated paths from start to currentState
-                Collection<N> ndNodes = EMPTYLIST;
-                if(!nonDominated.containsKey(candidate.state())){
-                    nonDominated.put(candidate.state(), new ArrayList<N>());
-                }
-                else{
-                    ndNodes = nonDominated.get(candidate.state());
+                Collection<N> ndNodes = nonDominated.get(candidate.state());
+                if (ndNodes == null) {
+                    ndNodes = new ArrayList<N>();
+                    nonDominated.put(candidate.state(), ndNodes);
                 }
                 // Check if the node is non-dominated
                 if (!isDominated(candidate, ndNodes)) {
@@ -103,9 +102,18 @@ public class MultiobjectiveLS<A,S,C extends Comparable<C>,N extends HeuristicNod
                     // Find all paths that can be dominated by the new non-dominated path
                     for (N dominated : dominatedBy(candidate, ndNodes)) {
                         ndNodes.remove(dominated);
+                        // Indexed queues can drop dominated labels in O(log n), so
+                        // they are not expanded later.
+                        if (queue instanceof IndexedHeap) {
+                            queue.remove(dominated);
+                        }
                     }
+                } else {
+                    monitor.duplicated(candidate);
                 }
             }
+            monitor.expanded(current, successors);
+            monitor.sizes(queue.size(), nonDominated.size());
             return current;
         }
 
@@ -138,21 +146,42 @@ public class MultiobjectiveLS<A,S,C extends Comparable<C>,N extends HeuristicNod
             return queue;
         }
 
+        /**
+         * Replace the original queue with the provided one. The new queue must contain the
+         * nodes of the current queue. If the queue is an {@link IndexedHeap} (for example
+         * {@code IndexedHeap.identity()}), dominated labels are also removed from the queue.
+         *
+         * @param queue internal queue.
+         */
+        public void setQueue(Queue<N> queue) {
+            this.queue = queue;
+        }
+
         public Map<S, Collection<N>> getNonDominated() {
             return nonDominated;
         }
     }
 
     @Override
-    public SearchResult search(Predicate<N> condition){
+    public SearchResult search(Predicate<N> condition, SearchBudget budget){
         int iteration = 0;
         Iterator it = new Iterator();
+        SearchBudget.Tracker<N> tracker = startBudget(budget, it);
         long beginTime = System.currentTimeMillis();
         N currentNode;
         N goalNode = null;
         while(it.hasNext()){
+            if (tracker.isExhausted()) {
+                // Non-dominated paths to the goal found so far
+                Collection<N> solutions = (goalNode != null)
+                        ? new ArrayList<N>(it.nonDominated.get(goalNode.state()))
+                        : Collections.<N>emptyList();
+                N best = solutions.isEmpty() ? tracker.getBest() : solutions.iterator().next();
+                return new SearchResult(solutions, iteration, System.currentTimeMillis() - beginTime, best);
+            }
             iteration++;
             currentNode = it.next();
+            tracker.update(currentNode);
             if (condition.apply(currentNode)) {
                 goalNode = currentNode;
             }
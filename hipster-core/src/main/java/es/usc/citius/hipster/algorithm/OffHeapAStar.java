@@ -0,0 +1,374 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.algorithm;
+
+import es.usc.citius.hipster.model.function.NodeExpander;
+import es.usc.citius.hipster.model.function.ReversibleStateIndexer;
+import es.usc.citius.hipster.model.impl.DoubleWeightedNode;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.util.Predicate;
+import es.usc.citius.lab.hipster.collections.OffHeapNodeArena;
+import es.usc.citius.lab.hipster.collections.OffHeapPriorityQueue;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * Implementation of the A* algorithm for very large searches, which keeps the nodes outside the Java heap.
+ * Each generated node is stored as a fixed-width record in an {@link OffHeapNodeArena} (cost, heuristic,
+ * parent record, action index, state id and depth) and the open list is an {@link OffHeapPriorityQueue}
+ * of record indexes, so the heap only holds two ints per state (the best record of each state and the
+ * closed flag) instead of a node object, its boxed costs and a hash map entry for each generated node.
+ * The arena can also be backed by a memory-mapped file (see {@link #setArenaFile(java.io.File)}).
+ * </p>
+ *
+ * <p>
+ * The states are stored by their id, so the algorithm requires a {@link ReversibleStateIndexer} to
+ * recover the state of each record. The nodes returned by the iterator are rebuilt from the records:
+ * the previous nodes are created from the parent indexes only when they are requested (for example
+ * when the path of the goal node is recovered at the end of the search), and the action of a node is
+ * recovered by expanding its parent again, so the expander must generate the successors of a node
+ * always in the same order. The nodes read the arena of the iterator which created them, so they
+ * are no longer valid once the iterator is closed (see {@link Iterator#close()}). The searches
+ * ({@link #search(Predicate, SearchBudget)}) close their iterator when they finish and return
+ * copies of the goal and best nodes that do not depend on the arena.
+ * </p>
+ *
+ * <p>
+ * Except for the storage, the algorithm behaves as {@link AStar}: closed states are reopened when
+ * a better path is found and the outdated records of the queue are skipped.
+ * </p>
+ *
+ * @param <A> action type.
+ * @param <S> state type.
+ */
+public class OffHeapAStar<A,S> extends Algorithm<A,S,WeightedNode<A,S,Double>> {
+
+    protected final WeightedNode<A,S,Double> initialNode;
+    protected final NodeExpander<A,S,WeightedNode<A,S,Double>> expander;
+    protected final ReversibleStateIndexer<S> stateIndexer;
+    protected File arenaFile;
+
+    /**
+     * @param initialNode the initial node (which contains the initial state of the search).
+     * @param expander function to obtain (expand) a node to obtain the successor nodes.
+     * @param stateIndexer function that maps the states to dense ids and back.
+     */
+    public OffHeapAStar(WeightedNode<A,S,Double> initialNode, NodeExpander<A,S,WeightedNode<A,S,Double>> expander,
+                        ReversibleStateIndexer<S> stateIndexer) {
+        this.initialNode = initialNode;
+        this.expander = expander;
+        this.stateIndexer = stateIndexer;
+    }
+
+    @Override
+    public Iterator iterator() {
+        return new Iterator();
+    }
+
+    /**
+     * Executes the search with a new iterator, which is closed at the end of the search to release
+     * the arena (and the arena file, if any). The nodes of the result are copied out of the arena
+     * with {@link Iterator#detach(WeightedNode)}.
+     */
+    @Override
+    public SearchResult search(Predicate<WeightedNode<A,S,Double>> condition, SearchBudget budget) {
+        Iterator it = iterator();
+        try {
+            SearchResult result = search(it, condition, budget);
+            if (result.isBudgetExhausted()) {
+                return new SearchResult(result.getGoalNodes(), result.getIterations(), result.getElapsed(),
+                        it.detach(result.getBestNode()));
+            }
+            return new SearchResult(it.detach(result.getGoalNode()), result.getIterations(), result.getElapsed(),
+                    result.getStatus());
+        } finally {
+            it.close();
+        }
+    }
+
+    /**
+     * Internal iterator that implements all the logic of the A* search. The iterator keeps the arena
+     * open until it is closed, so the iterators created with {@link #iterator()} should be closed
+     * when they are no longer used.
+     */
+    public class Iterator extends MonitoredIterator implements Closeable {
+        protected final OffHeapNodeArena arena;
+        protected final OffHeapPriorityQueue queue = new OffHeapPriorityQueue();
+        // Best record of each state plus one (0 if the state was not generated yet)
+        protected final int[] best;
+        protected final long[] closed;
+        protected int openSize = 0;
+        protected int closedSize = 0;
+        private boolean released = false;
+
+        protected Iterator() {
+            try {
+                arena = (arenaFile == null) ? new OffHeapNodeArena() : new OffHeapNodeArena(arenaFile);
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to open the arena file " + arenaFile, e);
+            }
+            best = new int[stateIndexer.size()];
+            closed = new long[(stateIndexer.size() + 63) >>> 6];
+            int state = stateIndexer.indexOf(initialNode.state());
+            int record = arena.add(state, -1, -1, initialNode.getCost(), initialNode.getEstimation());
+            best[state] = record + 1;
+            queue.add(initialNode.getScore(), record);
+            openSize++;
+        }
+
+        /**
+         * Returns true if there are states in the open list.
+         */
+        public boolean hasNext() {
+            return openSize > 0;
+        }
+
+        protected int takePromising() {
+            // Poll until the best record of an open state is found
+            int record = queue.poll();
+            int state = arena.state(record);
+            while (best[state] != record + 1 || isClosed(state)) {
+                // Only rebuild the node from the arena if someone listens
+                if (monitor != SearchMonitor.NONE) {
+                    monitor.stale(new ArenaNode(record));
+                }
+                record = queue.poll();
+                state = arena.state(record);
+            }
+            return record;
+        }
+
+        /**
+         * Calculates the next visited state. The returned node is rebuilt from the arena.
+         *
+         * @return next visited state.
+         */
+        public WeightedNode<A,S,Double> next() {
+            if (openSize == 0) throw new NoSuchElementException();
+            int record = takePromising();
+            int state = arena.state(record);
+            ArenaNode current = new ArenaNode(record);
+            openSize--;
+
+            int successors = 0;
+            for (WeightedNode<A,S,Double> successorNode : expander.expand(current)) {
+                int action = successors++;
+                int successorState = stateIndexer.indexOf(successorNode.state());
+                double cost = cost(successorNode);
+                int previous = best[successorState] - 1;
+                boolean reopened = false;
+                if (previous >= 0 && arena.cost(previous) + arena.estimation(previous) <= cost + estimation(successorNode)) {
+                    // Keep analyzing the other movements, discard this movement
+                    monitor.duplicated(successorNode);
+                    continue;
+                }
+                if (previous >= 0 && isClosed(successorState)) {
+                    monitor.reopened(successorNode);
+                    closed[successorState >>> 6] &= ~(1L << successorState);
+                    closedSize--;
+                    reopened = true;
+                }
+                if (previous < 0 || reopened) {
+                    openSize++;
+                }
+                int successorRecord = arena.add(successorState, record, action, cost, estimation(successorNode));
+                best[successorState] = successorRecord + 1;
+                queue.add(cost + estimation(successorNode), successorRecord);
+            }
+            closed[state >>> 6] |= 1L << state;
+            closedSize++;
+            monitor.expanded(current, successors);
+            monitor.sizes(openSize, closedSize);
+            return current;
+        }
+
+        /**
+         * Remove is not supported
+         */
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private boolean isClosed(int state) {
+            return (closed[state >>> 6] & (1L << state)) != 0;
+        }
+
+        /**
+         * Copies a node returned by this iterator (and its previous nodes) to the heap, so it can
+         * be used after the iterator is closed.
+         *
+         * @param node node returned by this iterator, or null
+         * @return copy of the node which does not read the arena, or the same node if it is not
+         * stored in the arena
+         */
+        public WeightedNode<A,S,Double> detach(WeightedNode<A,S,Double> node) {
+            if (!(node instanceof OffHeapAStar.Iterator.ArenaNode)) {
+                return node;
+            }
+            WeightedNode<A,S,Double> copy = null;
+            for (WeightedNode<A,S,Double> pathNode : node.path()) {
+                double cost = cost(pathNode);
+                double estimation = estimation(pathNode);
+                copy = new DoubleWeightedNode<A,S>(copy, pathNode.state(), pathNode.action(), cost, estimation,
+                        cost + estimation);
+            }
+            return copy;
+        }
+
+        /**
+         * Releases the arena and the queue of the iterator, closing the arena file if any. After
+         * that the iterator has no more nodes, and the nodes it returned can not be used (they read
+         * the released arena) unless they were copied with {@link #detach(WeightedNode)}.
+         */
+        public void close() {
+            if (released) return;
+            released = true;
+            openSize = 0;
+            queue.clear();
+            try {
+                arena.close();
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to close the arena file " + arenaFile, e);
+            }
+        }
+
+        /**
+         * @return arena which stores the nodes generated by the iterator
+         */
+        public OffHeapNodeArena getArena() {
+            return arena;
+        }
+
+        /**
+         * @return queue with the records of the open nodes (and the outdated records not skipped yet)
+         */
+        public OffHeapPriorityQueue getQueue() {
+            return queue;
+        }
+
+        /**
+         * @return number of states in the open list
+         */
+        public int getOpenSize() {
+            return openSize;
+        }
+
+        /**
+         * @return number of states in the closed list
+         */
+        public int getClosedSize() {
+            return closedSize;
+        }
+
+        /**
+         * Node rebuilt from a record of the arena. The previous node and the action are
+         * recovered from the arena only when they are requested.
+         */
+        protected class ArenaNode extends DoubleWeightedNode<A,S> {
+            private final int record;
+            private boolean actionResolved;
+
+            protected ArenaNode(int record) {
+                super(null, stateIndexer.stateAt(arena.state(record)), null, arena.cost(record),
+                        arena.estimation(record), arena.cost(record) + arena.estimation(record));
+                this.record = record;
+                this.pathSize = arena.depth(record) + 1;
+                this.actionResolved = arena.parent(record) < 0;
+                if (actionResolved) {
+                    this.action = initialNode.action();
+                }
+            }
+
+            @Override
+            public WeightedNode<A,S,Double> previousNode() {
+                int parent = arena.parent(record);
+                if (previousNode == null && parent >= 0) {
+                    previousNode = new ArenaNode(parent);
+                }
+                return previousNode;
+            }
+
+            @Override
+            public A action() {
+                if (!actionResolved) {
+                    // Expand the parent again to recover the action of the successor
+                    int index = arena.action(record);
+                    for (WeightedNode<A,S,Double> successor : expander.expand(previousNode())) {
+                        if (index-- == 0) {
+                            action = successor.action();
+                            break;
+                        }
+                    }
+                    actionResolved = true;
+                }
+                return action;
+            }
+
+            @Override
+            public List<WeightedNode<A,S,Double>> path() {
+                List<WeightedNode<A,S,Double>> path = new ArrayList<WeightedNode<A,S,Double>>(pathSize);
+                WeightedNode<A,S,Double> currentNode = this;
+                while (currentNode != null) {
+                    path.add(currentNode);
+                    currentNode = currentNode.previousNode();
+                }
+                Collections.reverse(path);
+                return path;
+            }
+
+            /**
+             * @return index of the record of the node in the arena
+             */
+            public int getRecord() {
+                return record;
+            }
+        }
+    }
+
+    private static double cost(WeightedNode<?,?,Double> node) {
+        return (node instanceof DoubleWeightedNode) ? ((DoubleWeightedNode<?,?>) node).cost() : node.getCost();
+    }
+
+    private static double estimation(WeightedNode<?,?,Double> node) {
+        return (node instanceof DoubleWeightedNode) ? ((DoubleWeightedNode<?,?>) node).estimation() : node.getEstimation();
+    }
+
+    public ReversibleStateIndexer<S> getStateIndexer() {
+        return stateIndexer;
+    }
+
+    public File getArenaFile() {
+        return arenaFile;
+    }
+
+    /**
+     * Assigns a file to map the arena of the next iterators, instead of allocating it in direct memory.
+     * The content of the file is overwritten by each iterator.
+     *
+     * @param arenaFile file used to store the nodes, or null to use direct memory
+     */
+    public void setArenaFile(File arenaFile) {
+        this.arenaFile = arenaFile;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.algorithm;
+
+import es.usc.citius.hipster.model.CostNode;
+import es.usc.citius.hipster.model.function.NodeExpander;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>
+ * Parallel implementation of the Bellman-Ford algorithm. Instead of processing the states of the queue
+ * one by one, each round relaxes all the states of the active frontier (the states whose cost was improved
+ * in the previous round) in parallel using a {@link java.util.concurrent.ForkJoinPool}. The best node of each state is
+ * stored in a {@link java.util.concurrent.ConcurrentMap} and updated atomically (compare-and-set), so the improved
+ * states form the frontier of the next round. As in {@link es.usc.citius.hipster.algorithm.BellmanFord}, the optimal
+ * cost is only guaranteed when the frontier is empty, and a {@link es.usc.citius.hipster.algorithm.NegativeCycleException}
+ * is thrown if a negative cycle is detected.
+ * </p>
+ *
+ * <p>
+ * The iterator returns the nodes expanded in each round, one by one. The first call to {@code next()} of each round
+ * relaxes the whole frontier. The node expander (and the transition and cost functions used by it) are invoked concurrently
+ * and must be thread-safe, which is the case of the problems built with {@link es.usc.citius.hipster.graph.GraphSearchProblem}.
+ * </p>
+ *
+ * @param <A> action type.
+ * @param <S> state type.
+ * @param <C> comparable cost used to compare states.
+ * @param <N> type of the heuristic search node used.
+ */
+public class ParallelBellmanFord<A,S,C extends Comparable<C>,N extends CostNode<A,S,C,N>> extends BellmanFord<A,S,C,N> {
+    // Minimum number of states relaxed by each fork-join task
+    private static final int DEFAULT_THRESHOLD = 64;
+    protected ForkJoinPool pool;
+    protected int threshold = DEFAULT_THRESHOLD;
+
+    public ParallelBellmanFord(N initialNode, NodeExpander<A, S, N> nodeExpander, ForkJoinPool pool) {
+        super(initialNode, nodeExpander);
+        this.pool = pool;
+    }
+
+    /**
+     * Parallel Bellman-Ford iterator. The queue contains the states of the frontier
+     * that will be relaxed in the next round.
+     */
+    public class Iterator extends BellmanFord<A,S,C,N>.Iterator {
+        protected ConcurrentMap<S, N> best;
+        // Nodes expanded in the last round, not returned yet
+        protected N[] expanded;
+        // Number of successors of each node expanded in the last round
+        protected int[] successors;
+        protected int current;
+        protected int rounds = 0;
+        private volatile boolean negativeCycle = false;
+
+        protected Iterator(){
+            super();
+            this.best = new ConcurrentHashMap<S, N>();
+            this.best.put(initialNode.state(), initialNode);
+            this.explored = best;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return (expanded != null && current < expanded.length) || !queue.isEmpty();
+        }
+
+        @Override
+        public N next() {
+            if (expanded == null || current >= expanded.length) {
+                if (queue.isEmpty()) throw new NoSuchElementException();
+                round();
+            }
+            // Events are reported from the thread of the iterator
+            monitor.expanded(expanded[current], successors[current]);
+            monitor.sizes(queue.size() + expanded.length - current - 1, best.size());
+            return expanded[current++];
+        }
+
+        /**
+         * Relaxes all the states of the frontier in parallel and computes the
+         * frontier of the next round.
+         */
+        @SuppressWarnings("unchecked")
+        protected void round() {
+            List<S> frontier = new ArrayList<S>(queue);
+            queue.clear();
+            Set<S> improved = Collections.newSetFromMap(new ConcurrentHashMap<S, Boolean>());
+            expanded = (N[]) new CostNode[frontier.size()];
+            successors = new int[frontier.size()];
+            current = 0;
+            pool.invoke(new Relax(frontier, improved, 0, frontier.size()));
+            if (negativeCycle) {
+                throw new NegativeCycleException();
+            }
+            queue.addAll(improved);
+            rounds++;
+        }
+
+        /**
+         * Expands the node of a state and updates the best node of each successor.
+         */
+        protected void relax(List<S> frontier, Set<S> improved, int index) {
+            N currentNode = best.get(frontier.get(index));
+            expanded[index] = currentNode;
+            if (checkNegativeCycles && currentNode.pathSize() > best.size()){
+                negativeCycle = true;
+                return;
+            }
+            for (N successor : nodeExpander.expand(currentNode)) {
+                successors[index]++;
+                S state = successor.state();
+                N previousNode = best.putIfAbsent(state, successor);
+                if (previousNode == null) {
+                    improved.add(state);
+                    continue;
+                }
+                // Retry until the node is replaced or a better node is found
+                while (successor.getCost().compareTo(previousNode.getCost()) < 0) {
+                    if (best.replace(state, previousNode, successor)) {
+                        improved.add(state);
+                        break;
+                    }
+                    previousNode = best.get(state);
+                }
+            }
+        }
+
+        private class Relax extends RecursiveAction {
+            private final List<S> frontier;
+            private final Set<S> improved;
+            private final int from;
+            private final int to;
+
+            private Relax(List<S> frontier, Set<S> improved, int from, int to) {
+                this.frontier = frontier;
+                this.improved = improved;
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from <= threshold) {
+                    for (int i = from; i < to && !negativeCycle; i++) {
+                        relax(frontier, improved, i);
+                    }
+                } else {
+                    int middle = (from + to) >>> 1;
+                    invokeAll(new Relax(frontier, improved, from, middle), new Relax(frontier, improved, middle, to));
+                }
+            }
+        }
+
+        /**
+         * @return number of rounds completed
+         */
+        public int getRounds() {
+            return rounds;
+        }
+    }
+
+    @Override
+    public Iterator iterator() {
+        return new Iterator();
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.algorithm;
+
+import es.usc.citius.hipster.model.Node;
+import es.usc.citius.hipster.model.function.NodeExpander;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * <p>
+ * Level-synchronous parallel implementation of the Breadth First Search. Instead of expanding the nodes one
+ * by one, all the nodes of the current layer (the nodes at the same depth) are expanded in parallel using a
+ * {@link java.util.concurrent.ForkJoinPool}. The visited states are stored in a
+ * {@link java.util.concurrent.ConcurrentMap}, so each new state is claimed atomically by the first node that
+ * reaches it ({@code putIfAbsent}), and the new states form the next layer.
+ * </p>
+ *
+ * <p>
+ * The iterator returns the nodes of each layer one by one, in the same order as the layer was built. The first call
+ * to {@code next()} of each layer expands the whole layer. The nodes can also be consumed layer by layer with
+ * {@link Iterator#nextLayer()}. The depth of each node is the same as in {@link BreadthFirstSearch}, although the
+ * parent of a node may be different when several nodes of the previous layer reach the same state. The node expander
+ * (and the transition and cost functions used by it) are invoked concurrently and must be thread-safe.
+ * </p>
+ *
+ * @param <A> action type.
+ * @param <S> state type.
+ * @param <N> type of the search node used.
+ */
+public class ParallelBreadthFirstSearch<A,S,N extends Node<A,S,N>> extends BreadthFirstSearch<A,S,N> {
+    // Minimum number of nodes expanded by each fork-join task
+    private static final int DEFAULT_THRESHOLD = 64;
+    protected ForkJoinPool pool;
+    protected int threshold = DEFAULT_THRESHOLD;
+
+    public ParallelBreadthFirstSearch(N initialNode, NodeExpander<A, S, N> expander, ForkJoinPool pool) {
+        super(initialNode, expander);
+        this.pool = pool;
+    }
+
+    /**
+     * Parallel BFS iterator. The queue contains the nodes of the next layer to be expanded.
+     */
+    public class Iterator extends BreadthFirstSearch<A,S,N>.Iterator {
+        protected ConcurrentMap<S, N> claimed;
+        // Nodes of the last expanded layer, not returned yet
+        protected List<N> layer = Collections.emptyList();
+        // Number of successors of each node of the last expanded layer
+        protected int[] successors;
+        protected int current;
+        protected int depth = -1;
+
+        protected Iterator(){
+            super();
+            this.claimed = new ConcurrentHashMap<S, N>();
+            this.claimed.put(initialNode.state(), initialNode);
+            this.visited = claimed;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return current < layer.size() || !queue.isEmpty();
+        }
+
+        @Override
+        public N next() {
+            if (current >= layer.size()) {
+                if (queue.isEmpty()) throw new NoSuchElementException();
+                expandLayer();
+            }
+            // Events are reported from the thread of the iterator
+            monitor.expanded(layer.get(current), successors[current]);
+            monitor.sizes(queue.size() + layer.size() - current - 1, claimed.size());
+            return layer.get(current++);
+        }
+
+        /**
+         * Returns the remaining nodes of the current layer, or expands and returns the
+         * next layer if all the nodes of the current layer were already returned.
+         *
+         * @return nodes of the layer, all of them at the same depth
+         */
+        public List<N> nextLayer() {
+            if (current >= layer.size()) {
+                if (queue.isEmpty()) throw new NoSuchElementException();
+                expandLayer();
+            }
+            for (int i = current; i < layer.size(); i++) {
+                monitor.expanded(layer.get(i), successors[i]);
+            }
+            monitor.sizes(queue.size(), claimed.size());
+            List<N> nodes = layer.subList(current, layer.size());
+            current = layer.size();
+            return nodes;
+        }
+
+        /**
+         * Expands all the nodes of the queue in parallel. The expanded nodes form the new
+         * current layer and the new states are added to the queue.
+         */
+        protected void expandLayer() {
+            List<N> frontier = new ArrayList<N>(queue);
+            queue.clear();
+            successors = new int[frontier.size()];
+            current = 0;
+            layer = frontier;
+            queue.addAll(pool.invoke(new Expand(frontier, 0, frontier.size())));
+            depth++;
+        }
+
+        /**
+         * Expands a node of the layer and claims the states not visited yet.
+         *
+         * @return nodes of the new states
+         */
+        protected List<N> expand(List<N> frontier, int index, List<N> discovered) {
+            for (N successor : expander.expand(frontier.get(index))) {
+                successors[index]++;
+                if (claimed.putIfAbsent(successor.state(), successor) == null) {
+                    discovered.add(successor);
+                }
+            }
+            return discovered;
+        }
+
+        private class Expand extends RecursiveTask<List<N>> {
+            private final List<N> frontier;
+            private final int from;
+            private final int to;
+
+            private Expand(List<N> frontier, int from, int to) {
+                this.frontier = frontier;
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected List<N> compute() {
+                if (to - from <= threshold) {
+                    List<N> discovered = new ArrayList<N>();
+                    for (int i = from; i < to; i++) {
+                        expand(frontier, i, discovered);
+                    }
+                    return discovered;
+                }
+                int middle = (from + to) >>> 1;
+                Expand right = new Expand(frontier, middle, to);
+                right.fork();
+                List<N> discovered = new Expand(frontier, from, middle).compute();
+                // Keep the order of the frontier in the next layer
+                discovered.addAll(right.join());
+                return discovered;
+            }
+        }
+
+        /**
+         * @return depth of the nodes of the current layer (0 for the initial node)
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        public List<N> getLayer() {
+            return layer;
+        }
+    }
+
+    @Override
+    public Iterator iterator() {
+        return new Iterator();
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+}
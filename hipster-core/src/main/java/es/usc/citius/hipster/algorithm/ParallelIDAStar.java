@@ -0,0 +1,249 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.algorithm;
+
+import es.usc.citius.hipster.model.HeuristicNode;
+import es.usc.citius.hipster.model.function.NodeExpander;
+import es.usc.citius.hipster.util.Predicate;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>
+ * Parallel implementation of the IDA* algorithm. Each iteration (a depth-first search bounded by the
+ * current f-limit) is split near the root: the nodes shallower than the split depth are processed by
+ * independent {@link java.util.concurrent.ForkJoinPool} tasks, one per subtree, so the idle workers steal the
+ * pending subtrees from the busy ones. The subtrees below the split depth are explored sequentially by the
+ * task that reaches them.
+ * </p>
+ *
+ * <p>
+ * All the tasks share the f-limit of the next iteration, computed as the minimum f-value of the nodes that
+ * exceeded the current limit with an atomic reduction, and a cancellation flag that stops all the workers
+ * as soon as a goal is found. As in {@link IDAStar}, any goal found within the f-limit is optimal, so the
+ * cost of the solution is the same as the one found by the sequential algorithm (although the path may be
+ * different if there are several optimal solutions).
+ * </p>
+ *
+ * <p>
+ * Only the {@code search} methods run in parallel. The iterator explores the nodes sequentially, in the
+ * same order as {@link IDAStar}. The node expander (and the transition, cost and heuristic functions used by
+ * it) are invoked concurrently and must be thread-safe. The search monitor is not notified during the parallel
+ * search and the transposition table, which is not thread-safe, is ignored. The time and expansion limits of a
+ * {@link SearchBudget} are checked periodically by the workers.
+ * </p>
+ *
+ * @param <A> action type.
+ * @param <S> state type.
+ * @param <C> comparable cost used to compare states.
+ * @param <N> type of the heuristic search node.
+ */
+public class ParallelIDAStar<A,S,C extends Comparable<C>,N extends HeuristicNode<A,S,C,N>> extends IDAStar<A,S,C,N> {
+    // Depth of the nodes processed sequentially by each fork-join task
+    private static final int DEFAULT_SPLIT_DEPTH = 6;
+    // Number of nodes visited by a task between two checks of the budget
+    private static final int CHECK_INTERVAL = 1024;
+    protected ForkJoinPool pool;
+    protected int splitDepth = DEFAULT_SPLIT_DEPTH;
+
+    public ParallelIDAStar(N initialNode, NodeExpander<A, S, N> expander, ForkJoinPool pool) {
+        super(initialNode, expander);
+        this.pool = pool;
+    }
+
+    @Override
+    public SearchResult search(Predicate<N> condition, SearchBudget budget) {
+        long begin = System.currentTimeMillis();
+        Run run = new Run(condition, budget);
+        C fLimit = initialNode.getEstimation();
+        while (fLimit != null) {
+            run.iteration(fLimit);
+            if (run.goal.get() != null || run.exhausted) break;
+            fLimit = run.minfLimit.get();
+        }
+        long elapsed = System.currentTimeMillis() - begin;
+        int iterations = (int) Math.min(Integer.MAX_VALUE, run.expanded.get());
+        if (run.goal.get() != null) {
+            return new SearchResult(run.goal.get(), iterations, elapsed);
+        }
+        if (run.exhausted) {
+            return new SearchResult(Collections.<N>emptyList(), iterations, elapsed, run.best.get());
+        }
+        return new SearchResult(Collections.<N>emptyList(), iterations, elapsed);
+    }
+
+    /**
+     * State of a parallel search shared by all the tasks.
+     */
+    protected class Run {
+        protected final Predicate<N> condition;
+        protected final SearchBudget budget;
+        protected final long begin = System.nanoTime();
+        protected final boolean limited;
+        protected final AtomicReference<N> goal = new AtomicReference<N>();
+        protected final AtomicReference<C> minfLimit = new AtomicReference<C>();
+        protected final AtomicReference<N> best = new AtomicReference<N>();
+        protected final AtomicLong expanded = new AtomicLong();
+        protected volatile boolean stop = false;
+        protected volatile boolean exhausted = false;
+        protected C fLimit;
+
+        protected Run(Predicate<N> condition, SearchBudget budget) {
+            this.condition = condition;
+            this.budget = budget;
+            this.limited = budget.getTimeNanos() != Long.MAX_VALUE || budget.getExpansions() != Long.MAX_VALUE;
+        }
+
+        protected void iteration(C fLimit) {
+            this.fLimit = fLimit;
+            minfLimit.set(null);
+            pool.invoke(new Subtree(initialNode, 0));
+        }
+
+        protected void updateMinFLimit(C f) {
+            C current;
+            do {
+                current = minfLimit.get();
+                if (current != null && current.compareTo(f) <= 0) return;
+            } while (!minfLimit.compareAndSet(current, f));
+        }
+
+        protected void updateBest(N node) {
+            N current;
+            do {
+                current = best.get();
+                if (current != null) {
+                    int cmp = node.getEstimation().compareTo(current.getEstimation());
+                    if (cmp > 0 || (cmp == 0 && node.getScore().compareTo(current.getScore()) >= 0)) return;
+                }
+            } while (!best.compareAndSet(current, node));
+        }
+
+        /**
+         * Adds the nodes visited by a task and checks the budget.
+         */
+        protected void flush(long visited) {
+            long total = expanded.addAndGet(visited);
+            if (limited && (total >= budget.getExpansions() || System.nanoTime() - begin >= budget.getTimeNanos())) {
+                exhausted = true;
+                stop = true;
+            }
+        }
+
+        /**
+         * Task which explores the subtree of a node.
+         */
+        protected class Subtree extends RecursiveAction {
+            private final N node;
+            private final int depth;
+            private long visited = 0;
+
+            protected Subtree(N node, int depth) {
+                this.node = node;
+                this.depth = depth;
+            }
+
+            @Override
+            protected void compute() {
+                if (stop) return;
+                if (depth < splitDepth) {
+                    if (visit(node)) {
+                        List<Subtree> tasks = new ArrayList<Subtree>();
+                        for (N successor : successors(node)) {
+                            tasks.add(new Subtree(successor, depth + 1));
+                        }
+                        flush(visited);
+                        invokeAll(tasks);
+                        return;
+                    }
+                } else {
+                    explore();
+                }
+                flush(visited);
+            }
+
+            /**
+             * Sequential depth-first search of the subtree.
+             */
+            private void explore() {
+                if (!visit(node)) return;
+                Deque<java.util.Iterator<N>> stack = new ArrayDeque<java.util.Iterator<N>>();
+                stack.addLast(successors(node).iterator());
+                while (!stack.isEmpty() && !stop) {
+                    java.util.Iterator<N> successors = stack.peekLast();
+                    if (!successors.hasNext()) {
+                        stack.removeLast();
+                        continue;
+                    }
+                    N successor = successors.next();
+                    if (visit(successor)) {
+                        stack.addLast(successors(successor).iterator());
+                    }
+                    if (visited >= CHECK_INTERVAL) {
+                        flush(visited);
+                        visited = 0;
+                    }
+                }
+            }
+
+            /**
+             * Checks the f-limit and the goal condition of a node.
+             *
+             * @return true if the successors of the node must be explored
+             */
+            private boolean visit(N current) {
+                C f = current.getScore();
+                if (f.compareTo(fLimit) > 0) {
+                    updateMinFLimit(f);
+                    return false;
+                }
+                visited++;
+                if (limited) updateBest(current);
+                if (condition.apply(current)) {
+                    goal.compareAndSet(null, current);
+                    stop = true;
+                    return false;
+                }
+                return true;
+            }
+        }
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public int getSplitDepth() {
+        return splitDepth;
+    }
+
+    /**
+     * @param splitDepth depth of the nodes below which the subtrees are explored sequentially
+     *                   by a single task (0 to run each iteration in a single task)
+     */
+    public void setSplitDepth(int splitDepth) {
+        this.splitDepth = splitDepth;
+    }
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.algorithm;
+
+import es.usc.citius.hipster.model.HeuristicNode;
+import es.usc.citius.hipster.model.function.NodeExpander;
+
+import java.util.*;
+
+/**
+ * <p>
+ * Implementation of the Simplified Memory-bounded A* (SMA*) algorithm. It behaves like A* while the number of
+ * nodes in memory is below a fixed limit, so it can be used in problems where A* runs out of memory and
+ * {@link IDAStar} re-expands too many nodes. The search keeps a tree with the best paths explored so far. When the
+ * tree reaches the limit, the worst leaf (highest f, shallowest) is dropped and its f-value is backed up into its
+ * parent, so the forgotten subtree is only regenerated when all the other paths look worse.
+ * </p>
+ *
+ * <p>
+ * The f-values of the nodes are monotone (pathmax) and each node stores the minimum f-value of its successors, so
+ * the solution is optimal (with an admissible heuristic) if the optimal path fits in memory. Otherwise, the best
+ * solution reachable with the available memory is found. Paths longer than the node limit can not be explored.
+ * </p>
+ *
+ * <a href="http://dl.acm.org/citation.cfm?id=145914">Original paper</a>:
+ * Stuart Russell. <b>"Efficient memory-bounded search methods"</b>.
+ * <i>Proceedings of the 10th European Conference on Artificial Intelligence (ECAI 92)</i>, pp. 1-5, 1992.
+ *
+ * @param <A> action type.
+ * @param <S> state type.
+ * @param <C> comparable cost used to compare states.
+ * @param <N> type of the heuristic search node.
+ */
+public class SMAStar<A, S, C extends Comparable<C>, N extends HeuristicNode<A, S, C, N>> extends Algorithm<A, S, N> {
+
+    protected N initialNode;
+    protected NodeExpander<A, S, N> expander;
+    protected int maxNodes;
+
+    /**
+     * @param initialNode root node of the search
+     * @param expander expander to obtain the successors of each node
+     * @param maxNodes maximum number of nodes kept in memory (at least 2)
+     */
+    public SMAStar(N initialNode, NodeExpander<A, S, N> expander, int maxNodes) {
+        if (maxNodes < 2) throw new IllegalArgumentException("SMA* requires memory for at least 2 nodes");
+        this.initialNode = initialNode;
+        this.expander = expander;
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Node of the search tree kept in memory. The f-value is backed up from the successors
+     * (a null f-value means that no solution can be found from this node).
+     */
+    protected class Entry {
+        protected final N node;
+        protected final Entry parent;
+        protected final int depth;
+        protected final long id;
+        protected C f;
+        protected boolean expanded = false;
+        protected boolean open = false;
+        protected List<Entry> children = Collections.emptyList();
+        // Backed-up f-values of the dropped successors (null for the successors without solution)
+        protected Map<S, C> forgotten;
+
+        protected Entry(N node, Entry parent, long id, C f) {
+            this.node = node;
+            this.parent = parent;
+            this.depth = (parent == null) ? 0 : parent.depth + 1;
+            this.id = id;
+            this.f = f;
+        }
+
+        protected boolean isLeaf() {
+            return children.isEmpty();
+        }
+
+        /**
+         * @return best f-value of the dropped successors, or null if there is no successor to regenerate
+         */
+        protected C bestForgotten() {
+            C best = null;
+            if (forgotten != null) {
+                for (C value : forgotten.values()) {
+                    if (compareF(value, best) < 0) best = value;
+                }
+            }
+            return best;
+        }
+
+        public N getNode() {
+            return node;
+        }
+
+        public C getF() {
+            return f;
+        }
+    }
+
+    /**
+     * SMA* iterator. Each call to {@code next()} expands the deepest node with the lowest f-value,
+     * dropping the worst leaves when the number of nodes in memory exceeds the limit.
+     */
+    public class Iterator extends MonitoredIterator {
+        // Sorted by f-value (infinite last), then deepest first
+        protected NavigableSet<Entry> open = new TreeSet<Entry>(new Comparator<Entry>() {
+            @Override
+            public int compare(Entry o1, Entry o2) {
+                int cmp = compareF(o1.f, o2.f);
+                if (cmp != 0) return cmp;
+                if (o1.depth != o2.depth) return (o1.depth > o2.depth) ? -1 : 1;
+                return (o1.id < o2.id) ? -1 : ((o1.id == o2.id) ? 0 : 1);
+            }
+        });
+        protected Entry root;
+        protected int size = 1;
+        protected long generated = 1;
+        protected long dropped = 0;
+
+        protected Iterator() {
+            root = new Entry(initialNode, null, 0, initialNode.getScore());
+            offer(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !open.isEmpty() && open.first().f != null;
+        }
+
+        @Override
+        public N next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Entry current = open.pollFirst();
+            current.open = false;
+            int successors = expand(current);
+            backup(current);
+            monitor.expanded(current.node, successors);
+            prune(current);
+            shrink(current);
+            monitor.sizes(open.size(), size);
+            return current.node;
+        }
+
+        /**
+         * Generates the successors of the node that are not in memory. If the node was expanded before,
+         * only the dropped successors are generated again, with their backed-up f-values.
+         */
+        protected int expand(Entry current) {
+            if (current.depth >= maxNodes - 1) {
+                // The successors do not fit in memory
+                current.expanded = true;
+                return 0;
+            }
+            Set<S> present = null;
+            if (current.expanded) {
+                present = new HashSet<S>();
+                for (Entry child : current.children) {
+                    present.add(child.node.state());
+                }
+            } else {
+                current.children = new ArrayList<Entry>();
+            }
+            int successors = 0;
+            for (N successor : expander.expand(current.node)) {
+                successors++;
+                S state = successor.state();
+                C f = successor.getScore();
+                if (current.expanded) {
+                    // Only forgotten successors with solution are generated again
+                    if (present.contains(state) || current.forgotten == null
+                            || !current.forgotten.containsKey(state) || current.forgotten.get(state) == null) {
+                        monitor.duplicated(successor);
+                        continue;
+                    }
+                    C backedUp = current.forgotten.remove(state);
+                    if (compareF(backedUp, f) > 0) f = backedUp;
+                    monitor.reopened(successor);
+                } else if (isAncestor(current, state)) {
+                    monitor.duplicated(successor);
+                    continue;
+                }
+                // Pathmax: f-values never decrease along a path
+                if (compareF(current.f, f) > 0) f = current.f;
+                Entry child = new Entry(successor, current, generated++, f);
+                current.children.add(child);
+                offer(child);
+                size++;
+            }
+            current.expanded = true;
+            return successors;
+        }
+
+        protected boolean isAncestor(Entry entry, S state) {
+            for (Entry e = entry; e != null; e = e.parent) {
+                if (e.node.state().equals(state)) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Updates the f-value of the node with the best f-value of its successors,
+         * propagating the change to the ancestors.
+         */
+        protected void backup(Entry entry) {
+            while (entry != null && entry.expanded) {
+                C f = entry.bestForgotten();
+                for (Entry child : entry.children) {
+                    if (compareF(child.f, f) < 0) f = child.f;
+                }
+                if (compareF(f, entry.f) == 0) return;
+                update(entry, f);
+                entry = entry.parent;
+            }
+        }
+
+        /**
+         * Removes the dead ends (expanded nodes without successors to explore) from the tree.
+         * The parent remembers them to avoid generating them again.
+         */
+        protected void prune(Entry entry) {
+            while (entry != root && entry.expanded && entry.isLeaf() && entry.bestForgotten() == null) {
+                Entry parent = entry.parent;
+                parent.children.remove(entry);
+                forget(parent, entry.node.state(), null);
+                size--;
+                entry = parent;
+            }
+        }
+
+        /**
+         * Drops the worst leaves until the nodes fit in memory. The best successor of the
+         * node being expanded is always kept, so the search progresses along the best path.
+         */
+        protected void shrink(Entry current) {
+            Entry best = null;
+            for (Entry child : current.children) {
+                if (best == null || compareF(child.f, best.f) < 0) best = child;
+            }
+            while (size > maxNodes) {
+                Entry worst = null;
+                for (java.util.Iterator<Entry> it = open.descendingIterator(); it.hasNext(); ) {
+                    Entry candidate = it.next();
+                    if (candidate.isLeaf() && candidate != root && candidate != best) {
+                        worst = candidate;
+                        break;
+                    }
+                }
+                if (worst == null) return;
+                drop(worst);
+            }
+        }
+
+        protected void drop(Entry leaf) {
+            open.remove(leaf);
+            leaf.open = false;
+            Entry parent = leaf.parent;
+            parent.children.remove(leaf);
+            forget(parent, leaf.node.state(), leaf.f);
+            size--;
+            dropped++;
+            monitor.stale(leaf.node);
+            // The parent must be expanded again to regenerate the successor
+            if (!parent.open && leaf.f != null) {
+                offer(parent);
+            }
+        }
+
+        protected void forget(Entry parent, S state, C f) {
+            if (parent.forgotten == null) parent.forgotten = new HashMap<S, C>(4);
+            parent.forgotten.put(state, f);
+        }
+
+        protected void offer(Entry entry) {
+            entry.open = true;
+            open.add(entry);
+        }
+
+        protected void update(Entry entry, C f) {
+            if (entry.open) {
+                open.remove(entry);
+                entry.f = f;
+                open.add(entry);
+            } else {
+                entry.f = f;
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * @return number of nodes in memory
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * @return number of nodes dropped to free memory
+         */
+        public long getDropped() {
+            return dropped;
+        }
+
+        /**
+         * @return number of nodes generated
+         */
+        public long getGenerated() {
+            return generated;
+        }
+
+        public NavigableSet<Entry> getOpen() {
+            return open;
+        }
+    }
+
+    /*
+     * Compares two f-values, where null is greater than any other value.
+     */
+    private int compareF(C f1, C f2) {
+        if (f1 == null) return (f2 == null) ? 0 : 1;
+        if (f2 == null) return -1;
+        return f1.compareTo(f2);
+    }
+
+    @Override
+    public Iterator iterator() {
+        return new Iterator();
+    }
+
+    public N getInitialNode() {
+        return initialNode;
+    }
+
+    public void setInitialNode(N initialNode) {
+        this.initialNode = initialNode;
+    }
+
+    public NodeExpander<A, S, N> getExpander() {
+        return expander;
+    }
+
+    public void setExpander(NodeExpander<A, S, N> expander) {
+        this.expander = expander;
+    }
+
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+
+    public void setMaxNodes(int maxNodes) {
+        this.maxNodes = maxNodes;
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.algorithm;
+
+import es.usc.citius.hipster.model.CostNode;
+import es.usc.citius.hipster.model.HeuristicNode;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Limits of a search: maximum time, maximum number of expansions and maximum number of nodes stored
+ * by the algorithm (open + closed, used as an estimation of the memory). When any limit is reached,
+ * {@link Algorithm#search(es.usc.citius.hipster.util.Predicate, SearchBudget)} stops and returns a
+ * {@link Algorithm.SearchResult} flagged with {@link Algorithm.SearchResult#isBudgetExhausted()}
+ * which contains the best node found so far ({@link Algorithm.SearchResult#getBestNode()}).
+ * </p>
+ *
+ * <pre class="prettyprint">
+ * {@code
+ * SearchBudget budget = SearchBudget.unlimited().withTime(50, TimeUnit.MILLISECONDS).withExpansions(100000);
+ * Algorithm.SearchResult result = Hipster.createAStar(problem).search(goal, budget);
+ * if (result.isBudgetExhausted()) {
+ *     // Degrade gracefully using the node closest to the goal
+ *     Node best = result.getBestNode();
+ * }
+ * }
+ * </pre>
+ *
+ * <p>
+ * Budgets are immutable, so the same instance can be shared by many searches.
+ * </p>
+ */
+public final class SearchBudget {
+
+    /**
+     * Criterion used to select the best node of a search stopped by the budget.
+     * For nodes without heuristic ({@link es.usc.citius.hipster.model.CostNode}) both criteria
+     * select the node with the lowest cost, and for other nodes the last expanded node is selected.
+     */
+    public enum BestNode {
+        /** Node with the lowest heuristic estimation (h), closest to the goal. */
+        LOWEST_ESTIMATION,
+        /** Node with the lowest score (f = g + h). */
+        LOWEST_SCORE
+    }
+
+    /**
+     * Budget without limits.
+     */
+    public static final SearchBudget UNLIMITED = new SearchBudget(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, BestNode.LOWEST_ESTIMATION);
+
+    private final long timeNanos;
+    private final long expansions;
+    private final long storedNodes;
+    private final BestNode bestNode;
+
+    private SearchBudget(long timeNanos, long expansions, long storedNodes, BestNode bestNode) {
+        this.timeNanos = timeNanos;
+        this.expansions = expansions;
+        this.storedNodes = storedNodes;
+        this.bestNode = bestNode;
+    }
+
+    /**
+     * @return budget without limits, to be restricted with the {@code with*} methods
+     */
+    public static SearchBudget unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * @param time maximum time of the search
+     * @param unit unit of the time
+     * @return copy of this budget with the time limit
+     * @throws IllegalArgumentException if the time is negative
+     */
+    public SearchBudget withTime(long time, TimeUnit unit) {
+        if (time < 0) throw new IllegalArgumentException("The time of the search can not be negative");
+        return new SearchBudget(unit.toNanos(time), expansions, storedNodes, bestNode);
+    }
+
+    /**
+     * @param expansions maximum number of nodes expanded
+     * @return copy of this budget with the expansions limit
+     * @throws IllegalArgumentException if the number of expansions is negative
+     */
+    public SearchBudget withExpansions(long expansions) {
+        if (expansions < 0) throw new IllegalArgumentException("The number of expansions can not be negative");
+        return new SearchBudget(timeNanos, expansions, storedNodes, bestNode);
+    }
+
+    /**
+     * @param storedNodes maximum number of nodes stored in the open and closed structures
+     * @return copy of this budget with the limit of stored nodes
+     * @throws IllegalArgumentException if the number of stored nodes is negative
+     */
+    public SearchBudget withStoredNodes(long storedNodes) {
+        if (storedNodes < 0) throw new IllegalArgumentException("The number of stored nodes can not be negative");
+        return new SearchBudget(timeNanos, expansions, storedNodes, bestNode);
+    }
+
+    /**
+     * Limits the memory of the search, estimated as the number of nodes stored in the
+     * open and closed structures multiplied by the size of each node.
+     *
+     * @param bytes maximum memory, in bytes
+     * @param bytesPerNode estimated size of each stored node (including the map and queue entries)
+     * @return copy of this budget with the equivalent limit of stored nodes
+     * @throws IllegalArgumentException if the memory is negative or the size of each node is not positive
+     */
+    public SearchBudget withMemory(long bytes, long bytesPerNode) {
+        if (bytes < 0) throw new IllegalArgumentException("The memory of the search can not be negative");
+        if (bytesPerNode <= 0) throw new IllegalArgumentException("The size of each node must be positive");
+        return withStoredNodes(bytes / bytesPerNode);
+    }
+
+    /**
+     * @param bestNode criterion to select the best node when the budget is exhausted
+     * @return copy of this budget with the criterion
+     */
+    public SearchBudget withBestNode(BestNode bestNode) {
+        return new SearchBudget(timeNanos, expansions, storedNodes, bestNode);
+    }
+
+    public long getTimeNanos() {
+        return timeNanos;
+    }
+
+    public long getExpansions() {
+        return expansions;
+    }
+
+    public long getStoredNodes() {
+        return storedNodes;
+    }
+
+    public BestNode getBestNode() {
+        return bestNode;
+    }
+
+    /**
+     * Starts tracking the consumption of this budget.
+     *
+     * @param monitor monitor of the iterator, which receives all the events forwarded by the tracker
+     * @param <N> type of the nodes
+     * @return new tracker
+     */
+    public <N> Tracker<N> start(SearchMonitor<? super N> monitor) {
+        return new Tracker<N>(monitor);
+    }
+
+    /**
+     * Tracks the consumption of a budget during a search. Each expanded node must be passed to
+     * {@link #update(Object)}, and the search must stop when {@link #isExhausted()} returns true. The
+     * stored nodes are obtained from the {@link SearchMonitor#sizes(int, int)} events, so the tracker
+     * must be assigned as the monitor of the iterator of the search (see {@link #requiresMonitor()}).
+     *
+     * @param <N> type of the nodes
+     */
+    public final class Tracker<N> implements SearchMonitor<N> {
+        private final SearchMonitor<? super N> delegate;
+        private final long begin = System.nanoTime();
+        private final boolean limited = (SearchBudget.this != UNLIMITED);
+        private long expanded = 0;
+        private long stored = 0;
+        private N best;
+
+        private Tracker(SearchMonitor<? super N> delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * @return true if the search has consumed any of the limits of the budget
+         */
+        public boolean isExhausted() {
+            return limited && (expanded >= expansions || stored > storedNodes
+                    || (timeNanos != Long.MAX_VALUE && System.nanoTime() - begin >= timeNanos));
+        }
+
+        /**
+         * Registers an expanded node.
+         *
+         * @param node expanded node
+         */
+        public void update(N node) {
+            expanded++;
+            if (limited && (best == null || better(node, best))) {
+                best = node;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private boolean better(N node, N current) {
+            if (node instanceof HeuristicNode) {
+                HeuristicNode n = (HeuristicNode) node;
+                HeuristicNode c = (HeuristicNode) current;
+                if (bestNode == BestNode.LOWEST_SCORE) {
+                    return n.getScore().compareTo(c.getScore()) < 0;
+                }
+                int cmp = n.getEstimation().compareTo(c.getEstimation());
+                return cmp < 0 || (cmp == 0 && n.getScore().compareTo(c.getScore()) < 0);
+            }
+            if (node instanceof CostNode) {
+                return ((CostNode) node).getCost().compareTo(((CostNode) current).getCost()) < 0;
+            }
+            return true;
+        }
+
+        /**
+         * @return true if the tracker needs the {@link SearchMonitor#sizes(int, int)} events of the algorithm
+         */
+        public boolean requiresMonitor() {
+            return storedNodes != Long.MAX_VALUE;
+        }
+
+        /**
+         * @return best node found so far
+         */
+        public N getBest() {
+            return best;
+        }
+
+        /**
+         * @return monitor which receives the events forwarded by this tracker
+         */
+        public SearchMonitor<? super N> getDelegate() {
+            return delegate;
+        }
+
+        @Override
+        public void expanded(N node, int successors) {
+            delegate.expanded(node, successors);
+        }
+
+        @Override
+        public void duplicated(N node) {
+            delegate.duplicated(node);
+        }
+
+        @Override
+        public void stale(N node) {
+            delegate.stale(node);
+        }
+
+        @Override
+        public void reopened(N node) {
+            delegate.reopened(node);
+        }
+
+        @Override
+        public void sizes(int open, int closed) {
+            stored = (long) open + closed;
+            delegate.sizes(open, closed);
+        }
+
+        @Override
+        public void heuristic(long nanos) {
+            delegate.heuristic(nanos);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.algorithm;
+
+import es.usc.citius.hipster.model.function.StateIndexer;
+import es.usc.citius.lab.hipster.collections.ArrayHashQueue;
+import es.usc.citius.lab.hipster.collections.IndexedArrayQueue;
+import es.usc.citius.lab.hipster.collections.StampedArrayMap;
+
+import java.util.*;
+
+/**
+ * <p>
+ * Reusable data structures (open and closed maps and queues) for the iterators of {@link AStar},
+ * {@link BreadthFirstSearch} and {@link BellmanFord}. By default each iterator allocates its own maps and queue,
+ * which grow (and rehash) from their default capacity in every search. When a context is assigned to the
+ * algorithm, the iterator clears and reuses the structures of the context instead, so after a few searches they
+ * already have the capacity required and the searches barely allocate memory (apart from the search nodes).
+ * </p>
+ *
+ * <p>
+ * If the states can be mapped to dense ids with a {@link es.usc.citius.hipster.model.function.StateIndexer}, the
+ * maps are {@link es.usc.citius.lab.hipster.collections.StampedArrayMap}s, which do not hash the states and are
+ * cleared in constant time. Otherwise, {@link java.util.HashMap}s are used.
+ * </p>
+ *
+ * <p>
+ * A context can only be used by one iterator at a time: creating a new iterator with the same context clears the
+ * structures used by the previous one. Contexts are not thread-safe, so in a multi-threaded service a context should
+ * be kept per thread, for example:
+ * </p>
+ *
+ * <pre class="prettyprint">
+ *     {@code
+ *     ThreadLocal<SearchContext<S,N>> contexts = new ThreadLocal<SearchContext<S,N>>() {
+ *         protected SearchContext<S,N> initialValue() {
+ *             return new SearchContext<S,N>(indexer);
+ *         }
+ *     };
+ *     AStar<A,S,C,N> astar = Hipster.createAStar(problem);
+ *     astar.setContext(contexts.get());
+ *     astar.search(goal);
+ *     }
+ * </pre>
+ *
+ * @param <S> state type.
+ * @param <N> type of the search node used.
+ */
+public class SearchContext<S, N> {
+    private final StateIndexer<? super S> indexer;
+    private final Map<S, N> open;
+    private final Map<S, N> closed;
+    private final PriorityQueue<N> priorityQueue;
+    private final ArrayDeque<N> queue;
+    private final Queue<S> stateQueue;
+    private int searches = 0;
+
+    /**
+     * Creates a context backed by hash maps.
+     */
+    public SearchContext() {
+        this(null);
+    }
+
+    /**
+     * Creates a context backed by generation-stamped arrays indexed by the id of each state.
+     *
+     * @param indexer function that maps each state to a dense id, or null to use hash maps
+     */
+    public SearchContext(StateIndexer<? super S> indexer) {
+        this.indexer = indexer;
+        if (indexer != null) {
+            this.open = new StampedArrayMap<S, N>(indexer);
+            this.closed = new StampedArrayMap<S, N>(indexer);
+            this.stateQueue = new IndexedArrayQueue<S>(indexer);
+        } else {
+            this.open = new HashMap<S, N>();
+            this.closed = new HashMap<S, N>();
+            this.stateQueue = new ArrayHashQueue<S>();
+        }
+        this.priorityQueue = new PriorityQueue<N>();
+        this.queue = new ArrayDeque<N>();
+    }
+
+    /**
+     * Clears all the structures of the context so they can be used by a new search.
+     * Invoked by the iterators when they are created.
+     *
+     * @return this context
+     */
+    public SearchContext<S, N> reset() {
+        open.clear();
+        closed.clear();
+        priorityQueue.clear();
+        queue.clear();
+        stateQueue.clear();
+        searches++;
+        return this;
+    }
+
+    /**
+     * @return map of open nodes ({@link AStar}) indexed by their state
+     */
+    public Map<S, N> getOpen() {
+        return open;
+    }
+
+    /**
+     * @return map of closed ({@link AStar}), visited ({@link BreadthFirstSearch}) or explored
+     * ({@link BellmanFord}) nodes indexed by their state
+     */
+    public Map<S, N> getClosed() {
+        return closed;
+    }
+
+    /**
+     * @return priority queue with the natural ordering of the nodes ({@link AStar})
+     */
+    public PriorityQueue<N> getPriorityQueue() {
+        return priorityQueue;
+    }
+
+    /**
+     * @return FIFO queue of nodes ({@link BreadthFirstSearch})
+     */
+    public ArrayDeque<N> getQueue() {
+        return queue;
+    }
+
+    /**
+     * @return FIFO queue of states without duplicates ({@link BellmanFord})
+     */
+    public Queue<S> getStateQueue() {
+        return stateQueue;
+    }
+
+    public StateIndexer<? super S> getIndexer() {
+        return indexer;
+    }
+
+    /**
+     * @return number of searches that reused this context
+     */
+    public int getSearches() {
+        return searches;
+    }
+}
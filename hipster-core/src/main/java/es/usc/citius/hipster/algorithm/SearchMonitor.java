@@ -0,0 +1,116 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.algorithm;
+
+/**
+ * <p>
+ * Receives the events produced by the iterators of the search algorithms, in order to collect
+ * statistics about the search process (see {@link SearchStatistics}) or to bridge them to an
+ * external metrics system. The monitor of an algorithm is assigned with
+ * {@link Algorithm#setMonitor(SearchMonitor)}. By default, algorithms use {@link #NONE}, which
+ * ignores all the events.
+ * </p>
+ *
+ * <p>
+ * The methods are invoked from the thread that iterates the search, and they should be fast since
+ * they are called for each expanded or generated node. Implementations can extend
+ * {@link SearchMonitor.Adapter} to override only the relevant events.
+ * </p>
+ *
+ * @param <N> type of the nodes
+ */
+public interface SearchMonitor<N> {
+
+    /**
+     * Monitor that ignores all the events.
+     */
+    SearchMonitor<Object> NONE = new Adapter<Object>();
+
+    /**
+     * Invoked when a node is expanded.
+     *
+     * @param node expanded node
+     * @param successors number of successors generated by the expansion
+     */
+    void expanded(N node, int successors);
+
+    /**
+     * Invoked when a generated node is discarded because its state was already reached
+     * with a better (or equal) node.
+     *
+     * @param node discarded node
+     */
+    void duplicated(N node);
+
+    /**
+     * Invoked when a node taken from the queue is discarded because it is outdated (a better
+     * node for the same state was inserted later).
+     *
+     * @param node outdated node
+     */
+    void stale(N node);
+
+    /**
+     * Invoked when a node improves the cost of a state that was already expanded, so the
+     * state has to be expanded again.
+     *
+     * @param node new node of the expanded state
+     */
+    void reopened(N node);
+
+    /**
+     * Invoked after each expansion with the size of the open (pending) and closed (explored)
+     * structures of the algorithm.
+     *
+     * @param open number of pending nodes
+     * @param closed number of explored states
+     */
+    void sizes(int open, int closed);
+
+    /**
+     * Invoked after each evaluation of a heuristic monitored with
+     * {@link SearchStatistics#timed(es.usc.citius.hipster.model.function.HeuristicFunction, SearchMonitor)}.
+     *
+     * @param nanos time spent by the heuristic, in nanoseconds
+     */
+    void heuristic(long nanos);
+
+    /**
+     * Monitor with empty implementations of all the events.
+     *
+     * @param <N> type of the nodes
+     */
+    class Adapter<N> implements SearchMonitor<N> {
+        @Override
+        public void expanded(N node, int successors) {}
+
+        @Override
+        public void duplicated(N node) {}
+
+        @Override
+        public void stale(N node) {}
+
+        @Override
+        public void reopened(N node) {}
+
+        @Override
+        public void sizes(int open, int closed) {}
+
+        @Override
+        public void heuristic(long nanos) {}
+    }
+}
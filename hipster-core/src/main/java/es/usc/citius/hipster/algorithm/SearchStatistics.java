@@ -0,0 +1,242 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.algorithm;
+
+import es.usc.citius.hipster.model.function.HeuristicFunction;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * {@link SearchMonitor} that aggregates the events of a search: nodes expanded and generated, duplicated,
+ * stale and reopened nodes, peak size of the open and closed structures, heuristic evaluations
+ * and the histogram of the branching factor. All times are measured with {@link System#nanoTime()}.
+ * </p>
+ *
+ * <pre class="prettyprint">
+ * {@code
+ * SearchStatistics stats = new SearchStatistics();
+ * AStar<A,S,C,N> astar = Hipster.createAStar(problem);
+ * astar.setMonitor(stats);
+ * astar.search(goal);
+ * System.out.println(stats);
+ * }
+ * </pre>
+ *
+ * <p>
+ * The statistics can be exported to an external metrics system with {@link #export(Exporter)} or
+ * {@link #asMap()}. This class is not thread-safe, so each search should use its own instance.
+ * </p>
+ */
+public class SearchStatistics implements SearchMonitor<Object> {
+    // Expansions with more successors are accumulated in the last bin of the histogram
+    private static final int MAX_BRANCHING = 32;
+
+    private long expanded;
+    private long generated;
+    private long duplicated;
+    private long stale;
+    private long reopened;
+    private int peakOpen;
+    private int peakClosed;
+    private long heuristicEvaluations;
+    private long heuristicNanos;
+    private long firstExpansion;
+    private long lastExpansion;
+    private final long[] branching = new long[MAX_BRANCHING + 1];
+
+    /**
+     * Receives each statistic with a unique name.
+     */
+    public interface Exporter {
+        void export(String name, long value);
+    }
+
+    /**
+     * Wraps the heuristic function to report the number of evaluations and the time spent
+     * by each evaluation to the monitor.
+     *
+     * @param hf heuristic function to monitor
+     * @param monitor monitor that receives the evaluation times
+     * @param <S> type of the states
+     * @param <C> type of the cost
+     * @return monitored heuristic function
+     */
+    public static <S, C> HeuristicFunction<S, C> timed(final HeuristicFunction<S, C> hf, final SearchMonitor<?> monitor) {
+        return new HeuristicFunction<S, C>() {
+            @Override
+            public C estimate(S state) {
+                long begin = System.nanoTime();
+                C estimation = hf.estimate(state);
+                monitor.heuristic(System.nanoTime() - begin);
+                return estimation;
+            }
+        };
+    }
+
+    @Override
+    public void expanded(Object node, int successors) {
+        long now = System.nanoTime();
+        if (expanded == 0) {
+            firstExpansion = now;
+        }
+        lastExpansion = now;
+        expanded++;
+        generated += successors;
+        branching[Math.min(successors, MAX_BRANCHING)]++;
+    }
+
+    @Override
+    public void duplicated(Object node) {
+        duplicated++;
+    }
+
+    @Override
+    public void stale(Object node) {
+        stale++;
+    }
+
+    @Override
+    public void reopened(Object node) {
+        reopened++;
+    }
+
+    @Override
+    public void sizes(int open, int closed) {
+        if (open > peakOpen) peakOpen = open;
+        if (closed > peakClosed) peakClosed = closed;
+    }
+
+    @Override
+    public void heuristic(long nanos) {
+        heuristicEvaluations++;
+        heuristicNanos += nanos;
+    }
+
+    /**
+     * Resets all the statistics.
+     */
+    public void clear() {
+        expanded = generated = duplicated = stale = reopened = 0;
+        peakOpen = peakClosed = 0;
+        heuristicEvaluations = heuristicNanos = 0;
+        firstExpansion = lastExpansion = 0;
+        Arrays.fill(branching, 0);
+    }
+
+    public long getExpanded() {
+        return expanded;
+    }
+
+    public long getGenerated() {
+        return generated;
+    }
+
+    public long getDuplicated() {
+        return duplicated;
+    }
+
+    public long getStale() {
+        return stale;
+    }
+
+    public long getReopened() {
+        return reopened;
+    }
+
+    public int getPeakOpen() {
+        return peakOpen;
+    }
+
+    public int getPeakClosed() {
+        return peakClosed;
+    }
+
+    public long getHeuristicEvaluations() {
+        return heuristicEvaluations;
+    }
+
+    public long getHeuristicNanos() {
+        return heuristicNanos;
+    }
+
+    /**
+     * @return time between the first and the last expansion, in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return lastExpansion - firstExpansion;
+    }
+
+    /**
+     * @return average number of successors generated by each expansion
+     */
+    public double getBranchingFactor() {
+        return (expanded == 0) ? 0d : (double) generated / expanded;
+    }
+
+    /**
+     * Returns the histogram of the branching factor. Position {@code i} contains the number of
+     * expansions that generated {@code i} successors, and the last position the number of expansions
+     * with {@code getBranchingHistogram().length - 1} or more successors.
+     *
+     * @return copy of the histogram
+     */
+    public long[] getBranchingHistogram() {
+        return branching.clone();
+    }
+
+    /**
+     * Sends all the statistics to the exporter.
+     *
+     * @param exporter exporter that receives the statistics
+     */
+    public void export(Exporter exporter) {
+        for (Map.Entry<String, Long> entry : asMap().entrySet()) {
+            exporter.export(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * @return map with the name and the value of each statistic
+     */
+    public Map<String, Long> asMap() {
+        Map<String, Long> map = new LinkedHashMap<String, Long>();
+        map.put("expanded", expanded);
+        map.put("generated", generated);
+        map.put("duplicated", duplicated);
+        map.put("stale", stale);
+        map.put("reopened", reopened);
+        map.put("open.peak", (long) peakOpen);
+        map.put("closed.peak", (long) peakClosed);
+        map.put("heuristic.evaluations", heuristicEvaluations);
+        map.put("heuristic.nanos", heuristicNanos);
+        map.put("elapsed.nanos", getElapsedNanos());
+        for (int i = 0; i < branching.length; i++) {
+            if (branching[i] > 0) {
+                map.put("branching." + i, branching[i]);
+            }
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchStatistics" + asMap();
+    }
+}
@@ -0,0 +1,518 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.graph;
+
+import es.usc.citius.hipster.model.function.ReversibleStateIndexer;
+import es.usc.citius.hipster.util.Iterators;
+
+import java.util.*;
+
+/**
+ * <p>
+ * Immutable implementation of a {@link HipsterDirectedGraph} stored in compressed sparse row (CSR)
+ * format. Each vertex is mapped to a dense int id in {@code [0, vertexCount())} and the outgoing
+ * edges of all the vertices are kept in contiguous primitive arrays, so the graph needs a few bytes
+ * per edge instead of the several objects per edge used by {@link HashBasedHipsterDirectedGraph}.
+ * When all the edge values are {@link Double}s they are stored in a {@code double[]} and boxed on demand.
+ * </p>
+ *
+ * <p>
+ * The graph can be created from any {@link HipsterGraph} with {@link #copyOf(HipsterGraph)}, from a
+ * {@link GraphBuilder} with {@link GraphBuilder#createCompressedDirectedGraph()}, or edge by edge
+ * with a {@link Builder}, which is the cheapest option for very large graphs:
+ * </p>
+ *
+ * <pre class="prettyprint">
+ * {@code
+ * CompressedHipsterDirectedGraph<String,Double> graph =
+ *      CompressedHipsterDirectedGraph.<String,Double>builder()
+ *          .connect("A", "B", 4d)
+ *          .connect("A", "C", 2d)
+ *          .build();
+ * }
+ * </pre>
+ *
+ * <p>
+ * The {@link GraphEdge} views returned by the {@link HipsterDirectedGraph} methods are created on the fly.
+ * Algorithms that need to traverse the graph without allocating can use the int-based accessors instead
+ * ({@link #outgoingStart(int)}, {@link #outgoingEnd(int)}, {@link #target(int)}, {@link #weight(int)}...).
+ * {@link GraphSearchProblem} uses them automatically when it receives a graph of this type.
+ * </p>
+ *
+ * @param <V> type of the vertices
+ * @param <E> type of the edges
+ */
+public class CompressedHipsterDirectedGraph<V, E> implements IndexedHipsterDirectedGraph<V, E> {
+    private final Object[] vertices;
+    private final Map<V, Integer> ids;
+    // Outgoing edges of vertex v are the edge ids in [offsets[v], offsets[v+1])
+    private final int[] offsets;
+    private final int[] targets;
+    // Only one of them is used: weights if all the edge values are doubles, values otherwise
+    private final double[] weights;
+    private final Object[] values;
+    // Reverse index, built the first time that incoming edges are requested
+    private volatile int[] incomingOffsets;
+    private int[] incomingEdges;
+    private int[] incomingSources;
+
+    private CompressedHipsterDirectedGraph(Object[] vertices, Map<V, Integer> ids, int[] offsets, int[] targets,
+                                           double[] weights, Object[] values) {
+        this.vertices = vertices;
+        this.ids = ids;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.values = values;
+    }
+
+    /**
+     * Creates a new builder to add the vertices and edges of the graph one by one.
+     *
+     * @param <V> type of the vertices
+     * @param <E> type of the edges
+     * @return new builder
+     */
+    public static <V, E> Builder<V, E> builder() {
+        return new Builder<V, E>();
+    }
+
+    /**
+     * Creates a compressed copy of a graph. If the graph is not directed, each edge
+     * is copied in both directions. The order of the outgoing edges of each vertex is preserved.
+     *
+     * @param graph graph to copy
+     * @param <V> type of the vertices
+     * @param <E> type of the edges
+     * @return immutable compressed copy of the graph
+     */
+    public static <V, E> CompressedHipsterDirectedGraph<V, E> copyOf(HipsterGraph<V, E> graph) {
+        if (graph instanceof CompressedHipsterDirectedGraph) {
+            return (CompressedHipsterDirectedGraph<V, E>) graph;
+        }
+        Builder<V, E> builder = builder();
+        for (V vertex : graph.vertices()) {
+            builder.add(vertex);
+        }
+        if (graph instanceof HipsterDirectedGraph) {
+            HipsterDirectedGraph<V, E> dg = (HipsterDirectedGraph<V, E>) graph;
+            for (V vertex : graph.vertices()) {
+                for (GraphEdge<V, E> edge : dg.outgoingEdgesOf(vertex)) {
+                    builder.connect(vertex, edge.getVertex2(), edge.getEdgeValue());
+                }
+            }
+        } else {
+            for (V vertex : graph.vertices()) {
+                for (GraphEdge<V, E> edge : graph.edgesOf(vertex)) {
+                    V oppositeVertex = edge.getVertex1().equals(vertex) ? edge.getVertex2() : edge.getVertex1();
+                    builder.connect(vertex, oppositeVertex, edge.getEdgeValue());
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return number of vertices of the graph
+     */
+    @Override
+    public int vertexCount() {
+        return vertices.length;
+    }
+
+    /**
+     * @return number of (directed) edges of the graph
+     */
+    @Override
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * Returns the dense id of a vertex.
+     *
+     * @param vertex vertex of the graph
+     * @return id of the vertex in {@code [0, vertexCount())} or -1 if the vertex is not in the graph
+     */
+    @Override
+    public int indexOf(V vertex) {
+        Integer id = ids.get(vertex);
+        return (id == null) ? -1 : id;
+    }
+
+    /**
+     * Returns a {@link ReversibleStateIndexer} that maps each vertex to its dense id (and back), so the
+     * search algorithms can store their nodes in arrays indexed by vertex. Vertices that are not in the
+     * graph are mapped to -1, as in {@link #indexOf(Object)}.
+     *
+     * @return indexer of the vertices of the graph
+     */
+    @Override
+    public ReversibleStateIndexer<V> vertexIndexer() {
+        return new ReversibleStateIndexer<V>() {
+            @Override
+            public int indexOf(V state) {
+                return CompressedHipsterDirectedGraph.this.indexOf(state);
+            }
+
+            @Override
+            public V stateAt(int index) {
+                return CompressedHipsterDirectedGraph.this.vertexAt(index);
+            }
+
+            @Override
+            public int size() {
+                return vertices.length;
+            }
+        };
+    }
+
+    /**
+     * @param id id of the vertex
+     * @return vertex with the given id
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V vertexAt(int id) {
+        return (V) vertices[id];
+    }
+
+    /**
+     * @param id id of the vertex
+     * @return id of the first outgoing edge of the vertex
+     */
+    @Override
+    public int outgoingStart(int id) {
+        return offsets[id];
+    }
+
+    /**
+     * @param id id of the vertex
+     * @return id of the last outgoing edge of the vertex plus one
+     */
+    @Override
+    public int outgoingEnd(int id) {
+        return offsets[id + 1];
+    }
+
+    /**
+     * @param edge id of the edge
+     * @return id of the destination vertex of the edge
+     */
+    @Override
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * Returns the value of an edge as a primitive double. This only works if the
+     * edge values are {@link Number}s.
+     *
+     * @param edge id of the edge
+     * @return value of the edge
+     * @throws ClassCastException if the edge value is not a number
+     */
+    @Override
+    public double weight(int edge) {
+        if (weights != null) return weights[edge];
+        return ((Number) values[edge]).doubleValue();
+    }
+
+    /**
+     * @param edge id of the edge
+     * @return value of the edge
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E value(int edge) {
+        if (weights != null) return (E) Double.valueOf(weights[edge]);
+        return (E) values[edge];
+    }
+
+    /**
+     * @param id id of the vertex
+     * @return position of the first incoming edge of the vertex
+     */
+    @Override
+    public int incomingStart(int id) {
+        return incomingOffsets()[id];
+    }
+
+    /**
+     * @param id id of the vertex
+     * @return position of the last incoming edge of the vertex plus one
+     */
+    @Override
+    public int incomingEnd(int id) {
+        return incomingOffsets()[id + 1];
+    }
+
+    /**
+     * @param position position in the incoming edge list, between {@link #incomingStart(int)}
+     *                 and {@link #incomingEnd(int)}
+     * @return id of the edge
+     */
+    @Override
+    public int incomingEdge(int position) {
+        incomingOffsets();
+        return incomingEdges[position];
+    }
+
+    /**
+     * @param position position in the incoming edge list, between {@link #incomingStart(int)}
+     *                 and {@link #incomingEnd(int)}
+     * @return id of the source vertex of the edge
+     */
+    @Override
+    public int incomingSource(int position) {
+        incomingOffsets();
+        return incomingSources[position];
+    }
+
+    private int[] incomingOffsets() {
+        int[] result = incomingOffsets;
+        if (result == null) {
+            synchronized (this) {
+                result = incomingOffsets;
+                if (result == null) {
+                    result = buildIncomingIndex();
+                }
+            }
+        }
+        return result;
+    }
+
+    private int[] buildIncomingIndex() {
+        int n = vertices.length;
+        int[] inOffsets = new int[n + 1];
+        for (int edge = 0; edge < targets.length; edge++) {
+            inOffsets[targets[edge] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        int[] next = Arrays.copyOf(inOffsets, n);
+        int[] inEdges = new int[targets.length];
+        int[] inSources = new int[targets.length];
+        for (int v = 0; v < n; v++) {
+            for (int edge = offsets[v]; edge < offsets[v + 1]; edge++) {
+                int position = next[targets[edge]]++;
+                inEdges[position] = edge;
+                inSources[position] = v;
+            }
+        }
+        this.incomingEdges = inEdges;
+        this.incomingSources = inSources;
+        // Publish the offsets last, they guard the other two arrays
+        this.incomingOffsets = inOffsets;
+        return inOffsets;
+    }
+
+    @Override
+    public Iterable<GraphEdge<V, E>> outgoingEdgesOf(V vertex) {
+        final int id = indexOf(vertex);
+        if (id < 0) return Collections.emptyList();
+        return new Iterable<GraphEdge<V, E>>() {
+            @Override
+            public Iterator<GraphEdge<V, E>> iterator() {
+                return new Iterators.AbstractIterator<GraphEdge<V, E>>() {
+                    private int edge = offsets[id];
+
+                    @Override
+                    protected GraphEdge<V, E> computeNext() {
+                        if (edge >= offsets[id + 1]) return null;
+                        GraphEdge<V, E> next = new DirectedEdge<V, E>(vertexAt(id), vertexAt(targets[edge]), value(edge));
+                        edge++;
+                        return next;
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public Iterable<GraphEdge<V, E>> incomingEdgesOf(V vertex) {
+        final int id = indexOf(vertex);
+        if (id < 0) return Collections.emptyList();
+        return new Iterable<GraphEdge<V, E>>() {
+            @Override
+            public Iterator<GraphEdge<V, E>> iterator() {
+                return new Iterators.AbstractIterator<GraphEdge<V, E>>() {
+                    private int position = incomingStart(id);
+
+                    @Override
+                    protected GraphEdge<V, E> computeNext() {
+                        if (position >= incomingEnd(id)) return null;
+                        GraphEdge<V, E> next = new DirectedEdge<V, E>(vertexAt(incomingSources[position]),
+                                vertexAt(id), value(incomingEdges[position]));
+                        position++;
+                        return next;
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public Iterable<GraphEdge<V, E>> edges() {
+        return new Iterable<GraphEdge<V, E>>() {
+            @Override
+            public Iterator<GraphEdge<V, E>> iterator() {
+                return new Iterators.AbstractIterator<GraphEdge<V, E>>() {
+                    private int source = 0;
+                    private int edge = 0;
+
+                    @Override
+                    protected GraphEdge<V, E> computeNext() {
+                        if (edge >= targets.length) return null;
+                        while (edge >= offsets[source + 1]) source++;
+                        GraphEdge<V, E> next = new DirectedEdge<V, E>(vertexAt(source), vertexAt(targets[edge]), value(edge));
+                        edge++;
+                        return next;
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterable<V> vertices() {
+        return Collections.unmodifiableList(Arrays.asList((V[]) vertices));
+    }
+
+    @Override
+    public Iterable<GraphEdge<V, E>> edgesOf(V vertex) {
+        List<GraphEdge<V, E>> edges = new ArrayList<GraphEdge<V, E>>();
+        for (GraphEdge<V, E> edge : outgoingEdgesOf(vertex)) {
+            edges.add(edge);
+        }
+        for (GraphEdge<V, E> edge : incomingEdgesOf(vertex)) {
+            edges.add(edge);
+        }
+        return edges;
+    }
+
+    /**
+     * Builder that accumulates the edges of a {@link CompressedHipsterDirectedGraph} in
+     * primitive arrays and sorts them by source vertex when the graph is built.
+     *
+     * @param <V> type of the vertices
+     * @param <E> type of the edges
+     */
+    public static final class Builder<V, E> {
+        private final Map<V, Integer> ids = new HashMap<V, Integer>();
+        private final List<V> vertices = new ArrayList<V>();
+        private int[] sources = new int[16];
+        private int[] targets = new int[16];
+        private double[] weights = new double[16];
+        private Object[] values = null;
+        private int edges = 0;
+
+        private Builder() {}
+
+        /**
+         * Adds a vertex to the graph if it was not already added.
+         *
+         * @param vertex vertex to add
+         * @return this builder
+         */
+        public Builder<V, E> add(V vertex) {
+            id(vertex);
+            return this;
+        }
+
+        /**
+         * Adds a directed edge. The vertices are added to the graph if needed.
+         *
+         * @param v1 source vertex
+         * @param v2 destination vertex
+         * @param value value of the edge
+         * @return this builder
+         */
+        public Builder<V, E> connect(V v1, V v2, E value) {
+            if (v1 == null || v2 == null) throw new IllegalArgumentException("Invalid vertices. A vertex cannot be null");
+            if (edges == targets.length) {
+                int capacity = edges << 1;
+                sources = Arrays.copyOf(sources, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+                if (weights != null) weights = Arrays.copyOf(weights, capacity);
+                if (values != null) values = Arrays.copyOf(values, capacity);
+            }
+            sources[edges] = id(v1);
+            targets[edges] = id(v2);
+            if (weights != null && !(value instanceof Double)) {
+                // Not all the values are doubles, switch to object storage
+                values = new Object[targets.length];
+                for (int i = 0; i < edges; i++) {
+                    values[i] = weights[i];
+                }
+                weights = null;
+            }
+            if (weights != null) {
+                weights[edges] = (Double) value;
+            } else {
+                values[edges] = value;
+            }
+            edges++;
+            return this;
+        }
+
+        private int id(V vertex) {
+            Integer id = ids.get(vertex);
+            if (id == null) {
+                id = vertices.size();
+                ids.put(vertex, id);
+                vertices.add(vertex);
+            }
+            return id;
+        }
+
+        /**
+         * Creates the graph. Edges are sorted by source vertex, keeping the insertion order
+         * of the outgoing edges of each vertex.
+         *
+         * @return new immutable graph
+         */
+        public CompressedHipsterDirectedGraph<V, E> build() {
+            int n = vertices.size();
+            int[] offsets = new int[n + 1];
+            for (int i = 0; i < edges; i++) {
+                offsets[sources[i] + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                offsets[v + 1] += offsets[v];
+            }
+            // Stable counting sort by source vertex
+            int[] next = Arrays.copyOf(offsets, n);
+            int[] sortedTargets = new int[edges];
+            double[] sortedWeights = (weights != null) ? new double[edges] : null;
+            Object[] sortedValues = (weights != null) ? null : new Object[edges];
+            for (int i = 0; i < edges; i++) {
+                int position = next[sources[i]]++;
+                sortedTargets[position] = targets[i];
+                if (sortedWeights != null) {
+                    sortedWeights[position] = weights[i];
+                } else {
+                    sortedValues[position] = values[i];
+                }
+            }
+            return new CompressedHipsterDirectedGraph<V, E>(vertices.toArray(), new HashMap<V, Integer>(ids),
+                    offsets, sortedTargets, sortedWeights, sortedValues);
+        }
+    }
+}
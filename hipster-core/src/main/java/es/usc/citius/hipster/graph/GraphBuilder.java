@@ -116,6 +116,20 @@ public class GraphBuilder<V, E> {
         return graph;
     }
 
+    /**
+     * Creates an immutable directed graph stored in compressed sparse row format.
+     *
+     * @see CompressedHipsterDirectedGraph
+     * @return compressed directed graph
+     */
+    public CompressedHipsterDirectedGraph<V,E> createCompressedDirectedGraph() {
+        CompressedHipsterDirectedGraph.Builder<V, E> builder = CompressedHipsterDirectedGraph.builder();
+        for (Connection c : connections) {
+            builder.connect(c.vertex1, c.vertex2, c.edge);
+        }
+        return builder.build();
+    }
+
     public HipsterGraph<V,E> createUndirectedGraph() {
         HashBasedHipsterGraph<V, E> graph = HashBasedHipsterGraph.create();
         for (Connection c : connections) {
@@ -20,6 +20,7 @@ package es.usc.citius.hipster.graph;
 import es.usc.citius.hipster.model.Transition;
 import es.usc.citius.hipster.model.function.CostFunction;
 import es.usc.citius.hipster.model.function.HeuristicFunction;
+import es.usc.citius.hipster.model.function.StateIndexer;
 import es.usc.citius.hipster.model.function.TransitionFunction;
 import es.usc.citius.hipster.model.function.impl.BinaryOperation;
 import es.usc.citius.hipster.model.function.impl.ScalarOperation;
@@ -61,7 +62,24 @@ public final class GraphSearchProblem {
 
         public <E> CostType<E> in(final HipsterGraph<V, E> graph) {
             TransitionFunction<E, V> tf;
-            if (graph instanceof HipsterDirectedGraph) {
+            if (graph instanceof IndexedHipsterDirectedGraph) {
+                // Read the adjacency arrays directly, without creating GraphEdge instances
+                final IndexedHipsterDirectedGraph<V, E> cg = (IndexedHipsterDirectedGraph<V, E>) graph;
+                tf = new TransitionFunction<E, V>() {
+                    @Override
+                    public Iterable<Transition<E, V>> transitionsFrom(final V state) {
+                        int id = cg.indexOf(state);
+                        if (id < 0) return Collections.emptyList();
+                        int from = cg.outgoingStart(id);
+                        int to = cg.outgoingEnd(id);
+                        ArrayList<Transition<E, V>> transitions = new ArrayList<Transition<E, V>>(to - from);
+                        for(int edge = from; edge < to; edge++){
+                            transitions.add(new Transition<E, V>(state, cg.value(edge), cg.vertexAt(cg.target(edge))));
+                        }
+                        return transitions;
+                    }
+                };
+            } else if (graph instanceof HipsterDirectedGraph) {
                 final HipsterDirectedGraph<V, E> dg = (HipsterDirectedGraph<V, E>) graph;
                 tf = new TransitionFunction<E, V>() {
                     @Override
@@ -86,7 +104,47 @@ public final class GraphSearchProblem {
                     }
                 };
             }
-            return new CostType<E>(tf);
+            StateIndexer<V> indexer = null;
+            if (graph instanceof IndexedHipsterDirectedGraph
+                    && ((IndexedHipsterDirectedGraph<V, E>) graph).indexOf(fromVertex) >= 0) {
+                // Index the nodes of the search by vertex id
+                indexer = ((IndexedHipsterDirectedGraph<V, E>) graph).vertexIndexer();
+            }
+            return new CostType<E>(tf, predecessorFunction(graph, tf), indexer);
+        }
+
+        private <E> TransitionFunction<E, V> predecessorFunction(final HipsterGraph<V, E> graph, TransitionFunction<E, V> tf) {
+            if (graph instanceof IndexedHipsterDirectedGraph) {
+                final IndexedHipsterDirectedGraph<V, E> cg = (IndexedHipsterDirectedGraph<V, E>) graph;
+                return new TransitionFunction<E, V>() {
+                    @Override
+                    public Iterable<Transition<E, V>> transitionsFrom(final V state) {
+                        int id = cg.indexOf(state);
+                        if (id < 0) return Collections.emptyList();
+                        int from = cg.incomingStart(id);
+                        int to = cg.incomingEnd(id);
+                        ArrayList<Transition<E, V>> transitions = new ArrayList<Transition<E, V>>(to - from);
+                        for(int i = from; i < to; i++){
+                            transitions.add(new Transition<E, V>(state, cg.value(cg.incomingEdge(i)), cg.vertexAt(cg.incomingSource(i))));
+                        }
+                        return transitions;
+                    }
+                };
+            } else if (graph instanceof HipsterDirectedGraph) {
+                final HipsterDirectedGraph<V, E> dg = (HipsterDirectedGraph<V, E>) graph;
+                return new TransitionFunction<E, V>() {
+                    @Override
+                    public Iterable<Transition<E, V>> transitionsFrom(final V state) {
+                        ArrayList<Transition<E, V>> transitions = new ArrayList<Transition<E, V>>();
+                        for(GraphEdge<V, E> edge : dg.incomingEdgesOf(state)){
+                            transitions.add(Transition.create(state, edge.getEdgeValue(), edge.getVertex1()));
+                        }
+                        return transitions;
+                    }
+                };
+            }
+            // In undirected graphs the predecessors of a vertex are also its successors
+            return tf;
         }
 
         public <E> CostType<E> inGraphWithLexicographicalOrder(final HipsterGraph<V, E> graph) {
@@ -127,14 +185,24 @@ public final class GraphSearchProblem {
                     }
                 };
             }
-            return new CostType<E>(tf);
+            StateIndexer<V> indexer = null;
+            if (graph instanceof IndexedHipsterDirectedGraph
+                    && ((IndexedHipsterDirectedGraph<V, E>) graph).indexOf(fromVertex) >= 0) {
+                // Index the nodes of the search by vertex id
+                indexer = ((IndexedHipsterDirectedGraph<V, E>) graph).vertexIndexer();
+            }
+            return new CostType<E>(tf, predecessorFunction(graph, tf), indexer);
         }
 
         public class CostType<E> {
             private TransitionFunction<E, V> tf;
+            private TransitionFunction<E, V> pf;
+            private StateIndexer<V> indexer;
 
-            private CostType(TransitionFunction<E, V> tf) {
+            private CostType(TransitionFunction<E, V> tf, TransitionFunction<E, V> pf, StateIndexer<V> indexer) {
                 this.tf = tf;
+                this.pf = pf;
+                this.indexer = indexer;
             }
 
             public HeuristicType<Double> takeCostsFromEdges() {
@@ -168,7 +236,7 @@ public final class GraphSearchProblem {
 
                     }
                 };
-                return new HeuristicType<Double>(cf, BinaryOperation.doubleAdditionOp()).useScaleAlgebra(ScalarOperation.doubleMultiplicationOp());
+                return new HeuristicType<Double>(cf, BinaryOperation.doubleAdditionOp(), true).useScaleAlgebra(ScalarOperation.doubleMultiplicationOp());
             }
 
             public HeuristicType<Double> extractCostFromEdges(final Function<E, Double> extractor) {
@@ -178,7 +246,7 @@ public final class GraphSearchProblem {
                         return extractor.apply(transition.getAction());
                     }
                 };
-                return new HeuristicType<Double>(cf, BinaryOperation.doubleAdditionOp()).useScaleAlgebra(ScalarOperation.doubleMultiplicationOp());
+                return new HeuristicType<Double>(cf, BinaryOperation.doubleAdditionOp(), true).useScaleAlgebra(ScalarOperation.doubleMultiplicationOp());
             }
 
             public <C extends Comparable<C>> HeuristicType<C> useGenericCosts(BinaryOperation<C> costAlgebra) {
@@ -194,6 +262,7 @@ public final class GraphSearchProblem {
             public SearchProblem<E, V, UnweightedNode<E, V>> build() {
                 return ProblemBuilder.create()
                         .initialState(fromVertex, toVertex)
+                        .useStateIndexer(indexer)
                         .defineProblemWithExplicitActions()
                         .useTransitionFunction(tf)
                         .build();
@@ -203,10 +272,25 @@ public final class GraphSearchProblem {
                 private CostFunction<E, V, C> cf;
                 private BinaryOperation<C> costAlgebra;
                 private ScalarOperation<C> scaleAlgebra;
+                // True if C is Double, so the problem can use primitive double nodes
+                private boolean doubleCosts;
 
                 private HeuristicType(CostFunction<E, V, C> cf, BinaryOperation<C> costAlgebra) {
+                    this(cf, costAlgebra, false);
+                }
+
+                private HeuristicType(CostFunction<E, V, C> cf, BinaryOperation<C> costAlgebra, boolean doubleCosts) {
                     this.cf = cf;
                     this.costAlgebra = costAlgebra;
+                    this.doubleCosts = doubleCosts;
+                }
+
+                @SuppressWarnings("unchecked")
+                private ProblemBuilder.Wizard.ActionState<V>.Uninformed<E>.Informed<C> informed(ProblemBuilder.Wizard.ActionState<V>.Uninformed<E> problem) {
+                    if (doubleCosts) {
+                        return (ProblemBuilder.Wizard.ActionState<V>.Uninformed<E>.Informed<C>) (Object) problem.useCostFunction((CostFunction<E, V, Double>) cf);
+                    }
+                    return problem.useGenericCostFunction(cf, costAlgebra);
                 }
 
                 public HeuristicType<C> useScaleAlgebra(ScalarOperation<C> scaleAlgebra){
@@ -219,11 +303,11 @@ public final class GraphSearchProblem {
                 }
 
                 public SearchProblem<E, V, WeightedNode<E, V, C>> build() {
-                    return ProblemBuilder.create()
+                    return informed(ProblemBuilder.create()
                             .initialState(fromVertex)
+                            .useStateIndexer(indexer)
                             .defineProblemWithExplicitActions()
-                            .useTransitionFunction(tf)
-                            .useGenericCostFunction(cf, costAlgebra)
+                            .useTransitionFunction(tf))
                             .build();
                 }
 
@@ -235,15 +319,15 @@ public final class GraphSearchProblem {
                     }
 
                     public SearchComponents<E, V, C> components(){
-                        return new SearchComponents<E, V, C>(fromVertex, toVertex, cf, hf, tf, tf, costAlgebra, scaleAlgebra);
+                        return new SearchComponents<E, V, C>(fromVertex, toVertex, cf, hf, tf, pf, costAlgebra, scaleAlgebra);
                     }
 
                     public SearchProblem<E, V, WeightedNode<E, V, C>> build() {
-                        return ProblemBuilder.create()
+                        return informed(ProblemBuilder.create()
                                 .initialState(fromVertex)
+                                .useStateIndexer(indexer)
                                 .defineProblemWithExplicitActions()
-                                .useTransitionFunction(tf)
-                                .useGenericCostFunction(cf, costAlgebra)
+                                .useTransitionFunction(tf))
                                 .useHeuristicFunction(hf)
                                 .build();
                     }
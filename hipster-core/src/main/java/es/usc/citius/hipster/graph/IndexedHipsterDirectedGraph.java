@@ -0,0 +1,126 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.graph;
+
+import es.usc.citius.hipster.model.function.ReversibleStateIndexer;
+
+/**
+ * {@link HipsterDirectedGraph} whose vertices are mapped to dense int ids in {@code [0, vertexCount())}
+ * and whose edges are identified by int ids, grouped by source vertex (compressed sparse row layout).
+ * Algorithms can traverse these graphs with the int-based accessors, without creating {@link GraphEdge}
+ * instances. {@link GraphSearchProblem} uses them automatically when it receives a graph of this type.
+ *
+ * @param <V> type of the vertices
+ * @param <E> type of the edges
+ *
+ * @see CompressedHipsterDirectedGraph
+ * @see MappedHipsterDirectedGraph
+ */
+public interface IndexedHipsterDirectedGraph<V, E> extends HipsterDirectedGraph<V, E> {
+
+    /**
+     * @return number of vertices of the graph
+     */
+    int vertexCount();
+
+    /**
+     * @return number of (directed) edges of the graph
+     */
+    int edgeCount();
+
+    /**
+     * Returns the dense id of a vertex.
+     *
+     * @param vertex vertex of the graph
+     * @return id of the vertex in {@code [0, vertexCount())} or -1 if the vertex is not in the graph
+     */
+    int indexOf(V vertex);
+
+    /**
+     * Returns a {@link ReversibleStateIndexer} that maps each vertex to its dense id (and back), so the
+     * search algorithms can store their nodes in arrays indexed by vertex.
+     *
+     * @return indexer of the vertices of the graph
+     */
+    ReversibleStateIndexer<V> vertexIndexer();
+
+    /**
+     * @param id id of the vertex
+     * @return vertex with the given id
+     */
+    V vertexAt(int id);
+
+    /**
+     * @param id id of the vertex
+     * @return id of the first outgoing edge of the vertex
+     */
+    int outgoingStart(int id);
+
+    /**
+     * @param id id of the vertex
+     * @return id of the last outgoing edge of the vertex plus one
+     */
+    int outgoingEnd(int id);
+
+    /**
+     * @param edge id of the edge
+     * @return id of the destination vertex of the edge
+     */
+    int target(int edge);
+
+    /**
+     * Returns the value of an edge as a primitive double. This only works if the
+     * edge values are {@link Number}s.
+     *
+     * @param edge id of the edge
+     * @return value of the edge
+     * @throws ClassCastException if the edge value is not a number
+     */
+    double weight(int edge);
+
+    /**
+     * @param edge id of the edge
+     * @return value of the edge
+     */
+    E value(int edge);
+
+    /**
+     * @param id id of the vertex
+     * @return position of the first incoming edge of the vertex
+     */
+    int incomingStart(int id);
+
+    /**
+     * @param id id of the vertex
+     * @return position of the last incoming edge of the vertex plus one
+     */
+    int incomingEnd(int id);
+
+    /**
+     * @param position position in the incoming edge list, between {@link #incomingStart(int)}
+     *                 and {@link #incomingEnd(int)}
+     * @return id of the edge
+     */
+    int incomingEdge(int position);
+
+    /**
+     * @param position position in the incoming edge list, between {@link #incomingStart(int)}
+     *                 and {@link #incomingEnd(int)}
+     * @return id of the source vertex of the edge
+     */
+    int incomingSource(int position);
+}
@@ -0,0 +1,637 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.graph;
+
+import es.usc.citius.hipster.model.function.ReversibleStateIndexer;
+import es.usc.citius.hipster.util.Iterators;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * <p>
+ * Read-only {@link HipsterDirectedGraph} backed by a memory-mapped binary file. The file stores the graph in
+ * compressed sparse row (CSR) format, so it can be mapped with {@link FileChannel#map} and used directly: opening
+ * a graph does not read or parse the edges, and the vertices and edges live outside the Java heap (in the page
+ * cache of the operating system), so the graph can be shared by several processes and opened almost instantly.
+ * </p>
+ *
+ * <p>
+ * The files are created from any {@link HipsterGraph} with numeric edge values with {@link #write(HipsterGraph, File)}
+ * and opened with {@link #map(File)}:
+ * </p>
+ *
+ * <pre class="prettyprint">
+ * {@code
+ * MappedHipsterDirectedGraph.write(graph, new File("graph.bin"));
+ * MappedHipsterDirectedGraph<String> mapped = MappedHipsterDirectedGraph.map(new File("graph.bin"));
+ * }
+ * </pre>
+ *
+ * <p>
+ * File layout (big-endian):
+ * <ul>
+ *     <li>Header (32 bytes): magic number, version, {@link VertexType}, number of vertices ({@code n}), number of
+ *     edges ({@code m}), a reserved int and the size in bytes of the vertex table.</li>
+ *     <li>Vertex table, sorted so the id of a vertex is found with a binary search: {@code n} ints,
+ *     {@code n} longs, or {@code n + 1} int offsets followed by the UTF-8 bytes of the strings
+ *     (padded to a multiple of 4 bytes).</li>
+ *     <li>CSR offsets: {@code n + 1} ints. The outgoing edges of the vertex {@code v} are the
+ *     edges in {@code [offsets[v], offsets[v + 1])}.</li>
+ *     <li>Targets: {@code m} ints with the id of the destination vertex of each edge.</li>
+ *     <li>Weights: {@code m} floats with the value of each edge.</li>
+ * </ul>
+ * The vertices are stored as {@link Integer}s or {@link Long}s if all the vertices of the graph are of
+ * that type, and as the {@code String} returned by {@code toString()} otherwise, so the type {@code V} of the
+ * mapped graph is {@link Integer}, {@link Long} or {@link String}. The edge values are stored as floats and
+ * returned as {@link Double}s. Each section must be smaller than 2 GB. The id of a vertex is found with a
+ * binary search, except for integer vertices numbered from 0 which are found in constant time.
+ * </p>
+ *
+ * <p>
+ * The incoming edges are not stored in the file. As in {@link CompressedHipsterDirectedGraph}, the reverse index
+ * is built in the heap the first time that incoming edges are requested.
+ * </p>
+ *
+ * @param <V> type of the vertices ({@link Integer}, {@link Long} or {@link String})
+ */
+public class MappedHipsterDirectedGraph<V> implements IndexedHipsterDirectedGraph<V, Double> {
+    private static final int MAGIC = 0x48475246;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Encoding of the vertices in the vertex table.
+     */
+    public enum VertexType { INT, LONG, STRING }
+
+    private final VertexType vertexType;
+    private final int vertexCount;
+    private final int edgeCount;
+    private final ByteBuffer vertexTable;
+    // Offsets of the strings in the vertex table (only for VertexType.STRING)
+    private final IntBuffer stringOffsets;
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final FloatBuffer weights;
+    // Reverse index, built the first time that incoming edges are requested
+    private volatile int[] incomingOffsets;
+    private int[] incomingEdges;
+    private int[] incomingSources;
+
+    private MappedHipsterDirectedGraph(VertexType vertexType, int vertexCount, int edgeCount, ByteBuffer vertexTable,
+                                       IntBuffer offsets, IntBuffer targets, FloatBuffer weights) {
+        this.vertexType = vertexType;
+        this.vertexCount = vertexCount;
+        this.edgeCount = edgeCount;
+        this.vertexTable = vertexTable;
+        this.stringOffsets = (vertexType == VertexType.STRING) ? vertexTable.asIntBuffer() : null;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    /**
+     * Maps a graph file created with {@link #write(HipsterGraph, File)}. The file can be modified or deleted
+     * after calling this method only if the graph is not used anymore.
+     *
+     * @param file graph file
+     * @param <V> type of the vertices stored in the file ({@link Integer}, {@link Long} or {@link String})
+     * @return graph backed by the file
+     * @throws IOException if the file can not be mapped or it is not a valid graph file
+     */
+    public static <V> MappedHipsterDirectedGraph<V> map(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException(file + " is not a graph file");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException(file + " is not a graph file");
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported version " + header.getInt(4) + " of the graph file " + file);
+            }
+            int type = header.getInt(8);
+            int n = header.getInt(12);
+            int m = header.getInt(16);
+            long tableBytes = header.getLong(24);
+            if (type < 0 || type >= VertexType.values().length || n < 0 || m < 0 || tableBytes < 0
+                    || HEADER_BYTES + tableBytes + 4L * (n + 1) + 8L * m > channel.size()) {
+                throw new IOException("Corrupted graph file " + file);
+            }
+            long position = HEADER_BYTES;
+            ByteBuffer table = section(channel, position, tableBytes);
+            position += tableBytes;
+            IntBuffer offsets = section(channel, position, 4L * (n + 1)).asIntBuffer();
+            position += 4L * (n + 1);
+            IntBuffer targets = section(channel, position, 4L * m).asIntBuffer();
+            position += 4L * m;
+            FloatBuffer weights = section(channel, position, 4L * m).asFloatBuffer();
+            validate(file, VertexType.values()[type], n, m, table, offsets, targets);
+            return new MappedHipsterDirectedGraph<V>(VertexType.values()[type], n, m, table, offsets, targets, weights);
+        } finally {
+            // The mapped buffers remain valid after closing the channel
+            raf.close();
+        }
+    }
+
+    /**
+     * Checks that the offsets of the vertices are sorted and within bounds and that every edge points
+     * to a stored vertex, so that a corrupted file is not detected later as an out of bounds access.
+     */
+    private static void validate(File file, VertexType type, int n, int m, ByteBuffer table, IntBuffer offsets,
+                                 IntBuffer targets) throws IOException {
+        if (type == VertexType.STRING) {
+            // The byte offsets of the names must fit in the table, after the offsets themselves
+            long available = table.capacity() - 4L * (n + 1);
+            IntBuffer names = table.asIntBuffer();
+            if (available < 0) throw new IOException("Corrupted vertex table of the graph file " + file);
+            checkOffsets(file, names, n, available, "vertex names");
+        } else if (table.capacity() < ((type == VertexType.INT) ? 4L : 8L) * n) {
+            throw new IOException("Corrupted vertex table of the graph file " + file);
+        }
+        checkOffsets(file, offsets, n, m, "edges");
+        if (offsets.get(n) != m) {
+            throw new IOException("Corrupted graph file " + file + ": the offsets of the edges end at "
+                    + offsets.get(n) + " instead of " + m);
+        }
+        for (int edge = 0; edge < m; edge++) {
+            int target = targets.get(edge);
+            if (target < 0 || target >= n) {
+                throw new IOException("Corrupted graph file " + file + ": edge " + edge + " points to vertex "
+                        + target + " of " + n);
+            }
+        }
+    }
+
+    private static void checkOffsets(File file, IntBuffer offsets, int n, long limit, String section)
+            throws IOException {
+        int previous = 0;
+        for (int i = 0; i <= n; i++) {
+            int offset = offsets.get(i);
+            if (offset < previous || offset > limit || (i == 0 && offset != 0)) {
+                throw new IOException("Corrupted graph file " + file + ": invalid offset " + offset + " of the "
+                        + section + " of vertex " + i);
+            }
+            previous = offset;
+        }
+    }
+
+    private static ByteBuffer section(FileChannel channel, long position, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Graph section of " + size + " bytes is too large to be mapped");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+    }
+
+    /**
+     * Writes a graph to a file in the binary format read by {@link #map(File)}. If the graph is not directed,
+     * each edge is written in both directions. The order of the outgoing edges of each vertex is preserved.
+     *
+     * @param graph graph to write
+     * @param file destination file (overwritten if it exists)
+     * @param <V> type of the vertices
+     * @throws IOException if the file can not be written
+     * @throws IllegalArgumentException if two different vertices have the same {@code toString()}
+     *         (only when the vertices are not integers or longs), or if an edge points to a vertex that
+     *         is not returned by {@link HipsterGraph#vertices()}
+     */
+    public static <V> void write(HipsterGraph<V, ? extends Number> graph, File file) throws IOException {
+        List<V> vertices = new ArrayList<V>();
+        boolean ints = true, longs = true;
+        for (V vertex : graph.vertices()) {
+            vertices.add(vertex);
+            ints &= vertex instanceof Integer;
+            longs &= vertex instanceof Long;
+        }
+        VertexType type = ints ? VertexType.INT : (longs ? VertexType.LONG : VertexType.STRING);
+        int n = vertices.size();
+        // Encode and sort the vertices
+        final Object[] keys = new Object[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            V vertex = vertices.get(i);
+            keys[i] = (type == VertexType.STRING) ? vertex.toString().getBytes(UTF8) : vertex;
+            order[i] = i;
+        }
+        final VertexType keyType = type;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return compareKeys(keyType, keys[a], keys[b]);
+            }
+        });
+        Map<V, Integer> ids = new HashMap<V, Integer>();
+        for (int id = 0; id < n; id++) {
+            if (id > 0 && compareKeys(type, keys[order[id - 1]], keys[order[id]]) == 0) {
+                throw new IllegalArgumentException("Two vertices are stored with the same key " + vertices.get(order[id]));
+            }
+            ids.put(vertices.get(order[id]), id);
+        }
+        // Collect the edges of each vertex in id order
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[16];
+        float[] weights = new float[16];
+        int m = 0;
+        for (int id = 0; id < n; id++) {
+            V vertex = vertices.get(order[id]);
+            Iterable<? extends GraphEdge<V, ? extends Number>> edges = (graph instanceof HipsterDirectedGraph)
+                    ? ((HipsterDirectedGraph<V, ? extends Number>) graph).outgoingEdgesOf(vertex)
+                    : graph.edgesOf(vertex);
+            for (GraphEdge<V, ? extends Number> edge : edges) {
+                V target = edge.getVertex2();
+                if (!(graph instanceof HipsterDirectedGraph) && target.equals(vertex)) {
+                    target = edge.getVertex1();
+                }
+                if (m == targets.length) {
+                    targets = Arrays.copyOf(targets, m << 1);
+                    weights = Arrays.copyOf(weights, m << 1);
+                }
+                Integer targetId = ids.get(target);
+                if (targetId == null) {
+                    throw new IllegalArgumentException("The edge from " + vertex + " points to the vertex " + target
+                            + ", which is not returned by vertices()");
+                }
+                targets[m] = targetId;
+                weights[m] = edge.getEdgeValue().floatValue();
+                m++;
+            }
+            offsets[id + 1] = m;
+        }
+        // Vertex table
+        long tableBytes;
+        if (type == VertexType.INT) {
+            tableBytes = 4L * n;
+        } else if (type == VertexType.LONG) {
+            tableBytes = 8L * n;
+        } else {
+            tableBytes = 4L * (n + 1);
+            for (Object key : keys) tableBytes += ((byte[]) key).length;
+        }
+        int padding = (int) ((4 - tableBytes % 4) % 4);
+        tableBytes += padding;
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(type.ordinal());
+            out.writeInt(n);
+            out.writeInt(m);
+            out.writeInt(0);
+            out.writeLong(tableBytes);
+            if (type == VertexType.STRING) {
+                int offset = 0;
+                out.writeInt(offset);
+                for (int id = 0; id < n; id++) {
+                    offset += ((byte[]) keys[order[id]]).length;
+                    out.writeInt(offset);
+                }
+                for (int id = 0; id < n; id++) {
+                    out.write((byte[]) keys[order[id]]);
+                }
+            } else {
+                for (int id = 0; id < n; id++) {
+                    if (type == VertexType.INT) out.writeInt((Integer) keys[order[id]]);
+                    else out.writeLong((Long) keys[order[id]]);
+                }
+            }
+            for (int i = 0; i < padding; i++) out.writeByte(0);
+            for (int offset : offsets) out.writeInt(offset);
+            for (int edge = 0; edge < m; edge++) out.writeInt(targets[edge]);
+            for (int edge = 0; edge < m; edge++) out.writeFloat(weights[edge]);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static int compareKeys(VertexType type, Object a, Object b) {
+        switch (type) {
+            case INT: return ((Integer) a).compareTo((Integer) b);
+            case LONG: return ((Long) a).compareTo((Long) b);
+            default:
+                byte[] x = (byte[]) a, y = (byte[]) b;
+                for (int i = 0; i < Math.min(x.length, y.length); i++) {
+                    int c = (x[i] & 0xFF) - (y[i] & 0xFF);
+                    if (c != 0) return c;
+                }
+                return x.length - y.length;
+        }
+    }
+
+    /**
+     * @return encoding of the vertices in the file
+     */
+    public VertexType getVertexType() {
+        return vertexType;
+    }
+
+    @Override
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    @Override
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public int indexOf(V vertex) {
+        if (vertex == null) return -1;
+        int low = 0, high = vertexCount - 1;
+        switch (vertexType) {
+            case INT:
+                if (!(vertex instanceof Integer)) return -1;
+                int intKey = (Integer) vertex;
+                // Vertices numbered from 0 are stored in their own position
+                if (intKey >= 0 && intKey < vertexCount && vertexTable.getInt(intKey << 2) == intKey) return intKey;
+                while (low <= high) {
+                    int mid = (low + high) >>> 1;
+                    int value = vertexTable.getInt(mid << 2);
+                    if (value < intKey) low = mid + 1;
+                    else if (value > intKey) high = mid - 1;
+                    else return mid;
+                }
+                return -1;
+            case LONG:
+                if (!(vertex instanceof Long)) return -1;
+                long longKey = (Long) vertex;
+                while (low <= high) {
+                    int mid = (low + high) >>> 1;
+                    long value = vertexTable.getLong(mid << 3);
+                    if (value < longKey) low = mid + 1;
+                    else if (value > longKey) high = mid - 1;
+                    else return mid;
+                }
+                return -1;
+            default:
+                byte[] key = vertex.toString().getBytes(UTF8);
+                while (low <= high) {
+                    int mid = (low + high) >>> 1;
+                    int c = compareString(mid, key);
+                    if (c < 0) low = mid + 1;
+                    else if (c > 0) high = mid - 1;
+                    else return mid;
+                }
+                return -1;
+        }
+    }
+
+    /*
+     * Compares the UTF-8 bytes of the vertex with the given id with a key (unsigned lexicographic order).
+     */
+    private int compareString(int id, byte[] key) {
+        int base = (vertexCount + 1) << 2;
+        int start = base + stringOffsets.get(id);
+        int length = stringOffsets.get(id + 1) - stringOffsets.get(id);
+        for (int i = 0; i < Math.min(length, key.length); i++) {
+            int c = (vertexTable.get(start + i) & 0xFF) - (key[i] & 0xFF);
+            if (c != 0) return c;
+        }
+        return length - key.length;
+    }
+
+    @Override
+    public ReversibleStateIndexer<V> vertexIndexer() {
+        return new ReversibleStateIndexer<V>() {
+            @Override
+            public int indexOf(V state) {
+                return MappedHipsterDirectedGraph.this.indexOf(state);
+            }
+
+            @Override
+            public V stateAt(int index) {
+                return MappedHipsterDirectedGraph.this.vertexAt(index);
+            }
+
+            @Override
+            public int size() {
+                return vertexCount;
+            }
+        };
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V vertexAt(int id) {
+        switch (vertexType) {
+            case INT: return (V) Integer.valueOf(vertexTable.getInt(id << 2));
+            case LONG: return (V) Long.valueOf(vertexTable.getLong(id << 3));
+            default:
+                int start = ((vertexCount + 1) << 2) + stringOffsets.get(id);
+                byte[] bytes = new byte[stringOffsets.get(id + 1) - stringOffsets.get(id)];
+                for (int i = 0; i < bytes.length; i++) {
+                    bytes[i] = vertexTable.get(start + i);
+                }
+                return (V) new String(bytes, UTF8);
+        }
+    }
+
+    @Override
+    public int outgoingStart(int id) {
+        return offsets.get(id);
+    }
+
+    @Override
+    public int outgoingEnd(int id) {
+        return offsets.get(id + 1);
+    }
+
+    @Override
+    public int target(int edge) {
+        return targets.get(edge);
+    }
+
+    @Override
+    public double weight(int edge) {
+        return weights.get(edge);
+    }
+
+    @Override
+    public Double value(int edge) {
+        return (double) weights.get(edge);
+    }
+
+    @Override
+    public int incomingStart(int id) {
+        return incomingOffsets()[id];
+    }
+
+    @Override
+    public int incomingEnd(int id) {
+        return incomingOffsets()[id + 1];
+    }
+
+    @Override
+    public int incomingEdge(int position) {
+        incomingOffsets();
+        return incomingEdges[position];
+    }
+
+    @Override
+    public int incomingSource(int position) {
+        incomingOffsets();
+        return incomingSources[position];
+    }
+
+    private int[] incomingOffsets() {
+        int[] result = incomingOffsets;
+        if (result == null) {
+            synchronized (this) {
+                result = incomingOffsets;
+                if (result == null) {
+                    result = buildIncomingIndex();
+                }
+            }
+        }
+        return result;
+    }
+
+    private int[] buildIncomingIndex() {
+        int n = vertexCount;
+        int[] inOffsets = new int[n + 1];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            inOffsets[targets.get(edge) + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        int[] next = Arrays.copyOf(inOffsets, n);
+        int[] inEdges = new int[edgeCount];
+        int[] inSources = new int[edgeCount];
+        for (int v = 0; v < n; v++) {
+            for (int edge = offsets.get(v); edge < offsets.get(v + 1); edge++) {
+                int position = next[targets.get(edge)]++;
+                inEdges[position] = edge;
+                inSources[position] = v;
+            }
+        }
+        this.incomingEdges = inEdges;
+        this.incomingSources = inSources;
+        // Publish the offsets last, they guard the other two arrays
+        this.incomingOffsets = inOffsets;
+        return inOffsets;
+    }
+
+    @Override
+    public Iterable<GraphEdge<V, Double>> outgoingEdgesOf(V vertex) {
+        final int id = indexOf(vertex);
+        if (id < 0) return Collections.emptyList();
+        final V source = vertexAt(id);
+        return new Iterable<GraphEdge<V, Double>>() {
+            @Override
+            public Iterator<GraphEdge<V, Double>> iterator() {
+                return new Iterators.AbstractIterator<GraphEdge<V, Double>>() {
+                    private int edge = outgoingStart(id);
+
+                    @Override
+                    protected GraphEdge<V, Double> computeNext() {
+                        if (edge >= outgoingEnd(id)) return null;
+                        GraphEdge<V, Double> next = new DirectedEdge<V, Double>(source, vertexAt(target(edge)), value(edge));
+                        edge++;
+                        return next;
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public Iterable<GraphEdge<V, Double>> incomingEdgesOf(V vertex) {
+        final int id = indexOf(vertex);
+        if (id < 0) return Collections.emptyList();
+        final V destination = vertexAt(id);
+        return new Iterable<GraphEdge<V, Double>>() {
+            @Override
+            public Iterator<GraphEdge<V, Double>> iterator() {
+                return new Iterators.AbstractIterator<GraphEdge<V, Double>>() {
+                    private int position = incomingStart(id);
+
+                    @Override
+                    protected GraphEdge<V, Double> computeNext() {
+                        if (position >= incomingEnd(id)) return null;
+                        GraphEdge<V, Double> next = new DirectedEdge<V, Double>(vertexAt(incomingSource(position)),
+                                destination, value(incomingEdge(position)));
+                        position++;
+                        return next;
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public Iterable<GraphEdge<V, Double>> edges() {
+        return new Iterable<GraphEdge<V, Double>>() {
+            @Override
+            public Iterator<GraphEdge<V, Double>> iterator() {
+                return new Iterators.AbstractIterator<GraphEdge<V, Double>>() {
+                    private int source = 0;
+                    private int edge = 0;
+
+                    @Override
+                    protected GraphEdge<V, Double> computeNext() {
+                        if (edge >= edgeCount) return null;
+                        while (edge >= outgoingEnd(source)) source++;
+                        GraphEdge<V, Double> next = new DirectedEdge<V, Double>(vertexAt(source), vertexAt(target(edge)), value(edge));
+                        edge++;
+                        return next;
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public Iterable<V> vertices() {
+        return new Iterable<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new Iterators.AbstractIterator<V>() {
+                    private int id = 0;
+
+                    @Override
+                    protected V computeNext() {
+                        return (id < vertexCount) ? vertexAt(id++) : null;
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public Iterable<GraphEdge<V, Double>> edgesOf(V vertex) {
+        List<GraphEdge<V, Double>> edges = new ArrayList<GraphEdge<V, Double>>();
+        for (GraphEdge<V, Double> edge : outgoingEdgesOf(vertex)) {
+            edges.add(edge);
+        }
+        for (GraphEdge<V, Double> edge : incomingEdgesOf(vertex)) {
+            edges.add(edge);
+        }
+        return edges;
+    }
+}
@@ -17,7 +17,8 @@
 package es.usc.citius.hipster.model;
 
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -54,12 +55,14 @@ public class AbstractNode<A,S,N extends AbstractNode<A,S,N>> implements Node<A,S
 
     @Override
     public List<N> path() {
-        LinkedList<N> path = new LinkedList<N>();
+        // Walk back-pointers into an array-backed list and reverse it in place
+        ArrayList<N> path = new ArrayList<N>(pathSize);
         N currentNode = (N) this;
         while(currentNode != null){
-            path.addFirst(currentNode);
+            path.add(currentNode);
             currentNode = currentNode.previousNode;
         }
+        Collections.reverse(path);
         return path;
     }
 
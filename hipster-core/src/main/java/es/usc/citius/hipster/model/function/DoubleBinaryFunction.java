@@ -0,0 +1,43 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.model.function;
+
+/**
+ * Primitive specialization of {@link es.usc.citius.hipster.model.function.BinaryFunction}
+ * for {@code double} values. It is used to accumulate costs without boxing them
+ * into {@link java.lang.Double} instances. Example for the addition:
+ *
+ * <pre class="prettyprint">
+ * new DoubleBinaryFunction(){
+ *          double apply(double a, double b){
+ *              return a + b;
+ *          }
+ *     }
+ * </pre>
+ */
+public interface DoubleBinaryFunction {
+
+    /**
+     * Combination of two doubles, returning a double.
+     *
+     * @param a first element
+     * @param b second element
+     * @return result of the combination
+     */
+    double apply(double a, double b);
+
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.model.function;
+
+/**
+ * {@link StateIndexer} which can also recover the state of each id. It allows the algorithms to
+ * store the states as ints (for example outside the Java heap) and rebuild them only when they are needed.
+ *
+ * @param <S> state type.
+ */
+public interface ReversibleStateIndexer<S> extends StateIndexer<S> {
+    /**
+     * @param index id of a state, between 0 and {@link #size()} - 1
+     * @return state with the given id
+     */
+    S stateAt(int index);
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.model.function;
+
+/**
+ * Maps each state of a problem to a dense integer id in {@code [0, size())}. Different states
+ * must have different ids. It allows the algorithms to store their bookkeeping in arrays indexed
+ * by the id of the state instead of hash maps (for example the cells of a grid or the vertices of
+ * a graph).
+ *
+ * @param <S> state type.
+ */
+public interface StateIndexer<S> {
+    /**
+     * @param state state of the problem
+     * @return id of the state, between 0 and {@link #size()} - 1
+     */
+    int indexOf(S state);
+
+    /**
+     * @return number of different ids (the maximum id plus one)
+     */
+    int size();
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.model.function;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Converts the states of a problem to bytes and back, so the algorithms can store them on disk.
+ * Equal states must be written with the same bytes, since the algorithms can compare the states
+ * by their serialized form.
+ *
+ * @param <S> state type.
+ */
+public interface StateSerializer<S> {
+    /**
+     * @param state state of the problem
+     * @param out output where the state is written
+     * @throws IOException if the state can not be written
+     */
+    void write(S state, DataOutput out) throws IOException;
+
+    /**
+     * @param in input with a state written by {@link #write(Object, java.io.DataOutput)}
+     * @return state read from the input
+     * @throws IOException if the state can not be read
+     */
+    S read(DataInput in) throws IOException;
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.model.function.impl;
+
+import es.usc.citius.hipster.model.function.DoubleBinaryFunction;
+
+/**
+ * Primitive version of {@link es.usc.citius.hipster.model.function.impl.BinaryOperation} for
+ * {@code double} costs. Defines a cost algebra with:
+ * <ul>
+ * 		<li>identity element (A*I = A)</li>
+ * 		<li>maximum element (A*M = M)</li>
+ * </ul>
+ */
+public class DoubleBinaryOperation implements DoubleBinaryFunction {
+
+    private final double maxElem;
+    private final double identityElem;
+    private final DoubleBinaryFunction op;
+
+    /**
+     * Creates a new operation.
+     *
+     * @param operation primitive operation
+     * @param identityElem identity element of the operation
+     * @param maxElem maximum element of the operation
+     */
+    public DoubleBinaryOperation(DoubleBinaryFunction operation, double identityElem, double maxElem) {
+        assert operation.apply(identityElem, maxElem) == maxElem;
+        assert operation.apply(maxElem, identityElem) == maxElem;
+        assert operation.apply(identityElem, identityElem) == identityElem;
+        this.op = operation;
+        this.identityElem = identityElem;
+        this.maxElem = maxElem;
+    }
+
+    @Override
+    public double apply(double a, double b) {
+        return op.apply(a, b);
+    }
+
+    /**
+     * @return maximum cost
+     */
+    public double getMaxElem() {
+        return maxElem;
+    }
+
+    /**
+     * @return minimum (identity) cost
+     */
+    public double getIdentityElem() {
+        return identityElem;
+    }
+
+    /**
+     * @return a primitive addition implementation, equivalent to {@link BinaryOperation#doubleAdditionOp()}.
+     */
+    public static DoubleBinaryOperation additionOp() {
+        return new DoubleBinaryOperation(new DoubleBinaryFunction() {
+            @Override
+            public double apply(double a, double b) {
+                return a + b;
+            }
+        }, 0d, Double.POSITIVE_INFINITY);
+    }
+}
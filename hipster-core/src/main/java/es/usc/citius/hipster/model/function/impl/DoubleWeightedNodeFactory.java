@@ -0,0 +1,83 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.model.function.impl;
+
+import es.usc.citius.hipster.model.Transition;
+import es.usc.citius.hipster.model.function.CostFunction;
+import es.usc.citius.hipster.model.function.HeuristicFunction;
+import es.usc.citius.hipster.model.function.NodeFactory;
+import es.usc.citius.hipster.model.impl.DoubleWeightedNode;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+
+/**
+ * Implementation of {@link es.usc.citius.hipster.model.function.NodeFactory} for {@code Double} costs
+ * which generates {@link es.usc.citius.hipster.model.impl.DoubleWeightedNode}s. Costs are accumulated
+ * with a primitive {@link DoubleBinaryOperation}, so no intermediate {@link java.lang.Double}
+ * is created when expanding a node. This factory is used automatically by the
+ * {@link es.usc.citius.hipster.model.problem.ProblemBuilder} when a {@code Double} cost function is defined.
+ *
+ * @param <A> type of the actions
+ * @param <S> type of the states
+ */
+public class DoubleWeightedNodeFactory<A,S> implements NodeFactory<A,S,WeightedNode<A,S,Double>> {
+
+    private CostFunction<A,S,Double> gf;
+    private HeuristicFunction<S,Double> hf;
+    private DoubleBinaryOperation costAccumulator;
+
+    /**
+     * Instantiates a node factory using a cost function, a heuristic function and a cost accumulator.
+     *
+     * @param costFunction cost function
+     * @param heuristicFunction heuristic function, or null to use the identity element as estimation
+     * @param costAccumulator function to accumulate the cost elements
+     */
+    public DoubleWeightedNodeFactory(CostFunction<A, S, Double> costFunction, HeuristicFunction<S, Double> heuristicFunction, DoubleBinaryOperation costAccumulator) {
+        this.gf = costFunction;
+        this.hf = heuristicFunction;
+        this.costAccumulator = costAccumulator;
+    }
+
+    /**
+     * Instantiates a node factory using a cost function and a cost accumulator. The
+     * heuristic function is considered to return always the identity element of the cost.
+     *
+     * @param costFunction cost function
+     * @param costAccumulator function to accumulate the cost elements
+     */
+    public DoubleWeightedNodeFactory(CostFunction<A, S, Double> costFunction, DoubleBinaryOperation costAccumulator) {
+        this(costFunction, null, costAccumulator);
+    }
+
+    @Override
+    public WeightedNode<A, S, Double> makeNode(WeightedNode<A, S, Double> fromNode, Transition<A, S> transition) {
+        double cost, estimatedDistance;
+
+        if (fromNode == null){
+            cost = costAccumulator.getIdentityElem();
+        } else {
+            double fromCost = (fromNode instanceof DoubleWeightedNode)
+                    ? ((DoubleWeightedNode<A, S>) fromNode).cost()
+                    : fromNode.getCost();
+            cost = costAccumulator.apply(fromCost, this.gf.evaluate(transition));
+        }
+        estimatedDistance = (hf == null) ? costAccumulator.getIdentityElem() : this.hf.estimate(transition.getState());
+
+        return new DoubleWeightedNode<A, S>(fromNode, transition.getState(), transition.getAction(),
+                cost, estimatedDistance, costAccumulator.apply(cost, estimatedDistance));
+    }
+}
@@ -91,6 +91,7 @@ public class ADStarNodeImpl<A, S, C extends Comparable<C>>
     @Override
     public void setPreviousNode(ADStarNodeImpl<A, S, C> parent){
         this.previousNode = parent;
+        this.pathSize = (parent != null) ? parent.pathSize + 1 : 1;
     }
 
     @Override
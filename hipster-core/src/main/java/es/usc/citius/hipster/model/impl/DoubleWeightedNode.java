@@ -0,0 +1,122 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.model.impl;
+
+import es.usc.citius.hipster.model.HeuristicNode;
+
+/**
+ * Specialization of {@link es.usc.citius.hipster.model.impl.WeightedNode} for {@code Double} costs
+ * that stores the cost, the estimation and the score as primitive {@code double} values. Nodes
+ * are compared without unboxing, and the boxed values are only created when requested
+ * through {@link #getCost()}, {@link #getEstimation()} or {@link #getScore()}.
+ *
+ * @param <A> type of the actions
+ * @param <S> type of the states
+ */
+public class DoubleWeightedNode<A,S> extends WeightedNode<A,S,Double> {
+
+    private final double cost;
+    private final double estimation;
+    private final double score;
+
+    /**
+     * Basic constructor for instantiating a new node with primitive costs.
+     *
+     * @param previousNode parent node
+     * @param state state of the node to be created
+     * @param action action connecting the parent node and the current one
+     * @param cost cost of the new node
+     * @param estimation estimated cost between the current node and the goal
+     * @param score score of the new node
+     */
+    public DoubleWeightedNode(WeightedNode<A, S, Double> previousNode, S state, A action, double cost, double estimation, double score) {
+        super(previousNode, state, action, null, null, null);
+        this.cost = cost;
+        this.estimation = estimation;
+        this.score = score;
+    }
+
+    /**
+     * @return cost of the node (g) as a primitive double
+     */
+    public double cost() {
+        return cost;
+    }
+
+    /**
+     * @return estimated cost to the goal (h) as a primitive double
+     */
+    public double estimation() {
+        return estimation;
+    }
+
+    /**
+     * @return score of the node (f) as a primitive double
+     */
+    public double score() {
+        return score;
+    }
+
+    @Override
+    public Double getScore() {
+        return score;
+    }
+
+    @Override
+    public Double getEstimation() {
+        return estimation;
+    }
+
+    @Override
+    public Double getCost() {
+        return cost;
+    }
+
+    @Override
+    public int compareTo(WeightedNode<A, S, Double> o) {
+        if (o instanceof DoubleWeightedNode) {
+            return Double.compare(score, ((DoubleWeightedNode<A, S>) o).score);
+        }
+        return Double.compare(score, o.getScore());
+    }
+
+    /**
+     * Compares the scores of two nodes as {@code a.getScore().compareTo(b.getScore())}, reading the
+     * primitive scores if both nodes are instances of {@code DoubleWeightedNode}, so they are not boxed.
+     *
+     * @param a first node
+     * @param b second node
+     * @param <C> type of the cost
+     * @return negative, zero or positive if the score of {@code a} is lower, equal or greater than the score of {@code b}
+     */
+    public static <C extends Comparable<C>> int compareScores(HeuristicNode<?,?,C,?> a, HeuristicNode<?,?,C,?> b) {
+        if (a instanceof DoubleWeightedNode && b instanceof DoubleWeightedNode) {
+            return Double.compare(((DoubleWeightedNode<?,?>) a).score, ((DoubleWeightedNode<?,?>) b).score);
+        }
+        return a.getScore().compareTo(b.getScore());
+    }
+
+    @Override
+    public String toString() {
+        return "WeightedNode{" +
+                "state=" + this.state() +
+                ", cost=" + cost +
+                ", estimation=" + estimation +
+                ", score=" + score +
+                '}';
+    }
+}
@@ -71,7 +71,7 @@ public class WeightedNode<A,S,C extends Comparable<C>>
 
     @Override
     public int compareTo(WeightedNode<A, S, C> o) {
-        return score.compareTo(o.score);
+        return score.compareTo(o.getScore());
     }
 
     @Override
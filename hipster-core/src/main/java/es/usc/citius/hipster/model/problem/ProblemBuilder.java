@@ -17,6 +17,7 @@
 package es.usc.citius.hipster.model.problem;
 
 
+import es.usc.citius.hipster.model.Node;
 import es.usc.citius.hipster.model.Transition;
 import es.usc.citius.hipster.model.function.*;
 import es.usc.citius.hipster.model.function.impl.*;
@@ -46,6 +47,7 @@ public final class ProblemBuilder {
         public static final class ActionState<S> {
             private final S initialState;
             private final S finalState;
+            private StateIndexer<S> stateIndexer;
 
             public ActionState(S initialState) {
                 this.initialState = initialState;
@@ -57,6 +59,28 @@ public final class ProblemBuilder {
                 this.finalState = finalState;
             }
 
+            /**
+             * Defines a function that maps each state to a dense integer id (for example, the
+             * position of a cell in a grid). This is optional: the algorithms that support it
+             * store their nodes in arrays indexed by the id of each state instead of hash maps,
+             * so the states are not hashed or compared.
+             *
+             * @param stateIndexer function that maps the states to ids in {@code [0, size())}
+             * @return this builder
+             */
+            public ActionState<S> useStateIndexer(StateIndexer<S> stateIndexer){
+                this.stateIndexer = stateIndexer;
+                return this;
+            }
+
+            /**
+             * Assigns the state indexer (if any) to the problem.
+             */
+            private <A, N extends Node<A,S,N>> SearchProblem<A,S,N> indexed(SearchProblem<A,S,N> problem){
+                problem.setStateIndexer(stateIndexer);
+                return problem;
+            }
+
             /**
              * Create a problem model that uses explicit actions.
              * This forces to implement functions to operate with actions,
@@ -184,17 +208,19 @@ public final class ProblemBuilder {
                     UnweightedNode<A,S> initialNode = factory.makeNode(null, Transition.<A, S>create(null, null, initialState));
                     UnweightedNode<A,S> finalNode = factory.makeNode(null, Transition.<A, S>create(null, null, finalState));
                     NodeExpander<A,S,UnweightedNode<A,S>> nodeExpander = new LazyNodeExpander<A, S, UnweightedNode<A, S>>(tf, factory);
-                    return new SearchProblem<A,S, UnweightedNode<A,S>>(initialNode, finalNode, nodeExpander);
+                    return indexed(new SearchProblem<A,S, UnweightedNode<A,S>>(initialNode, finalNode, nodeExpander));
                 }
 
                 /**
-                 * Define a cost function. This immediately defines an InformedSearchProblem
+                 * Define a cost function. This immediately defines an InformedSearchProblem.
+                 * Problems with {@code Double} costs use {@link es.usc.citius.hipster.model.impl.DoubleWeightedNode}s,
+                 * which keep the costs as primitive doubles.
                  * @param cf
                  *
                  */
                 public Informed<Double> useCostFunction(CostFunction<A, S, Double> cf){
                     // Create default components
-                    return new Informed<Double>(cf, BinaryOperation.doubleAdditionOp());
+                    return new Informed<Double>(cf, BinaryOperation.doubleAdditionOp(), DoubleBinaryOperation.additionOp());
                 }
 
                 public <C extends Comparable<C>> Informed<C> useGenericCostFunction(CostFunction<A,S,C> cf, BinaryOperation<C> costAlgebra){
@@ -207,28 +233,50 @@ public final class ProblemBuilder {
                 public final class Informed<C extends Comparable<C>> {
                     private CostFunction<A,S,C> cf;
                     private BinaryOperation<C> costAlgebra;
+                    // Primitive cost algebra, only available for Double costs
+                    private DoubleBinaryOperation doubleCostAlgebra;
 
                     public Informed(CostFunction<A, S, C> cf, BinaryOperation<C> costAlgebra) {
                         this.cf = cf;
                         this.costAlgebra = costAlgebra;
                     }
 
+                    private Informed(CostFunction<A, S, C> cf, BinaryOperation<C> costAlgebra, DoubleBinaryOperation doubleCostAlgebra) {
+                        this(cf, costAlgebra);
+                        this.doubleCostAlgebra = doubleCostAlgebra;
+                    }
+
+                    /**
+                     * Creates the node factory. If the problem uses Double costs, nodes are created
+                     * by a {@link DoubleWeightedNodeFactory} to avoid boxing the costs.
+                     */
+                    @SuppressWarnings("unchecked")
+                    private NodeFactory<A,S,WeightedNode<A,S,C>> createFactory(HeuristicFunction<S, C> hf){
+                        if (doubleCostAlgebra != null) {
+                            NodeFactory<A,S,WeightedNode<A,S,Double>> factory = new DoubleWeightedNodeFactory<A, S>(
+                                    (CostFunction<A, S, Double>) cf, (HeuristicFunction<S, Double>) hf, doubleCostAlgebra);
+                            return (NodeFactory) factory;
+                        }
+                        if (hf == null) {
+                            hf = new HeuristicFunction<S, C>() {
+                                @Override
+                                public C estimate(S state) {
+                                    return costAlgebra.getIdentityElem();
+                                }
+                            };
+                        }
+                        return new WeightedNodeFactory<A,S,C>(cf, hf, costAlgebra);
+                    }
+
                     public SearchProblem<A, S, WeightedNode<A, S, C>> build(){
-                        WeightedNodeFactory<A,S,C> factory = new WeightedNodeFactory<A,S,C>(
-                                cf,
-                                new HeuristicFunction<S, C>() {
-                                    @Override
-                                    public C estimate(S state) {
-                                        return costAlgebra.getIdentityElem();
-                                    }
-                                }, costAlgebra);
+                        NodeFactory<A,S,WeightedNode<A,S,C>> factory = createFactory(null);
                         // Make the initial node. The initial node contains the initial state
                         // of the problem, and it comes from no previous node (null) and using no action (null)
                         WeightedNode<A,S,C> initialNode = factory.makeNode(null, Transition.<A,S>create(null, null, initialState));
                         // Create a Lazy Node Expander by default
                         NodeExpander<A,S,WeightedNode<A,S,C>> expander = new LazyNodeExpander<A, S, WeightedNode<A, S, C>>(tf, factory);
                         // Create the algorithm with all those components
-                        return new SearchProblem<A,S,WeightedNode<A,S,C>>(initialNode, expander);
+                        return indexed(new SearchProblem<A,S,WeightedNode<A,S,C>>(initialNode, expander));
                     }
 
                     public Heuristic useHeuristicFunction(HeuristicFunction<S, C> hf){
@@ -246,13 +294,12 @@ public final class ProblemBuilder {
                         }
 
                         public SearchProblem<A, S, WeightedNode<A, S, C>> build(){
-                            WeightedNodeFactory<A, S, C> factory = new WeightedNodeFactory<A,S,C>(
-                                    cf, hf, costAlgebra);
+                            NodeFactory<A, S, WeightedNode<A, S, C>> factory = createFactory(hf);
                             WeightedNode<A,S,C> initialNode = factory.makeNode(null, Transition.<A,S>create(null, null, initialState));
                             LazyNodeExpander<A, S, WeightedNode<A, S, C>> nodeExpander =
                                     new LazyNodeExpander<A, S, WeightedNode<A, S, C>>(tf, factory);
 
-                            return new SearchProblem<A, S, WeightedNode<A,S,C>>(initialNode, nodeExpander);
+                            return indexed(new SearchProblem<A, S, WeightedNode<A,S,C>>(initialNode, nodeExpander));
                         }
                     }
                 }
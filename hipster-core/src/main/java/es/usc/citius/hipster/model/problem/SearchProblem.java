@@ -2,6 +2,7 @@ package es.usc.citius.hipster.model.problem;
 
 import es.usc.citius.hipster.model.Node;
 import es.usc.citius.hipster.model.function.NodeExpander;
+import es.usc.citius.hipster.model.function.StateIndexer;
 
 /**
  * Defines a search problems in terms of a initial node to start with and the node expander
@@ -14,6 +15,7 @@ public class SearchProblem<A,S,N extends Node<A,S,N>> {
     private N initialNode;
     private N finalNode;
     private NodeExpander<A,S,N> expander;
+    private StateIndexer<S> stateIndexer;
 
     public SearchProblem(N initialNode, NodeExpander<A, S, N> expander) {
         this.initialNode = initialNode;
@@ -42,4 +44,26 @@ public class SearchProblem<A,S,N extends Node<A,S,N>> {
     public void setFinalNode(N finalNode) {
         this.finalNode = finalNode;
     }
+
+    /**
+     * @return function that maps the states to dense ids, or null if the states of the problem
+     * are not indexed
+     */
+    public StateIndexer<S> getStateIndexer() {
+        return stateIndexer;
+    }
+
+    /**
+     * Assigns a function that maps the states to dense ids. When it is available, the algorithms
+     * that support it ({@link es.usc.citius.hipster.algorithm.AStar},
+     * {@link es.usc.citius.hipster.algorithm.BreadthFirstSearch},
+     * {@link es.usc.citius.hipster.algorithm.DepthFirstSearch} and
+     * {@link es.usc.citius.hipster.algorithm.BellmanFord}) store their nodes in arrays indexed by
+     * the id of each state instead of hash maps.
+     *
+     * @param stateIndexer function that maps the states to dense ids
+     */
+    public void setStateIndexer(StateIndexer<S> stateIndexer) {
+        this.stateIndexer = stateIndexer;
+    }
 }
@@ -16,6 +16,9 @@
 
 package es.usc.citius.hipster.util.examples.maze;
 
+import es.usc.citius.hipster.util.grid.Grid2D;
+import es.usc.citius.hipster.util.grid.GridSymbols;
+
 import java.awt.*;
 import java.io.BufferedReader;
 import java.io.File;
@@ -67,24 +70,23 @@ import java.util.List;
  *
  * @author Pablo Rodríguez Mier <<a href="mailto:pablo.rodriguez.mier@usc.es">pablo.rodriguez.mier@usc.es</a>>
  */
-public class Maze2D {
+public class Maze2D implements Grid2D {
 
     private char maze[][];
     private Point initialLoc;
     private Point goalLoc;
     private int rows;
     private int columns;
-    private static Set<Character> FREE_TILES = new HashSet<Character>(Arrays.asList(' ', 'S', 'G', '.'));
 
     /**
      * Symbols allowed to create a maze
      */
     public static enum Symbol {
-        OCCUPIED('X'),
-        EMPTY(' '),
-        START('S'),
-        GOAL('G'),
-        VISITED('.');
+        OCCUPIED(GridSymbols.OCCUPIED),
+        EMPTY(GridSymbols.EMPTY),
+        START(GridSymbols.START),
+        GOAL(GridSymbols.GOAL),
+        VISITED(GridSymbols.VISITED);
         public final char character;
 
         Symbol(char symbol) {
@@ -224,7 +226,43 @@ public class Maze2D {
      * @return True if is free, false if is not empty.
      */
     public boolean isFree(Point p) {
-        return FREE_TILES.contains(this.maze[p.y][p.x]);
+        return isFreeSymbol(this.maze[p.y][p.x]);
+    }
+
+    /**
+     * Check if the tile in column {@code x} and row {@code y} is inside the maze and free.
+     * Unlike {@link #isFree(java.awt.Point)}, it does not create points or throw exceptions
+     * for locations outside the maze.
+     *
+     * @param x column of the tile
+     * @param y row of the tile
+     * @return true if the tile is in the maze and it is free
+     */
+    @Override
+    public boolean isFree(int x, int y) {
+        if (y < 0 || y >= rows || x < 0 || x >= maze[y].length) return false;
+        return isFreeSymbol(maze[y][x]);
+    }
+
+    /**
+     * Check if a symbol of the maze represents a free tile: {@link Symbol#EMPTY}, {@link Symbol#START},
+     * {@link Symbol#GOAL} or {@link Symbol#VISITED}. Any other character is an occupied tile.
+     *
+     * @param c symbol of a tile
+     * @return true if the tile is free
+     */
+    public static boolean isFreeSymbol(char c) {
+        return GridSymbols.isFree(c);
+    }
+
+    @Override
+    public int getColumns() {
+        return columns;
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
     }
 
     /**
@@ -358,11 +396,7 @@ public class Maze2D {
      * @return true if point is filled with {@link Symbol#EMPTY}. False otherwise.
      */
     public boolean validLocation(Point loc) {
-        try {
-            return isFree(loc);
-        } catch (ArrayIndexOutOfBoundsException ex) {
-            return false;
-        }
+        return isFree(loc.x, loc.y);
     }
 
     /**
@@ -384,16 +418,11 @@ public class Maze2D {
         // Check for all valid movements
         for (int row = -1; row <= 1; row++) {
             for (int column = -1; column <= 1; column++) {
-                try {
-                    if (isFree(new Point(loc.x + column, loc.y + row))) {
-                        validMoves.add(new Point(loc.x + column, loc.y + row));
-                    }
-                } catch (ArrayIndexOutOfBoundsException ex) {
-                    // Invalid move!
+                if ((row != 0 || column != 0) && isFree(loc.x + column, loc.y + row)) {
+                    validMoves.add(new Point(loc.x + column, loc.y + row));
                 }
             }
         }
-        validMoves.remove(loc);
 
         return validMoves;
     }
@@ -0,0 +1,448 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.util.grid;
+
+import es.usc.citius.hipster.model.Transition;
+import es.usc.citius.hipster.model.function.CostFunction;
+import es.usc.citius.hipster.model.function.HeuristicFunction;
+import es.usc.citius.hipster.model.function.ReversibleStateIndexer;
+import es.usc.citius.hipster.model.function.impl.StateTransitionFunction;
+
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * Compact {@link Grid2D} which stores one bit per cell (1 = free) in packed {@code long} words, one
+ * bitset per row. A 10000 x 10000 map takes 12.5 MB, while the {@code char[][]} of a
+ * {@link es.usc.citius.hipster.util.examples.maze.Maze2D} takes 200 MB. The cells are identified by an int,
+ * {@code y * columns + x}, so a search can use them as states without creating {@link java.awt.Point}s,
+ * and {@link #neighbors(int, int[])} returns the free neighbors of a cell without allocating memory.
+ * </p>
+ *
+ * <p>
+ * The grid can be used in the search problems through {@link #transitionFunction()}, {@link #costFunction()}
+ * and {@link #heuristicFunction(int)}, with the same 8-connected movement and costs as the maze problems:
+ * <pre class="prettyprint">
+ *     {@code
+ *     BitGrid2D grid = BitGrid2D.read(new File("maze.map"));
+ *     SearchProblem p = ProblemBuilder.create()
+ *          .initialState(grid.cell(0, 0))
+ *          .useStateIndexer(grid.stateIndexer())
+ *          .defineProblemWithoutActions()
+ *          .useTransitionFunction(grid.transitionFunction())
+ *          .useCostFunction(grid.costFunction())
+ *          .useHeuristicFunction(grid.heuristicFunction(goal))
+ *          .build();
+ *     }
+ * </pre>
+ * </p>
+ */
+public class BitGrid2D implements Grid2D {
+    private static final double DIAGONAL = Math.sqrt(2);
+    // Size of the regions of the file mapped at once
+    private static final long MAPPED_REGION = 1L << 30;
+
+    private final int columns;
+    private final int rows;
+    private final int wordsPerRow;
+    private final long[] words;
+    private int initialCell = -1;
+    private int goalCell = -1;
+
+    /**
+     * Creates a grid where all the cells are occupied.
+     *
+     * @param columns number of columns of the grid
+     * @param rows number of rows of the grid
+     */
+    public BitGrid2D(int columns, int rows) {
+        if (columns < 0 || rows < 0 || (long) columns * rows > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid grid size " + columns + "x" + rows);
+        }
+        this.columns = columns;
+        this.rows = rows;
+        this.wordsPerRow = (columns + 63) >>> 6;
+        this.words = new long[wordsPerRow * rows];
+    }
+
+    /**
+     * Creates a copy of any grid.
+     *
+     * @param grid grid to copy
+     * @return bit-packed copy of the grid
+     */
+    public static BitGrid2D copyOf(Grid2D grid) {
+        BitGrid2D copy = new BitGrid2D(grid.getColumns(), grid.getRows());
+        for (int y = 0; y < copy.rows; y++) {
+            for (int x = 0; x < copy.columns; x++) {
+                if (grid.isFree(x, y)) copy.setFree(x, y, true);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Creates a copy of any grid with the given initial and goal locations, for example
+     * {@code copyOf(maze, maze.getInitialLoc(), maze.getGoalLoc())}.
+     *
+     * @param grid grid to copy
+     * @param initial initial location (x = column, y = row), or null if there is none
+     * @param goal goal location (x = column, y = row), or null if there is none
+     * @return bit-packed copy of the grid
+     */
+    public static BitGrid2D copyOf(Grid2D grid, Point initial, Point goal) {
+        BitGrid2D copy = copyOf(grid);
+        if (initial != null) copy.initialCell = copy.cell(initial.x, initial.y);
+        if (goal != null) copy.goalCell = copy.cell(goal.x, goal.y);
+        return copy;
+    }
+
+    /**
+     * <p>
+     * Reads a grid from a text file, which is memory-mapped instead of read line by line, so large maps
+     * can be loaded without creating a {@code String} per row. Two formats are supported:
+     * <ul>
+     *     <li>The plain text format of
+     *     {@link es.usc.citius.hipster.util.examples.maze.Maze2D#read(java.io.File)}. The initial and goal
+     *     cells are the cells with the symbols {@code S} and {@code G}. Shorter rows are filled with free
+     *     cells.</li>
+     *     <li>The format of the Moving AI benchmark maps, which starts with the header
+     *     {@code type octile / height H / width W / map}. The maps do not contain initial and goal cells.</li>
+     * </ul>
+     * In both formats the cells with the free symbols of {@link GridSymbols#isFree(char)} are free and the
+     * other cells are occupied.
+     * </p>
+     *
+     * @param file file with the map
+     * @return grid with the free cells of the map
+     * @throws IOException if the file can not be read or the header of the map is not valid
+     */
+    public static BitGrid2D read(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            MappedReader reader = new MappedReader(raf.getChannel());
+            String first = reader.readLine();
+            if (first != null && first.startsWith("type")) {
+                int height = -1, width = -1;
+                String line;
+                while ((line = reader.readLine()) != null && !line.trim().equals("map")) {
+                    String[] fields = line.trim().split("\\s+");
+                    if (fields[0].equals("height")) height = Integer.parseInt(fields[1]);
+                    else if (fields[0].equals("width")) width = Integer.parseInt(fields[1]);
+                }
+                if (line == null || height < 0 || width < 0) {
+                    throw new IOException("Invalid map header in " + file);
+                }
+                BitGrid2D grid = new BitGrid2D(width, height);
+                grid.parse(reader, false);
+                return grid;
+            }
+            // Plain text maze: the size is computed in a first pass
+            reader.seek(0);
+            int rows = 0, columns = 0, length = 0;
+            int c;
+            while ((c = reader.read()) >= 0) {
+                if (c == '\n') {
+                    rows++;
+                    length = 0;
+                } else if (c != '\r') {
+                    columns = Math.max(columns, ++length);
+                }
+            }
+            if (length > 0) rows++;
+            BitGrid2D grid = new BitGrid2D(columns, rows);
+            reader.seek(0);
+            grid.parse(reader, true);
+            return grid;
+        } finally {
+            raf.close();
+        }
+    }
+
+    /*
+     * Reads the rows of the grid from the current position of the reader. In the plain text
+     * format the rows shorter than the grid are filled with free cells, as in Maze2D.
+     */
+    private void parse(MappedReader reader, boolean plain) throws IOException {
+        int x = 0, y = 0;
+        int c;
+        while (y < rows && (c = reader.read()) >= 0) {
+            if (c == '\n') {
+                if (plain) fill(x, y);
+                x = 0;
+                y++;
+                continue;
+            }
+            if (c == '\r' || x >= columns) continue;
+            if (GridSymbols.isFree((char) c)) {
+                setFree(x, y, true);
+                if (plain && c == GridSymbols.START && initialCell < 0) initialCell = cell(x, y);
+                if (plain && c == GridSymbols.GOAL && goalCell < 0) goalCell = cell(x, y);
+            }
+            x++;
+        }
+        if (plain && y < rows) fill(x, y);
+    }
+
+    private void fill(int from, int y) {
+        for (int x = from; x < columns; x++) {
+            setFree(x, y, true);
+        }
+    }
+
+    @Override
+    public int getColumns() {
+        return columns;
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public boolean isFree(int x, int y) {
+        if (x < 0 || y < 0 || x >= columns || y >= rows) return false;
+        return (words[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    /**
+     * @param cell id of a cell of the grid
+     * @return true if the cell is free
+     */
+    public boolean isFree(int cell) {
+        return isFree(x(cell), y(cell));
+    }
+
+    /**
+     * Marks a cell of the grid as free or occupied.
+     *
+     * @param x column of the cell
+     * @param y row of the cell
+     * @param free true to mark the cell as free, false to mark it as occupied
+     */
+    public void setFree(int x, int y, boolean free) {
+        if (x < 0 || y < 0 || x >= columns || y >= rows) {
+            throw new IndexOutOfBoundsException("Cell (" + x + ", " + y + ") out of the grid");
+        }
+        int word = y * wordsPerRow + (x >>> 6);
+        if (free) {
+            words[word] |= 1L << x;
+        } else {
+            words[word] &= ~(1L << x);
+        }
+    }
+
+    /**
+     * @return id of the cell in column {@code x} and row {@code y}
+     */
+    public int cell(int x, int y) {
+        return y * columns + x;
+    }
+
+    /**
+     * @return column of the cell
+     */
+    public int x(int cell) {
+        return cell % columns;
+    }
+
+    /**
+     * @return row of the cell
+     */
+    public int y(int cell) {
+        return cell / columns;
+    }
+
+    /**
+     * @return location of the cell (x = column, y = row)
+     */
+    public Point point(int cell) {
+        return new Point(x(cell), y(cell));
+    }
+
+    /**
+     * Computes the free neighbors of a cell (8-connected), in the same order as
+     * {@link es.usc.citius.hipster.util.examples.maze.Maze2D#validLocationsFrom(java.awt.Point)} checks
+     * them: by rows from the top left neighbor.
+     *
+     * @param cell id of the cell
+     * @param neighbors array of at least 8 elements where the ids of the free neighbors are stored
+     * @return number of free neighbors
+     */
+    public int neighbors(int cell, int[] neighbors) {
+        int x = x(cell), y = y(cell);
+        int count = 0;
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                if ((dx != 0 || dy != 0) && isFree(x + dx, y + dy)) {
+                    neighbors[count++] = cell + dy * columns + dx;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return id of the initial cell of the maze, or -1 if the grid has no initial cell
+     */
+    public int getInitialCell() {
+        return initialCell;
+    }
+
+    /**
+     * @return id of the goal cell of the maze, or -1 if the grid has no goal cell
+     */
+    public int getGoalCell() {
+        return goalCell;
+    }
+
+    /**
+     * @return transition function which generates the free neighbors of each cell
+     */
+    public StateTransitionFunction<Integer> transitionFunction() {
+        return new StateTransitionFunction<Integer>() {
+            @Override
+            public Iterable<Integer> successorsOf(Integer state) {
+                final int[] cells = new int[8];
+                final int size = neighbors(state, cells);
+                return new Iterable<Integer>() {
+                    @Override
+                    public Iterator<Integer> iterator() {
+                        return new Iterator<Integer>() {
+                            private int current = 0;
+
+                            @Override
+                            public boolean hasNext() {
+                                return current < size;
+                            }
+
+                            @Override
+                            public Integer next() {
+                                if (current >= size) throw new NoSuchElementException();
+                                return cells[current++];
+                            }
+
+                            @Override
+                            public void remove() {
+                                throw new UnsupportedOperationException();
+                            }
+                        };
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * @return cost function of the moves between cells: 1 for straight moves and sqrt(2) for diagonal moves
+     */
+    public CostFunction<Void, Integer, Double> costFunction() {
+        return new CostFunction<Void, Integer, Double>() {
+            @Override
+            public Double evaluate(Transition<Void, Integer> transition) {
+                int from = transition.getFromState(), to = transition.getState();
+                return (x(from) != x(to) && y(from) != y(to)) ? DIAGONAL : 1d;
+            }
+        };
+    }
+
+    /**
+     * @param goal id of the goal cell
+     * @return octile distance to the goal cell, which is the cost of the shortest path without obstacles
+     */
+    public HeuristicFunction<Integer, Double> heuristicFunction(final int goal) {
+        return new HeuristicFunction<Integer, Double>() {
+            @Override
+            public Double estimate(Integer state) {
+                int dx = Math.abs(x(state) - x(goal)), dy = Math.abs(y(state) - y(goal));
+                return Math.max(dx, dy) + (DIAGONAL - 1d) * Math.min(dx, dy);
+            }
+        };
+    }
+
+    /**
+     * @return indexer of the cells of the grid, which are already dense ids
+     */
+    public ReversibleStateIndexer<Integer> stateIndexer() {
+        return new ReversibleStateIndexer<Integer>() {
+            @Override
+            public int indexOf(Integer state) {
+                return state;
+            }
+
+            @Override
+            public Integer stateAt(int index) {
+                return index;
+            }
+
+            @Override
+            public int size() {
+                return columns * rows;
+            }
+        };
+    }
+
+    /*
+     * Sequential reader of a file mapped in regions of up to 1 GB, so files larger than
+     * 2 GB (the limit of a single MappedByteBuffer) can be read.
+     */
+    private static final class MappedReader {
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer buffer;
+        private long offset;
+
+        private MappedReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            seek(0);
+        }
+
+        private void seek(long position) throws IOException {
+            this.offset = position;
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPED_REGION, size - position));
+        }
+
+        private int read() throws IOException {
+            if (!buffer.hasRemaining()) {
+                long next = offset + buffer.capacity();
+                if (next >= size) return -1;
+                seek(next);
+            }
+            return buffer.get() & 0xFF;
+        }
+
+        private String readLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            int c = read();
+            if (c < 0) return null;
+            while (c >= 0 && c != '\n') {
+                if (c != '\r') line.append((char) c);
+                c = read();
+            }
+            return line.toString();
+        }
+    }
+}
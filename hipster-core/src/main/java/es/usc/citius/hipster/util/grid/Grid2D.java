@@ -0,0 +1,45 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.util.grid;
+
+/**
+ * 2D grid of free and occupied cells, where each cell is identified by its column ({@code x})
+ * and row ({@code y}). Grid algorithms like {@link es.usc.citius.hipster.algorithm.JumpPointSearch}
+ * only depend on this interface, so they can work with the mazes of the examples
+ * ({@link es.usc.citius.hipster.util.examples.maze.Maze2D}) or with other grid representations.
+ */
+public interface Grid2D {
+
+    /**
+     * @return number of columns (width) of the grid
+     */
+    int getColumns();
+
+    /**
+     * @return number of rows (height) of the grid
+     */
+    int getRows();
+
+    /**
+     * Checks if a cell can be traversed.
+     *
+     * @param x column of the cell
+     * @param y row of the cell
+     * @return true if the cell is inside the grid and it is free, false otherwise
+     */
+    boolean isFree(int x, int y);
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.hipster.util.grid;
+
+/**
+ * Characters of the plain text grid maps, shared by the parsers of the grids
+ * ({@link BitGrid2D}) and the mazes of the examples ({@link es.usc.citius.hipster.util.examples.maze.Maze2D}).
+ * The cells with an unknown character are occupied.
+ */
+public final class GridSymbols {
+    /** Occupied cell */
+    public static final char OCCUPIED = 'X';
+    /** Free cell */
+    public static final char EMPTY = ' ';
+    /** Free cell with the initial state */
+    public static final char START = 'S';
+    /** Free cell with the goal state */
+    public static final char GOAL = 'G';
+    /** Free cell visited by a search */
+    public static final char VISITED = '.';
+
+    private GridSymbols() {}
+
+    /**
+     * @param c character of a cell
+     * @return true if the cell is free ({@link #EMPTY}, {@link #START}, {@link #GOAL} or {@link #VISITED})
+     */
+    public static boolean isFree(char c) {
+        return c == EMPTY || c == START || c == GOAL || c == VISITED;
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.collections;
+
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * FIFO {@link java.util.Queue} without duplicates, with the same behavior as {@link HashQueue}:
+ * offering an element that is already in the queue does not change the queue. The elements are
+ * stored in a circular array, and the membership of each element is tracked with an open-addressing
+ * hash set (linear probing), so {@code offer}, {@code poll} and {@code contains} run in constant time
+ * and do not allocate memory (except when the capacity is doubled).
+ * </p>
+ *
+ * <p>
+ * Null elements are not allowed. The iterator returns the elements in FIFO order and does not support
+ * removal.
+ * </p>
+ *
+ * @param <S> the type of elements held in this collection
+ */
+public class ArrayHashQueue<S> extends AbstractQueue<S> {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // Circular array with the elements in FIFO order
+    private Object[] elements;
+    private int head = 0;
+    private int size = 0;
+    // Open-addressing set with twice the capacity of the queue (load factor <= 0.5)
+    private Object[] table;
+
+    public ArrayHashQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity expected number of elements in the queue
+     */
+    public ArrayHashQueue(int initialCapacity) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity < initialCapacity) {
+            capacity <<= 1;
+        }
+        this.elements = new Object[capacity];
+        this.table = new Object[capacity << 1];
+    }
+
+    /**
+     * Inserts the element at the tail of the queue if it is not already present.
+     *
+     * @param e element to insert
+     * @return true
+     */
+    @Override
+    public boolean offer(S e) {
+        if (e == null) throw new NullPointerException();
+        int slot = slot(e);
+        if (table[slot] != null) {
+            return true;
+        }
+        if (size == elements.length) {
+            grow();
+            slot = slot(e);
+        }
+        table[slot] = e;
+        elements[(head + size) & (elements.length - 1)] = e;
+        size++;
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public S poll() {
+        if (size == 0) return null;
+        S e = (S) elements[head];
+        elements[head] = null;
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        delete(slot(e));
+        return e;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public S peek() {
+        return (size == 0) ? null : (S) elements[head];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o != null && table[slot(o)] != null;
+    }
+
+    @Override
+    public void clear() {
+        if (size < (elements.length >>> 3)) {
+            // Cheaper than clearing the arrays when the queue is almost empty (for example, to reuse it)
+            while (size > 0) poll();
+            return;
+        }
+        Arrays.fill(elements, null);
+        Arrays.fill(table, null);
+        head = 0;
+        size = 0;
+    }
+
+    @Override
+    public Iterator<S> iterator() {
+        return new Iterator<S>() {
+            private int current = 0;
+
+            @Override
+            public boolean hasNext() {
+                return current < size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public S next() {
+                if (current >= size) throw new NoSuchElementException();
+                return (S) elements[(head + current++) & (elements.length - 1)];
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private static int hash(Object o, int mask) {
+        int h = o.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /*
+     * Returns the slot of the table which contains the element, or the
+     * empty slot where it should be inserted.
+     */
+    private int slot(Object o) {
+        int mask = table.length - 1;
+        int i = hash(o, mask);
+        Object current;
+        while ((current = table[i]) != null && !current.equals(o)) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /*
+     * Removes the element of the slot, shifting back the next elements of the
+     * cluster so no tombstones are required.
+     */
+    private void delete(int gap) {
+        int mask = table.length - 1;
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            Object current = table[i];
+            if (current == null) break;
+            int ideal = hash(current, mask);
+            // Move the element only if its ideal slot is not cyclically in (gap, i]
+            boolean stays = (gap <= i) ? (gap < ideal && ideal <= i) : (gap < ideal || ideal <= i);
+            if (!stays) {
+                table[gap] = current;
+                gap = i;
+            }
+        }
+        table[gap] = null;
+    }
+
+    private void grow() {
+        Object[] grown = new Object[elements.length << 1];
+        for (int i = 0; i < size; i++) {
+            grown[i] = elements[(head + i) & (elements.length - 1)];
+        }
+        elements = grown;
+        head = 0;
+        table = new Object[grown.length << 1];
+        for (int i = 0; i < size; i++) {
+            table[slot(elements[i])] = elements[i];
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.collections;
+
+import es.usc.citius.hipster.model.function.StateIndexer;
+
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * FIFO {@link java.util.Queue} without duplicates, with the same behavior as {@link ArrayHashQueue}, for elements
+ * that can be mapped to dense ids with a {@link es.usc.citius.hipster.model.function.StateIndexer}. The membership
+ * of each element is tracked with a bitset indexed by its id, so the elements are never hashed or compared.
+ * </p>
+ *
+ * <p>
+ * Null elements are not allowed. The iterator returns the elements in FIFO order and does not support
+ * removal.
+ * </p>
+ *
+ * @param <S> the type of elements held in this collection
+ */
+public class IndexedArrayQueue<S> extends AbstractQueue<S> {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final StateIndexer<? super S> indexer;
+    // Circular array with the elements in FIFO order
+    private Object[] elements = new Object[DEFAULT_CAPACITY];
+    private int head = 0;
+    private int size = 0;
+    // Bit i is set if the element with id i is in the queue
+    private final long[] members;
+
+    public IndexedArrayQueue(StateIndexer<? super S> indexer) {
+        this.indexer = indexer;
+        this.members = new long[(indexer.size() + 63) >>> 6];
+    }
+
+    /**
+     * Inserts the element at the tail of the queue if it is not already present.
+     *
+     * @param e element to insert
+     * @return true
+     */
+    @Override
+    public boolean offer(S e) {
+        if (e == null) throw new NullPointerException();
+        int id = indexer.indexOf(e);
+        long bit = 1L << id;
+        if ((members[id >>> 6] & bit) != 0) return true;
+        members[id >>> 6] |= bit;
+        if (size == elements.length) {
+            grow();
+        }
+        elements[(head + size) & (elements.length - 1)] = e;
+        size++;
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public S poll() {
+        if (size == 0) return null;
+        S e = (S) elements[head];
+        elements[head] = null;
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        int id = indexer.indexOf(e);
+        members[id >>> 6] &= ~(1L << id);
+        return e;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public S peek() {
+        return (size == 0) ? null : (S) elements[head];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(Object o) {
+        if (o == null) return false;
+        int id = indexer.indexOf((S) o);
+        return (members[id >>> 6] & (1L << id)) != 0;
+    }
+
+    /**
+     * Removes all the elements, in time proportional to the size of the queue.
+     */
+    @Override
+    public void clear() {
+        while (size > 0) poll();
+        head = 0;
+    }
+
+    @Override
+    public Iterator<S> iterator() {
+        return new Iterator<S>() {
+            private int current = 0;
+
+            @Override
+            public boolean hasNext() {
+                return current < size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public S next() {
+                if (current >= size) throw new NoSuchElementException();
+                return (S) elements[(head + current++) & (elements.length - 1)];
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private void grow() {
+        Object[] grown = new Object[elements.length << 1];
+        for (int i = 0; i < size; i++) {
+            grown[i] = elements[(head + i) & (elements.length - 1)];
+        }
+        elements = grown;
+        head = 0;
+    }
+}
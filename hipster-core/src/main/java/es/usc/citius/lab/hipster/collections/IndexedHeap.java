@@ -0,0 +1,326 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.collections;
+
+import es.usc.citius.hipster.util.Function;
+
+import java.util.*;
+
+/**
+ * <p>
+ * Implementation of a {@link java.util.Queue} backed by an indexed d-ary heap. Each element
+ * is associated to a key (for example, the state of a search node) and the heap keeps track
+ * of the slot where the element of each key is stored. At most one element per key is kept in
+ * the queue: offering an element whose key is already present replaces the old element and
+ * moves it up or down in the heap (decrease-key / increase-key) in {@literal O(log n)}.
+ * </p>
+ *
+ * <p>
+ * This is useful for algorithms like A* that otherwise insert duplicates in a
+ * {@link java.util.PriorityQueue} every time a better path to a state is found, and
+ * then discard the stale entries when they are polled.
+ * </p>
+ *
+ * @param <K> type of the keys used to index the elements
+ * @param <E> type of the elements held in this queue
+ */
+public class IndexedHeap<K, E> extends AbstractQueue<E> {
+
+    /**
+     * Default number of children of each heap slot.
+     */
+    public static final int DEFAULT_ARITY = 4;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final Function<? super E, ? extends K> keyFunction;
+    private final Comparator<? super E> comparator;
+    private final int arity;
+    private final Map<K, Entry<K, E>> index;
+    private Entry<K, E>[] heap;
+    private int size = 0;
+
+    /*
+     * Heap slot. The entry keeps its current position in the heap array so
+     * the position of any key can be retrieved in constant time.
+     */
+    private static final class Entry<K, E> {
+        private final K key;
+        private E element;
+        private int position;
+
+        private Entry(K key, E element, int position) {
+            this.key = key;
+            this.element = element;
+            this.position = position;
+        }
+    }
+
+    /**
+     * Creates an indexed heap which sorts the elements using their natural ordering
+     * (elements must implement {@link java.lang.Comparable}).
+     *
+     * @param keyFunction function to obtain the key of each element
+     */
+    public IndexedHeap(Function<? super E, ? extends K> keyFunction) {
+        this(keyFunction, null, DEFAULT_ARITY);
+    }
+
+    /**
+     * Creates an indexed heap with a custom comparator and number of children per slot.
+     *
+     * @param keyFunction function to obtain the key of each element
+     * @param comparator comparator used to sort the elements, or null to use the natural ordering
+     * @param arity number of children of each heap slot (2 for a binary heap)
+     */
+    @SuppressWarnings("unchecked")
+    public IndexedHeap(Function<? super E, ? extends K> keyFunction, Comparator<? super E> comparator, int arity) {
+        if (arity < 2) throw new IllegalArgumentException("The arity of the heap must be at least 2");
+        this.keyFunction = keyFunction;
+        this.comparator = comparator;
+        this.arity = arity;
+        this.index = new HashMap<K, Entry<K, E>>();
+        this.heap = new Entry[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Creates an indexed heap where each element is its own key. This does not merge
+     * elements, but allows removing arbitrary elements in {@literal O(log n)}.
+     *
+     * @param <E> type of the elements
+     * @return new indexed heap
+     */
+    public static <E> IndexedHeap<E, E> identity() {
+        return new IndexedHeap<E, E>(new Function<E, E>() {
+            @Override
+            public E apply(E input) {
+                return input;
+            }
+        });
+    }
+
+    /**
+     * Inserts the element in the queue. If there is an element with the same key
+     * in the queue, it is replaced by the new one and its position in the heap updated.
+     *
+     * @param e element to insert
+     * @return true
+     */
+    @Override
+    public boolean offer(E e) {
+        if (e == null) throw new NullPointerException();
+        K key = keyFunction.apply(e);
+        Entry<K, E> entry = index.get(key);
+        if (entry == null) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size << 1);
+            }
+            entry = new Entry<K, E>(key, e, size);
+            heap[size++] = entry;
+            index.put(key, entry);
+            siftUp(entry.position);
+        } else {
+            entry.element = e;
+            update(entry.position);
+        }
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        if (size == 0) return null;
+        Entry<K, E> first = heap[0];
+        removeAt(0);
+        return first.element;
+    }
+
+    @Override
+    public E peek() {
+        return (size == 0) ? null : heap[0].element;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(heap, 0, size, null);
+        index.clear();
+        size = 0;
+    }
+
+    /**
+     * Checks if there is an element associated to the key in the queue.
+     *
+     * @param key key to check
+     * @return true if an element with this key is in the queue
+     */
+    public boolean containsKey(K key) {
+        return index.containsKey(key);
+    }
+
+    /**
+     * Retrieves the element associated to the key, without removing it.
+     *
+     * @param key key of the element
+     * @return element with this key or null if there is no such element
+     */
+    public E get(K key) {
+        Entry<K, E> entry = index.get(key);
+        return (entry == null) ? null : entry.element;
+    }
+
+    /**
+     * Removes the element associated to the key.
+     *
+     * @param key key of the element
+     * @return removed element, or null if there is no element for this key
+     */
+    public E removeKey(K key) {
+        Entry<K, E> entry = index.get(key);
+        if (entry == null) return null;
+        removeAt(entry.position);
+        return entry.element;
+    }
+
+    /**
+     * Restores the position of the element with the given key after an external change
+     * of its priority.
+     *
+     * @param key key of the element
+     * @return true if the element was found and updated
+     */
+    public boolean update(K key) {
+        Entry<K, E> entry = index.get(key);
+        if (entry == null) return false;
+        update(entry.position);
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(Object o) {
+        if (o == null) return false;
+        Entry<K, E> entry = index.get(keyFunction.apply((E) o));
+        return entry != null && entry.element.equals(o);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object o) {
+        if (o == null) return false;
+        Entry<K, E> entry = index.get(keyFunction.apply((E) o));
+        if (entry == null || !entry.element.equals(o)) return false;
+        removeAt(entry.position);
+        return true;
+    }
+
+    /**
+     * Returns an iterator over the elements of this queue, in no particular order.
+     * The iterator does not support removal.
+     *
+     * @return iterator over the elements of the queue
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int current = 0;
+
+            @Override
+            public boolean hasNext() {
+                return current < size;
+            }
+
+            @Override
+            public E next() {
+                if (current >= size) throw new NoSuchElementException();
+                return heap[current++].element;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private void removeAt(int position) {
+        Entry<K, E> removed = heap[position];
+        index.remove(removed.key);
+        int last = --size;
+        if (position != last) {
+            Entry<K, E> moved = heap[last];
+            heap[last] = null;
+            heap[position] = moved;
+            moved.position = position;
+            update(position);
+        } else {
+            heap[last] = null;
+        }
+    }
+
+    private void update(int position) {
+        if (position > 0 && compare(heap[position], heap[(position - 1) / arity]) < 0) {
+            siftUp(position);
+        } else {
+            siftDown(position);
+        }
+    }
+
+    private void siftUp(int position) {
+        Entry<K, E> entry = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) / arity;
+            Entry<K, E> parentEntry = heap[parent];
+            if (compare(entry, parentEntry) >= 0) break;
+            heap[position] = parentEntry;
+            parentEntry.position = position;
+            position = parent;
+        }
+        heap[position] = entry;
+        entry.position = position;
+    }
+
+    private void siftDown(int position) {
+        Entry<K, E> entry = heap[position];
+        while (true) {
+            int firstChild = position * arity + 1;
+            if (firstChild >= size) break;
+            // Find the smallest child
+            int lastChild = Math.min(firstChild + arity, size);
+            int best = firstChild;
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                if (compare(heap[child], heap[best]) < 0) best = child;
+            }
+            if (compare(heap[best], entry) >= 0) break;
+            heap[position] = heap[best];
+            heap[position].position = position;
+            position = best;
+        }
+        heap[position] = entry;
+        entry.position = position;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Entry<K, E> a, Entry<K, E> b) {
+        if (comparator != null) {
+            return comparator.compare(a.element, b.element);
+        }
+        return ((Comparable<? super E>) a.element).compareTo(b.element);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.collections;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Growable memory region outside the Java heap, made of fixed-size chunks allocated with
+ * {@link ByteBuffer#allocateDirect(int)} or mapped from a file. Used by the off-heap collections to store
+ * fixed-width records without creating objects.
+ */
+final class OffHeapChunks implements Closeable {
+    static final int CHUNK_SHIFT = 22;
+    private static final int CHUNK_BYTES = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_BYTES - 1;
+
+    private final List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+    private final RandomAccessFile file;
+
+    /**
+     * @param file file used to map the chunks, or null to allocate them in direct memory
+     */
+    OffHeapChunks(File file) throws IOException {
+        this.file = (file == null) ? null : new RandomAccessFile(file, "rw");
+    }
+
+    /**
+     * Makes sure that the bytes in {@code [0, bytes)} can be accessed.
+     */
+    void ensureCapacity(long bytes) {
+        while ((long) chunks.size() << CHUNK_SHIFT < bytes) {
+            if (file == null) {
+                chunks.add(ByteBuffer.allocateDirect(CHUNK_BYTES));
+            } else {
+                try {
+                    long position = (long) chunks.size() << CHUNK_SHIFT;
+                    chunks.add(file.getChannel().map(FileChannel.MapMode.READ_WRITE, position, CHUNK_BYTES));
+                } catch (IOException e) {
+                    throw new IllegalStateException("Unable to map a new region of the file", e);
+                }
+            }
+        }
+    }
+
+    double getDouble(long offset) {
+        return chunks.get((int) (offset >>> CHUNK_SHIFT)).getDouble((int) (offset & CHUNK_MASK));
+    }
+
+    void putDouble(long offset, double value) {
+        chunks.get((int) (offset >>> CHUNK_SHIFT)).putDouble((int) (offset & CHUNK_MASK), value);
+    }
+
+    int getInt(long offset) {
+        return chunks.get((int) (offset >>> CHUNK_SHIFT)).getInt((int) (offset & CHUNK_MASK));
+    }
+
+    void putInt(long offset, int value) {
+        chunks.get((int) (offset >>> CHUNK_SHIFT)).putInt((int) (offset & CHUNK_MASK), value);
+    }
+
+    /**
+     * @return number of bytes reserved by the chunks
+     */
+    long capacity() {
+        return (long) chunks.size() << CHUNK_SHIFT;
+    }
+
+    @Override
+    public void close() throws IOException {
+        chunks.clear();
+        if (file != null) file.close();
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.collections;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * <p>
+ * Append-only storage of search nodes outside the Java heap. Each node is a fixed-width record of 32 bytes
+ * with its cost ({@code g}), its heuristic estimation ({@code h}), the index of its parent record, the index
+ * of the action that generated it (its position among the successors of the parent), the int key of its
+ * state and its depth. Nodes are identified by their record index and linked through the parent indices,
+ * so a search with millions of nodes does not create objects or back-pointer chains in the heap, and the
+ * paths are rebuilt from the parent indices only when they are needed.
+ * </p>
+ *
+ * <p>
+ * The records are stored in chunks of direct memory ({@link java.nio.ByteBuffer#allocateDirect(int)}) or in
+ * regions of a memory-mapped file, which lets the operating system page out the nodes that are not used.
+ * The arena is not thread-safe.
+ * </p>
+ */
+public class OffHeapNodeArena implements Closeable {
+    public static final int RECORD_BYTES = 32;
+    private static final int COST = 0;
+    private static final int ESTIMATION = 8;
+    private static final int PARENT = 16;
+    private static final int ACTION = 20;
+    private static final int STATE = 24;
+    private static final int DEPTH = 28;
+
+    private final OffHeapChunks chunks;
+    private int size = 0;
+
+    /**
+     * Creates an arena in direct memory.
+     */
+    public OffHeapNodeArena() {
+        try {
+            this.chunks = new OffHeapChunks(null);
+        } catch (IOException e) {
+            // Not possible without a file
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Creates an arena backed by a memory-mapped file. The content of the file is overwritten.
+     *
+     * @param file file where the records are stored
+     * @throws IOException if the file can not be opened
+     */
+    public OffHeapNodeArena(File file) throws IOException {
+        this.chunks = new OffHeapChunks(file);
+    }
+
+    /**
+     * Appends a new node.
+     *
+     * @param state int key of the state of the node
+     * @param parent record of the parent node, or -1 for the initial node
+     * @param action index of the action that generated the node, or -1 for the initial node
+     * @param cost cost of the path to the node (g)
+     * @param estimation heuristic estimation of the cost to the goal (h)
+     * @return record index of the new node
+     */
+    public int add(int state, int parent, int action, double cost, double estimation) {
+        if (size == Integer.MAX_VALUE) {
+            throw new IllegalStateException("The arena is full");
+        }
+        int record = size;
+        long offset = (long) record * RECORD_BYTES;
+        chunks.ensureCapacity(offset + RECORD_BYTES);
+        chunks.putDouble(offset + COST, cost);
+        chunks.putDouble(offset + ESTIMATION, estimation);
+        chunks.putInt(offset + PARENT, parent);
+        chunks.putInt(offset + ACTION, action);
+        chunks.putInt(offset + STATE, state);
+        chunks.putInt(offset + DEPTH, (parent < 0) ? 0 : depth(parent) + 1);
+        size++;
+        return record;
+    }
+
+    public double cost(int record) {
+        return chunks.getDouble((long) record * RECORD_BYTES + COST);
+    }
+
+    public double estimation(int record) {
+        return chunks.getDouble((long) record * RECORD_BYTES + ESTIMATION);
+    }
+
+    public int parent(int record) {
+        return chunks.getInt((long) record * RECORD_BYTES + PARENT);
+    }
+
+    public int action(int record) {
+        return chunks.getInt((long) record * RECORD_BYTES + ACTION);
+    }
+
+    public int state(int record) {
+        return chunks.getInt((long) record * RECORD_BYTES + STATE);
+    }
+
+    /**
+     * @param record record index of a node
+     * @return number of nodes between the initial node and this node (0 for the initial node)
+     */
+    public int depth(int record) {
+        return chunks.getInt((long) record * RECORD_BYTES + DEPTH);
+    }
+
+    /**
+     * @return number of records stored
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of bytes reserved outside the heap
+     */
+    public long capacity() {
+        return chunks.capacity();
+    }
+
+    /**
+     * Removes all the records. The memory is kept to store new records.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Releases the file used by the arena. The direct memory is released when the arena is garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        chunks.close();
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.collections;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+/**
+ * Binary min-heap of {@code (priority, value)} pairs stored outside the Java heap, in chunks of direct memory,
+ * so queues with hundreds of millions of entries do not create objects. The values are ints (for example record
+ * indexes of an {@link OffHeapNodeArena}). Entries with the same priority are polled in insertion order
+ * of their values when the values grow, as the record indexes of an arena. The queue is not thread-safe.
+ */
+public class OffHeapPriorityQueue {
+    private static final int ENTRY_BYTES = 16;
+    private static final int PRIORITY = 0;
+    private static final int VALUE = 8;
+
+    private final OffHeapChunks chunks;
+    private int size = 0;
+
+    public OffHeapPriorityQueue() {
+        try {
+            this.chunks = new OffHeapChunks(null);
+        } catch (IOException e) {
+            // Not possible without a file
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Inserts a value with the given priority (lower values are polled first).
+     *
+     * @param priority priority of the value
+     * @param value value to insert
+     */
+    public void add(double priority, int value) {
+        if (size == Integer.MAX_VALUE) {
+            throw new IllegalStateException("The queue is full");
+        }
+        chunks.ensureCapacity((long) (size + 1) * ENTRY_BYTES);
+        // Sift up
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            double parentPriority = priority(parent);
+            if (parentPriority < priority || (parentPriority == priority && value(parent) <= value)) break;
+            set(i, parentPriority, value(parent));
+            i = parent;
+        }
+        set(i, priority, value);
+    }
+
+    /**
+     * @return value with the lowest priority
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public int peek() {
+        if (size == 0) throw new NoSuchElementException();
+        return value(0);
+    }
+
+    /**
+     * @return lowest priority in the queue
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public double peekPriority() {
+        if (size == 0) throw new NoSuchElementException();
+        return priority(0);
+    }
+
+    /**
+     * Removes the value with the lowest priority.
+     *
+     * @return removed value
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public int poll() {
+        if (size == 0) throw new NoSuchElementException();
+        int result = value(0);
+        size--;
+        if (size > 0) {
+            double priority = priority(size);
+            int value = value(size);
+            // Sift down the last entry from the root
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = (i << 1) + 1;
+                double childPriority = priority(child);
+                int childValue = value(child);
+                int right = child + 1;
+                if (right < size) {
+                    double rightPriority = priority(right);
+                    int rightValue = value(right);
+                    if (rightPriority < childPriority || (rightPriority == childPriority && rightValue < childValue)) {
+                        child = right;
+                        childPriority = rightPriority;
+                        childValue = rightValue;
+                    }
+                }
+                if (priority < childPriority || (priority == childPriority && value <= childValue)) break;
+                set(i, childPriority, childValue);
+                i = child;
+            }
+            set(i, priority, value);
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all the entries. The memory is kept to store new entries.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    private double priority(int i) {
+        return chunks.getDouble((long) i * ENTRY_BYTES + PRIORITY);
+    }
+
+    private int value(int i) {
+        return chunks.getInt((long) i * ENTRY_BYTES + VALUE);
+    }
+
+    private void set(int i, double priority, int value) {
+        long offset = (long) i * ENTRY_BYTES;
+        chunks.putDouble(offset + PRIORITY, priority);
+        chunks.putInt(offset + VALUE, value);
+    }
+}
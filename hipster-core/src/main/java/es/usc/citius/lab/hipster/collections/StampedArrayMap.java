@@ -0,0 +1,185 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.collections;
+
+import es.usc.citius.hipster.model.function.StateIndexer;
+
+import java.util.*;
+
+/**
+ * <p>
+ * {@link java.util.Map} backed by arrays indexed by the dense id of each key, given by a
+ * {@link es.usc.citius.hipster.model.function.StateIndexer}. Lookups and updates do not call
+ * {@code hashCode()} or {@code equals()} and do not allocate memory.
+ * </p>
+ *
+ * <p>
+ * Each slot is stamped with the generation in which it was written, and a slot only holds a mapping
+ * if its stamp is the current generation. This way {@link #clear()} only releases the slots written
+ * in the current generation and increments it, so the same map can be reused by many searches that
+ * touch a small part of a large state space. Null values are not allowed.
+ * </p>
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the values
+ */
+public class StampedArrayMap<K, V> extends AbstractMap<K, V> {
+    private final StateIndexer<? super K> indexer;
+    private final Object[] keys;
+    private final Object[] values;
+    private final int[] stamps;
+    private int generation = 1;
+    // Ids written in the current generation (including the removed ones), in order of insertion
+    private int[] touched = new int[16];
+    private int touchedSize = 0;
+    private int size = 0;
+
+    public StampedArrayMap(StateIndexer<? super K> indexer) {
+        int capacity = indexer.size();
+        this.indexer = indexer;
+        this.keys = new Object[capacity];
+        this.values = new Object[capacity];
+        this.stamps = new int[capacity];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int id = indexer.indexOf((K) key);
+        return (stamps[id] == generation) ? (V) values[id] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        if (value == null) throw new NullPointerException();
+        int id = indexer.indexOf(key);
+        V previous = null;
+        if (stamps[id] != generation) {
+            stamps[id] = generation;
+            if (touchedSize == touched.length) {
+                touched = Arrays.copyOf(touched, touchedSize << 1);
+            }
+            touched[touchedSize++] = id;
+        } else {
+            previous = (V) values[id];
+        }
+        keys[id] = key;
+        values[id] = value;
+        if (previous == null) size++;
+        return previous;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        int id = indexer.indexOf((K) key);
+        if (stamps[id] != generation || values[id] == null) return null;
+        V previous = (V) values[id];
+        // The stamp is kept, so the id is not added twice to the touched list
+        values[id] = null;
+        size--;
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all the mappings in time proportional to the number of keys written since the last
+     * clear, starting a new generation.
+     */
+    @Override
+    public void clear() {
+        // Release the keys and values so the map does not keep the nodes of the previous search alive
+        for (int i = 0; i < touchedSize; i++) {
+            int id = touched[i];
+            keys[id] = null;
+            values[id] = null;
+        }
+        if (++generation == Integer.MAX_VALUE) {
+            // Stamps from very old generations could be mistaken for the current one
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+        touchedSize = 0;
+        size = 0;
+    }
+
+    /**
+     * Returns a view of the mappings, in order of insertion. The iterator supports removal.
+     *
+     * @return set of mappings of this map
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public java.util.Iterator<Entry<K, V>> iterator() {
+                return new java.util.Iterator<Entry<K, V>>() {
+                    private int position = advance(0);
+                    private int last = -1;
+
+                    private int advance(int from) {
+                        while (from < touchedSize && values[touched[from]] == null) from++;
+                        return from;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return position < touchedSize;
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Entry<K, V> next() {
+                        if (position >= touchedSize) throw new NoSuchElementException();
+                        last = touched[position];
+                        position = advance(position + 1);
+                        return new SimpleImmutableEntry<K, V>((K) keys[last], (V) values[last]);
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last < 0 || values[last] == null) throw new IllegalStateException();
+                        values[last] = null;
+                        size--;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * @return number of keys that can be stored in the map
+     */
+    public int capacity() {
+        return stamps.length;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.collections;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Fixed-size, lossy transposition table which stores the best known cost (g) to reach each state.
+ * It is used by depth-first searches like IDA* to prune the paths that reach a state with a cost
+ * that is worse than a previously known one, even across different iterations of the search.
+ * </p>
+ *
+ * <p>
+ * The table uses open addressing: each state is looked up in a small number of consecutive slots
+ * ({@code probes}) starting at the slot given by its hash. When all the slots are in use, the entry
+ * with the highest cost is replaced, as the entries closer to the root prune larger subtrees. Entries
+ * can be lost, so a state that is not found must be explored, but the memory used by the table does not
+ * grow with the size of the search space.
+ * </p>
+ *
+ * <p>
+ * Each entry also stores the iteration in which it was updated, so a state reached again with the same
+ * cost is only pruned within the same iteration (in a new iteration the bound is different, so the
+ * state must be explored again).
+ * </p>
+ *
+ * @param <S> type of the states
+ * @param <C> type of the cost
+ */
+public class TranspositionTable<S, C extends Comparable<C>> {
+    /**
+     * Default number of slots checked for each state.
+     */
+    public static final int DEFAULT_PROBES = 4;
+
+    private final Object[] states;
+    private final Object[] costs;
+    private final int[] iterations;
+    private final int mask;
+    private final int probes;
+    private int size = 0;
+    private long hits = 0;
+    private long replacements = 0;
+
+    /**
+     * Creates a table with the given number of entries, rounded up to the next power of two.
+     *
+     * @param capacity max number of entries of the table
+     */
+    public TranspositionTable(int capacity) {
+        this(capacity, DEFAULT_PROBES);
+    }
+
+    /**
+     * @param capacity max number of entries of the table (rounded up to the next power of two)
+     * @param probes number of consecutive slots where a state can be stored
+     */
+    public TranspositionTable(int capacity, int probes) {
+        if (capacity < 1 || capacity > (1 << 30)) throw new IllegalArgumentException("Invalid capacity " + capacity);
+        if (probes < 1) throw new IllegalArgumentException("At least one probe is required");
+        int length = Integer.highestOneBit(capacity);
+        if (length < capacity) length <<= 1;
+        this.states = new Object[length];
+        this.costs = new Object[length];
+        this.iterations = new int[length];
+        this.mask = length - 1;
+        this.probes = Math.min(probes, length);
+    }
+
+    /**
+     * Checks if a state reached with a given cost should be explored, and records the cost if so.
+     * The state is pruned (the method returns false) if it was reached before with a lower cost, or
+     * with the same cost in the same iteration.
+     *
+     * @param state state reached
+     * @param cost cost to reach the state
+     * @param iteration current iteration of the search
+     * @return true if the state should be explored, false if it can be pruned
+     */
+    @SuppressWarnings("unchecked")
+    public boolean offer(S state, C cost, int iteration) {
+        int start = index(state);
+        int victim = -1;
+        for (int i = 0; i < probes; i++) {
+            int slot = (start + i) & mask;
+            Object current = states[slot];
+            if (current == null) {
+                // Not in the table (entries are replaced but never removed, so there are no gaps)
+                victim = slot;
+                break;
+            }
+            if (current.equals(state)) {
+                int cmp = ((C) costs[slot]).compareTo(cost);
+                if (cmp < 0 || (cmp == 0 && iterations[slot] == iteration)) {
+                    hits++;
+                    return false;
+                }
+                costs[slot] = cost;
+                iterations[slot] = iteration;
+                return true;
+            }
+            if (victim < 0 || ((C) costs[slot]).compareTo((C) costs[victim]) > 0) {
+                victim = slot;
+            }
+        }
+        if (states[victim] == null) {
+            size++;
+        } else {
+            replacements++;
+        }
+        states[victim] = state;
+        costs[victim] = cost;
+        iterations[victim] = iteration;
+        return true;
+    }
+
+    /**
+     * Retrieves the best known cost to reach a state.
+     *
+     * @param state state to look up
+     * @return best known cost, or null if the state is not in the table
+     */
+    @SuppressWarnings("unchecked")
+    public C get(S state) {
+        int start = index(state);
+        for (int i = 0; i < probes; i++) {
+            int slot = (start + i) & mask;
+            Object current = states[slot];
+            if (current == null) return null;
+            if (current.equals(state)) return (C) costs[slot];
+        }
+        return null;
+    }
+
+    /**
+     * Removes all the entries of the table.
+     */
+    public void clear() {
+        Arrays.fill(states, null);
+        Arrays.fill(costs, null);
+        Arrays.fill(iterations, 0);
+        size = 0;
+        hits = 0;
+        replacements = 0;
+    }
+
+    private int index(Object state) {
+        int h = state.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * @return number of entries in the table
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return max number of entries of the table
+     */
+    public int capacity() {
+        return states.length;
+    }
+
+    /**
+     * @return number of states pruned by the table
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return number of entries lost to store new states
+     */
+    public long getReplacements() {
+        return replacements;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.collections.adapter;
+
+import es.usc.citius.hipster.model.Node;
+import es.usc.citius.hipster.util.Function;
+import es.usc.citius.lab.hipster.collections.IndexedHeap;
+
+import java.util.Comparator;
+
+/**
+ * {@link es.usc.citius.lab.hipster.collections.IndexedHeap} of search nodes indexed by
+ * their state. The queue keeps at most one node per state, so when a better node for a state
+ * is offered the previous one is replaced in-place (decrease-key) instead of leaving a stale
+ * copy in the queue. It can be plugged into the algorithms that expose their internal queue,
+ * for example:
+ *
+ * <pre class="prettyprint">
+ *     {@code
+ *     AStar.Iterator it = Hipster.createAStar(problem).iterator();
+ *     Queue<WeightedNode<A,S,Double>> queue = new StateIndexedQueue<A,S,WeightedNode<A,S,Double>>();
+ *     queue.addAll(it.getQueue());
+ *     it.setQueue(queue);
+ *     }
+ * </pre>
+ *
+ * @param <A> type of the actions
+ * @param <S> type of the states
+ * @param <N> type of the nodes
+ */
+public class StateIndexedQueue<A, S, N extends Node<A, S, N>> extends IndexedHeap<S, N> {
+
+    /**
+     * Creates a queue which sorts the nodes by their natural ordering.
+     */
+    public StateIndexedQueue() {
+        this(null, DEFAULT_ARITY);
+    }
+
+    /**
+     * Creates a queue with a custom comparator and heap arity.
+     *
+     * @param comparator comparator used to sort the nodes, or null to use the natural ordering
+     * @param arity number of children of each heap slot
+     */
+    public StateIndexedQueue(Comparator<? super N> comparator, int arity) {
+        super(new Function<N, S>() {
+            @Override
+            public S apply(N node) {
+                return node.state();
+            }
+        }, comparator, arity);
+    }
+}
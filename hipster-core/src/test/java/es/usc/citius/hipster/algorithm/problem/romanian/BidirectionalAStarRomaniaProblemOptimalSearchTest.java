@@ -0,0 +1,83 @@
+package es.usc.citius.hipster.algorithm.problem.romanian;
+
+import es.usc.citius.hipster.algorithm.Algorithm;
+import es.usc.citius.hipster.algorithm.BidirectionalAStar;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.graph.GraphBuilder;
+import es.usc.citius.hipster.graph.GraphSearchProblem;
+import es.usc.citius.hipster.graph.HipsterDirectedGraph;
+import es.usc.citius.hipster.model.Node;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.SearchComponents;
+import es.usc.citius.hipster.util.examples.RomanianProblem;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Implementation of the Romania problem test for the bidirectional A* algorithm.
+ */
+public class BidirectionalAStarRomaniaProblemOptimalSearchTest extends RomaniaProblemOptimalHeuristicSearchTest {
+
+    @Override
+    public Algorithm<Void, RomanianProblem.City, ? extends Node<Void, RomanianProblem.City, ?>> createAlgorithm() {
+        SearchComponents components = GraphSearchProblem.startingFrom(RomanianProblem.City.Arad)
+                .goalAt(RomanianProblem.City.Bucharest)
+                .in(graph)
+                .takeCostsFromEdges()
+                .useHeuristicFunction(RomanianProblem.heuristicFunction())
+                .components();
+        return Hipster.createBidirectionalAStar(components);
+    }
+
+    @Override
+    public List<? extends Node<Void, RomanianProblem.City, ?>> iterativeSearch(Iterator<? extends Node<Void, RomanianProblem.City, ?>> iterator) {
+        while (iterator.hasNext()) {
+            iterator.next();
+        }
+        BidirectionalAStar.Iterator it = (BidirectionalAStar.Iterator) iterator;
+        // Only the forward frontier contains paths from Arad
+        this.expandedNodesTested = it.getForward().getClosed().values();
+        return it.getSolution().path();
+    }
+
+    @Test
+    public void bidirectionalDijkstraFromAradToBucharest() {
+        SearchComponents<Double, RomanianProblem.City, Double> components = GraphSearchProblem
+                .startingFrom(RomanianProblem.City.Arad)
+                .goalAt(RomanianProblem.City.Bucharest)
+                .in(graph)
+                .takeCostsFromEdges()
+                .useHeuristicFunction(null)
+                .components();
+        WeightedNode<Double, RomanianProblem.City, Double> goal = Hipster.createBidirectionalAStar(components)
+                .search(RomanianProblem.City.Bucharest).getGoalNode();
+        assertEquals(418d, goal.getCost(), 0d);
+        assertEquals(optimalPath, Algorithm.recoverStatePath(goal));
+    }
+
+    @Test
+    public void bidirectionalSearchInDirectedGraph() {
+        // The backward search must follow the incoming edges: C -> A can not be used to go from A to C
+        GraphBuilder<String, Double> builder = GraphBuilder.<String, Double>create()
+                .connect("A").to("B").withEdge(1d)
+                .connect("B").to("C").withEdge(1d)
+                .connect("A").to("C").withEdge(5d)
+                .connect("C").to("A").withEdge(1d);
+        for (HipsterDirectedGraph<String, Double> directed : Arrays.asList(builder.createDirectedGraph(), builder.createCompressedDirectedGraph())) {
+            SearchComponents<Double, String, Double> components = GraphSearchProblem
+                    .startingFrom("A").goalAt("C")
+                    .in(directed)
+                    .takeCostsFromEdges()
+                    .useHeuristicFunction(null)
+                    .components();
+            WeightedNode<Double, String, Double> goal = Hipster.createBidirectionalAStar(components).search("C").getGoalNode();
+            assertEquals(2d, goal.getCost(), 0d);
+            assertEquals(Arrays.asList("A", "B", "C"), Algorithm.recoverStatePath(goal));
+        }
+    }
+}
@@ -106,6 +106,25 @@ public abstract class RomaniaProblemOptimalSearchTest {
         }
     }
 
+    /**
+     * Check the path of states recovered from the goal node, both as a list and visiting the nodes.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void statePathFromAradToBucharest() {
+        Node goalNode = optimalPathSearchMethod.get(optimalPathSearchMethod.size() - 1);
+        assertEquals(optimalPath, Algorithm.recoverStatePath(goalNode));
+        assertEquals(optimalPath.size(), goalNode.pathSize());
+        final List<Object> visited = new ArrayList<Object>();
+        Algorithm.visitPath(goalNode, new Algorithm.SearchListener<Node>() {
+            @Override
+            public void handle(Node node) {
+                visited.add(node.state());
+            }
+        });
+        assertEquals(optimalPath, visited);
+    }
+
     /**
      * Check the costs of the elements expanded by the algorithm finding the optimal path.
      */
@@ -0,0 +1,73 @@
+package es.usc.citius.hipster.graph;
+
+import com.google.common.collect.Lists;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import es.usc.citius.hipster.util.examples.RomanianProblem;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class CompressedHipsterDirectedGraphTest extends HashBasedHipsterDirectedGraphTest {
+
+    @Before
+    @Override
+    public void setUp() {
+        graph = CompressedHipsterDirectedGraph.copyOf(createStarGraph(size));
+    }
+
+    @Test
+    public void testDenseIds() throws Exception {
+        CompressedHipsterDirectedGraph<String, Double> g = (CompressedHipsterDirectedGraph<String, Double>) graph;
+        assertEquals(size, g.vertexCount());
+        assertEquals(size * (size - 1) / 2, g.edgeCount());
+        assertEquals(-1, g.indexOf("X"));
+        int id = g.indexOf("v3");
+        assertEquals("v3", g.vertexAt(id));
+        assertEquals(id, g.vertexIndexer().indexOf("v3"));
+        assertEquals(-1, g.vertexIndexer().indexOf("X"));
+        assertEquals(size - 4, g.outgoingEnd(id) - g.outgoingStart(id));
+        assertEquals(3, g.incomingEnd(id) - g.incomingStart(id));
+        for (int i = g.incomingStart(id); i < g.incomingEnd(id); i++) {
+            assertEquals(id, g.target(g.incomingEdge(i)));
+        }
+    }
+
+    @Test
+    public void testBuilderWithGenericValues() throws Exception {
+        CompressedHipsterDirectedGraph<String, Object> g = CompressedHipsterDirectedGraph.<String, Object>builder()
+                .connect("A", "B", 1d)
+                .connect("B", "C", "x")
+                .connect("A", "C", 2)
+                .build();
+        List<GraphEdge<String, Object>> edges = Lists.newArrayList(g.outgoingEdgesOf("A"));
+        assertEquals(2, edges.size());
+        assertEquals(1d, edges.get(0).getEdgeValue());
+        assertEquals(2, edges.get(1).getEdgeValue());
+        // Incoming edges are sorted by source vertex
+        List<GraphEdge<String, Object>> incoming = Lists.newArrayList(g.incomingEdgesOf("C"));
+        assertEquals("A", incoming.get(0).getVertex1());
+        assertEquals("x", incoming.get(1).getEdgeValue());
+        assertEquals(2d, g.weight(g.outgoingStart(g.indexOf("A")) + 1), 0d);
+    }
+
+    @Test
+    public void testSearchProblemOnCompressedGraph() throws Exception {
+        CompressedHipsterDirectedGraph<RomanianProblem.City, Double> g =
+                CompressedHipsterDirectedGraph.copyOf(RomanianProblem.graph());
+        SearchProblem<Double, RomanianProblem.City, WeightedNode<Double, RomanianProblem.City, Double>> p =
+                GraphSearchProblem
+                        .startingFrom(RomanianProblem.City.Arad)
+                        .in(g)
+                        .takeCostsFromEdges()
+                        .build();
+        WeightedNode<Double, RomanianProblem.City, Double> goal =
+                Hipster.createAStar(p).search(RomanianProblem.City.Bucharest).getGoalNode();
+        assertEquals(418d, goal.getCost(), 0d);
+    }
+}
@@ -0,0 +1,180 @@
+package es.usc.citius.hipster.graph;
+
+import com.google.common.collect.Lists;
+import es.usc.citius.hipster.algorithm.Algorithm;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import es.usc.citius.hipster.util.examples.RomanianProblem;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class MappedHipsterDirectedGraphTest extends HashBasedHipsterDirectedGraphTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private <V> MappedHipsterDirectedGraph<V> writeAndMap(HipsterGraph<V, ? extends Number> g) throws IOException {
+        File file = folder.newFile();
+        MappedHipsterDirectedGraph.write(g, file);
+        return MappedHipsterDirectedGraph.map(file);
+    }
+
+    @Before
+    @Override
+    public void setUp() {
+        try {
+            folder.create();
+            graph = writeAndMap(createStarGraph(size));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void testDenseIds() throws Exception {
+        MappedHipsterDirectedGraph<String> g = (MappedHipsterDirectedGraph<String>) graph;
+        assertEquals(MappedHipsterDirectedGraph.VertexType.STRING, g.getVertexType());
+        assertEquals(size, g.vertexCount());
+        assertEquals(size * (size - 1) / 2, g.edgeCount());
+        assertEquals(-1, g.indexOf("X"));
+        for (int i = 0; i < size; i++) {
+            int id = g.indexOf("v" + i);
+            assertEquals("v" + i, g.vertexAt(id));
+            assertEquals(size - i - 1, g.outgoingEnd(id) - g.outgoingStart(id));
+            assertEquals(i, g.incomingEnd(id) - g.incomingStart(id));
+        }
+    }
+
+    @Test
+    public void testIntegerVerticesAndWeights() throws Exception {
+        HipsterDirectedGraph<Integer, Double> source = GraphBuilder.<Integer, Double>create()
+                .connect(300).to(-5).withEdge(1.5d)
+                .connect(300).to(7).withEdge(0.25d)
+                .connect(7).to(-5).withEdge(4d)
+                .createDirectedGraph();
+        MappedHipsterDirectedGraph<Integer> g = writeAndMap(source);
+        assertEquals(MappedHipsterDirectedGraph.VertexType.INT, g.getVertexType());
+        assertEquals(Arrays.asList(-5, 7, 300), Lists.newArrayList(g.vertices()));
+        assertEquals(-1, g.indexOf(8));
+        List<GraphEdge<Integer, Double>> edges = Lists.newArrayList(g.outgoingEdgesOf(300));
+        assertEquals(2, edges.size());
+        assertEquals(Lists.newArrayList(source.outgoingEdgesOf(300)), edges);
+        assertEquals(2, Lists.newArrayList(g.incomingEdgesOf(-5)).size());
+        // Vertices numbered from 0
+        MappedHipsterDirectedGraph<Integer> dense = writeAndMap(GraphBuilder.<Integer, Double>create()
+                .connect(0).to(1).withEdge(1d)
+                .connect(1).to(2).withEdge(1d)
+                .createDirectedGraph());
+        assertEquals(2, dense.indexOf(2));
+        assertEquals(-1, dense.indexOf(3));
+        assertEquals(-1, dense.indexOf(-1));
+    }
+
+    @Test
+    public void testLongVertices() throws Exception {
+        HashBasedHipsterDirectedGraph<Long, Integer> source = HashBasedHipsterDirectedGraph.create();
+        source.add(1L << 40);
+        source.add(2L);
+        source.connect(2L, 1L << 40, 3);
+        MappedHipsterDirectedGraph<Long> g = writeAndMap(source);
+        assertEquals(MappedHipsterDirectedGraph.VertexType.LONG, g.getVertexType());
+        GraphEdge<Long, Double> edge = g.outgoingEdgesOf(2L).iterator().next();
+        assertEquals(Long.valueOf(1L << 40), edge.getVertex2());
+        assertEquals(3d, edge.getEdgeValue(), 0d);
+    }
+
+    @Test
+    public void testSearchProblemOnMappedGraph() throws Exception {
+        // The undirected graph is written in both directions, and the cities are read back as strings
+        File file = folder.newFile();
+        MappedHipsterDirectedGraph.write(RomanianProblem.graph(), file);
+        MappedHipsterDirectedGraph<String> g = MappedHipsterDirectedGraph.map(file);
+        assertEquals(CompressedHipsterDirectedGraph.copyOf(RomanianProblem.graph()).edgeCount(), g.edgeCount());
+        SearchProblem<Double, String, WeightedNode<Double, String, Double>> p =
+                GraphSearchProblem
+                        .startingFrom("Arad")
+                        .in(g)
+                        .takeCostsFromEdges()
+                        .build();
+        assertNotNull(p.getStateIndexer());
+        WeightedNode<Double, String, Double> goal = Hipster.createAStar(p).search("Bucharest").getGoalNode();
+        assertEquals(418d, goal.getCost(), 0d);
+        assertEquals(Arrays.asList("Arad", "Sibiu", "Rimnicu_Vilcea", "Pitesti", "Bucharest"),
+                Algorithm.recoverStatePath(goal));
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidFile() throws Exception {
+        File file = folder.newFile();
+        FileWriter writer = new FileWriter(file);
+        writer.write("this is not a graph file, but it is long enough");
+        writer.close();
+        MappedHipsterDirectedGraph.map(file);
+    }
+
+    @Test
+    public void testEdgeToMissingVertex() throws Exception {
+        HashBasedHipsterDirectedGraph<Integer, Double> source = new HashBasedHipsterDirectedGraph<Integer, Double>() {
+            @Override
+            public Iterable<Integer> vertices() {
+                // Vertex 2 is reached by an edge, but it is not returned
+                return Arrays.asList(1);
+            }
+        };
+        source.add(1, 2);
+        source.connect(1, 2, 1d);
+        try {
+            MappedHipsterDirectedGraph.write(source, folder.newFile());
+            fail("The edge to a missing vertex should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("vertex 2"));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testDecreasingOffsets() throws Exception {
+        // Integer graph 0 -> 1, 1 -> 2: header, 3 vertices, 4 offsets, 2 targets and 2 weights
+        File file = writeChain();
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        // The offset of vertex 2 is set before the offset of vertex 1
+        raf.seek(raf.length() - 16 - 8);
+        raf.writeInt(0);
+        raf.close();
+        MappedHipsterDirectedGraph.map(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void testTargetOutOfBounds() throws Exception {
+        File file = writeChain();
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        // The first target points past the last vertex
+        raf.seek(raf.length() - 16);
+        raf.writeInt(3);
+        raf.close();
+        MappedHipsterDirectedGraph.map(file);
+    }
+
+    private File writeChain() throws IOException {
+        File file = folder.newFile();
+        MappedHipsterDirectedGraph.write(GraphBuilder.<Integer, Double>create()
+                .connect(0).to(1).withEdge(1d)
+                .connect(1).to(2).withEdge(1d)
+                .createDirectedGraph(), file);
+        // The chain is valid before it is corrupted
+        MappedHipsterDirectedGraph.map(file);
+        return file;
+    }
+}
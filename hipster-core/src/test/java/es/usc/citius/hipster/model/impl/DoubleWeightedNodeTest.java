@@ -0,0 +1,48 @@
+package es.usc.citius.hipster.model.impl;
+
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import es.usc.citius.lab.hipster.algorithm.IntegerProblems;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DoubleWeightedNodeTest {
+
+    // Integer line where each step costs 1.5 and the goal is 10
+    private static SearchProblem<Void, Integer, WeightedNode<Void, Integer, Double>> lineProblem() {
+        return IntegerProblems.lineProblem(1.5d, 10);
+    }
+
+    @Test
+    public void testProblemBuilderUsesPrimitiveNodes() {
+        SearchProblem<Void, Integer, WeightedNode<Void, Integer, Double>> p = lineProblem();
+        assertTrue(p.getInitialNode() instanceof DoubleWeightedNode);
+        WeightedNode<Void, Integer, Double> goal = Hipster.createAStar(p).search(10).getGoalNode();
+        assertTrue(goal instanceof DoubleWeightedNode);
+        assertEquals(15d, goal.getCost(), 0d);
+        assertEquals(0d, goal.getEstimation(), 0d);
+        assertEquals(15d, goal.getScore(), 0d);
+        assertEquals(11, goal.pathSize());
+    }
+
+    @Test
+    public void testCompareWithBoxedNodes() {
+        WeightedNode<Void, Integer, Double> boxed = new WeightedNode<Void, Integer, Double>(null, 0, null, 1d, 1d, 2d);
+        DoubleWeightedNode<Void, Integer> primitive = new DoubleWeightedNode<Void, Integer>(null, 0, null, 1d, 2d, 3d);
+        assertTrue(boxed.compareTo(primitive) < 0);
+        assertTrue(primitive.compareTo(boxed) > 0);
+        assertEquals(0, primitive.compareTo(new DoubleWeightedNode<Void, Integer>(null, 1, null, 2d, 1d, 3d)));
+    }
+
+    @Test
+    public void testCompareScores() {
+        DoubleWeightedNode<Void, Integer> primitive = new DoubleWeightedNode<Void, Integer>(null, 0, null, 1d, 2d, 3d);
+        WeightedNode<Void, Integer, Double> boxed = new WeightedNode<Void, Integer, Double>(null, 0, null, 1d, 1d, 2d);
+        assertEquals(0, DoubleWeightedNode.compareScores(primitive,
+                new DoubleWeightedNode<Void, Integer>(null, 1, null, 2d, 1d, 3d)));
+        assertTrue(DoubleWeightedNode.compareScores(boxed, primitive) < 0);
+        assertTrue(DoubleWeightedNode.compareScores(primitive, boxed) > 0);
+    }
+}
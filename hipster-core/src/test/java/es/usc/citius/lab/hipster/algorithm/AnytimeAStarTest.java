@@ -0,0 +1,105 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.algorithm;
+
+import es.usc.citius.hipster.algorithm.Algorithm;
+import es.usc.citius.hipster.algorithm.AnytimeAStar;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.algorithm.SearchBudget;
+import es.usc.citius.hipster.graph.GraphSearchProblem;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.SearchComponents;
+import es.usc.citius.hipster.util.examples.RomanianProblem;
+import es.usc.citius.hipster.util.examples.RomanianProblem.City;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class AnytimeAStarTest {
+
+    private static SearchComponents<Double, City, Double> components() {
+        return GraphSearchProblem.startingFrom(City.Arad)
+                .goalAt(City.Bucharest)
+                .in(RomanianProblem.graph())
+                .takeCostsFromEdges()
+                .useHeuristicFunction(RomanianProblem.heuristicFunction())
+                .components();
+    }
+
+    @Test
+    public void testImprovesUntilOptimal() {
+        AnytimeAStar<Double, City, Double> algorithm = Hipster.createAnytimeAStar(components(), 2.5d, 0.5d);
+        final List<Double> costs = new ArrayList<Double>();
+        final List<Double> bounds = new ArrayList<Double>();
+        algorithm.setListener(new AnytimeAStar.SolutionListener<WeightedNode<Double, City, Double>>() {
+            @Override
+            public void handle(WeightedNode<Double, City, Double> solution, double bound) {
+                costs.add(solution.getCost());
+                bounds.add(bound);
+            }
+        });
+        Algorithm.SearchResult result = algorithm.search(City.Bucharest);
+        WeightedNode<Double, City, Double> goal = (WeightedNode<Double, City, Double>) result.getGoalNode();
+        assertEquals(418d, goal.getCost(), 0d);
+        assertEquals(Arrays.asList(City.Arad, City.Sibiu, City.Rimnicu_Vilcea, City.Pitesti, City.Bucharest),
+                Algorithm.recoverStatePath(goal));
+        // The first solution with the inflated heuristic is suboptimal
+        assertTrue(costs.size() > 1);
+        assertTrue(costs.get(0) > 418d);
+        assertEquals(418d, costs.get(costs.size() - 1), 0d);
+        assertEquals(1d, bounds.get(bounds.size() - 1), 0d);
+        for (int i = 0; i < costs.size(); i++) {
+            assertTrue(costs.get(i) <= bounds.get(i) * 418d + 1e-9);
+            if (i > 0) {
+                assertTrue(costs.get(i) < costs.get(i - 1));
+                assertTrue(bounds.get(i) <= bounds.get(i - 1));
+            }
+        }
+    }
+
+    @Test
+    public void testWithoutInflationIsAStar() {
+        AnytimeAStar<Double, City, Double>.Iterator it = Hipster.createAnytimeAStar(components(), 1d, 0.5d).iterator();
+        int expanded = 0;
+        while (it.hasNext()) {
+            it.next();
+            expanded++;
+        }
+        assertEquals(1, it.getSolutions());
+        assertEquals(1d, it.getBound(), 0d);
+        assertEquals(418d, it.getSolution().getCost(), 0d);
+        // Same expansions as A*, except the goal, which does not need to be expanded
+        assertEquals(Hipster.createAStar(GraphSearchProblem.startingFrom(City.Arad)
+                .in(RomanianProblem.graph())
+                .takeCostsFromEdges()
+                .useHeuristicFunction(RomanianProblem.heuristicFunction())
+                .build()).search(City.Bucharest).getIterations(), expanded + 1);
+    }
+
+    @Test
+    public void testBudgetReturnsFirstSolution() {
+        AnytimeAStar<Double, City, Double> algorithm = Hipster.createAnytimeAStar(components(), 5d, 0.1d);
+        Algorithm.SearchResult result = algorithm.search(City.Bucharest, SearchBudget.unlimited().withExpansions(3));
+        assertTrue(result.isBudgetExhausted());
+        assertNotNull(result.getBestNode());
+    }
+}
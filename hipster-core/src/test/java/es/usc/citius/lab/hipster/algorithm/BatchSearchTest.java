@@ -0,0 +1,169 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.algorithm;
+
+import es.usc.citius.hipster.algorithm.AStar;
+import es.usc.citius.hipster.algorithm.Algorithm;
+import es.usc.citius.hipster.algorithm.BatchSearch;
+import es.usc.citius.hipster.algorithm.HDAStar;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.algorithm.SearchContext;
+import es.usc.citius.hipster.algorithm.SearchStatistics;
+import es.usc.citius.hipster.graph.GraphSearchProblem;
+import es.usc.citius.hipster.graph.Pair;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.util.Function;
+import es.usc.citius.hipster.util.examples.RomanianProblem;
+import es.usc.citius.hipster.util.examples.RomanianProblem.City;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BatchSearchTest {
+
+    private static final Function<City, AStar<Double, City, Double, WeightedNode<Double, City, Double>>> DIJKSTRA =
+            new Function<City, AStar<Double, City, Double, WeightedNode<Double, City, Double>>>() {
+        @Override
+        public AStar<Double, City, Double, WeightedNode<Double, City, Double>> apply(City source) {
+            return Hipster.createDijkstra(GraphSearchProblem
+                    .startingFrom(source)
+                    .in(RomanianProblem.graph())
+                    .takeCostsFromEdges()
+                    .build());
+        }
+    };
+
+    private static List<Pair<City>> allQueries() {
+        List<Pair<City>> queries = new ArrayList<Pair<City>>();
+        for (City source : City.values()) {
+            for (City target : City.values()) {
+                queries.add(new Pair<City>(source, target));
+            }
+        }
+        return queries;
+    }
+
+    @Test
+    public void testBatchMatchesSequentialSearch() throws Exception {
+        List<Pair<City>> queries = allQueries();
+        BatchSearch<Double, City, WeightedNode<Double, City, Double>> search = Hipster.batch(DIJKSTRA).useThreads(4);
+        BatchSearch<Double, City, WeightedNode<Double, City, Double>>.Batch batch = search.search(queries);
+        List<Algorithm<Double, City, WeightedNode<Double, City, Double>>.SearchResult> results = batch.getResults();
+        search.close();
+        assertEquals(queries.size(), results.size());
+        long iterations = 0;
+        for (int i = 0; i < queries.size(); i++) {
+            Pair<City> query = queries.get(i);
+            WeightedNode<Double, City, Double> expected =
+                    DIJKSTRA.apply(query.getE1()).search(query.getE2()).getGoalNode();
+            WeightedNode<Double, City, Double> goal = results.get(i).getGoalNode();
+            assertEquals(query.getE2(), goal.state());
+            assertEquals(expected.getCost(), goal.getCost(), 1e-5);
+            iterations += results.get(i).getIterations();
+        }
+        assertTrue(batch.isDone());
+        assertEquals(iterations, batch.getIterations());
+        assertTrue(batch.getThroughput() > 0);
+    }
+
+    @Test
+    public void testBatchWithExternalExecutor() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Pair<City>> queries = new ArrayList<Pair<City>>();
+            queries.add(new Pair<City>(City.Arad, City.Bucharest));
+            queries.add(new Pair<City>(City.Bucharest, City.Arad));
+            List<Algorithm<Double, City, WeightedNode<Double, City, Double>>.SearchResult> results =
+                    Hipster.batch(DIJKSTRA).useExecutor(executor).search(queries).getResults();
+            assertEquals(418d, results.get(0).getGoalNode().getCost(), 1e-5);
+            assertEquals(418d, results.get(1).getGoalNode().getCost(), 1e-5);
+            // The executor can still be used after the batch
+            assertTrue(!executor.isShutdown());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testQueriesReuseTheContextOfTheWorkerAndKeepTheirMonitor() throws Exception {
+        final List<AStar<Double, City, Double, WeightedNode<Double, City, Double>>> algorithms =
+                Collections.synchronizedList(new ArrayList<AStar<Double, City, Double, WeightedNode<Double, City, Double>>>());
+        final SearchStatistics statistics = new SearchStatistics();
+        Function<City, AStar<Double, City, Double, WeightedNode<Double, City, Double>>> factory =
+                new Function<City, AStar<Double, City, Double, WeightedNode<Double, City, Double>>>() {
+            @Override
+            public AStar<Double, City, Double, WeightedNode<Double, City, Double>> apply(City source) {
+                AStar<Double, City, Double, WeightedNode<Double, City, Double>> algorithm = DIJKSTRA.apply(source);
+                algorithm.setMonitor(statistics);
+                algorithms.add(algorithm);
+                return algorithm;
+            }
+        };
+        List<Pair<City>> queries = allQueries();
+        BatchSearch<Double, City, WeightedNode<Double, City, Double>> search = Hipster.batch(factory).useThreads(1);
+        try {
+            BatchSearch<Double, City, WeightedNode<Double, City, Double>>.Batch batch = search.search(queries);
+            batch.getResults();
+            // The next batch runs in the same pool
+            BatchSearch<Double, City, WeightedNode<Double, City, Double>>.Batch next = search.search(queries);
+            next.getResults();
+            // All the queries are solved by the same worker thread with the same context
+            SearchContext<City, WeightedNode<Double, City, Double>> context = algorithms.get(0).getContext();
+            for (AStar<Double, City, Double, WeightedNode<Double, City, Double>> algorithm : algorithms) {
+                assertSame(context, algorithm.getContext());
+            }
+            assertEquals(2 * queries.size(), context.getSearches());
+            // The events of the searches are reported to the monitor of each algorithm
+            assertEquals(batch.getIterations() + next.getIterations(), statistics.getExpanded());
+        } finally {
+            search.close();
+        }
+    }
+
+    @Test
+    public void testBatchUsesTheSearchOfEachAlgorithm() throws Exception {
+        Function<City, HDAStar<Double, City, Double, WeightedNode<Double, City, Double>>> factory =
+                new Function<City, HDAStar<Double, City, Double, WeightedNode<Double, City, Double>>>() {
+            @Override
+            public HDAStar<Double, City, Double, WeightedNode<Double, City, Double>> apply(City source) {
+                return Hipster.createHDAStar(GraphSearchProblem
+                        .startingFrom(source)
+                        .in(RomanianProblem.graph())
+                        .takeCostsFromEdges()
+                        .build(), 2);
+            }
+        };
+        List<Pair<City>> queries = allQueries();
+        BatchSearch<Double, City, WeightedNode<Double, City, Double>> search = Hipster.batch(factory).useThreads(2);
+        List<Algorithm<Double, City, WeightedNode<Double, City, Double>>.SearchResult> results =
+                search.search(queries).getResults();
+        search.close();
+        for (int i = 0; i < queries.size(); i++) {
+            Pair<City> query = queries.get(i);
+            double expected = DIJKSTRA.apply(query.getE1()).search(query.getE2()).getGoalNode().getCost();
+            assertEquals(expected, results.get(i).getGoalNode().getCost(), 1e-5);
+        }
+    }
+}
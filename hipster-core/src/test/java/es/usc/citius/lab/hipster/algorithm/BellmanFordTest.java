@@ -17,17 +17,23 @@
 package es.usc.citius.lab.hipster.algorithm;
 
 import es.usc.citius.hipster.algorithm.Algorithm;
+import es.usc.citius.hipster.algorithm.BellmanFord;
 import es.usc.citius.hipster.algorithm.Hipster;
 import es.usc.citius.hipster.algorithm.NegativeCycleException;
+import es.usc.citius.hipster.algorithm.ParallelBellmanFord;
 import es.usc.citius.hipster.graph.GraphBuilder;
 import es.usc.citius.hipster.graph.GraphSearchProblem;
+import es.usc.citius.hipster.graph.HashBasedHipsterDirectedGraph;
 import es.usc.citius.hipster.graph.HashBasedHipsterGraph;
 import es.usc.citius.hipster.graph.HipsterDirectedGraph;
 import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.SearchProblem;
 import org.junit.Test;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.assertEquals;
 
@@ -77,6 +83,62 @@ public class BellmanFordTest {
         assertEquals(4, cost);
     }
 
+    @Test(expected = NegativeCycleException.class)
+    public void parallelNegativeCycleTest(){
+        HipsterDirectedGraph<Integer,Integer> g =
+                GraphBuilder.<Integer, Integer>create()
+                        .connect(1).to(2).withEdge(1)
+                        .connect(2).to(3).withEdge(1)
+                        .connect(3).to(1).withEdge(-3)
+                        .connect(3).to(4).withEdge(2)
+                        .createDirectedGraph();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            Hipster.createBellmanFord(GraphSearchProblem.startingFrom(1).in(g).takeCostsFromEdges().build(), pool)
+                    .search(4);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void parallelRandomGraphTest(){
+        // Random graph with negative edges, but without cycles (edges only go from lower to higher vertices)
+        Random random = new Random(42);
+        HashBasedHipsterDirectedGraph<Integer, Double> g = new HashBasedHipsterDirectedGraph<Integer, Double>();
+        int vertices = 300;
+        for (int i = 0; i < vertices; i++) {
+            g.add(i);
+        }
+        for (int i = 0; i < vertices - 1; i++) {
+            for (int e = 0; e < 5; e++) {
+                int j = i + 1 + random.nextInt(vertices - i - 1);
+                g.connect(i, j, random.nextDouble() * 20 - 5);
+            }
+        }
+        SearchProblem<Double, Integer, WeightedNode<Double, Integer, Double>> problem =
+                GraphSearchProblem.startingFrom(0).in(g).takeCostsFromEdges().build();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            BellmanFord<Double, Integer, Double, WeightedNode<Double, Integer, Double>> parallel =
+                    Hipster.createBellmanFord(problem, pool);
+            // Relax the frontier in small chunks to force the concurrent updates
+            ((ParallelBellmanFord<Double, Integer, Double, WeightedNode<Double, Integer, Double>>) parallel).setThreshold(2);
+            for (int target = 1; target < vertices; target += 7) {
+                Algorithm<Double, Integer, WeightedNode<Double, Integer, Double>>.SearchResult expected =
+                        Hipster.createBellmanFord(problem).search(target);
+                Algorithm<Double, Integer, WeightedNode<Double, Integer, Double>>.SearchResult result =
+                        parallel.search(target);
+                assertEquals(expected.getGoalNodes().size(), result.getGoalNodes().size());
+                if (!expected.getGoalNodes().isEmpty()) {
+                    assertEquals(expected.getGoalNode().getCost(), result.getGoalNode().getCost(), 1e-5);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
 
 
     public static HashBasedHipsterGraph<Integer, Integer> completeRandomGraph(int vertices){
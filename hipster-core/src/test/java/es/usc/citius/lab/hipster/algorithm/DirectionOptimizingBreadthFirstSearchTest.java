@@ -0,0 +1,145 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.algorithm;
+
+import es.usc.citius.hipster.algorithm.DirectionOptimizingBreadthFirstSearch;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.graph.CompressedHipsterDirectedGraph;
+import es.usc.citius.hipster.graph.GraphBuilder;
+import es.usc.citius.hipster.graph.GraphEdge;
+import es.usc.citius.hipster.graph.GraphSearchProblem;
+import es.usc.citius.hipster.graph.HipsterDirectedGraph;
+import es.usc.citius.hipster.model.impl.UnweightedNode;
+import es.usc.citius.hipster.util.examples.RomanianProblem;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+
+public class DirectionOptimizingBreadthFirstSearchTest {
+
+    // Random directed graph with a low diameter
+    private static CompressedHipsterDirectedGraph<Integer, Double> randomGraph(int vertices, int degree) {
+        CompressedHipsterDirectedGraph.Builder<Integer, Double> builder = CompressedHipsterDirectedGraph.builder();
+        Random random = new Random(3);
+        for (int v = 0; v < vertices; v++) {
+            builder.add(v);
+            for (int i = 0; i < degree; i++) {
+                builder.connect(v, random.nextInt(vertices), (double) i);
+            }
+        }
+        return builder.build();
+    }
+
+    // Depth of each vertex found by the standard breadth first search
+    private static <V, E> Map<V, Integer> depths(V source, HipsterDirectedGraph<V, E> graph) {
+        Map<V, Integer> depths = new HashMap<V, Integer>();
+        for (UnweightedNode<E, V> node : Hipster.createBreadthFirstSearch(
+                GraphSearchProblem.startingFrom(source).in(graph).build())) {
+            depths.put(node.state(), node.pathSize());
+        }
+        return depths;
+    }
+
+    private static <V, E> Map<V, Integer> check(DirectionOptimizingBreadthFirstSearch<V, E> algorithm,
+                                                HipsterDirectedGraph<V, E> graph) {
+        Map<V, Integer> depths = new HashMap<V, Integer>();
+        int last = 0;
+        for (UnweightedNode<E, V> node : algorithm) {
+            assertTrue(node.pathSize() >= last);
+            last = node.pathSize();
+            assertNull(depths.put(node.state(), node.pathSize()));
+            if (node.previousNode() != null) {
+                // The node must be reached through an edge of its parent
+                boolean found = false;
+                for (GraphEdge<V, E> edge : graph.outgoingEdgesOf(node.previousNode().state())) {
+                    found |= edge.getVertex2().equals(node.state()) && edge.getEdgeValue().equals(node.action());
+                }
+                assertTrue(found);
+            }
+        }
+        return depths;
+    }
+
+    @Test
+    public void testSameDepthsAsBreadthFirstSearch() {
+        CompressedHipsterDirectedGraph<Integer, Double> graph = randomGraph(3000, 8);
+        Map<Integer, Integer> expected = depths(0, graph);
+        for (int alpha : new int[]{0, DirectionOptimizingBreadthFirstSearch.DEFAULT_ALPHA, Integer.MAX_VALUE}) {
+            DirectionOptimizingBreadthFirstSearch<Integer, Double> algorithm = Hipster.createBreadthFirstSearch(0, graph);
+            algorithm.setAlpha(alpha);
+            assertEquals(expected, check(algorithm, graph));
+        }
+    }
+
+    @Test
+    public void testBottomUpReducesEdgeInspections() {
+        CompressedHipsterDirectedGraph<Integer, Double> graph = randomGraph(20000, 16);
+        DirectionOptimizingBreadthFirstSearch<Integer, Double> algorithm = Hipster.createBreadthFirstSearch(0, graph);
+        algorithm.setAlpha(0);
+        DirectionOptimizingBreadthFirstSearch<Integer, Double>.Iterator topDown = algorithm.iterator();
+        while (topDown.hasNext()) topDown.nextLayer();
+        algorithm.setAlpha(DirectionOptimizingBreadthFirstSearch.DEFAULT_ALPHA);
+        DirectionOptimizingBreadthFirstSearch<Integer, Double>.Iterator optimized = algorithm.iterator();
+        while (optimized.hasNext()) optimized.nextLayer();
+        assertEquals(0, topDown.getBottomUpLayers());
+        assertTrue(optimized.getBottomUpLayers() > 0);
+        assertEquals(topDown.getVisitedCount(), optimized.getVisitedCount());
+        assertEquals(topDown.getDepth(), optimized.getDepth());
+        assertTrue(optimized.getEdgeInspections() * 2 < topDown.getEdgeInspections());
+    }
+
+    @Test
+    public void testRomania() {
+        // Undirected graph, each edge is copied in both directions
+        HipsterDirectedGraph<RomanianProblem.City, Double> graph = CompressedHipsterDirectedGraph.copyOf(RomanianProblem.graph());
+        DirectionOptimizingBreadthFirstSearch<RomanianProblem.City, Double> algorithm =
+                Hipster.createBreadthFirstSearch(RomanianProblem.City.Arad, graph);
+        algorithm.setAlpha(Integer.MAX_VALUE);
+        assertEquals(depths(RomanianProblem.City.Arad, graph), check(algorithm, graph));
+        UnweightedNode<Double, RomanianProblem.City> goal = algorithm.search(RomanianProblem.City.Bucharest).getGoalNode();
+        assertEquals(RomanianProblem.City.Bucharest, goal.state());
+        assertEquals(3, goal.pathSize() - 1);
+    }
+
+    @Test
+    public void testHashBasedDirectedGraph() {
+        // Bottom-up steps must follow the direction of the edges: C -> A does not reach A from C
+        HipsterDirectedGraph<String, Double> graph = GraphBuilder.<String, Double>create()
+                .connect("A").to("B").withEdge(1d)
+                .connect("B").to("C").withEdge(2d)
+                .connect("C").to("A").withEdge(3d)
+                .connect("D").to("C").withEdge(4d)
+                .createDirectedGraph();
+        DirectionOptimizingBreadthFirstSearch<String, Double> algorithm = Hipster.createBreadthFirstSearch("B", graph);
+        algorithm.setAlpha(Integer.MAX_VALUE);
+        Map<String, Integer> depths = check(algorithm, graph);
+        assertEquals(depths("B", graph), depths);
+        assertEquals(3, depths.size());
+        assertFalse(depths.containsKey("D"));
+    }
+
+    @Test
+    public void testSourceNotInGraph() {
+        DirectionOptimizingBreadthFirstSearch<Integer, Double>.Iterator it =
+                Hipster.createBreadthFirstSearch(-1, randomGraph(10, 2)).iterator();
+        assertEquals(Integer.valueOf(-1), it.next().state());
+        assertFalse(it.hasNext());
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.algorithm;
+
+import es.usc.citius.hipster.algorithm.Algorithm;
+import es.usc.citius.hipster.algorithm.ExternalBreadthFirstSearch;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.model.function.StateSerializer;
+import es.usc.citius.hipster.model.function.impl.StateTransitionFunction;
+import es.usc.citius.hipster.model.impl.UnweightedNode;
+import es.usc.citius.hipster.model.problem.ProblemBuilder;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ExternalBreadthFirstSearchTest {
+
+    private static final StateSerializer<Integer> INTEGERS = new StateSerializer<Integer>() {
+        @Override
+        public void write(Integer state, DataOutput out) throws IOException {
+            out.writeInt(state);
+        }
+
+        @Override
+        public Integer read(DataInput in) throws IOException {
+            return in.readInt();
+        }
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Directed state space: the actions can not be undone
+    private static SearchProblem<Void, Integer, UnweightedNode<Void, Integer>> directedProblem(final int n) {
+        return ProblemBuilder.create()
+                .initialState(1)
+                .defineProblemWithoutActions()
+                .useTransitionFunction(new StateTransitionFunction<Integer>() {
+                    @Override
+                    public Iterable<Integer> successorsOf(Integer state) {
+                        long x = state;
+                        return Arrays.asList((int) ((3 * x + 1) % n), (int) ((x * x + 7) % n), state / 2);
+                    }
+                })
+                .build();
+    }
+
+    // Grid of size x size cells with 4-connected moves
+    private static SearchProblem<Void, Integer, UnweightedNode<Void, Integer>> gridProblem(final int size) {
+        return ProblemBuilder.create()
+                .initialState(0)
+                .defineProblemWithoutActions()
+                .useTransitionFunction(IntegerProblems.grid(size))
+                .build();
+    }
+
+    // Depth of each reachable state, computed with the in-memory BFS
+    private static Map<Integer, Integer> depths(SearchProblem<Void, Integer, UnweightedNode<Void, Integer>> p) {
+        Map<Integer, Integer> depths = new HashMap<Integer, Integer>();
+        for (UnweightedNode<Void, Integer> node : Hipster.createBreadthFirstSearch(p)) {
+            depths.put(node.state(), node.pathSize() - 1);
+        }
+        return depths;
+    }
+
+    private static List<Long> layerSizes(Map<Integer, Integer> depths) {
+        List<Long> sizes = new ArrayList<Long>();
+        for (int depth : depths.values()) {
+            while (sizes.size() <= depth) sizes.add(0L);
+            sizes.set(depth, sizes.get(depth) + 1);
+        }
+        // The search ends with an empty layer
+        sizes.add(0L);
+        return sizes;
+    }
+
+    private static List<Long> layerSizes(List<ExternalBreadthFirstSearch.LayerStatistics> layers) {
+        List<Long> sizes = new ArrayList<Long>();
+        for (ExternalBreadthFirstSearch.LayerStatistics layer : layers) {
+            sizes.add(layer.getStates());
+        }
+        return sizes;
+    }
+
+    private static void assertSameStates(Map<Integer, Integer> expected, Iterator<UnweightedNode<Void, Integer>> it) {
+        Set<Integer> visited = new HashSet<Integer>();
+        while (it.hasNext()) {
+            UnweightedNode<Void, Integer> node = it.next();
+            assertTrue(visited.add(node.state()));
+            assertEquals(expected.get(node.state()).intValue(), node.pathSize() - 1);
+        }
+        assertEquals(expected.keySet(), visited);
+    }
+
+    @Test
+    public void testDirectedStateSpace() throws Exception {
+        SearchProblem<Void, Integer, UnweightedNode<Void, Integer>> p = directedProblem(50000);
+        Map<Integer, Integer> expected = depths(p);
+        ExternalBreadthFirstSearch<Void, Integer> bfs = Hipster.createExternalBreadthFirstSearch(p, INTEGERS, folder.newFolder());
+        // Small buffer to spill several runs per layer
+        bfs.setMemoryLimit(32 << 10);
+        ExternalBreadthFirstSearch<Void, Integer>.Iterator it = bfs.iterator();
+        assertSameStates(expected, it);
+        assertEquals(layerSizes(expected), layerSizes(it.getLayers()));
+        int maxRuns = 0;
+        for (ExternalBreadthFirstSearch.LayerStatistics layer : it.getLayers()) {
+            assertEquals(layer.getGenerated() - layer.getStates(), layer.getDuplicates());
+            maxRuns = Math.max(maxRuns, layer.getRuns());
+        }
+        assertTrue(maxRuns > 1);
+    }
+
+    @Test
+    public void testReversibleStateSpaceWithTwoLayers() throws Exception {
+        SearchProblem<Void, Integer, UnweightedNode<Void, Integer>> p = gridProblem(100);
+        ExternalBreadthFirstSearch<Void, Integer> bfs = Hipster.createExternalBreadthFirstSearch(p, INTEGERS, folder.newFolder());
+        bfs.setDuplicateLayers(2);
+        final List<ExternalBreadthFirstSearch.LayerStatistics> reported = new ArrayList<ExternalBreadthFirstSearch.LayerStatistics>();
+        bfs.setLayerListener(new ExternalBreadthFirstSearch.LayerListener() {
+            @Override
+            public void layerCompleted(ExternalBreadthFirstSearch.LayerStatistics layer) {
+                reported.add(layer);
+            }
+        });
+        ExternalBreadthFirstSearch<Void, Integer>.Iterator it = bfs.iterator();
+        Map<Integer, Integer> expected = depths(p);
+        assertSameStates(expected, it);
+        assertEquals(layerSizes(expected), layerSizes(reported));
+        // Manhattan distance from the corner: from 0 to 198
+        assertEquals(200, reported.size());
+    }
+
+    @Test
+    public void testResumeFromLastCompletedLayer() throws Exception {
+        SearchProblem<Void, Integer, UnweightedNode<Void, Integer>> p = directedProblem(50000);
+        Map<Integer, Integer> expected = depths(p);
+        File directory = folder.newFolder();
+        ExternalBreadthFirstSearch<Void, Integer> bfs = Hipster.createExternalBreadthFirstSearch(p, INTEGERS, directory);
+        bfs.setMemoryLimit(32 << 10);
+        ExternalBreadthFirstSearch<Void, Integer>.Iterator it = bfs.iterator();
+        // Stop in the middle of a layer, with runs already spilled
+        while (it.getDepth() < 8 || it.getBufferSize() == 0) {
+            it.next();
+        }
+        int completed = it.getLayers().size();
+
+        ExternalBreadthFirstSearch<Void, Integer>.Iterator resumed = bfs.iterator();
+        assertEquals(completed, resumed.getLayers().size());
+        assertEquals(8, resumed.getDepth());
+        Set<Integer> visited = new HashSet<Integer>();
+        while (resumed.hasNext()) {
+            UnweightedNode<Void, Integer> node = resumed.next();
+            assertTrue(node.pathSize() - 1 >= 8);
+            assertEquals(expected.get(node.state()).intValue(), node.pathSize() - 1);
+            visited.add(node.state());
+        }
+        assertEquals(layerSizes(expected), layerSizes(resumed.getLayers()));
+        long total = 0;
+        for (long size : layerSizes(expected).subList(8, layerSizes(expected).size())) total += size;
+        assertEquals(total, visited.size());
+    }
+
+    @Test
+    public void testRejectCheckpointOfAnotherInitialState() throws Exception {
+        File directory = folder.newFolder();
+        SearchProblem<Void, Integer, UnweightedNode<Void, Integer>> p = gridProblem(10);
+        Hipster.createExternalBreadthFirstSearch(p, INTEGERS, directory).search(99);
+        SearchProblem<Void, Integer, UnweightedNode<Void, Integer>> other = ProblemBuilder.create()
+                .initialState(5)
+                .defineProblemWithoutActions()
+                .useTransitionFunction(new StateTransitionFunction<Integer>() {
+                    @Override
+                    public Iterable<Integer> successorsOf(Integer state) {
+                        return Collections.singletonList((state + 1) % 100);
+                    }
+                })
+                .build();
+        try {
+            Hipster.createExternalBreadthFirstSearch(other, INTEGERS, directory).iterator();
+            fail("The checkpoint of a search from another initial state must be rejected");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("different initial state"));
+        }
+        // The same initial state resumes the search
+        assertEquals(Algorithm.SearchStatus.FOUND, Hipster.createExternalBreadthFirstSearch(p, INTEGERS, directory)
+                .search(99).getStatus());
+    }
+
+    @Test
+    public void testSearchClosesTheLayer() throws Exception {
+        Assume.assumeTrue(OpenFiles.available());
+        File directory = folder.newFolder();
+        ExternalBreadthFirstSearch<Void, Integer> bfs =
+                Hipster.createExternalBreadthFirstSearch(gridProblem(100), INTEGERS, directory);
+        // The goal is found in the middle of a layer
+        UnweightedNode<Void, Integer> goal = bfs.search(10 * 100 + 10).getGoalNode();
+        assertEquals(21, goal.pathSize());
+        assertEquals(0, OpenFiles.count(directory));
+
+        ExternalBreadthFirstSearch<Void, Integer>.Iterator it = bfs.iterator();
+        it.next();
+        assertTrue(OpenFiles.count(directory) > 0);
+        it.close();
+        assertFalse(it.hasNext());
+        assertEquals(0, OpenFiles.count(directory));
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.algorithm;
+
+import es.usc.citius.hipster.algorithm.Algorithm;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.algorithm.SearchBudget;
+import es.usc.citius.hipster.graph.GraphSearchProblem;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import es.usc.citius.hipster.util.examples.RomanianProblem;
+import es.usc.citius.hipster.util.examples.RomanianProblem.City;
+import es.usc.citius.hipster.util.examples.maze.Maze2D;
+import es.usc.citius.lab.hipster.maze.RandomMazes;
+import org.junit.Test;
+
+import java.awt.Point;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+
+public class HDAStarTest {
+
+    @Test
+    public void testRomania() {
+        SearchProblem<Double, City, WeightedNode<Double, City, Double>> p = GraphSearchProblem
+                .startingFrom(City.Arad)
+                .in(RomanianProblem.graph())
+                .takeCostsFromEdges()
+                .useHeuristicFunction(RomanianProblem.heuristicFunction())
+                .build();
+        for (int threads = 1; threads <= 4; threads++) {
+            WeightedNode<Double, City, Double> goal = Hipster.createHDAStar(p, threads)
+                    .search(City.Bucharest).getGoalNode();
+            assertEquals(418d, goal.getCost(), 0d);
+        }
+    }
+
+    @Test
+    public void testExecutor() {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            SearchProblem<Double, City, WeightedNode<Double, City, Double>> p = GraphSearchProblem
+                    .startingFrom(City.Arad)
+                    .in(RomanianProblem.graph())
+                    .takeCostsFromEdges()
+                    .useHeuristicFunction(RomanianProblem.heuristicFunction())
+                    .build();
+            // The same threads run the workers of consecutive searches
+            for (int i = 0; i < 5; i++) {
+                WeightedNode<Double, City, Double> goal = Hipster.createHDAStar(p, executor, 3)
+                        .search(City.Bucharest).getGoalNode();
+                assertEquals(418d, goal.getCost(), 0d);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCompletedSearchIsNotExhausted() {
+        SearchProblem<Double, City, WeightedNode<Double, City, Double>> p = GraphSearchProblem
+                .startingFrom(City.Arad)
+                .in(RomanianProblem.graph())
+                .takeCostsFromEdges()
+                .useHeuristicFunction(RomanianProblem.heuristicFunction())
+                .build();
+        // The search finishes before the workers check the budget, so the last expansions must not exhaust it
+        Algorithm.SearchResult result = Hipster.createHDAStar(p, 2)
+                .search(City.Bucharest, SearchBudget.unlimited().withExpansions(1));
+        assertEquals(Algorithm.SearchStatus.FOUND, result.getStatus());
+        assertEquals(418d, ((WeightedNode<Double, City, Double>) result.getGoalNode()).getCost(), 0d);
+    }
+
+    @Test
+    public void testSameCostAsAStarInMazes() {
+        for (long seed = 0; seed < 10; seed++) {
+            Maze2D maze = RandomMazes.random(40, 0.3, seed);
+            SearchProblem<Void, Point, WeightedNode<Void, Point, Double>> p = RandomMazes.problem(maze);
+            Algorithm.SearchResult sequential = Hipster.createAStar(p).search(maze.getGoalLoc());
+            WeightedNode<Void, Point, Double> expected = (WeightedNode<Void, Point, Double>) sequential.getGoalNode();
+            Algorithm.SearchResult parallel = Hipster.createHDAStar(p, 3).search(maze.getGoalLoc());
+            if (sequential.getStatus() == Algorithm.SearchStatus.NOT_FOUND) {
+                // Unreachable goal
+                assertTrue(parallel.getGoalNodes().isEmpty());
+            } else {
+                WeightedNode<Void, Point, Double> goal = (WeightedNode<Void, Point, Double>) parallel.getGoalNode();
+                assertEquals(expected.getCost(), goal.getCost(), 1e-9);
+                assertEquals(maze.getGoalLoc(), goal.state());
+            }
+        }
+    }
+
+    // Integer line with unit costs and no heuristic, without goal
+    @Test
+    public void testBudget() {
+        SearchProblem<Void, Integer, WeightedNode<Void, Integer, Double>> p = IntegerProblems.lineProblem(1d, null);
+        Algorithm.SearchResult result = Hipster.createHDAStar(p, 2)
+                .search(Integer.MAX_VALUE, SearchBudget.unlimited().withExpansions(10000));
+        assertTrue(result.isBudgetExhausted());
+        assertTrue(result.getGoalNodes().isEmpty());
+        assertNotNull(result.getBestNode());
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.algorithm;
+
+import es.usc.citius.hipster.algorithm.Algorithm;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.algorithm.IDAStar;
+import es.usc.citius.hipster.algorithm.ParallelIDAStar;
+import es.usc.citius.hipster.algorithm.SearchBudget;
+import es.usc.citius.hipster.graph.GraphSearchProblem;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import es.usc.citius.hipster.util.examples.RomanianProblem;
+import es.usc.citius.hipster.util.examples.RomanianProblem.City;
+import es.usc.citius.lab.hipster.collections.TranspositionTable;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+
+public class IDAStarTest {
+
+    // 8x8 grid with unit costs. The heuristic is the Manhattan distance to (4,4) scaled by the given
+    // weight (weight 0 turns IDA* into iterative deepening)
+    private static SearchProblem<Void, Integer, WeightedNode<Void, Integer, Double>> grid(double weight) {
+        return IntegerProblems.gridProblem(8, 36, weight);
+    }
+
+    private static int expansions(IDAStar<Void, Integer, Double, WeightedNode<Void, Integer, Double>> algorithm) {
+        IDAStar<Void, Integer, Double, WeightedNode<Void, Integer, Double>>.Iterator it = algorithm.iterator();
+        int expanded = 0;
+        WeightedNode<Void, Integer, Double> node;
+        do {
+            node = (WeightedNode<Void, Integer, Double>) it.next();
+            expanded++;
+        } while (!node.state().equals(36));
+        assertEquals(8d, node.getCost(), 0d);
+        return expanded;
+    }
+
+    @Test
+    public void testTranspositionTable() {
+        IDAStar<Void, Integer, Double, WeightedNode<Void, Integer, Double>> plain = Hipster.createIDAStar(grid(0));
+        IDAStar<Void, Integer, Double, WeightedNode<Void, Integer, Double>> table = Hipster.createIDAStar(grid(0));
+        table.setTranspositionTable(new TranspositionTable<Integer, Double>(1024));
+        int withoutTable = expansions(plain);
+        int withTable = expansions(table);
+        assertTrue(withTable * 10 < withoutTable);
+        // The table is cleared for each search
+        assertEquals(withTable, expansions(table));
+    }
+
+    @Test
+    public void testLossyTranspositionTable() {
+        // A table smaller than the grid still finds the optimal solution
+        IDAStar<Void, Integer, Double, WeightedNode<Void, Integer, Double>> plain = Hipster.createIDAStar(grid(0));
+        IDAStar<Void, Integer, Double, WeightedNode<Void, Integer, Double>> table = Hipster.createIDAStar(grid(0));
+        table.setTranspositionTable(new TranspositionTable<Integer, Double>(16, 1));
+        assertTrue(expansions(table) < expansions(plain));
+    }
+
+    @Test
+    public void testSuccessorOrdering() {
+        IDAStar<Void, Integer, Double, WeightedNode<Void, Integer, Double>> plain = Hipster.createIDAStar(grid(0.5));
+        IDAStar<Void, Integer, Double, WeightedNode<Void, Integer, Double>> ordered = Hipster.createIDAStar(grid(0.5));
+        ordered.setSuccessorOrdering(true);
+        assertTrue(expansions(ordered) < expansions(plain));
+    }
+
+    @Test
+    public void testParallelSameCostAsSequential() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int splitDepth = 0; splitDepth <= 4; splitDepth++) {
+                ParallelIDAStar<Void, Integer, Double, WeightedNode<Void, Integer, Double>> parallel =
+                        (ParallelIDAStar<Void, Integer, Double, WeightedNode<Void, Integer, Double>>)
+                                Hipster.createIDAStar(grid(0.5), pool);
+                parallel.setSplitDepth(splitDepth);
+                WeightedNode<Void, Integer, Double> goal = parallel.search(36).getGoalNode();
+                assertEquals(8d, goal.getCost(), 0d);
+                assertEquals(9, goal.path().size());
+            }
+            WeightedNode<Double, City, Double> goal = Hipster.createIDAStar(GraphSearchProblem.startingFrom(City.Arad)
+                    .in(RomanianProblem.graph())
+                    .takeCostsFromEdges()
+                    .useHeuristicFunction(RomanianProblem.heuristicFunction())
+                    .build(), pool).search(City.Bucharest).getGoalNode();
+            assertEquals(418d, goal.getCost(), 0d);
+            assertEquals(Arrays.asList(City.Arad, City.Sibiu, City.Rimnicu_Vilcea, City.Pitesti, City.Bucharest),
+                    Algorithm.recoverStatePath(goal));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelBudget() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            // Iterative deepening without heuristic requires many expansions
+            Algorithm.SearchResult result = Hipster.createIDAStar(grid(0), pool)
+                    .search(36, SearchBudget.unlimited().withExpansions(5000));
+            assertTrue(result.isBudgetExhausted());
+            assertTrue(result.getGoalNodes().isEmpty());
+            assertNotNull(result.getBestNode());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.algorithm;
+
+import es.usc.citius.hipster.model.Transition;
+import es.usc.citius.hipster.model.function.CostFunction;
+import es.usc.citius.hipster.model.function.HeuristicFunction;
+import es.usc.citius.hipster.model.function.StateIndexer;
+import es.usc.citius.hipster.model.function.impl.StateTransitionFunction;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.ProblemBuilder;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import es.usc.citius.hipster.util.Predicate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Grid and line problems with integer states shared by the tests of the algorithms. The cells of a grid of
+ * {@code size x size} cells are encoded as {@code row * size + column}.
+ */
+public final class IntegerProblems {
+
+    private IntegerProblems() {}
+
+    /**
+     * @param size number of rows and columns of the grid
+     * @return 4-connected moves between the cells of the grid
+     */
+    public static StateTransitionFunction<Integer> grid(int size) {
+        return grid(size, null);
+    }
+
+    /**
+     * @param size number of rows and columns of the grid
+     * @param free cells that can be entered, or null if all the cells are free
+     * @return 4-connected moves between the free cells of the grid
+     */
+    public static StateTransitionFunction<Integer> grid(final int size, final Predicate<Integer> free) {
+        return new StateTransitionFunction<Integer>() {
+            @Override
+            public Iterable<Integer> successorsOf(Integer state) {
+                int row = state / size, column = state % size;
+                List<Integer> successors = new ArrayList<Integer>(4);
+                if (row > 0) add(successors, state - size);
+                if (column > 0) add(successors, state - 1);
+                if (row < size - 1) add(successors, state + size);
+                if (column < size - 1) add(successors, state + 1);
+                return successors;
+            }
+
+            private void add(List<Integer> successors, Integer state) {
+                if (free == null || free.apply(state)) successors.add(state);
+            }
+        };
+    }
+
+    /**
+     * @param size number of rows and columns of the grid
+     * @param goal goal cell
+     * @param weight factor applied to the distance (0 for no heuristic)
+     * @return Manhattan distance to the goal, scaled by the weight
+     */
+    public static HeuristicFunction<Integer, Double> manhattan(final int size, final int goal, final double weight) {
+        return new HeuristicFunction<Integer, Double>() {
+            @Override
+            public Double estimate(Integer state) {
+                return weight * (Math.abs(goal / size - state / size) + Math.abs(goal % size - state % size));
+            }
+        };
+    }
+
+    /**
+     * Creates the shortest path problem of a grid with unit costs, from the first cell.
+     *
+     * @param size number of rows and columns of the grid
+     * @param goal goal cell of the heuristic
+     * @param weight factor applied to the Manhattan distance to the goal (0 for no heuristic)
+     * @return search problem of the grid
+     */
+    public static SearchProblem<Void, Integer, WeightedNode<Void, Integer, Double>> gridProblem(int size, int goal,
+                                                                                                double weight) {
+        return ProblemBuilder.create()
+                .initialState(0)
+                .defineProblemWithoutActions()
+                .useTransitionFunction(grid(size))
+                .useCostFunction(constantCost(1d))
+                .useHeuristicFunction(manhattan(size, goal, weight))
+                .build();
+    }
+
+    /**
+     * @return moves to the previous and the next integer of an infinite line
+     */
+    public static StateTransitionFunction<Integer> line() {
+        return new StateTransitionFunction<Integer>() {
+            @Override
+            public Iterable<Integer> successorsOf(Integer state) {
+                return Arrays.asList(state - 1, state + 1);
+            }
+        };
+    }
+
+    /**
+     * Creates the shortest path problem of an infinite line, from 0.
+     *
+     * @param cost cost of each step
+     * @param goal goal of the heuristic (the exact remaining cost), or null for no heuristic
+     * @return search problem of the line
+     */
+    public static SearchProblem<Void, Integer, WeightedNode<Void, Integer, Double>> lineProblem(final double cost,
+                                                                                                final Integer goal) {
+        return ProblemBuilder.create()
+                .initialState(0)
+                .defineProblemWithoutActions()
+                .useTransitionFunction(line())
+                .useCostFunction(constantCost(cost))
+                .useHeuristicFunction(new HeuristicFunction<Integer, Double>() {
+                    @Override
+                    public Double estimate(Integer state) {
+                        return (goal == null) ? 0d : cost * Math.abs(goal - state);
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * @param cost cost of each transition
+     * @return cost function with the same cost for every transition
+     */
+    public static CostFunction<Void, Integer, Double> constantCost(final double cost) {
+        return new CostFunction<Void, Integer, Double>() {
+            @Override
+            public Double evaluate(Transition<Void, Integer> transition) {
+                return cost;
+            }
+        };
+    }
+
+    /**
+     * @param size number of states
+     * @return indexer of the states {@code 0..size-1}, each one with its own value as id
+     */
+    public static StateIndexer<Integer> indexer(final int size) {
+        return new StateIndexer<Integer>() {
+            @Override
+            public int indexOf(Integer state) {
+                return state;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.algorithm;
+
+import es.usc.citius.hipster.algorithm.AStar;
+import es.usc.citius.hipster.algorithm.Algorithm;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.algorithm.JumpPointSearch;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import es.usc.citius.hipster.util.examples.maze.Maze2D;
+import es.usc.citius.hipster.util.examples.maze.Mazes;
+import es.usc.citius.lab.hipster.maze.RandomMazes;
+import org.junit.Test;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class JumpPointSearchTest {
+
+    private static void assertSamePath(Maze2D maze) {
+        Point goal = maze.getGoalLoc();
+        Algorithm<Void, Point, WeightedNode<Void, Point, Double>>.SearchResult expected =
+                Hipster.createAStar(RandomMazes.problem(maze)).search(goal);
+        Algorithm<Void, Point, WeightedNode<Void, Point, Double>>.SearchResult result =
+                Hipster.createJumpPointSearch(maze, maze.getInitialLoc(), maze.getGoalLoc()).search(goal);
+        if (expected.getStatus() == Algorithm.SearchStatus.NOT_FOUND) {
+            // No solution
+            assertEquals(Algorithm.SearchStatus.NOT_FOUND, result.getStatus());
+            assertNotEquals(goal, result.getGoalNode().state());
+            return;
+        }
+        WeightedNode<Void, Point, Double> node = result.getGoalNode();
+        assertEquals(goal, node.state());
+        assertEquals(expected.getGoalNode().getCost(), node.getCost(), 1e-9);
+        // The path contains every cell, not only the jump points
+        List<Point> path = Algorithm.recoverStatePath(node);
+        assertEquals(maze.getInitialLoc(), path.get(0));
+        assertEquals(node.pathSize(), path.size());
+        double cost = 0d;
+        for (int i = 1; i < path.size(); i++) {
+            Point from = path.get(i - 1), to = path.get(i);
+            assertTrue(maze.isFree(to));
+            assertTrue(Math.abs(from.x - to.x) <= 1 && Math.abs(from.y - to.y) <= 1);
+            cost += from.distance(to);
+        }
+        assertEquals(node.getCost(), cost, 1e-9);
+        assertTrue(result.getIterations() <= expected.getIterations());
+    }
+
+    @Test
+    public void testExampleMazes() {
+        for (String[] maze : Arrays.asList(Mazes.testMaze1, Mazes.testMaze2, Mazes.testMaze3, Mazes.testMaze4,
+                Mazes.testMaze5, Mazes.exampleMaze1)) {
+            assertSamePath(new Maze2D(maze));
+        }
+    }
+
+    @Test
+    public void testRandomMazes() {
+        for (int seed = 0; seed < 20; seed++) {
+            assertSamePath(RandomMazes.random(40, 0.05 * (seed % 7), seed));
+        }
+    }
+
+    @Test
+    public void testNoSolution() {
+        Maze2D maze = RandomMazes.random(20, 0d, 1L);
+        maze.putObstacleRectangle(new Point(0, 10), new Point(19, 10));
+        JumpPointSearch.Iterator it =
+                Hipster.createJumpPointSearch(maze, maze.getInitialLoc(), maze.getGoalLoc()).iterator();
+        int expanded = 0;
+        while (it.hasNext()) {
+            assertFalse(it.next().state().equals(maze.getGoalLoc()));
+            expanded++;
+        }
+        assertTrue(expanded > 0);
+    }
+
+    @Test
+    public void testOpenMap() {
+        // On an empty map JPS expands only a few jump points
+        Maze2D maze = RandomMazes.random(100, 0d, 1L);
+        maze.putObstacleRectangle(new Point(30, 20), new Point(40, 70));
+        Point goal = maze.getGoalLoc();
+        AStar<Void, Point, Double, WeightedNode<Void, Point, Double>> astar = Hipster.createAStar(RandomMazes.problem(maze));
+        Algorithm<Void, Point, WeightedNode<Void, Point, Double>>.SearchResult expected = astar.search(goal);
+        Algorithm<Void, Point, WeightedNode<Void, Point, Double>>.SearchResult result =
+                Hipster.createJumpPointSearch(maze, maze.getInitialLoc(), maze.getGoalLoc()).search(goal);
+        assertEquals(expected.getGoalNode().getCost(), result.getGoalNode().getCost(), 1e-9);
+        assertTrue(result.getIterations() * 10 < expected.getIterations());
+    }
+}
@@ -17,13 +17,19 @@
 package es.usc.citius.lab.hipster.algorithm;
 
 import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.algorithm.MultiobjectiveLS;
 import es.usc.citius.hipster.graph.GraphBuilder;
 import es.usc.citius.hipster.graph.GraphSearchProblem;
 import es.usc.citius.hipster.model.function.BinaryFunction;
 import es.usc.citius.hipster.model.function.impl.BinaryOperation;
 import es.usc.citius.hipster.graph.HipsterDirectedGraph;
+import es.usc.citius.hipster.model.impl.WeightedNode;
 import org.junit.Test;
 
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
 /**
  * @author Pablo Rodríguez Mier <<a href="mailto:pablo.rodriguez.mier@usc.es">pablo.rodriguez.mier@usc.es</a>>
  */
@@ -126,4 +132,47 @@ public class MultiobjectiveShortestPathTest {
 
         // TODO; Add solution verification
     }
+
+    @Test
+    public void testNonDominatedPathsOfEachState() {
+        HipsterDirectedGraph<String, Cost> graph =
+                GraphBuilder.create()
+                        .connect("v1").to("v2").withEdge(new Cost(7d, 1d))
+                        .connect("v1").to("v3").withEdge(new Cost(1d, 7d))
+                        .connect("v1").to("v4").withEdge(new Cost(8d, 4d))
+                        .connect("v2").to("v4").withEdge(new Cost(2d, 1d))
+                        .connect("v2").to("v6").withEdge(new Cost(2d, 2d))
+                        .connect("v3").to("v4").withEdge(new Cost(1d, 1d))
+                        .connect("v4").to("v5").withEdge(new Cost(6d, 4d))
+                        .connect("v4").to("v6").withEdge(new Cost(2d, 2d))
+                        .buildDirectedGraph();
+        BinaryOperation<Cost> bf = new BinaryOperation<Cost>(new BinaryFunction<Cost>() {
+            @Override
+            public Cost apply(Cost a, Cost b) {
+                return new Cost(a.c1 + b.c1, a.c2 + b.c2);
+            }
+        }, new Cost(0d, 0d), new Cost(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY));
+        MultiobjectiveLS<Cost, String, Cost, WeightedNode<Cost, String, Cost>>.Iterator it =
+                (MultiobjectiveLS<Cost, String, Cost, WeightedNode<Cost, String, Cost>>.Iterator)
+                Hipster.createMultiobjectiveLS(GraphSearchProblem.startingFrom("v1").in(graph).useGenericCosts(bf).build()).iterator();
+        while (it.hasNext()) {
+            it.next();
+        }
+        // The labels of a state are recorded the first time it is reached
+        assertEquals(new HashSet<Cost>(Arrays.asList(new Cost(7d, 1d))), costs(it.nonDominated.get("v2")));
+        // v1-v2-v4, v1-v3-v4 and v1-v4 do not dominate each other
+        assertEquals(new HashSet<Cost>(Arrays.asList(new Cost(9d, 2d), new Cost(2d, 8d), new Cost(8d, 4d))),
+                costs(it.nonDominated.get("v4")));
+        // v1-v2-v6 dominates v1-v4-v6 and v1-v2-v4-v6
+        assertEquals(new HashSet<Cost>(Arrays.asList(new Cost(9d, 3d), new Cost(4d, 10d))),
+                costs(it.nonDominated.get("v6")));
+    }
+
+    private static Set<Cost> costs(Collection<WeightedNode<Cost, String, Cost>> nodes) {
+        Set<Cost> costs = new HashSet<Cost>();
+        for (WeightedNode<Cost, String, Cost> node : nodes) {
+            costs.add(node.getCost());
+        }
+        return costs;
+    }
 }
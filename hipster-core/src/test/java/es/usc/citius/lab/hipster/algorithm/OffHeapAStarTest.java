@@ -0,0 +1,177 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package es.usc.citius.lab.hipster.algorithm;
+
+import es.usc.citius.hipster.algorithm.Algorithm;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.algorithm.OffHeapAStar;
+import es.usc.citius.hipster.algorithm.SearchBudget;
+import es.usc.citius.hipster.graph.CompressedHipsterDirectedGraph;
+import es.usc.citius.hipster.graph.GraphSearchProblem;
+import es.usc.citius.hipster.model.Node;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.ProblemBuilder;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import es.usc.citius.hipster.util.examples.RomanianProblem;
+import es.usc.citius.hipster.util.examples.maze.Maze2D;
+import es.usc.citius.hipster.util.examples.maze.Mazes;
+import es.usc.citius.hipster.util.grid.BitGrid2D;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OffHeapAStarTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static SearchProblem<Void, Integer, WeightedNode<Void, Integer, Double>> gridProblem(BitGrid2D grid) {
+        return ProblemBuilder.create()
+                .initialState(grid.getInitialCell())
+                .useStateIndexer(grid.stateIndexer())
+                .defineProblemWithoutActions()
+                .useTransitionFunction(grid.transitionFunction())
+                .useCostFunction(grid.costFunction())
+                .useHeuristicFunction(grid.heuristicFunction(grid.getGoalCell()))
+                .build();
+    }
+
+    private static SearchProblem<Double, RomanianProblem.City, WeightedNode<Double, RomanianProblem.City, Double>> romaniaProblem() {
+        return GraphSearchProblem.startingFrom(RomanianProblem.City.Arad)
+                .in(CompressedHipsterDirectedGraph.copyOf(RomanianProblem.graph()))
+                .takeCostsFromEdges()
+                .useHeuristicFunction(RomanianProblem.heuristicFunction())
+                .build();
+    }
+
+    private static <A> List<A> actions(Node<A, ?, ?> node) {
+        List<A> actions = new ArrayList<A>();
+        for (Node<A, ?, ?> n : node.path()) {
+            actions.add(n.action());
+        }
+        return actions;
+    }
+
+    @Test
+    public void testSameSolutionAsAStarInRomania() {
+        SearchProblem<Double, RomanianProblem.City, WeightedNode<Double, RomanianProblem.City, Double>> p = romaniaProblem();
+        WeightedNode<Double, RomanianProblem.City, Double> expected =
+                Hipster.createAStar(p).search(RomanianProblem.City.Bucharest).getGoalNode();
+        WeightedNode<Double, RomanianProblem.City, Double> goal =
+                Hipster.createOffHeapAStar(p).search(RomanianProblem.City.Bucharest).getGoalNode();
+        assertEquals(418d, goal.getCost(), 0d);
+        assertEquals(expected.pathSize(), goal.pathSize());
+        assertEquals(Algorithm.recoverStatePath(expected), Algorithm.recoverStatePath(goal));
+        // The actions (the edges) are recovered by expanding the parents again
+        assertEquals(actions(expected), actions(goal));
+    }
+
+    @Test
+    public void testSameCostAsAStarInMaze() {
+        Maze2D maze = new Maze2D(Mazes.testMaze3);
+        BitGrid2D grid = BitGrid2D.copyOf(maze, maze.getInitialLoc(), maze.getGoalLoc());
+        SearchProblem<Void, Integer, WeightedNode<Void, Integer, Double>> p = gridProblem(grid);
+        double expected = Hipster.createAStar(p).search(grid.getGoalCell()).getGoalNode().getCost();
+        OffHeapAStar<Void, Integer>.Iterator it = Hipster.createOffHeapAStar(p).iterator();
+        WeightedNode<Void, Integer, Double> goal;
+        do {
+            goal = it.next();
+        } while (goal.state() != grid.getGoalCell());
+        assertEquals(expected, goal.getCost(), 1e-9);
+        List<Integer> path = Algorithm.recoverStatePath(goal);
+        assertEquals(grid.getInitialCell(), path.get(0).intValue());
+        assertEquals(goal.pathSize(), path.size());
+        for (int i = 1; i < path.size(); i++) {
+            int dx = Math.abs(grid.x(path.get(i)) - grid.x(path.get(i - 1)));
+            int dy = Math.abs(grid.y(path.get(i)) - grid.y(path.get(i - 1)));
+            assertTrue(dx <= 1 && dy <= 1 && grid.isFree(path.get(i)));
+        }
+        assertTrue(it.getArena().size() >= it.getClosedSize());
+        it.close();
+    }
+
+    @Test
+    public void testArenaMappedToFile() throws Exception {
+        File file = folder.newFile();
+        Maze2D maze = new Maze2D(Mazes.testMaze3);
+        BitGrid2D grid = BitGrid2D.copyOf(maze, maze.getInitialLoc(), maze.getGoalLoc());
+        SearchProblem<Void, Integer, WeightedNode<Void, Integer, Double>> p = gridProblem(grid);
+        OffHeapAStar<Void, Integer> algorithm = Hipster.createOffHeapAStar(p);
+        double expected = algorithm.search(grid.getGoalCell()).getGoalNode().getCost();
+        algorithm.setArenaFile(file);
+        WeightedNode<Void, Integer, Double> goal = algorithm.search(grid.getGoalCell()).getGoalNode();
+        assertEquals(expected, goal.getCost(), 0d);
+        assertTrue(file.length() > 0);
+    }
+
+    @Test
+    public void testSearchClosesTheArenaFile() throws Exception {
+        Assume.assumeTrue(OpenFiles.available());
+        File file = folder.newFile();
+        SearchProblem<Double, RomanianProblem.City, WeightedNode<Double, RomanianProblem.City, Double>> p = romaniaProblem();
+        OffHeapAStar<Double, RomanianProblem.City> algorithm = Hipster.createOffHeapAStar(p);
+        algorithm.setArenaFile(file);
+        List<Double> expected = actions(Hipster.createAStar(p).search(RomanianProblem.City.Bucharest).getGoalNode());
+        for (int i = 0; i < 3; i++) {
+            WeightedNode<Double, RomanianProblem.City, Double> goal =
+                    algorithm.search(RomanianProblem.City.Bucharest).getGoalNode();
+            assertEquals(0, OpenFiles.count(file));
+            // The goal is copied out of the arena, so the path is still available
+            assertEquals(expected, actions(goal));
+        }
+        // The best node of an exhausted budget is copied too
+        Algorithm<Double, RomanianProblem.City, WeightedNode<Double, RomanianProblem.City, Double>>.SearchResult result =
+                algorithm.search(RomanianProblem.City.Bucharest, SearchBudget.unlimited().withExpansions(3));
+        assertEquals(Algorithm.SearchStatus.BUDGET_EXHAUSTED, result.getStatus());
+        assertEquals(0, OpenFiles.count(file));
+        assertEquals(RomanianProblem.City.Arad, Algorithm.recoverStatePath(result.getBestNode()).get(0));
+    }
+
+    @Test
+    public void testCloseReleasesTheIterator() throws Exception {
+        File file = folder.newFile();
+        OffHeapAStar<Double, RomanianProblem.City> algorithm = Hipster.createOffHeapAStar(romaniaProblem());
+        algorithm.setArenaFile(file);
+        OffHeapAStar<Double, RomanianProblem.City>.Iterator it = algorithm.iterator();
+        WeightedNode<Double, RomanianProblem.City, Double> node = null;
+        while (it.hasNext()) {
+            node = it.next();
+            if (node.state() == RomanianProblem.City.Bucharest) break;
+        }
+        WeightedNode<Double, RomanianProblem.City, Double> copy = it.detach(node);
+        it.close();
+        it.close();
+        assertFalse(it.hasNext());
+        assertEquals(0, it.getArena().capacity());
+        assertEquals(418d, copy.getCost(), 0d);
+        assertEquals(RomanianProblem.City.Arad, Algorithm.recoverStatePath(copy).get(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRequiresReversibleIndexer() {
+        Hipster.createOffHeapAStar(GraphSearchProblem.startingFrom(RomanianProblem.City.Arad)
+                .in(RomanianProblem.graph())
+                .takeCostsFromEdges()
+                .build());
+    }
+}
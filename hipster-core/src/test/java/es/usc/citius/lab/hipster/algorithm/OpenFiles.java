@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.algorithm;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Counts the file descriptors of the process, to check that the searches close their files.
+ * Only available in systems with {@code /proc/self/fd}.
+ */
+final class OpenFiles {
+    private static final File DESCRIPTORS = new File("/proc/self/fd");
+
+    private OpenFiles() {
+    }
+
+    /**
+     * @return true if the open files of the process can be listed
+     */
+    static boolean available() {
+        return DESCRIPTORS.isDirectory();
+    }
+
+    /**
+     * @param file file or directory
+     * @return number of open descriptors of the file, or of the files inside the directory
+     */
+    static int count(File file) throws IOException {
+        Path target = file.getCanonicalFile().toPath();
+        int count = 0;
+        DirectoryStream<Path> descriptors = Files.newDirectoryStream(DESCRIPTORS.toPath());
+        try {
+            for (Path descriptor : descriptors) {
+                try {
+                    if (Files.readSymbolicLink(descriptor).startsWith(target)) count++;
+                } catch (IOException e) {
+                    // The descriptor was closed while listing the directory
+                }
+            }
+        } finally {
+            descriptors.close();
+        }
+        return count;
+    }
+}
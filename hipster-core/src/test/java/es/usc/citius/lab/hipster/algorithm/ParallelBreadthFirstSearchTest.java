@@ -0,0 +1,131 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.algorithm;
+
+import es.usc.citius.hipster.algorithm.BreadthFirstSearch;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.algorithm.ParallelBreadthFirstSearch;
+import es.usc.citius.hipster.algorithm.SearchStatistics;
+import es.usc.citius.hipster.model.function.impl.StateTransitionFunction;
+import es.usc.citius.hipster.model.impl.UnweightedNode;
+import es.usc.citius.hipster.model.problem.ProblemBuilder;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+
+public class ParallelBreadthFirstSearchTest {
+
+    private static ForkJoinPool pool;
+
+    @BeforeClass
+    public static void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        pool.shutdown();
+    }
+
+    // Random directed graph with 2000 vertices and 3 successors per vertex
+    private static SearchProblem<Void, Integer, UnweightedNode<Void, Integer>> randomGraph() {
+        final Map<Integer, List<Integer>> successors = new HashMap<Integer, List<Integer>>();
+        Random random = new Random(7);
+        for (int v = 0; v < 2000; v++) {
+            List<Integer> list = new ArrayList<Integer>();
+            for (int i = 0; i < 3; i++) list.add(random.nextInt(2000));
+            successors.put(v, list);
+        }
+        return ProblemBuilder.create()
+                .initialState(0)
+                .defineProblemWithoutActions()
+                .useTransitionFunction(new StateTransitionFunction<Integer>() {
+                    @Override
+                    public Iterable<Integer> successorsOf(Integer state) {
+                        return successors.get(state);
+                    }
+                })
+                .build();
+    }
+
+    @Test
+    public void testSameDepthsAsSequential() {
+        SearchProblem<Void, Integer, UnweightedNode<Void, Integer>> p = randomGraph();
+        Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+        BreadthFirstSearch<Void, Integer, UnweightedNode<Void, Integer>>.Iterator sequential =
+                Hipster.createBreadthFirstSearch(p).iterator();
+        while (sequential.hasNext()) {
+            UnweightedNode<Void, Integer> node = sequential.next();
+            expected.put(node.state(), node.pathSize());
+        }
+        ParallelBreadthFirstSearch<Void, Integer, UnweightedNode<Void, Integer>> algorithm =
+                Hipster.createBreadthFirstSearch(p, pool);
+        algorithm.setThreshold(8);
+        ParallelBreadthFirstSearch<Void, Integer, UnweightedNode<Void, Integer>>.Iterator it = algorithm.iterator();
+        Map<Integer, Integer> depths = new HashMap<Integer, Integer>();
+        int last = 0;
+        while (it.hasNext()) {
+            UnweightedNode<Void, Integer> node = it.next();
+            // Nodes are returned in order of depth
+            assertTrue(node.pathSize() >= last);
+            last = node.pathSize();
+            assertNull(depths.put(node.state(), node.pathSize()));
+        }
+        assertEquals(expected, depths);
+    }
+
+    @Test
+    public void testLayers() {
+        ParallelBreadthFirstSearch<Void, Integer, UnweightedNode<Void, Integer>> algorithm =
+                Hipster.createBreadthFirstSearch(randomGraph(), pool);
+        SearchStatistics statistics = new SearchStatistics();
+        algorithm.setMonitor(statistics);
+        ParallelBreadthFirstSearch<Void, Integer, UnweightedNode<Void, Integer>>.Iterator it = algorithm.iterator();
+        assertEquals(Arrays.asList(0), states(it.nextLayer()));
+        assertEquals(0, it.getDepth());
+        // Partially consumed layer
+        UnweightedNode<Void, Integer> first = it.next();
+        assertEquals(1, it.getDepth());
+        int visited = 1;
+        List<UnweightedNode<Void, Integer>> rest = it.nextLayer();
+        assertEquals(1 + rest.size(), it.getLayer().size());
+        assertFalse(rest.contains(first));
+        visited += it.getLayer().size();
+        while (it.hasNext()) {
+            List<UnweightedNode<Void, Integer>> layer = it.nextLayer();
+            for (UnweightedNode<Void, Integer> node : layer) {
+                assertEquals(it.getDepth() + 1, node.pathSize());
+            }
+            visited += layer.size();
+        }
+        assertEquals(it.getVisited().size(), visited);
+        assertEquals(visited, statistics.getExpanded());
+    }
+
+    private static List<Integer> states(List<UnweightedNode<Void, Integer>> nodes) {
+        List<Integer> states = new ArrayList<Integer>();
+        for (UnweightedNode<Void, Integer> node : nodes) states.add(node.state());
+        return states;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.algorithm;
+
+import es.usc.citius.hipster.algorithm.Algorithm;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.algorithm.SMAStar;
+import es.usc.citius.hipster.graph.GraphSearchProblem;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import es.usc.citius.hipster.util.examples.RomanianProblem;
+import es.usc.citius.hipster.util.examples.RomanianProblem.City;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+
+public class SMAStarTest {
+
+    private static SearchProblem<Double, City, WeightedNode<Double, City, Double>> romania() {
+        return GraphSearchProblem.startingFrom(City.Arad)
+                .in(RomanianProblem.graph())
+                .takeCostsFromEdges()
+                .useHeuristicFunction(RomanianProblem.heuristicFunction())
+                .build();
+    }
+
+    @Test
+    public void testOptimalWithEnoughMemory() {
+        WeightedNode<Double, City, Double> goal = Hipster.createSMAStar(romania(), 1000)
+                .search(City.Bucharest).getGoalNode();
+        assertEquals(418d, goal.getCost(), 0d);
+        assertEquals(Arrays.asList(City.Arad, City.Sibiu, City.Rimnicu_Vilcea, City.Pitesti, City.Bucharest),
+                Algorithm.recoverStatePath(goal));
+    }
+
+    @Test
+    public void testOptimalWithBoundedMemory() {
+        // The optimal path has 5 nodes, A* keeps more than 15 nodes in memory
+        for (int maxNodes = 6; maxNodes <= 12; maxNodes++) {
+            SMAStar<Double, City, Double, WeightedNode<Double, City, Double>>.Iterator it =
+                    Hipster.createSMAStar(romania(), maxNodes).iterator();
+            WeightedNode<Double, City, Double> node;
+            do {
+                node = it.next();
+                assertTrue(it.getSize() <= maxNodes);
+            } while (!node.state().equals(City.Bucharest));
+            assertEquals(418d, node.getCost(), 0d);
+        }
+    }
+
+    @Test
+    public void testGridWithBoundedMemory() {
+        SMAStar<Void, Integer, Double, WeightedNode<Void, Integer, Double>>.Iterator it =
+                Hipster.createSMAStar(IntegerProblems.gridProblem(20, 399, 1d), 45).iterator();
+        WeightedNode<Void, Integer, Double> node;
+        do {
+            node = it.next();
+            assertTrue(it.getSize() <= 45);
+        } while (!node.state().equals(399));
+        assertEquals(38d, node.getCost(), 0d);
+        assertTrue(it.getDropped() > 0);
+    }
+
+    @Test
+    public void testPathLongerThanMemory() {
+        // The shortest path to Bucharest has 4 nodes, so it can not be found
+        SMAStar<Double, City, Double, WeightedNode<Double, City, Double>>.Iterator it =
+                Hipster.createSMAStar(romania(), 3).iterator();
+        while (it.hasNext()) {
+            assertNotEquals(City.Bucharest, it.next().state());
+            assertTrue(it.getSize() <= 3);
+        }
+    }
+}
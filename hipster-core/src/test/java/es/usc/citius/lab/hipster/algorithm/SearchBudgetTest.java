@@ -0,0 +1,169 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.algorithm;
+
+import es.usc.citius.hipster.algorithm.AStar;
+import es.usc.citius.hipster.algorithm.Algorithm;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.algorithm.SearchBudget;
+import es.usc.citius.hipster.algorithm.SearchMonitor;
+import es.usc.citius.hipster.algorithm.SearchStatistics;
+import es.usc.citius.hipster.graph.GraphSearchProblem;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import es.usc.citius.hipster.util.Predicate;
+import es.usc.citius.hipster.util.examples.RomanianProblem;
+import es.usc.citius.hipster.util.examples.RomanianProblem.City;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SearchBudgetTest {
+
+    // Infinite integer line where each step costs 1, with an optional heuristic to the goal
+    private static SearchProblem<Void, Integer, WeightedNode<Void, Integer, Double>> lineProblem(Integer goal) {
+        return IntegerProblems.lineProblem(1d, goal);
+    }
+
+    @Test
+    public void testExpansionsBudget() {
+        Algorithm<Void, Integer, WeightedNode<Void, Integer, Double>>.SearchResult result =
+                Hipster.createAStar(lineProblem(1000)).search(1000, SearchBudget.unlimited().withExpansions(50));
+        assertTrue(result.isBudgetExhausted());
+        assertEquals(Algorithm.SearchStatus.BUDGET_EXHAUSTED, result.getStatus());
+        assertTrue(result.getGoalNodes().isEmpty());
+        assertNull(result.getGoalNode());
+        assertEquals(50, result.getIterations());
+        // The best node is the closest to the goal
+        assertEquals(Integer.valueOf(49), result.getBestNode().state());
+    }
+
+    @Test
+    public void testTimeBudget() {
+        // Dijkstra never reaches the goal in time
+        Algorithm<Void, Integer, WeightedNode<Void, Integer, Double>>.SearchResult result =
+                Hipster.createDijkstra(lineProblem(null))
+                        .search(Integer.MAX_VALUE, SearchBudget.unlimited().withTime(20, TimeUnit.MILLISECONDS));
+        assertTrue(result.isBudgetExhausted());
+        assertTrue(result.getIterations() > 0);
+        assertNotNull(result.getBestNode());
+    }
+
+    @Test
+    public void testStoredNodesBudget() {
+        SearchStatistics stats = new SearchStatistics();
+        Algorithm<Void, Integer, WeightedNode<Void, Integer, Double>> dijkstra = Hipster.createDijkstra(lineProblem(null));
+        dijkstra.setMonitor(stats);
+        Algorithm<Void, Integer, WeightedNode<Void, Integer, Double>>.SearchResult result =
+                dijkstra.search(Integer.MAX_VALUE, SearchBudget.unlimited().withStoredNodes(100));
+        assertTrue(result.isBudgetExhausted());
+        assertEquals(101, stats.getPeakOpen() + stats.getPeakClosed());
+        // The monitor of the algorithm is kept and receives the events forwarded by the tracker
+        assertSame(stats, dijkstra.getMonitor());
+        assertEquals(result.getIterations(), stats.getExpanded());
+    }
+
+    @Test
+    public void testBudgetNotReached() {
+        Algorithm<Double, City, WeightedNode<Double, City, Double>>.SearchResult result =
+                Hipster.createAStar(GraphSearchProblem.startingFrom(City.Arad)
+                        .in(RomanianProblem.graph())
+                        .takeCostsFromEdges()
+                        .useHeuristicFunction(RomanianProblem.heuristicFunction())
+                        .build())
+                        .search(City.Bucharest, SearchBudget.unlimited().withExpansions(1000));
+        assertFalse(result.isBudgetExhausted());
+        assertEquals(Algorithm.SearchStatus.FOUND, result.getStatus());
+        assertEquals(418d, result.getGoalNode().getCost(), 0d);
+        assertSame(result.getGoalNode(), result.getBestNode());
+    }
+
+    @Test
+    public void testBellmanFordBudgetKeepsGoal() {
+        Algorithm<Double, City, WeightedNode<Double, City, Double>>.SearchResult result =
+                Hipster.createBellmanFord(GraphSearchProblem.startingFrom(City.Arad)
+                        .in(RomanianProblem.graph())
+                        .takeCostsFromEdges()
+                        .build())
+                        .search(City.Arad, SearchBudget.unlimited().withExpansions(3));
+        assertTrue(result.isBudgetExhausted());
+        assertEquals(City.Arad, result.getGoalNode().state());
+    }
+
+    @Test
+    public void testGoalNotFound() {
+        Algorithm<Double, City, WeightedNode<Double, City, Double>>.SearchResult result =
+                Hipster.createDijkstra(GraphSearchProblem.startingFrom(City.Arad)
+                        .in(RomanianProblem.graph())
+                        .takeCostsFromEdges()
+                        .build())
+                        .search(new Predicate<WeightedNode<Double, City, Double>>() {
+                            @Override
+                            public boolean apply(WeightedNode<Double, City, Double> node) {
+                                return false;
+                            }
+                        }, SearchBudget.unlimited().withExpansions(1000));
+        assertEquals(Algorithm.SearchStatus.NOT_FOUND, result.getStatus());
+        assertFalse(result.isBudgetExhausted());
+        // As in Hipster 1.0, the result keeps the last node expanded
+        assertNotNull(result.getGoalNode());
+        assertEquals(1, result.getGoalNodes().size());
+        assertEquals(City.values().length, result.getIterations());
+    }
+
+    @Test
+    public void testBudgetDoesNotReplaceTheMonitorOfTheAlgorithm() {
+        final SearchStatistics stats = new SearchStatistics();
+        final AStar<Void, Integer, Double, WeightedNode<Void, Integer, Double>> dijkstra =
+                Hipster.createDijkstra(lineProblem(null));
+        final boolean[] checked = {false};
+        // Checks the algorithm while the budgeted search is running, as another search would see it
+        dijkstra.setMonitor(new SearchMonitor.Adapter<Object>() {
+            @Override
+            public void expanded(Object node, int successors) {
+                stats.expanded(node, successors);
+                if (!checked[0]) {
+                    checked[0] = true;
+                    assertSame(this, dijkstra.getMonitor());
+                    assertSame(this, dijkstra.iterator().getMonitor());
+                }
+            }
+        });
+        Algorithm<Void, Integer, WeightedNode<Void, Integer, Double>>.SearchResult result =
+                dijkstra.search(Integer.MAX_VALUE, SearchBudget.unlimited().withStoredNodes(100));
+        assertTrue(checked[0]);
+        assertTrue(result.isBudgetExhausted());
+        assertEquals(result.getIterations(), stats.getExpanded());
+    }
+
+    @Test
+    public void testMemoryBudget() {
+        assertEquals(100, SearchBudget.unlimited().withMemory(12800, 128).getStoredNodes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMemoryBudgetWithZeroBytesPerNode() {
+        SearchBudget.unlimited().withMemory(1024, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeMemoryBudget() {
+        SearchBudget.unlimited().withMemory(-1, 128);
+    }
+}
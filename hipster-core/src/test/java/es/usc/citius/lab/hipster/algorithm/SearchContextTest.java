@@ -0,0 +1,115 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.algorithm;
+
+import es.usc.citius.hipster.algorithm.AStar;
+import es.usc.citius.hipster.algorithm.Algorithm;
+import es.usc.citius.hipster.algorithm.BellmanFord;
+import es.usc.citius.hipster.algorithm.BreadthFirstSearch;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.algorithm.SearchContext;
+import es.usc.citius.hipster.model.Transition;
+import es.usc.citius.hipster.model.function.CostFunction;
+import es.usc.citius.hipster.model.function.StateIndexer;
+import es.usc.citius.hipster.model.function.impl.StateTransitionFunction;
+import es.usc.citius.hipster.model.impl.UnweightedNode;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.ProblemBuilder;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+public class SearchContextTest {
+
+    // 20x20 grid. Moving down costs 2, the other moves cost 1
+    private static final StateTransitionFunction<Integer> GRID = IntegerProblems.grid(20);
+
+    private static final StateIndexer<Integer> INDEXER = IntegerProblems.indexer(400);
+
+    private static SearchProblem<Void, Integer, WeightedNode<Void, Integer, Double>> weighted(int start) {
+        return ProblemBuilder.create()
+                .initialState(start)
+                .defineProblemWithoutActions()
+                .useTransitionFunction(GRID)
+                .useCostFunction(new CostFunction<Void, Integer, Double>() {
+                    @Override
+                    public Double evaluate(Transition<Void, Integer> transition) {
+                        return (transition.getState() == transition.getFromState() + 20) ? 2d : 1d;
+                    }
+                })
+                .useHeuristicFunction(IntegerProblems.manhattan(20, 399, 1d))
+                .build();
+    }
+
+    @Test
+    public void testAStarReusesContext() {
+        SearchContext<Integer, WeightedNode<Void, Integer, Double>> context =
+                new SearchContext<Integer, WeightedNode<Void, Integer, Double>>(INDEXER);
+        for (int start = 0; start < 300; start += 37) {
+            WeightedNode<Void, Integer, Double> expected = Hipster.createAStar(weighted(start)).search(399).getGoalNode();
+            AStar<Void, Integer, Double, WeightedNode<Void, Integer, Double>> astar = Hipster.createAStar(weighted(start));
+            astar.setContext(context);
+            WeightedNode<Void, Integer, Double> goal = astar.search(399).getGoalNode();
+            assertEquals(expected.getCost(), goal.getCost());
+            assertEquals(Algorithm.recoverStatePath(expected), Algorithm.recoverStatePath(goal));
+            AStar<Void, Integer, Double, WeightedNode<Void, Integer, Double>>.Iterator it = astar.iterator();
+            assertSame(context.getOpen(), it.getOpen());
+            assertSame(context.getClosed(), it.getClosed());
+            assertSame(context.getPriorityQueue(), it.getQueue());
+            // The new iterator starts from scratch
+            assertEquals(1, it.getOpen().size());
+            assertTrue(it.getClosed().isEmpty());
+        }
+        assertEquals(18, context.getSearches());
+    }
+
+    @Test
+    public void testBreadthFirstSearchReusesContext() {
+        SearchContext<Integer, UnweightedNode<Void, Integer>> context = new SearchContext<Integer, UnweightedNode<Void, Integer>>();
+        for (int start = 0; start < 400; start += 57) {
+            SearchProblem<Void, Integer, UnweightedNode<Void, Integer>> p = ProblemBuilder.create()
+                    .initialState(start)
+                    .defineProblemWithoutActions()
+                    .useTransitionFunction(GRID)
+                    .build();
+            UnweightedNode<Void, Integer> expected = Hipster.createBreadthFirstSearch(p).search(399).getGoalNode();
+            BreadthFirstSearch<Void, Integer, UnweightedNode<Void, Integer>> bfs = Hipster.createBreadthFirstSearch(p);
+            bfs.setContext(context);
+            UnweightedNode<Void, Integer> goal = bfs.search(399).getGoalNode();
+            assertEquals(expected.pathSize(), goal.pathSize());
+            assertSame(context.getClosed(), bfs.iterator().getVisited());
+        }
+    }
+
+    @Test
+    public void testBellmanFordReusesContext() {
+        SearchContext<Integer, WeightedNode<Void, Integer, Double>> context =
+                new SearchContext<Integer, WeightedNode<Void, Integer, Double>>(INDEXER);
+        for (int start = 0; start < 400; start += 91) {
+            WeightedNode<Void, Integer, Double> expected = Hipster.createDijkstra(weighted(start)).search(399).getGoalNode();
+            BellmanFord<Void, Integer, Double, WeightedNode<Void, Integer, Double>> bf = Hipster.createBellmanFord(weighted(start));
+            bf.setContext(context);
+            WeightedNode<Void, Integer, Double> goal = bf.search(399).getGoalNode();
+            assertEquals(expected.getCost(), goal.getCost());
+            BellmanFord<Void, Integer, Double, WeightedNode<Void, Integer, Double>>.Iterator it = bf.iterator();
+            assertSame(context.getStateQueue(), it.getQueue());
+            assertEquals(1, it.getExplored().size());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.algorithm;
+
+import es.usc.citius.hipster.algorithm.AStar;
+import es.usc.citius.hipster.algorithm.Algorithm;
+import es.usc.citius.hipster.algorithm.BreadthFirstSearch;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.algorithm.SearchMonitor;
+import es.usc.citius.hipster.algorithm.SearchStatistics;
+import es.usc.citius.hipster.graph.GraphSearchProblem;
+import es.usc.citius.hipster.model.impl.UnweightedNode;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.util.examples.RomanianProblem;
+import es.usc.citius.hipster.util.examples.RomanianProblem.City;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SearchStatisticsTest {
+
+    @Test
+    public void testAStarStatistics() {
+        SearchStatistics stats = new SearchStatistics();
+        AStar<Double, City, Double, WeightedNode<Double, City, Double>> astar = Hipster.createAStar(
+                GraphSearchProblem.startingFrom(City.Arad)
+                        .in(RomanianProblem.graph())
+                        .takeCostsFromEdges()
+                        .useHeuristicFunction(SearchStatistics.timed(RomanianProblem.heuristicFunction(), stats))
+                        .build());
+        assertSame(SearchMonitor.NONE, astar.getMonitor());
+        astar.setMonitor(stats);
+        Algorithm<Double, City, WeightedNode<Double, City, Double>>.SearchResult result = astar.search(City.Bucharest);
+
+        assertEquals(418d, result.getGoalNode().getCost(), 0d);
+        assertEquals(result.getIterations(), stats.getExpanded());
+        assertTrue(stats.getGenerated() >= stats.getExpanded());
+        assertTrue(stats.getHeuristicEvaluations() > stats.getGenerated());
+        assertTrue(stats.getPeakOpen() > 0);
+        assertEquals(stats.getExpanded(), stats.getPeakClosed());
+        long expansions = 0;
+        for (long count : stats.getBranchingHistogram()) {
+            expansions += count;
+        }
+        assertEquals(stats.getExpanded(), expansions);
+
+        final Map<String, Long> exported = new LinkedHashMap<String, Long>();
+        stats.export(new SearchStatistics.Exporter() {
+            @Override
+            public void export(String name, long value) {
+                exported.put(name, value);
+            }
+        });
+        assertEquals(stats.asMap(), exported);
+        assertEquals(Long.valueOf(stats.getGenerated()), exported.get("generated"));
+    }
+
+    @Test
+    public void testBreadthFirstStatistics() {
+        SearchStatistics stats = new SearchStatistics();
+        BreadthFirstSearch<Double, City, UnweightedNode<Double, City>> bfs = Hipster.createBreadthFirstSearch(
+                GraphSearchProblem.startingFrom(City.Arad).in(RomanianProblem.graph()).build());
+        bfs.setMonitor(stats);
+        // Full exploration of the graph: each node is expanded once
+        int expanded = 0;
+        for (UnweightedNode<Double, City> node : bfs) {
+            expanded++;
+        }
+        assertEquals(City.values().length, expanded);
+        assertEquals(expanded, stats.getExpanded());
+        // Every generated node except the first visit of each state (but the initial one) is a duplicate
+        assertEquals(stats.getGenerated() - (City.values().length - 1), stats.getDuplicated());
+        stats.clear();
+        assertEquals(0, stats.getExpanded());
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.algorithm;
+
+import es.usc.citius.hipster.algorithm.AStar;
+import es.usc.citius.hipster.algorithm.Algorithm;
+import es.usc.citius.hipster.algorithm.BellmanFord;
+import es.usc.citius.hipster.algorithm.BreadthFirstSearch;
+import es.usc.citius.hipster.algorithm.DepthFirstSearch;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.graph.CompressedHipsterDirectedGraph;
+import es.usc.citius.hipster.graph.GraphSearchProblem;
+import es.usc.citius.hipster.model.Transition;
+import es.usc.citius.hipster.model.function.CostFunction;
+import es.usc.citius.hipster.model.function.StateIndexer;
+import es.usc.citius.hipster.model.function.impl.StateTransitionFunction;
+import es.usc.citius.hipster.model.impl.UnweightedNode;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.ProblemBuilder;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import es.usc.citius.hipster.util.Predicate;
+import es.usc.citius.hipster.util.examples.RomanianProblem;
+import es.usc.citius.lab.hipster.collections.IndexedArrayQueue;
+import es.usc.citius.lab.hipster.collections.StampedArrayMap;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+public class StateIndexerTest {
+
+    // 30x30 grid with a wall in row 15 (open in the last column)
+    private static final StateTransitionFunction<Integer> GRID = IntegerProblems.grid(30, new Predicate<Integer>() {
+        @Override
+        public boolean apply(Integer state) {
+            return state / 30 != 15 || state % 30 == 29;
+        }
+    });
+
+    private static final StateIndexer<Integer> INDEXER = IntegerProblems.indexer(900);
+
+    private static SearchProblem<Void, Integer, WeightedNode<Void, Integer, Double>> weighted(StateIndexer<Integer> indexer) {
+        return ProblemBuilder.create()
+                .initialState(0)
+                .useStateIndexer(indexer)
+                .defineProblemWithoutActions()
+                .useTransitionFunction(GRID)
+                .useCostFunction(new CostFunction<Void, Integer, Double>() {
+                    @Override
+                    public Double evaluate(Transition<Void, Integer> transition) {
+                        return 1d + transition.getState() % 3;
+                    }
+                })
+                .build();
+    }
+
+    private static SearchProblem<Void, Integer, UnweightedNode<Void, Integer>> unweighted(StateIndexer<Integer> indexer) {
+        return ProblemBuilder.create()
+                .initialState(0)
+                .useStateIndexer(indexer)
+                .defineProblemWithoutActions()
+                .useTransitionFunction(GRID)
+                .build();
+    }
+
+    @Test
+    public void testProblemBuilder() {
+        assertSame(INDEXER, weighted(INDEXER).getStateIndexer());
+        assertSame(INDEXER, unweighted(INDEXER).getStateIndexer());
+        assertNull(weighted(null).getStateIndexer());
+    }
+
+    @Test
+    public void testAStarWithIndexedStates() {
+        AStar<Void, Integer, Double, WeightedNode<Void, Integer, Double>> astar = Hipster.createAStar(weighted(INDEXER));
+        AStar<Void, Integer, Double, WeightedNode<Void, Integer, Double>>.Iterator it = astar.iterator();
+        assertTrue(it.getOpen() instanceof StampedArrayMap);
+        assertTrue(it.getClosed() instanceof StampedArrayMap);
+        WeightedNode<Void, Integer, Double> expected = Hipster.createAStar(weighted(null)).search(899).getGoalNode();
+        WeightedNode<Void, Integer, Double> goal = astar.search(899).getGoalNode();
+        assertEquals(expected.getCost(), goal.getCost());
+        assertEquals(Algorithm.recoverStatePath(expected), Algorithm.recoverStatePath(goal));
+    }
+
+    @Test
+    public void testBellmanFordWithIndexedStates() {
+        BellmanFord<Void, Integer, Double, WeightedNode<Void, Integer, Double>> bf = Hipster.createBellmanFord(weighted(INDEXER));
+        BellmanFord<Void, Integer, Double, WeightedNode<Void, Integer, Double>>.Iterator it = bf.iterator();
+        assertTrue(it.getQueue() instanceof IndexedArrayQueue);
+        assertTrue(it.getExplored() instanceof StampedArrayMap);
+        WeightedNode<Void, Integer, Double> expected = Hipster.createBellmanFord(weighted(null)).search(899).getGoalNode();
+        assertEquals(expected.getCost(), bf.search(899).getGoalNode().getCost());
+    }
+
+    @Test
+    public void testBreadthFirstSearchWithIndexedStates() {
+        BreadthFirstSearch<Void, Integer, UnweightedNode<Void, Integer>> bfs = Hipster.createBreadthFirstSearch(unweighted(INDEXER));
+        BreadthFirstSearch<Void, Integer, UnweightedNode<Void, Integer>>.Iterator it = bfs.iterator();
+        assertTrue(it.getVisited() instanceof StampedArrayMap);
+        List<Integer> expected = new ArrayList<Integer>();
+        for (UnweightedNode<Void, Integer> node : Hipster.createBreadthFirstSearch(unweighted(null))) {
+            expected.add(node.state());
+        }
+        List<Integer> states = new ArrayList<Integer>();
+        while (it.hasNext()) states.add(it.next().state());
+        assertEquals(expected, states);
+        assertEquals(900 - 29, it.getVisited().size());
+    }
+
+    @Test
+    public void testDepthFirstSearchWithIndexedStates() {
+        List<Integer> expected = new ArrayList<Integer>();
+        for (UnweightedNode<Void, Integer> node : Hipster.createDepthFirstSearch(unweighted(null))) {
+            expected.add(node.state());
+        }
+        DepthFirstSearch<Void, Integer, UnweightedNode<Void, Integer>> dfs = Hipster.createDepthFirstSearch(unweighted(INDEXER));
+        List<Integer> states = new ArrayList<Integer>();
+        for (UnweightedNode<Void, Integer> node : dfs) {
+            states.add(node.state());
+        }
+        assertEquals(expected, states);
+    }
+
+    @Test
+    public void testCompressedGraphIndexesVertices() {
+        CompressedHipsterDirectedGraph<RomanianProblem.City, Double> graph = CompressedHipsterDirectedGraph.copyOf(RomanianProblem.graph());
+        SearchProblem<Double, RomanianProblem.City, WeightedNode<Double, RomanianProblem.City, Double>> p =
+                GraphSearchProblem.startingFrom(RomanianProblem.City.Arad)
+                        .in(graph)
+                        .takeCostsFromEdges()
+                        .useHeuristicFunction(RomanianProblem.heuristicFunction())
+                        .build();
+        assertNotNull(p.getStateIndexer());
+        assertEquals(graph.vertexCount(), p.getStateIndexer().size());
+        assertEquals(418d, Hipster.createAStar(p).search(RomanianProblem.City.Bucharest).getGoalNode().getCost(), 0d);
+        // Graphs without dense ids are not indexed
+        assertNull(GraphSearchProblem.startingFrom(RomanianProblem.City.Arad).in(RomanianProblem.graph()).build().getStateIndexer());
+    }
+}
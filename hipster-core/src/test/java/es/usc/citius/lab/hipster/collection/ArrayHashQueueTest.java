@@ -0,0 +1,95 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.collection;
+
+
+import es.usc.citius.lab.hipster.collections.ArrayHashQueue;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+
+public class ArrayHashQueueTest {
+    @Test
+    public void testOfferDuplicates() throws Exception {
+        ArrayHashQueue<String> queue = new ArrayHashQueue<String>();
+        queue.offer("element-1");
+        queue.offer("element-2");
+        queue.offer("element-1");
+        assertEquals(2, queue.size());
+        assertEquals("element-1", queue.poll());
+        assertEquals("element-2", queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testIterator() throws Exception {
+        ArrayHashQueue<String> queue = new ArrayHashQueue<String>();
+        String[] elements = new String[]{"element-1","element-2","element-3"};
+        queue.offer(elements[0]);
+        queue.offer(elements[1]);
+        queue.offer(elements[2]);
+        Iterator<String> it = queue.iterator();
+        int i=0;
+        while(it.hasNext()){
+            assertEquals(elements[i++],it.next());
+        }
+        assertEquals(3, i);
+        assertEquals(3, queue.size());
+    }
+
+    @Test
+    public void testSameBehaviorAsLinkedHashSet() throws Exception {
+        // Few distinct elements with colliding hashes to force clusters in the hash table
+        Random random = new Random(42);
+        ArrayHashQueue<Integer> queue = new ArrayHashQueue<Integer>();
+        Set<Integer> expected = new LinkedHashSet<Integer>();
+        for (int i = 0; i < 100000; i++) {
+            if (random.nextInt(3) > 0) {
+                Integer e = random.nextInt(500) * 64;
+                queue.offer(e);
+                expected.add(e);
+            } else if (!expected.isEmpty()) {
+                Integer first = expected.iterator().next();
+                expected.remove(first);
+                assertEquals(first, queue.poll());
+            }
+            assertEquals(expected.size(), queue.size());
+        }
+        for (int e = 0; e < 500 * 64; e += 64) {
+            assertEquals(expected.contains(e), queue.contains(e));
+        }
+        assertEquals(new ArrayList<Integer>(expected), new ArrayList<Integer>(queue));
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertFalse(queue.contains(0));
+    }
+
+    @Test
+    public void testClearAlmostEmptyQueue() throws Exception {
+        ArrayHashQueue<Integer> queue = new ArrayHashQueue<Integer>(1024);
+        for (int i = 0; i < 1000; i++) queue.offer(i);
+        for (int i = 0; i < 990; i++) queue.poll();
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertFalse(queue.contains(995));
+        queue.offer(995);
+        assertEquals(Integer.valueOf(995), queue.poll());
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.collection;
+
+import es.usc.citius.hipster.model.function.StateIndexer;
+import es.usc.citius.lab.hipster.collections.ArrayHashQueue;
+import es.usc.citius.lab.hipster.collections.IndexedArrayQueue;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+public class IndexedArrayQueueTest {
+
+    @Test
+    public void testSameBehaviorAsArrayHashQueue() throws Exception {
+        IndexedArrayQueue<Integer> queue = new IndexedArrayQueue<Integer>(new StateIndexer<Integer>() {
+            @Override
+            public int indexOf(Integer state) {
+                return state;
+            }
+
+            @Override
+            public int size() {
+                return 500;
+            }
+        });
+        ArrayHashQueue<Integer> expected = new ArrayHashQueue<Integer>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            if (random.nextInt(3) > 0) {
+                Integer e = random.nextInt(500);
+                queue.offer(e);
+                expected.offer(e);
+            } else {
+                assertEquals(expected.poll(), queue.poll());
+            }
+            assertEquals(expected.size(), queue.size());
+        }
+        for (int e = 0; e < 500; e++) {
+            assertEquals(expected.contains(e), queue.contains(e));
+        }
+        assertEquals(new ArrayList<Integer>(expected), new ArrayList<Integer>(queue));
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertFalse(queue.contains(0));
+        assertNull(queue.poll());
+    }
+}
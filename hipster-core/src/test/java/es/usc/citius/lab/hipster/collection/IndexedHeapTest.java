@@ -0,0 +1,121 @@
+package es.usc.citius.lab.hipster.collection;
+
+
+import es.usc.citius.hipster.algorithm.AStar;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.graph.GraphSearchProblem;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import es.usc.citius.hipster.util.Function;
+import es.usc.citius.hipster.util.examples.RomanianProblem;
+import es.usc.citius.lab.hipster.collections.IndexedHeap;
+import es.usc.citius.lab.hipster.collections.adapter.StateIndexedQueue;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+
+public class IndexedHeapTest {
+
+    // Elements are strings "key:priority", indexed by key and sorted by priority
+    private static IndexedHeap<String, String> createHeap(int arity) {
+        return new IndexedHeap<String, String>(new Function<String, String>() {
+            @Override
+            public String apply(String input) {
+                return input.split(":")[0];
+            }
+        }, new Comparator<String>() {
+            @Override
+            public int compare(String o1, String o2) {
+                return Integer.valueOf(o1.split(":")[1]).compareTo(Integer.valueOf(o2.split(":")[1]));
+            }
+        }, arity);
+    }
+
+    @Test
+    public void testPollOrder() throws Exception {
+        IndexedHeap<Integer, Integer> heap = IndexedHeap.identity();
+        List<Integer> elements = new ArrayList<Integer>();
+        for (int i = 0; i < 1000; i++) elements.add(i);
+        Collections.shuffle(elements, new Random(1));
+        heap.addAll(elements);
+        assertEquals(1000, heap.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(Integer.valueOf(i), heap.poll());
+        }
+        assertTrue(heap.isEmpty());
+        assertNull(heap.poll());
+    }
+
+    @Test
+    public void testDecreaseKey() throws Exception {
+        IndexedHeap<String, String> heap = createHeap(2);
+        heap.offer("a:5");
+        heap.offer("b:3");
+        heap.offer("c:4");
+        heap.offer("a:1");
+        assertEquals(3, heap.size());
+        assertEquals("a:1", heap.get("a"));
+        assertEquals("a:1", heap.poll());
+        assertEquals("b:3", heap.poll());
+        assertEquals("c:4", heap.poll());
+    }
+
+    @Test
+    public void testIncreaseKey() throws Exception {
+        IndexedHeap<String, String> heap = createHeap(4);
+        heap.offer("a:1");
+        heap.offer("b:3");
+        heap.offer("c:4");
+        heap.offer("a:10");
+        assertEquals(3, heap.size());
+        assertEquals("b:3", heap.poll());
+        assertEquals("c:4", heap.poll());
+        assertEquals("a:10", heap.poll());
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        IndexedHeap<String, String> heap = createHeap(3);
+        for (int i = 0; i < 20; i++) {
+            heap.offer("k" + i + ":" + (20 - i));
+        }
+        assertEquals("k5:15", heap.removeKey("k5"));
+        assertFalse(heap.containsKey("k5"));
+        assertFalse(heap.remove("k6:0"));
+        assertTrue(heap.contains("k6:14"));
+        assertTrue(heap.remove("k6:14"));
+        assertEquals(18, heap.size());
+        int last = Integer.MIN_VALUE;
+        while (!heap.isEmpty()) {
+            int priority = Integer.valueOf(heap.poll().split(":")[1]);
+            assertTrue(priority >= last);
+            last = priority;
+        }
+    }
+
+    @Test
+    public void testAStarWithIndexedQueue() throws Exception {
+        SearchProblem<Double, RomanianProblem.City, WeightedNode<Double, RomanianProblem.City, Double>> p =
+                GraphSearchProblem
+                        .startingFrom(RomanianProblem.City.Arad)
+                        .in(RomanianProblem.graph())
+                        .takeCostsFromEdges()
+                        .build();
+        AStar<Double, RomanianProblem.City, Double, WeightedNode<Double, RomanianProblem.City, Double>>.Iterator it =
+                Hipster.createAStar(p).iterator();
+        Queue<WeightedNode<Double, RomanianProblem.City, Double>> queue =
+                new StateIndexedQueue<Double, RomanianProblem.City, WeightedNode<Double, RomanianProblem.City, Double>>();
+        queue.addAll(it.getQueue());
+        it.setQueue(queue);
+        WeightedNode<Double, RomanianProblem.City, Double> node;
+        do {
+            node = it.next();
+            // The indexed queue never holds more nodes than the open map
+            assertEquals(it.getOpen().size(), it.getQueue().size());
+        } while (!node.state().equals(RomanianProblem.City.Bucharest));
+        assertEquals(418d, node.getCost(), 0d);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package es.usc.citius.lab.hipster.collection;
+
+
+import es.usc.citius.lab.hipster.collections.OffHeapNodeArena;
+import es.usc.citius.lab.hipster.collections.OffHeapPriorityQueue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+
+public class OffHeapCollectionsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void fill(OffHeapNodeArena arena, int records) {
+        for (int i = 0; i < records; i++) {
+            arena.add(i * 7, i - 1, i % 5, i * 0.5d, i * 0.25d);
+        }
+    }
+
+    private static void check(OffHeapNodeArena arena, int records) {
+        assertEquals(records, arena.size());
+        for (int i = 0; i < records; i++) {
+            assertEquals(i * 7, arena.state(i));
+            assertEquals(i - 1, arena.parent(i));
+            assertEquals(i % 5, arena.action(i));
+            assertEquals(i * 0.5d, arena.cost(i), 0d);
+            assertEquals(i * 0.25d, arena.estimation(i), 0d);
+            assertEquals(i, arena.depth(i));
+        }
+    }
+
+    @Test
+    public void testArenaRecordsAcrossChunks() throws Exception {
+        // 32 bytes per record: more than one chunk of 4 MB
+        int records = 300000;
+        OffHeapNodeArena arena = new OffHeapNodeArena();
+        fill(arena, records);
+        check(arena, records);
+        assertTrue(arena.capacity() >= (long) records * OffHeapNodeArena.RECORD_BYTES);
+        arena.clear();
+        assertEquals(0, arena.size());
+        assertEquals(0, arena.add(3, -1, -1, 0d, 1d));
+        assertEquals(0, arena.depth(0));
+        arena.close();
+    }
+
+    @Test
+    public void testArenaMappedToFile() throws Exception {
+        int records = 200000;
+        OffHeapNodeArena arena = new OffHeapNodeArena(folder.newFile());
+        fill(arena, records);
+        check(arena, records);
+        arena.close();
+    }
+
+    @Test
+    public void testQueuePollOrder() throws Exception {
+        OffHeapPriorityQueue queue = new OffHeapPriorityQueue();
+        List<Integer> values = new ArrayList<Integer>();
+        for (int i = 0; i < 300000; i++) values.add(i);
+        Collections.shuffle(values, new Random(1));
+        for (int value : values) {
+            // Pairs of values with the same priority
+            queue.add(value / 2, value);
+        }
+        assertEquals(300000, queue.size());
+        for (int i = 0; i < 300000; i++) {
+            assertEquals(i / 2, queue.peekPriority(), 0d);
+            assertEquals(i, queue.peek());
+            assertEquals(i, queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testQueueInterleaved() throws Exception {
+        OffHeapPriorityQueue queue = new OffHeapPriorityQueue();
+        PriorityQueue<Double> expected = new PriorityQueue<Double>();
+        Random random = new Random(7);
+        for (int i = 0; i < 10000; i++) {
+            if (random.nextInt(3) > 0 || expected.isEmpty()) {
+                double priority = random.nextDouble();
+                queue.add(priority, i);
+                expected.add(priority);
+            } else {
+                assertEquals(expected.peek(), queue.peekPriority(), 0d);
+                queue.poll();
+                expected.poll();
+            }
+        }
+        assertEquals(expected.size(), queue.size());
+        queue.clear();
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testPollEmptyQueue() throws Exception {
+        new OffHeapPriorityQueue().poll();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.collection;
+
+import es.usc.citius.hipster.model.function.StateIndexer;
+import es.usc.citius.lab.hipster.collections.StampedArrayMap;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+
+public class StampedArrayMapTest {
+
+    private static final StateIndexer<Integer> INDEXER = new StateIndexer<Integer>() {
+        @Override
+        public int indexOf(Integer state) {
+            return state;
+        }
+
+        @Override
+        public int size() {
+            return 100;
+        }
+    };
+
+    @Test
+    public void testSameBehaviorAsHashMap() {
+        StampedArrayMap<Integer, String> map = new StampedArrayMap<Integer, String>(INDEXER);
+        Map<Integer, String> expected = new HashMap<Integer, String>();
+        Random random = new Random(5);
+        for (int i = 0; i < 5000; i++) {
+            Integer key = random.nextInt(100);
+            switch (random.nextInt(4)) {
+                case 0: assertEquals(expected.remove(key), map.remove(key)); break;
+                case 1: assertEquals(expected.get(key), map.get(key)); break;
+                default: assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+            }
+            assertEquals(expected.size(), map.size());
+            if (i % 1000 == 999) {
+                assertEquals(expected, map);
+                map.clear();
+                expected.clear();
+            }
+        }
+    }
+
+    @Test
+    public void testClearStartsNewGeneration() {
+        StampedArrayMap<Integer, String> map = new StampedArrayMap<Integer, String>(INDEXER);
+        map.put(1, "a");
+        map.put(2, "b");
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+        assertFalse(map.containsKey(2));
+        map.put(2, "c");
+        assertEquals(Collections.singletonMap(2, "c"), map);
+    }
+
+    @Test
+    public void testIterationOrderAndRemoval() {
+        StampedArrayMap<Integer, String> map = new StampedArrayMap<Integer, String>(INDEXER);
+        map.put(7, "a");
+        map.put(3, "b");
+        map.put(50, "c");
+        map.remove(3);
+        map.put(3, "d");
+        List<Integer> keys = new ArrayList<Integer>(map.keySet());
+        assertEquals(Arrays.asList(7, 3, 50), keys);
+        Iterator<Map.Entry<Integer, String>> it = map.entrySet().iterator();
+        it.next();
+        it.remove();
+        assertEquals(2, map.size());
+        assertFalse(map.containsKey(7));
+        assertEquals(Arrays.asList("d", "c"), new ArrayList<String>(map.values()));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.collection;
+
+
+import es.usc.citius.lab.hipster.collections.TranspositionTable;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+public class TranspositionTableTest {
+
+    @Test
+    public void testPruneWorseCosts() throws Exception {
+        TranspositionTable<String, Integer> table = new TranspositionTable<String, Integer>(16);
+        assertTrue(table.offer("a", 5, 0));
+        assertFalse(table.offer("a", 6, 0));
+        // Same cost is only pruned in the same iteration
+        assertFalse(table.offer("a", 5, 0));
+        assertTrue(table.offer("a", 5, 1));
+        // Better cost replaces the entry
+        assertTrue(table.offer("a", 3, 1));
+        assertEquals(Integer.valueOf(3), table.get("a"));
+        assertEquals(1, table.size());
+        assertEquals(2, table.getHits());
+        assertNull(table.get("b"));
+    }
+
+    @Test
+    public void testFixedSize() throws Exception {
+        TranspositionTable<Integer, Integer> table = new TranspositionTable<Integer, Integer>(100, 2);
+        assertEquals(128, table.capacity());
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(table.offer(i, i % 50, 0));
+        }
+        assertEquals(128, table.size());
+        assertTrue(table.getReplacements() > 0);
+        // Lost entries are not pruned
+        int found = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (table.get(i) != null) found++;
+        }
+        assertEquals(128, found);
+    }
+
+    @Test
+    public void testReplaceHighestCost() throws Exception {
+        // With a single slot per state and one slot, the entry with the highest cost is replaced
+        TranspositionTable<Integer, Integer> table = new TranspositionTable<Integer, Integer>(1, 1);
+        table.offer(1, 10, 0);
+        table.offer(2, 20, 0);
+        assertNull(table.get(1));
+        assertEquals(Integer.valueOf(20), table.get(2));
+        table.clear();
+        assertEquals(0, table.size());
+        assertNull(table.get(2));
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.maze;
+
+import es.usc.citius.hipster.algorithm.Algorithm;
+import es.usc.citius.hipster.algorithm.Hipster;
+import es.usc.citius.hipster.model.Transition;
+import es.usc.citius.hipster.model.function.CostFunction;
+import es.usc.citius.hipster.model.function.HeuristicFunction;
+import es.usc.citius.hipster.model.function.impl.StateTransitionFunction;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.ProblemBuilder;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import es.usc.citius.hipster.util.examples.maze.Maze2D;
+import es.usc.citius.hipster.util.examples.maze.Mazes;
+import es.usc.citius.hipster.util.grid.BitGrid2D;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.awt.*;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.*;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BitGrid2DTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File write(String content) throws IOException {
+        File file = folder.newFile();
+        FileWriter writer = new FileWriter(file);
+        writer.write(content);
+        writer.close();
+        return file;
+    }
+
+    private static void assertSameCells(Maze2D maze, BitGrid2D grid) {
+        assertEquals(maze.getColumns(), grid.getColumns());
+        assertEquals(maze.getRows(), grid.getRows());
+        for (int y = -1; y <= maze.getRows(); y++) {
+            for (int x = -1; x <= maze.getColumns(); x++) {
+                assertEquals(maze.isFree(x, y), grid.isFree(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testCopyOfMaze() {
+        Maze2D maze = new Maze2D(Mazes.testMaze3);
+        BitGrid2D grid = BitGrid2D.copyOf(maze, maze.getInitialLoc(), maze.getGoalLoc());
+        assertSameCells(maze, grid);
+        assertEquals(maze.getInitialLoc(), grid.point(grid.getInitialCell()));
+        assertEquals(maze.getGoalLoc(), grid.point(grid.getGoalCell()));
+        grid.setFree(3, 2, false);
+        assertFalse(grid.isFree(3, 2));
+        grid.setFree(3, 2, true);
+        assertTrue(grid.isFree(3, 2));
+    }
+
+    @Test
+    public void testNeighbors() {
+        Maze2D maze = new Maze2D(Mazes.exampleMaze1);
+        BitGrid2D grid = BitGrid2D.copyOf(maze, maze.getInitialLoc(), maze.getGoalLoc());
+        int[] neighbors = new int[8];
+        for (int y = 0; y < maze.getRows(); y++) {
+            for (int x = 0; x < maze.getColumns(); x++) {
+                if (!maze.isFree(x, y)) continue;
+                Set<Point> points = new HashSet<Point>();
+                int count = grid.neighbors(grid.cell(x, y), neighbors);
+                for (int i = 0; i < count; i++) {
+                    points.add(grid.point(neighbors[i]));
+                }
+                assertEquals(count, points.size());
+                assertEquals(new HashSet<Point>(maze.validLocationsFrom(new Point(x, y))), points);
+            }
+        }
+    }
+
+    @Test
+    public void testReadPlainMaze() throws IOException {
+        String[] rows = {"XXS  X", "X   X", " XX  G"};
+        StringBuilder content = new StringBuilder();
+        for (String row : rows) content.append(row).append("\r\n");
+        BitGrid2D grid = BitGrid2D.read(write(content.toString()));
+        assertSameCells(new Maze2D(rows.clone()), grid);
+        assertEquals(grid.cell(2, 0), grid.getInitialCell());
+        assertEquals(grid.cell(5, 2), grid.getGoalCell());
+    }
+
+    @Test
+    public void testReadMovingAIMap() throws IOException {
+        BitGrid2D grid = BitGrid2D.read(write("type octile\nheight 3\nwidth 4\nmap\n.@..\n.TG.\n@@.S\n"));
+        assertEquals(4, grid.getColumns());
+        assertEquals(3, grid.getRows());
+        String free = "1011" + "1011" + "0011";
+        for (int cell = 0; cell < 12; cell++) {
+            assertEquals(free.charAt(cell) == '1', grid.isFree(cell));
+        }
+        assertEquals(-1, grid.getInitialCell());
+    }
+
+    @Test
+    public void testSearchWithProblemBuilder() {
+        final Maze2D maze = new Maze2D(Mazes.exampleMaze1);
+        BitGrid2D grid = BitGrid2D.copyOf(maze, maze.getInitialLoc(), maze.getGoalLoc());
+        SearchProblem<Void, Integer, WeightedNode<Void, Integer, Double>> p = ProblemBuilder.create()
+                .initialState(grid.getInitialCell())
+                .useStateIndexer(grid.stateIndexer())
+                .defineProblemWithoutActions()
+                .useTransitionFunction(grid.transitionFunction())
+                .useCostFunction(grid.costFunction())
+                .useHeuristicFunction(grid.heuristicFunction(grid.getGoalCell()))
+                .build();
+        WeightedNode<Void, Integer, Double> goal = Hipster.createAStar(p).search(grid.getGoalCell()).getGoalNode();
+        assertEquals(grid.getGoalCell(), goal.state().intValue());
+
+        SearchProblem<Void, Point, WeightedNode<Void, Point, Double>> reference = ProblemBuilder.create()
+                .initialState(maze.getInitialLoc())
+                .defineProblemWithoutActions()
+                .useTransitionFunction(new StateTransitionFunction<Point>() {
+                    @Override
+                    public Iterable<Point> successorsOf(Point state) {
+                        return maze.validLocationsFrom(state);
+                    }
+                })
+                .useCostFunction(new CostFunction<Void, Point, Double>() {
+                    @Override
+                    public Double evaluate(Transition<Void, Point> transition) {
+                        return transition.getFromState().distance(transition.getState());
+                    }
+                })
+                .useHeuristicFunction(new HeuristicFunction<Point, Double>() {
+                    @Override
+                    public Double estimate(Point state) {
+                        return state.distance(maze.getGoalLoc());
+                    }
+                })
+                .build();
+        double expected = Hipster.createAStar(reference).search(maze.getGoalLoc()).getGoalNode().getCost();
+        assertEquals(expected, goal.getCost(), 1e-9);
+        List<Integer> path = Algorithm.recoverStatePath(goal);
+        assertEquals(grid.getInitialCell(), path.get(0).intValue());
+    }
+}
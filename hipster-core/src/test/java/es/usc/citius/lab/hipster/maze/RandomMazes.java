@@ -0,0 +1,93 @@
+/*
+ * Copyright 2014 CITIUS <http://citius.usc.es>, University of Santiago de Compostela.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package es.usc.citius.lab.hipster.maze;
+
+import es.usc.citius.hipster.model.Transition;
+import es.usc.citius.hipster.model.function.CostFunction;
+import es.usc.citius.hipster.model.function.HeuristicFunction;
+import es.usc.citius.hipster.model.function.impl.StateTransitionFunction;
+import es.usc.citius.hipster.model.impl.WeightedNode;
+import es.usc.citius.hipster.model.problem.ProblemBuilder;
+import es.usc.citius.hipster.model.problem.SearchProblem;
+import es.usc.citius.hipster.util.examples.maze.Maze2D;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Random mazes and maze problems shared by the tests of the grid algorithms.
+ */
+public final class RandomMazes {
+
+    private RandomMazes() {}
+
+    /**
+     * Creates a square maze with random obstacles, starting at the top left cell and
+     * with the goal at the bottom right cell.
+     *
+     * @param size number of rows and columns
+     * @param fill probability of each cell to be occupied
+     * @param seed seed of the random generator
+     * @return random maze
+     */
+    public static Maze2D random(int size, double fill, long seed) {
+        Random random = new Random(seed);
+        char[][] tiles = new char[size][size];
+        for (int row = 0; row < size; row++) {
+            Arrays.fill(tiles[row], Maze2D.Symbol.EMPTY.value());
+            for (int column = 0; column < size; column++) {
+                if (random.nextDouble() < fill) tiles[row][column] = Maze2D.Symbol.OCCUPIED.value();
+            }
+        }
+        tiles[0][0] = Maze2D.Symbol.START.value();
+        tiles[size - 1][size - 1] = Maze2D.Symbol.GOAL.value();
+        return new Maze2D(tiles);
+    }
+
+    /**
+     * Creates the 8-connected shortest path problem of a maze, with euclidean distances
+     * as costs and heuristic.
+     *
+     * @param maze maze to solve
+     * @return search problem from the initial location of the maze
+     */
+    public static SearchProblem<Void, Point, WeightedNode<Void, Point, Double>> problem(final Maze2D maze) {
+        return ProblemBuilder.create()
+                .initialState(maze.getInitialLoc())
+                .defineProblemWithoutActions()
+                .useTransitionFunction(new StateTransitionFunction<Point>() {
+                    @Override
+                    public Iterable<Point> successorsOf(Point state) {
+                        return maze.validLocationsFrom(state);
+                    }
+                })
+                .useCostFunction(new CostFunction<Void, Point, Double>() {
+                    @Override
+                    public Double evaluate(Transition<Void, Point> transition) {
+                        return transition.getFromState().distance(transition.getState());
+                    }
+                })
+                .useHeuristicFunction(new HeuristicFunction<Point, Double>() {
+                    @Override
+                    public Double estimate(Point state) {
+                        return state.distance(maze.getGoalLoc());
+                    }
+                })
+                .build();
+    }
+}